@@ -0,0 +1,197 @@
+package com.aliyun.ha3engine.jdbc;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.sql.Array;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 多值字段对应的java.sql.Array，直接引用结果集中共享的原始类型数组的一段，不做装箱
+ *
+ * getArray()返回int[]/long[]/double[]/String[]，总是只做一次原始类型拷贝，调用方修改返回的数组不影响结果集；
+ * unwrap(IntBuffer.class/LongBuffer.class/DoubleBuffer.class)返回该段的只读视图，不发生拷贝
+ */
+public class Ha3Array implements Array, Ha3Wrapper {
+
+    private final int baseType;
+    private Object buffer;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param baseType java.sql.Types中的INTEGER、BIGINT、DOUBLE或VARCHAR
+     * @param buffer   int[]、long[]、double[]或String[]
+     * @param offset   该数组在buffer中的起始下标
+     * @param length   元素个数
+     */
+    public Ha3Array(int baseType, Object buffer, int offset, int length) {
+        this.baseType = baseType;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String getBaseTypeName() throws SQLException {
+        return JDBCType.valueOf(baseType).getName();
+    }
+
+    @Override
+    public int getBaseType() throws SQLException {
+        return baseType;
+    }
+
+    @Override
+    public Object getArray() throws SQLException {
+        return slice(0, length);
+    }
+
+    @Override
+    public Object getArray(Map<String, Class<?>> map) throws SQLException {
+        return getArray();
+    }
+
+    @Override
+    public Object getArray(long index, int count) throws SQLException {
+        if (index < 1 || count < 0 || index - 1 + count > length) {
+            throw new SQLException("Array index out of range: " + index + ", count: " + count);
+        }
+        return slice((int)index - 1, count);
+    }
+
+    @Override
+    public Object getArray(long index, int count, Map<String, Class<?>> map) throws SQLException {
+        return getArray(index, count);
+    }
+
+    private Object slice(int from, int count) throws SQLException {
+        Object source = checkBuffer();
+        int start = offset + from;
+        int end = start + count;
+        switch (baseType) {
+            case Types.INTEGER:
+                return Arrays.copyOfRange((int[])source, start, end);
+            case Types.BIGINT:
+                return Arrays.copyOfRange((long[])source, start, end);
+            case Types.DOUBLE:
+                return Arrays.copyOfRange((double[])source, start, end);
+            default:
+                return Arrays.copyOfRange((Object[])source, start, end);
+        }
+    }
+
+    private Object checkBuffer() throws SQLException {
+        if (buffer == null) {
+            throw new SQLException("Array has been freed");
+        }
+        return buffer;
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        throw new SQLFeatureNotSupportedException("Array.getResultSet not supported");
+    }
+
+    @Override
+    public ResultSet getResultSet(Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Array.getResultSet not supported");
+    }
+
+    @Override
+    public ResultSet getResultSet(long index, int count) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Array.getResultSet not supported");
+    }
+
+    @Override
+    public ResultSet getResultSet(long index, int count, Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Array.getResultSet not supported");
+    }
+
+    @Override
+    public void free() throws SQLException {
+        buffer = null;
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface == null) {
+            return false;
+        }
+        switch (baseType) {
+            case Types.INTEGER:
+                if (iface == IntBuffer.class || iface == int[].class) {
+                    return true;
+                }
+                break;
+            case Types.BIGINT:
+                if (iface == LongBuffer.class || iface == long[].class) {
+                    return true;
+                }
+                break;
+            case Types.DOUBLE:
+                if (iface == DoubleBuffer.class || iface == double[].class) {
+                    return true;
+                }
+                break;
+            default:
+                if (iface == String[].class) {
+                    return true;
+                }
+        }
+        return iface.isAssignableFrom(getClass());
+    }
+
+    /**
+     * 除Ha3Wrapper的默认行为外，支持unwrap为原始类型数组或nio buffer视图
+     *
+     * @param iface int[]/long[]/double[]/String[]返回数组的拷贝，IntBuffer/LongBuffer/DoubleBuffer返回只读视图
+     * @param <T>
+     * @return
+     * @throws SQLException 不支持的类型
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface == IntBuffer.class && baseType == Types.INTEGER) {
+            return (T)IntBuffer.wrap((int[])checkBuffer(), offset, length).slice().asReadOnlyBuffer();
+        }
+        if (iface == LongBuffer.class && baseType == Types.BIGINT) {
+            return (T)LongBuffer.wrap((long[])checkBuffer(), offset, length).slice().asReadOnlyBuffer();
+        }
+        if (iface == DoubleBuffer.class && baseType == Types.DOUBLE) {
+            return (T)DoubleBuffer.wrap((double[])checkBuffer(), offset, length).slice().asReadOnlyBuffer();
+        }
+        if (iface != null && iface.isArray() && isWrapperFor(iface)) {
+            return (T)getArray();
+        }
+        return Ha3Wrapper.super.unwrap(iface);
+    }
+
+    @Override
+    public String toString() {
+        try {
+            Object array = getArray();
+            if (array instanceof int[]) {
+                return Arrays.toString((int[])array);
+            } else if (array instanceof long[]) {
+                return Arrays.toString((long[])array);
+            } else if (array instanceof double[]) {
+                return Arrays.toString((double[])array);
+            }
+            return Arrays.toString((Object[])array);
+        } catch (SQLException e) {
+            return "[]";
+        }
+    }
+}
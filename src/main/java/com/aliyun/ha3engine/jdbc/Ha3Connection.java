@@ -16,6 +16,7 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -30,6 +31,7 @@ import com.aliyun.ha3engine.jdbc.common.exception.ErrorCode;
 import com.aliyun.ha3engine.jdbc.common.exception.Ha3DriverException;
 import com.aliyun.ha3engine.jdbc.sdk.client.CloudClient;
 import com.aliyun.ha3engine.jdbc.sdk.client.CloudClientHolder;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3OffHeapAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +56,14 @@ public class Ha3Connection implements Connection, Ha3Wrapper {
     private String catalog;
     private String schema;
     protected List<Ha3Statement> statements = new Vector<>();
+    /**
+     * 该连接下off-heap结果集共用的分配器，统计连接占用的堆外内存
+     */
+    private final Ha3OffHeapAllocator offHeapAllocator = new Ha3OffHeapAllocator();
+    /**
+     * 该连接下executeQueryAsync发起请求的线程池，为null时使用CloudClient按asyncThreads创建的线程池
+     */
+    private volatile Executor asyncExecutor;
 
     /**
      * Builds the ha3 {@link CloudClient} using the provided parameters.
@@ -119,7 +129,10 @@ public class Ha3Connection implements Connection, Ha3Wrapper {
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
-        return new Ha3PreparedStatement(this, cloudClient, sql);
+        checkClosed();
+        Ha3PreparedStatement st = new Ha3PreparedStatement(this, cloudClient, sql);
+        statements.add(st);
+        return st;
     }
 
     @Override
@@ -160,7 +173,16 @@ public class Ha3Connection implements Connection, Ha3Wrapper {
             return;
         }
         synchronized (this) {
+            // 关闭尚未关闭的Statement及其结果集，Statement.close会从statements中移除自己
+            for (Ha3Statement statement : new ArrayList<>(statements)) {
+                try {
+                    statement.close();
+                } catch (Exception e) {
+                    logger.error("close ha3 statement error.", e);
+                }
+            }
             statements.clear();
+            offHeapAllocator.close();
             //如果是共用单例client
             try {
                 singletonLock.lock();
@@ -231,13 +253,17 @@ public class Ha3Connection implements Connection, Ha3Wrapper {
 
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
-        return createStatement();
+        Ha3Statement st = (Ha3Statement)createStatement();
+        st.setResultSetType(resultSetType, resultSetConcurrency);
+        return st;
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
         throws SQLException {
-        return prepareStatement(sql);
+        Ha3PreparedStatement ps = (Ha3PreparedStatement)prepareStatement(sql);
+        ps.setResultSetType(resultSetType, resultSetConcurrency);
+        return ps;
     }
 
     @Override
@@ -292,13 +318,13 @@ public class Ha3Connection implements Connection, Ha3Wrapper {
         if (this.cloudClient == null) {
             throw new SQLException("Unable to connect on specified schema '" + this.schema + "'");
         }
-        return createStatement();
+        return createStatement(resultSetType, resultSetConcurrency);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
         int resultSetHoldability) throws SQLException {
-        return prepareStatement(sql);
+        return prepareStatement(sql, resultSetType, resultSetConcurrency);
     }
 
     @Override
@@ -414,6 +440,33 @@ public class Ha3Connection implements Connection, Ha3Wrapper {
         }
     }
 
+    public Ha3OffHeapAllocator getOffHeapAllocator() {
+        return offHeapAllocator;
+    }
+
+    /**
+     * 该连接下尚未关闭的off-heap结果集占用的堆外字节数
+     *
+     * @return
+     */
+    public long getOffHeapBytes() {
+        return offHeapAllocator.getAllocatedBytes();
+    }
+
+    /**
+     * 设置该连接下executeQueryAsync发起请求的线程池，对之后的异步查询生效
+     *
+     * @param asyncExecutor 为null时恢复默认线程池
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public Executor getAsyncExecutor() {
+        Executor executor = asyncExecutor;
+        return executor != null ? executor : cloudClient.getAsyncExecutor();
+    }
+
     public Ha3Config getHa3Config() {
         return ha3Config;
     }
@@ -701,12 +701,12 @@ public class Ha3DatabaseMetaData implements DatabaseMetaData, Ha3Wrapper {
 
     @Override
     public boolean supportsResultSetType(int type) {
-        return false;
+        return type == ResultSet.TYPE_FORWARD_ONLY || type == ResultSet.TYPE_SCROLL_INSENSITIVE;
     }
 
     @Override
     public boolean supportsResultSetConcurrency(int type, int concurrency) {
-        return false;
+        return supportsResultSetType(type) && concurrency == ResultSet.CONCUR_READ_ONLY;
     }
 
     @Override
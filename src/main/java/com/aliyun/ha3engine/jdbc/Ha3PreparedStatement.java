@@ -24,21 +24,17 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 
-import com.alibaba.druid.DbType;
-import com.alibaba.druid.sql.visitor.ParameterizedOutputVisitorUtils;
-import com.alibaba.druid.util.JdbcConstants;
-import com.aliyun.ha3engine.jdbc.common.config.Ha3KvPairBuilder;
 import com.aliyun.ha3engine.jdbc.common.exception.ErrorCode;
 import com.aliyun.ha3engine.jdbc.common.exception.Ha3DriverException;
 import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
 import com.aliyun.ha3engine.jdbc.sdk.client.CloudClient;
-import org.apache.commons.lang3.StringUtils;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3QueryResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +51,10 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
     private String preparedSql;
     private final char firstStmtChar;
     private final Object[] sqlAndParams;
+    /**
+     * 通过setNull显式设为null的参数，与未设置的参数区分
+     */
+    private final BitSet nullParams = new BitSet();
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", Locale.ROOT);
     private static String ENCODING = "UTF-8";
 
@@ -100,6 +100,44 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
         }
     }
 
+    /**
+     * 异步执行预编译的sql，参数在调用时确定，之后修改参数不影响本次查询
+     *
+     * @return
+     * @see Ha3Statement#executeQueryAsync(String)
+     */
+    public CompletableFuture<Ha3ResultSet> executeQueryAsync() {
+        if (firstStmtChar != 'S') {
+            return failedFuture(new SQLException(
+                "Provided query type '" + preparedSql.substring(0, preparedSql.indexOf(' ')) + "' is not supported!"));
+        }
+        String finalSql;
+        try {
+            finalSql = getSql(preparedSql).toString();
+        } catch (SQLException e) {
+            return failedFuture(e);
+        }
+        if (this.ha3Connection.getHa3Config().isEnableDetailLog()) {
+            logger.info("Ha3PreparedStatement async sql:" + preparedSql);
+        }
+        // 与同步执行相同，开启动态参数化且没有kvpair内容时需要改写sql
+        int kvpairIndex = finalSql.lastIndexOf("&&kvpair=");
+        if (this.ha3Connection.getHa3Config().isEnableDynamicParams()
+            && (kvpairIndex < 0 || finalSql.length() - kvpairIndex <= 9)) {
+            try {
+                return executeDynamicParamsAsync(preparedSql);
+            } catch (SQLException e) {
+                return failedFuture(e);
+            }
+        }
+        return queryAsync(finalSql);
+    }
+
+    @Override
+    public CompletableFuture<Ha3ResultSet> executeQueryAsync(String sql) {
+        return failedFuture(new SQLException("Forbidden method on PreparedStatement"));
+    }
+
     @Override
     public int executeUpdate() throws SQLException {
         throw new SQLFeatureNotSupportedException("Ha3 Cloud client not support update!");
@@ -176,6 +214,7 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
     @Override
     public void setNull(int parameterIndex, int sqlType) {
         this.sqlAndParams[parameterIndex] = null;
+        this.nullParams.set(parameterIndex);
     }
 
     @Override
@@ -260,9 +299,10 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
 
     @Override
     public void clearParameters() {
-        for (int i = 1; i < sqlAndParams.length; i += 2) {
+        for (int i = 1; i < sqlAndParams.length; i++) {
             sqlAndParams[i] = null;
         }
+        nullParams.clear();
     }
 
     @Override
@@ -340,6 +380,7 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) {
         this.sqlAndParams[parameterIndex] = null;
+        this.nullParams.set(parameterIndex);
     }
 
     @Override
@@ -469,12 +510,13 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
      * @param sql
      * @throws SQLException
      */
-    protected void initResultSet(String sql) throws Ha3DriverException {
+    protected void initResultSet(String sql) throws SQLException {
+        closeResultSet();
         if (this.ha3Connection.getHa3Config().isEnableDetailLog()) {
             logger.info("Ha3PreparedStatement sql:" + sql);
         }
         StringBuilder sqlBuilder = getSql(sql);
-        String result;
+        Ha3QueryResult result;
         if (this.ha3Connection.getHa3Config().isEnableDynamicParams()) {
             String finalSql = sqlBuilder.toString();
             int finalSqlLength = finalSql.length();
@@ -483,173 +525,31 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
             //开启sql动态参数化
             if (kvpairSize.length() > 9) {
                 //sql带了kvpair，默认用户自己拼了动态参数等
-                result = cloudClient.query(finalSql);
+                result = cloudClient.query(finalSql, getDecodeOptions());
                 this.ha3ResultSet = new Ha3ResultSet(result, this);
             } else {
-                boolean canConvert = true;
-                String originalSql = sql;
-
-                // 正则表达式匹配 SELECT 关键字，忽略大小写
-                Pattern selectPattern = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
-
-                Matcher selectMatcher = selectPattern.matcher(sql);
-
-                // 计算匹配到的 SELECT 关键字数量
-                int selectCount = 0;
-                while (selectMatcher.find()) {
-                    selectCount++;
-                }
-
-                String beginSql = "";
-                String endSql = "";
-                int firstIndex = -1;
-                int lastIndex = -1;
-                if (selectCount > 1) {
-                    firstIndex = sql.indexOf("(");
-                    lastIndex = sql.lastIndexOf(")");
-                    if (-1 != firstIndex && -1 != lastIndex) {
-                        beginSql = sql.substring(0, firstIndex + 1);
-                        endSql = sql.substring(lastIndex, sql.length());
-                        sql = sql.substring(firstIndex + 1, lastIndex);
-                    }
-                }
-
-                // 提取LIMIT子句中的常量值
-                Pattern limitPattern = Pattern.compile("(?i)limit\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
-                Matcher limitMatcher = limitPattern.matcher(sql);
-                int limitValue = -1;
-                if (limitMatcher.find()) {
-                    limitValue = Integer.parseInt(limitMatcher.group(1));
-                    sql = sql.replaceFirst("(?i)limit\\s+\\d+", "");
-                }
-
-                // 提取OFFSET子句中的常量值
-                Pattern offsetPattern = Pattern.compile("(?i)offset\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
-                Matcher offsetMatcher = offsetPattern.matcher(sql);
-                int offsetValue = -1;
-                if (offsetMatcher.find()) {
-                    offsetValue = Integer.parseInt(offsetMatcher.group(1));
-                    sql = sql.replaceFirst("(?i)offset\\s+\\d+", "");
-                }
-
-                // 创建不区分大小写的识别where的Pattern对象
-                Pattern pattern = Pattern.compile(Pattern.quote("where"), Pattern.CASE_INSENSITIVE);
-                Matcher matcher = pattern.matcher(sql);
-                String firstPart = "";
-                String secondPart = "";
-                String thirdPart = "";
-                if (matcher.find()) {
-                    // 查询的第一部分
-                    firstPart = sql.substring(0, matcher.start());
-                    // 查询的第二部分
-                    secondPart = sql.substring(matcher.start(), sql.length());
-                    Pattern groupByPattern = Pattern.compile(Pattern.quote("group by"), Pattern.CASE_INSENSITIVE);
-                    Matcher groupByMatcher = groupByPattern.matcher(secondPart);
-                    if (groupByMatcher.find()) {
-                        // 查询的第三部分
-                        thirdPart = secondPart.substring(groupByMatcher.start(), secondPart.length());
-                        // 查询的第二部分
-                        secondPart = secondPart.substring(0, groupByMatcher.start());
-                    }
-                } else {
-                    firstPart = sql;
-                }
-
-                // 创建不区分大小写的识别case when的Pattern对象
-                Pattern caseWhenPattern = Pattern.compile(Pattern.quote("case when"), Pattern.CASE_INSENSITIVE);
-                Matcher caseWhenMatcher = caseWhenPattern.matcher(secondPart);
-                if (caseWhenMatcher.find()) {
-                    canConvert = false;
-                }
-
-                // 创建不区分大小写的识别in的Pattern对象
-                Pattern inPattern = Pattern.compile(Pattern.quote(" in"), Pattern.CASE_INSENSITIVE);
-                Matcher inMatcher = inPattern.matcher(secondPart);
-                if (inMatcher.find()) {
-                    canConvert = false;
-                }
-
-                final DbType dbType = JdbcConstants.MYSQL;
-                // 参数化SQL是输出的参数保存在这个List中
-                List<Object> outParameters = new ArrayList<Object>();
-                String psql = "";
-                if (secondPart != null && StringUtils.isNotEmpty(secondPart)) {
-                    secondPart = "select * from mock " + secondPart;
-                    if (canConvert) {
-                        try {
-                            psql = ParameterizedOutputVisitorUtils.parameterize(secondPart, dbType, outParameters);
-                        } catch (Exception e) {
-                            logger.info("sql can not convert to dynamic params!");
-                            canConvert = false;
-                        }
-                    } else {
-                        logger.info("sql can not convert to dynamic params!");
-                    }
-
-                    psql = psql.replace("SELECT *\n"
-                            + "FROM mock\n", "");
-                }
-
-                psql = firstPart + psql + " " + thirdPart;
-
-                // 恢复LIMIT子句
-                if (limitValue > 0) {
-                    int limitIndex = psql.length();
-                    psql = psql.substring(0, limitIndex) + " LIMIT " + limitValue;
-                }
-
-                // 恢复OFFSET子句
-                if (offsetValue >= 0) {
-                    int offsetIndex = psql.length();
-                    psql = psql.substring(0, offsetIndex) + " OFFSET " + offsetValue;
-                }
-
-                if ((selectCount > 1) && (-1 != firstIndex && -1 != lastIndex)) {
-                    psql = beginSql + psql + endSql;
-                }
-
-                if (canConvert) {
-                    try {
-                        PreparedStatement preparedStatement = this.ha3Connection.prepareStatement(psql);
-                        for (int i = 0; i < outParameters.size(); i++) {
-                            preparedStatement.setObject(i + 1, outParameters.get(i));
-                        }
-                        Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
-                        kvPairBuilder.enableCache();
-                        kvPairBuilder.setPrepareLevel("jni.post.optimize");
-                        kvPairBuilder.setFormatType("flatbuffers");
-                        kvPairBuilder.setDatabaseName("general");
-                        kvPairBuilder.enableUrlEncodeData();
-                        if (outParameters.size() > 0) {
-                            kvPairBuilder.setDynamicParams();
-                        }
-                        preparedStatement.setString(0, kvPairBuilder.getKvPairString());
-                        this.ha3ResultSet = (Ha3ResultSet)preparedStatement.executeQuery();
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                    }
-                } else {
-                    try {
-                        PreparedStatement preparedStatement = this.ha3Connection.prepareStatement(originalSql);
-                        Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
-                        kvPairBuilder.enableCache();
-                        kvPairBuilder.setPrepareLevel("jni.post.optimize");
-                        kvPairBuilder.setFormatType("flatbuffers");
-                        kvPairBuilder.setDatabaseName("general");
-                        kvPairBuilder.enableUrlEncodeData();
-                        preparedStatement.setString(0, kvPairBuilder.getKvPairString());
-                        this.ha3ResultSet = (Ha3ResultSet)preparedStatement.executeQuery();
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                    }
+                try {
+                    this.ha3ResultSet = executeDynamicParams(sql);
+                } catch (SQLException e) {
+                    e.printStackTrace();
                 }
             }
         } else {
-            result = cloudClient.query(sqlBuilder.toString());
+            result = cloudClient.query(sqlBuilder.toString(), getDecodeOptions());
             this.ha3ResultSet = new Ha3ResultSet(result, this);
         }
     }
 
+    /**
+     * PreparedStatement改写后的sql以flatbuffers格式请求
+     *
+     * @return
+     */
+    @Override
+    protected String getDynamicParamsFormatType() {
+        return "flatbuffers";
+    }
+
     // 生成动态参数二维列表
     private StringBuilder replaceDynamicParams(List<Object> values) throws Ha3DriverException {
         StringBuilder dynamicParams = new StringBuilder();
@@ -664,9 +564,12 @@ public class Ha3PreparedStatement extends Ha3Statement implements PreparedStatem
         int cur = 0;
         for (Object value : values) {
             if (null == value) {
-                throw new Ha3DriverException(ErrorCode.EMPTY_PARAM, "empty params!");
-            }
-            if (value.getClass() == String.class) {
+                // 参数从下标1开始，未设置的参数报错，setNull的参数写为null
+                if (!nullParams.get(cur + 1)) {
+                    throw new Ha3DriverException(ErrorCode.EMPTY_PARAM, "empty params!");
+                }
+                value = "null";
+            } else if (value.getClass() == String.class) {
                 value = "\"" + value + "\"";
             }
 
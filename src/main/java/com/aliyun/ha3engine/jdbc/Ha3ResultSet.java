@@ -1,5 +1,6 @@
 package com.aliyun.ha3engine.jdbc;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
@@ -20,38 +21,61 @@ import java.sql.SQLXML;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.aliyun.ha3engine.jdbc.common.exception.ErrorInfo;
 import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ArrowExporter;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3Batch;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3Column;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ColumnLabels;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ColumnStore;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ColumnType;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3QueryResult;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ResultArena;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3RowMapper;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3RowStream;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3StringColumn;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3StringDictionary;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3TemporalDecoder;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 
 /**
  * Ha3 JDBC result set
  *
- * 数据结果
- * {
- * "columns": [{"name": "xx", "type": "xxx"},...],
- * "rows": [["xxx", xxx],[...],...]
- * }
+ * 数据结果来自{@link Ha3QueryResult}，列名、列类型和行数据由Ha3ResultDecoder一次解码得到，
+ * 行数据按column_type保存为列式存储{@link Ha3ColumnStore}
+ *
+ * 结果集类型与Statement请求的一致，TYPE_FORWARD_ONLY的结果集只能用next()移动。
+ * decodeMode=streaming时结果集为TYPE_FORWARD_ONLY，columnStore只是当前的窗口，next()越过窗口时从
+ * {@link Ha3RowStream}读取下一批行并复用窗口的存储，之前取到的Array等对象在窗口切换后失效
  *
  * @author yongxing.dyx
  * @date 2024/12/17
  */
 public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
+    private static final int DEFAULT_WINDOW_ROWS = 1024;
+
     private final Ha3Statement ha3Statement;
-    private final List<String> keyList = new ArrayList<>();
-    private final List<String> typeList = new ArrayList<>();
+    private List<String> keyList;
+    private List<String> typeList;
     //数据读取行是从1开始，另外列也是从1开始
     private int rowNumber = 0;
     private boolean wasNull = false;
     private boolean isAfterLast = false;
+    private int fetchDirection = ResultSet.FETCH_FORWARD;
+    private int type = ResultSet.TYPE_FORWARD_ONLY;
 
     // 错误信息
     private ErrorInfo errorInfo;
@@ -60,82 +84,196 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
         return errorInfo;
     }
 
+    private Ha3ColumnStore columnStore;
+    /**
+     * 列名到列序号（从1开始）的映射，先按原名精确匹配，再忽略大小写匹配
+     */
+    private Ha3ColumnLabels labels;
+    /**
+     * 按列缓存的时间解码器，第一次读取时间类型时创建
+     */
+    private Ha3TemporalDecoder[] temporalDecoders;
+    /**
+     * 最近一次mapTo/stream使用的映射器
+     */
+    private Ha3RowMapper<?> rowMapper;
+
     private List<JsonArray> jsonArrayList;
 
-    //jsonArrayList提供一个get方法
+    /**
+     * 流式结果尚未读取的行，非流式结果为null
+     */
+    private Ha3RowStream rowStream;
+    private Ha3QueryResult result;
+    /**
+     * 当前窗口第一行之前的行数
+     */
+    private int windowStart = 0;
+    private int windowRows;
+    private boolean closed = false;
+
+    /**
+     * 按行返回数据，仅用于兼容，数据实际按列保存在{@link #getColumnStore()}中，流式结果只包含当前窗口
+     *
+     * @return
+     */
     public List<JsonArray> getJsonArrayList() {
+        if (jsonArrayList == null && columnStore != null) {
+            List<JsonArray> rows = new ArrayList<>(columnStore.getRowCount());
+            for (int i = 0; i < columnStore.getRowCount(); i++) {
+                rows.add(columnStore.getRow(i));
+            }
+            jsonArrayList = rows;
+        }
         return jsonArrayList;
     }
 
-    public Ha3ResultSet(String result, Ha3Statement ha3Statement) {
-        this.ha3Statement = ha3Statement;
-        initJsonArrayList(result);
+    public Ha3ColumnStore getColumnStore() {
+        return columnStore;
     }
 
-    private void initJsonArrayList(String result) {
-        if (jsonArrayList == null) {
-            try {
-                jsonArrayList = new ArrayList<>();
-
-                JsonObject jsonObject = JsonUtils.fromJson(result, JsonObject.class);
-
-                JsonArray colums = jsonObject.getAsJsonArray("columns");
-                if (null != colums) {
-                    for (int i = 0; i < colums.size(); i++) {
-                        JsonObject col = colums.get(i).getAsJsonObject();
-                        keyList.add(col.get("name").getAsString());
-                        typeList.add(col.get("type").getAsString());
-                    }
-                }
-
-                JsonArray rows = jsonObject.getAsJsonArray("rows");
-                if (null != rows) {
-                    for (int i = 0, size = rows.size(); i < size; i++) {
-                        JsonArray row = rows.get(i).getAsJsonArray();
-
-                        jsonArrayList.add(row);
-                    }
-                }
-
-                //填充错误信息
-                JsonObject error = jsonObject.getAsJsonObject("error");
-                if (null != error) {
-                    errorInfo = new ErrorInfo(error.get("errorCode").getAsLong(), error.get("message").getAsString(),
-                        error.get("error").getAsString());
-                }
-
-            } catch (Exception e) {
-                wasNull = true;
-                errorInfo = new ErrorInfo(500,
-                    "initJsonArrayList exception", "detail error" + e.getMessage());
+    public Ha3ResultSet(Ha3QueryResult result, Ha3Statement ha3Statement) {
+        this.ha3Statement = ha3Statement;
+        initColumnStore(result);
+    }
+
+    private void initColumnStore(Ha3QueryResult result) {
+        if (result != null) {
+            Ha3ResultArena arena = result.getDecodeOptions().getArena();
+            labels = arena == null ? new Ha3ColumnLabels(result.getColumnNames(), result.getColumnTypes())
+                : arena.getLabels(result.getColumnNames(), result.getColumnTypes());
+            columnStore = result.getColumnStore();
+            rowStream = result.getRowStream();
+            if (rowStream != null) {
+                this.result = result;
+                int fetchSize = ha3Statement == null ? 0 : ha3Statement.fetchSize;
+                windowRows = fetchSize > 0 ? fetchSize : defaultWindowRows();
             }
+            if (rowStream == null && result.getDecodeOptions().isScrollable()) {
+                type = ResultSet.TYPE_SCROLL_INSENSITIVE;
+            }
+            //填充错误信息
+            errorInfo = result.getErrorInfo();
         } else {
             errorInfo = new ErrorInfo(404, "ha3 result is null",
-                "jdbc inner initJsonArrayList jsonArrayList is null");
+                "jdbc inner initColumnStore columnStore is null");
+            labels = Ha3ColumnLabels.EMPTY;
+        }
+        keyList = labels.getColumnNames();
+        typeList = labels.getColumnTypes();
+    }
+
+    private int defaultWindowRows() {
+        if (ha3Statement == null) {
+            return DEFAULT_WINDOW_ROWS;
+        }
+        return ha3Statement.ha3Connection.getHa3Config().getStreamingWindowRows();
+    }
+
+    private int getRowCount() {
+        return columnStore == null ? 0 : columnStore.getRowCount();
+    }
+
+    private Ha3Column getColumn(int columnIndex) throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
         }
+        if (columnStore == null || columnIndex < 1 || columnIndex > columnStore.getColumnCount()) {
+            throw new SQLException("Column index out of range: " + columnIndex);
+        }
+        return columnStore.getColumn(columnIndex - 1);
     }
 
-    private String getKey(int columnIndex) {
-        return this.keyList.get(columnIndex - 1);
+    private int getCurrentRow() throws SQLException {
+        int row = rowNumber - 1 - windowStart;
+        if (isAfterLast || rowNumber < 1 || row < 0 || row >= getRowCount()) {
+            throw new SQLException("No current row, rowNumber: " + rowNumber);
+        }
+        return row;
     }
 
     @Override
-    public boolean next() {
-        if (jsonArrayList != null && jsonArrayList.size() > rowNumber) {
+    public boolean next() throws SQLException {
+        if (rowStream != null) {
+            return nextStreaming();
+        }
+        if (getRowCount() > rowNumber) {
             this.rowNumber++;
             return true;
         }
 
-        if (jsonArrayList != null && jsonArrayList.size() != 0) {
+        if (getRowCount() != 0) {
             isAfterLast = true;
         }
 
         return false;
     }
 
-    @Override
-    public void close() {
+    private boolean nextStreaming() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        if (rowNumber - windowStart < getRowCount()) {
+            this.rowNumber++;
+            return true;
+        }
+        if (isAfterLast) {
+            return false;
+        }
+        windowStart += getRowCount();
+        jsonArrayList = null;
+        int rows;
+        try {
+            rows = rowStream.fill(columnStore, windowRows);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read ha3 result stream", e);
+        }
+        if (rowStream.isExhausted() && result.getErrorInfo() != null) {
+            errorInfo = result.getErrorInfo();
+        }
+        if (rows > 0) {
+            this.rowNumber++;
+            return true;
+        }
+        if (windowStart > 0) {
+            isAfterLast = true;
+        }
+        // 与非流式结果保持一致，rowNumber停在最后一行
+        return false;
+    }
 
+    /**
+     * @return 下一次next()是否只在已解码的行中移动，为false时会从响应流读取下一个窗口，可能阻塞在网络读取上
+     */
+    public boolean isNextBuffered() {
+        return rowStream == null || closed || isAfterLast || rowNumber - windowStart < getRowCount();
+    }
+
+    /**
+     * 关闭结果集，流式结果会同时关闭响应流，放弃尚未读取的数据；off-heap的列数据归还到buffer池，
+     * 开启resultArena时列存储清空后归还到复用池
+     *
+     * @throws SQLException
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        jsonArrayList = null;
+        try {
+            if (rowStream != null) {
+                rowStream.close();
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to close ha3 result stream", e);
+        } finally {
+            if (columnStore != null) {
+                columnStore.recycle();
+                columnStore = null;
+            }
+        }
     }
 
     @Override
@@ -145,42 +283,73 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public String getString(int columnIndex) throws SQLException {
-        return getObject(columnIndex, String.class);
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        return column.getString(row);
     }
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
-        return getBoolean(getKey(columnIndex));
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        try {
+            return column.getBoolean(row);
+        } catch (RuntimeException e) {
+            throw new SQLException(e);
+        }
     }
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
-        return getByte(getKey(columnIndex));
+        return (byte)getInt(columnIndex);
     }
 
     @Override
     public short getShort(int columnIndex) throws SQLException {
-        return getShort(getKey(columnIndex));
+        return (short)getInt(columnIndex);
     }
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
-        return getInt(getKey(columnIndex));
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        try {
+            return column.getInt(row);
+        } catch (RuntimeException e) {
+            throw new SQLException(e);
+        }
     }
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
-        return getLong(getKey(columnIndex));
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        try {
+            return column.getLong(row);
+        } catch (RuntimeException e) {
+            throw new SQLException(e);
+        }
     }
 
     @Override
     public float getFloat(int columnIndex) throws SQLException {
-        return getFloat(getKey(columnIndex));
+        return (float)getDouble(columnIndex);
     }
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
-        return getDouble(getKey(columnIndex));
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        try {
+            return column.getDouble(row);
+        } catch (RuntimeException e) {
+            throw new SQLException(e);
+        }
     }
 
     @Override
@@ -188,24 +357,37 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
         throw new SQLFeatureNotSupportedException("BigDecimal not supported");
     }
 
+    /**
+     * string列直接返回单元格的UTF-8字节，utf8存储的列不经过String；其他列按json反序列化为byte[]
+     *
+     * @param columnIndex
+     * @return
+     * @throws SQLException
+     */
     @Override
     public byte[] getBytes(int columnIndex) throws SQLException {
-        return getBytes(getKey(columnIndex));
+        Ha3Column column = getColumn(columnIndex);
+        if (column.getType() != Ha3ColumnType.STRING) {
+            return getObject(columnIndex, byte[].class);
+        }
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        return column.getBytes(row);
     }
 
     @Override
     public Date getDate(int columnIndex) throws SQLException {
-        return getDate(getKey(columnIndex));
+        return getTemporal(columnIndex, Date.class, ZoneId.systemDefault());
     }
 
     @Override
     public Time getTime(int columnIndex) throws SQLException {
-        return getTime(getKey(columnIndex));
+        return getTemporal(columnIndex, Time.class, ZoneId.systemDefault());
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        return getTimestamp(getKey(columnIndex));
+        return getTemporal(columnIndex, Timestamp.class, ZoneId.systemDefault());
     }
 
     @Override
@@ -225,49 +407,42 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public String getString(String columnLabel) throws SQLException {
-        return getObject(columnLabel, String.class);
+        return getString(findColumn(columnLabel));
     }
 
     @Override
     public boolean getBoolean(String columnLabel) throws SQLException {
-        Boolean value = getObject(columnLabel, Boolean.class);
-        return value == null ? false : value;
+        return getBoolean(findColumn(columnLabel));
     }
 
     @Override
     public byte getByte(String columnLabel) throws SQLException {
-        Byte value = getObject(columnLabel, Byte.class);
-        return value == null ? 0 : value;
+        return getByte(findColumn(columnLabel));
     }
 
     @Override
     public short getShort(String columnLabel) throws SQLException {
-        Short value = getObject(columnLabel, Short.class);
-        return value == null ? 0 : value;
+        return getShort(findColumn(columnLabel));
     }
 
     @Override
     public int getInt(String columnLabel) throws SQLException {
-        Integer value = getObject(columnLabel, Integer.class);
-        return value == null ? 0 : value;
+        return getInt(findColumn(columnLabel));
     }
 
     @Override
     public long getLong(String columnLabel) throws SQLException {
-        Long value = getObject(columnLabel, Long.class);
-        return value == null ? 0 : value;
+        return getLong(findColumn(columnLabel));
     }
 
     @Override
     public float getFloat(String columnLabel) throws SQLException {
-        Float value = getObject(columnLabel, Float.class);
-        return value == null ? 0F : value;
+        return getFloat(findColumn(columnLabel));
     }
 
     @Override
     public double getDouble(String columnLabel) throws SQLException {
-        Double value = getObject(columnLabel, Double.class);
-        return value == null ? 0D : value;
+        return getDouble(findColumn(columnLabel));
     }
 
     @Override
@@ -277,40 +452,22 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public byte[] getBytes(String columnLabel) throws SQLException {
-        return getObject(columnLabel, byte[].class);
+        return getBytes(findColumn(columnLabel));
     }
 
     @Override
     public Date getDate(String columnLabel) throws SQLException {
-        try {
-            return getObject(columnLabel, Date.class);
-        } catch (Exception e) {
-            throw new SQLException(String.format(Locale.ROOT, "Unable to convert value [%.128s] of type [%s] to a Date",
-                new Object[] {getObject(columnLabel, String.class),
-                    typeList.get(keyList.indexOf(columnLabel))}), e);
-        }
+        return getDate(findColumn(columnLabel));
     }
 
     @Override
     public Time getTime(String columnLabel) throws SQLException {
-        try {
-            return getObject(columnLabel, Time.class);
-        } catch (Exception e) {
-            throw new SQLException(String.format(Locale.ROOT, "Unable to convert value [%.128s] of type [%s] to a Date",
-                new Object[] {getObject(columnLabel, String.class),
-                    typeList.get(keyList.indexOf(columnLabel))}), e);
-        }
+        return getTime(findColumn(columnLabel));
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel) throws SQLException {
-        try {
-            return getObject(columnLabel, Timestamp.class);
-        } catch (Exception e) {
-            throw new SQLException(String.format(Locale.ROOT, "Unable to convert value [%.128s] of type [%s] to a Date",
-                new Object[] {getObject(columnLabel, String.class),
-                    typeList.get(keyList.indexOf(columnLabel))}), e);
-        }
+        return getTimestamp(findColumn(columnLabel));
     }
 
     @Override
@@ -349,17 +506,31 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public Object getObject(int columnIndex) throws SQLException {
-        return getObject(getKey(columnIndex));
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        return column.getObject(row);
     }
 
     @Override
     public Object getObject(String columnLabel) throws SQLException {
-        return getObject(columnLabel, Object.class);
+        return getObject(findColumn(columnLabel));
     }
 
+    /**
+     * 列名查找，返回从1开始的列序号，优先精确匹配，其次忽略大小写匹配
+     *
+     * @param columnLabel
+     * @return
+     * @throws SQLException 列不存在
+     */
     @Override
-    public int findColumn(String columnLabel) {
-        return keyList.indexOf(columnLabel);
+    public int findColumn(String columnLabel) throws SQLException {
+        int index = labels.find(columnLabel);
+        if (index == 0) {
+            throw new SQLException("Column '" + columnLabel + "' not found");
+        }
+        return index;
     }
 
     @Override
@@ -374,17 +545,28 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        return getBigDecimal(getKey(columnIndex));
+        return getObject(columnIndex, BigDecimal.class);
     }
 
     @Override
     public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
-        return getObject(columnLabel, BigDecimal.class);
+        return getBigDecimal(findColumn(columnLabel));
     }
 
     @Override
-    public boolean isBeforeFirst() {
-        return jsonArrayList != null && !jsonArrayList.isEmpty() && this.rowNumber < 1;
+    public boolean isBeforeFirst() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        if (rowStream != null && this.rowNumber < 1 && getRowCount() == 0 && !rowStream.isExhausted()) {
+            // 流式结果在第一次next之前还没有读取数据，先读入第一个窗口
+            try {
+                rowStream.fill(columnStore, windowRows);
+            } catch (IOException e) {
+                throw new SQLException("Failed to read ha3 result stream", e);
+            }
+        }
+        return getRowCount() > 0 && this.rowNumber < 1;
     }
 
     @Override
@@ -394,80 +576,163 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public boolean isFirst() {
-        return (this.rowNumber == 1);
+        return this.rowNumber == 1 && !isAfterLast;
     }
 
     @Override
     public boolean isLast() {
-        return jsonArrayList != null && !jsonArrayList.isEmpty()
-            && !isAfterLast && this.rowNumber == jsonArrayList.size();
+        if (rowStream != null) {
+            return rowStream.isExhausted() && !isAfterLast && rowNumber > 0
+                && this.rowNumber - windowStart == getRowCount();
+        }
+        return getRowCount() > 0 && !isAfterLast && this.rowNumber == getRowCount();
     }
 
     @Override
     public void beforeFirst() throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        checkScrollable();
+        moveTo(0);
     }
 
     @Override
     public void afterLast() throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        checkScrollable();
+        moveTo(getRowCount() + 1);
     }
 
     @Override
     public boolean first() throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        checkScrollable();
+        return moveTo(1);
     }
 
     @Override
     public boolean last() throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        checkScrollable();
+        return moveTo(getRowCount());
     }
 
+    /**
+     * @return 当前行号，第一行之前和最后一行之后为0
+     */
     @Override
     public int getRow() {
-        return this.rowNumber;
+        return isAfterLast ? 0 : this.rowNumber;
     }
 
+    /**
+     * 移动到第row行，负数从最后一行倒数，超出范围时停在第一行之前或最后一行之后
+     *
+     * @param row
+     * @return 是否停在有效行上
+     * @throws SQLException
+     */
     @Override
     public boolean absolute(int row) throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        checkScrollable();
+        return moveTo(row >= 0 ? row : getRowCount() + 1 + row);
     }
 
+    /**
+     * 从当前位置移动rows行，最后一行之后的位置按getRowCount() + 1计算
+     *
+     * @param rows
+     * @return 是否停在有效行上
+     * @throws SQLException
+     */
     @Override
     public boolean relative(int rows) throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        checkScrollable();
+        int position = isAfterLast ? getRowCount() + 1 : rowNumber;
+        return moveTo((int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long)position + rows)));
+    }
+
+    /**
+     * TYPE_FORWARD_ONLY的结果集不能回退或跳转，流式结果只保留当前窗口，总是TYPE_FORWARD_ONLY
+     *
+     * @throws SQLException
+     */
+    private void checkScrollable() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        if (type == ResultSet.TYPE_FORWARD_ONLY) {
+            throw new SQLException("ResultSet is forward-only");
+        }
+    }
+
+    /**
+     * @param position 1-based行号，0为第一行之前，大于getRowCount()为最后一行之后
+     * @return 是否停在有效行上
+     */
+    private boolean moveTo(int position) {
+        int rowCount = getRowCount();
+        if (position <= 0) {
+            rowNumber = 0;
+            isAfterLast = false;
+            return false;
+        }
+        if (position > rowCount) {
+            // 与next()保持一致，rowNumber停在最后一行
+            rowNumber = rowCount;
+            isAfterLast = rowCount > 0;
+            return false;
+        }
+        rowNumber = position;
+        isAfterLast = false;
+        return true;
     }
 
     @Override
     public boolean previous() throws SQLException {
-        throw new SQLException("ResultSet is forward-only");
+        return relative(-1);
     }
 
     @Override
     public int getFetchDirection() {
-        return 1000;
+        return fetchDirection;
     }
 
+    /**
+     * 可滚动的结果已全部在内存中，方向只作为提示记录；TYPE_FORWARD_ONLY的结果只支持FETCH_FORWARD
+     *
+     * @param direction
+     * @throws SQLException
+     */
     @Override
     public void setFetchDirection(int direction) throws SQLException {
-        if (direction != 1000) {
-            throw new SQLException("Fetch direction must be FETCH_FORWARD");
+        if (direction != ResultSet.FETCH_FORWARD && (type == ResultSet.TYPE_FORWARD_ONLY
+            || direction != ResultSet.FETCH_REVERSE && direction != ResultSet.FETCH_UNKNOWN)) {
+            throw new SQLException("Unsupported fetch direction: " + direction);
         }
+        this.fetchDirection = direction;
     }
 
     @Override
     public int getFetchSize() {
-        return jsonArrayList.size();
+        return rowStream != null ? windowRows : getRowCount();
     }
 
+    /**
+     * 流式结果修改之后每次读取的行数，0表示使用连接的streamingWindowRows，非流式结果已全部在内存中，忽略该值
+     *
+     * @param rows
+     * @throws SQLException
+     */
     @Override
     public void setFetchSize(int rows) throws SQLException {
-        throw new SQLFeatureNotSupportedException("Fetch size cannot be changed");
+        if (rows < 0) {
+            throw new SQLException("Fetch size must be >= 0");
+        }
+        if (rowStream == null) {
+            return;
+        }
+        windowRows = rows > 0 ? rows : defaultWindowRows();
     }
 
     @Override
     public int getType() {
-        return ResultSet.TYPE_SCROLL_INSENSITIVE;
+        return type;
     }
 
     @Override
@@ -745,7 +1010,14 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public Array getArray(int columnIndex) throws SQLException {
-        throw new SQLFeatureNotSupportedException("Array not supported");
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
+        try {
+            return column.getArray(row);
+        } catch (RuntimeException e) {
+            throw new SQLException(e);
+        }
     }
 
     @Override
@@ -773,37 +1045,200 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public Array getArray(String columnLabel) throws SQLException {
-        throw new SQLFeatureNotSupportedException("Array not supported");
+        return getArray(findColumn(columnLabel));
+    }
+
+    /**
+     * 获取字典编码的string列的编码和字典，可以通过unwrap(Ha3ResultSet.class)调用。
+     * 第getRow()行的编码下标为getRow() - 1；流式结果只包含当前窗口，下标从窗口的第一行开始
+     *
+     * @param columnIndex
+     * @return 列不是字典编码时返回null
+     * @throws SQLException
+     */
+    public Ha3StringDictionary getStringDictionary(int columnIndex) throws SQLException {
+        Ha3Column column = getColumn(columnIndex);
+        return column instanceof Ha3StringColumn ? ((Ha3StringColumn)column).getDictionary() : null;
+    }
+
+    public Ha3StringDictionary getStringDictionary(String columnLabel) throws SQLException {
+        return getStringDictionary(findColumn(columnLabel));
+    }
+
+    /**
+     * 把当前行映射为type的新实例，字段与列的绑定规则见{@link Ha3RowMapper}
+     *
+     * @param type 有无参构造器的类或record
+     * @return
+     * @throws SQLException
+     */
+    public <T> T mapTo(Class<T> type) throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        return getRowMapper(type).map(columnStore, getCurrentRow());
+    }
+
+    /**
+     * 从当前行之后开始逐行调用next并映射为type，流式结果按窗口读取。
+     * 返回的Stream是惰性的，读取失败时抛出以SQLException为cause的RuntimeException，不会关闭结果集
+     *
+     * @param type 有无参构造器的类或record
+     * @return
+     * @throws SQLException
+     */
+    public <T> Stream<T> stream(Class<T> type) throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        Ha3RowMapper<T> mapper = getRowMapper(type);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+            Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(columnStore, getCurrentRow()));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Failed to map row " + rowNumber + " to " + type.getName(), e);
+                }
+            }
+        }, false);
+    }
+
+    /**
+     * 从当前行之后读取最多maxRows行，把batch绑定的列批量写入调用方的数组，之后游标停在写入的最后一行。
+     * 一批不跨越流式结果的窗口，窗口读完后下一次调用会读取新窗口，因此返回值小于maxRows不代表结果已经读完
+     *
+     * @param maxRows 本批最多读取的行数，同时不超过batch中数组的长度
+     * @param batch
+     * @return 写入的行数，结果已经读完时返回0
+     * @throws SQLException
+     */
+    public int nextBatch(int maxRows, Ha3Batch batch) throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        if (maxRows <= 0) {
+            throw new SQLException("maxRows must be > 0");
+        }
+        int limit = Math.min(maxRows, batch.getCapacity());
+        if (limit == 0) {
+            throw new SQLException("No column is bound to the batch");
+        }
+        int from = isAfterLast ? getRowCount() : rowNumber - windowStart;
+        if (from >= getRowCount() && rowStream != null) {
+            if (!nextStreaming()) {
+                batch.clear();
+                return 0;
+            }
+            // nextStreaming已经移动到新窗口的第一行
+            from = rowNumber - 1 - windowStart;
+        }
+        int count = Math.min(limit, getRowCount() - from);
+        if (count <= 0) {
+            if (getRowCount() != 0) {
+                isAfterLast = true;
+            }
+            batch.clear();
+            return 0;
+        }
+        batch.fill(columnStore, from, count);
+        rowNumber = windowStart + from + count;
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Ha3RowMapper<T> getRowMapper(Class<T> type) throws SQLException {
+        if (type == null) {
+            throw new SQLException("type is null");
+        }
+        if (rowMapper == null || rowMapper.getType() != type) {
+            rowMapper = Ha3RowMapper.of(type, keyList, typeList);
+        }
+        return (Ha3RowMapper<T>)rowMapper;
+    }
+
+    /**
+     * 从当前行之后开始按窗口提供列存储，用于不经过逐单元格访问的批量导出（如{@link Ha3ArrowExporter}），
+     * 读完后游标停在最后一行之后
+     *
+     * @return
+     * @throws SQLException 结果集已关闭
+     */
+    public Ha3ArrowExporter.RowSource getRowSource() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+        return new ArrowRowSource();
+    }
+
+    /**
+     * 从当前行之后开始按窗口提供待导出的行
+     */
+    private class ArrowRowSource implements Ha3ArrowExporter.RowSource {
+
+        private int from = isAfterLast ? getRowCount() : rowNumber - windowStart;
+
+        @Override
+        public Ha3ColumnStore getColumnStore() {
+            return columnStore;
+        }
+
+        @Override
+        public int getFrom() {
+            return from;
+        }
+
+        @Override
+        public boolean nextWindow() throws SQLException {
+            rowNumber = windowStart + getRowCount();
+            if (rowStream == null) {
+                if (getRowCount() > 0) {
+                    isAfterLast = true;
+                }
+                return false;
+            }
+            if (!nextStreaming()) {
+                return false;
+            }
+            // nextStreaming已经移动到新窗口的第一行
+            from = rowNumber - 1 - windowStart;
+            return true;
+        }
     }
 
     @Override
     public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-        return getDate(columnIndex);
+        return getTemporal(columnIndex, Date.class, cal == null ? ZoneId.systemDefault() : cal.getTimeZone().toZoneId());
     }
 
     @Override
     public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-        return getDate(columnLabel);
+        return getDate(findColumn(columnLabel), cal);
     }
 
     @Override
     public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-        return getTime(columnIndex);
+        return getTemporal(columnIndex, Time.class, cal == null ? ZoneId.systemDefault() : cal.getTimeZone().toZoneId());
     }
 
     @Override
     public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-        return getTime(columnLabel);
+        return getTime(findColumn(columnLabel), cal);
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-        return getTimestamp(columnIndex);
+        return getTemporal(columnIndex, Timestamp.class, cal == null ? ZoneId.systemDefault() : cal.getTimeZone().toZoneId());
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
-        return getTimestamp(columnLabel);
+        return getTimestamp(findColumn(columnLabel), cal);
     }
 
     @Override
@@ -883,7 +1318,7 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public boolean isClosed() {
-        return false;
+        return closed;
     }
 
     @Override
@@ -1098,21 +1533,83 @@ public class Ha3ResultSet implements ResultSet, Ha3Wrapper {
 
     @Override
     public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-        return getObject(getKey(columnIndex), type);
-    }
-
-    @Override
-    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
         if (type == null) {
             throw new SQLException("type is null");
         }
+        // 常用类型直接按列类型转换，其余类型走gson
+        if (type == String.class) {
+            return type.cast(getString(columnIndex));
+        }
+        if (type == Long.class || type == Integer.class || type == Double.class || type == Float.class
+            || type == Short.class || type == Byte.class || type == Boolean.class) {
+            Object value = getBoxed(columnIndex, type);
+            return wasNull ? null : type.cast(value);
+        }
+        if (Ha3TemporalDecoder.isTemporalType(type)) {
+            return getTemporal(columnIndex, type, ZoneId.systemDefault());
+        }
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        wasNull = column.isNull(row);
         try {
-            return JsonUtils.fromJson(jsonArrayList.get(rowNumber - 1).get(keyList.indexOf(columnLabel)), type);
+            return JsonUtils.fromJson(column.getJson(row), type);
         } catch (Exception e) {
             throw new SQLException(e);
         }
     }
 
+    /**
+     * 通过列的{@link Ha3TemporalDecoder}解码时间类型，解码器在列上识别出的格式会被后续行复用
+     *
+     * @param columnIndex
+     * @param type
+     * @param zone        不带时区的文本所在的时区
+     * @return
+     * @throws SQLException
+     */
+    private <T> T getTemporal(int columnIndex, Class<T> type, ZoneId zone) throws SQLException {
+        Ha3Column column = getColumn(columnIndex);
+        int row = getCurrentRow();
+        if (temporalDecoders == null) {
+            temporalDecoders = new Ha3TemporalDecoder[columnStore.getColumnCount()];
+        }
+        Ha3TemporalDecoder decoder = temporalDecoders[columnIndex - 1];
+        if (decoder == null) {
+            decoder = new Ha3TemporalDecoder();
+            temporalDecoders[columnIndex - 1] = decoder;
+        }
+        try {
+            T value = decoder.decode(column, row, type, zone);
+            wasNull = value == null;
+            return value;
+        } catch (RuntimeException e) {
+            throw new SQLException(String.format(Locale.ROOT, "Unable to convert value [%.128s] of type [%s] to a %s",
+                column.getString(row), column.getType(), type.getSimpleName()), e);
+        }
+    }
+
+    private Object getBoxed(int columnIndex, Class<?> type) throws SQLException {
+        if (type == Long.class) {
+            return getLong(columnIndex);
+        } else if (type == Integer.class) {
+            return getInt(columnIndex);
+        } else if (type == Double.class) {
+            return getDouble(columnIndex);
+        } else if (type == Float.class) {
+            return getFloat(columnIndex);
+        } else if (type == Short.class) {
+            return getShort(columnIndex);
+        } else if (type == Byte.class) {
+            return getByte(columnIndex);
+        }
+        return getBoolean(columnIndex);
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
     public List<String> getKeyList() {
         return keyList;
     }
@@ -9,16 +9,22 @@ import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.alibaba.druid.DbType;
 import com.alibaba.druid.sql.visitor.ParameterizedOutputVisitorUtils;
 import com.alibaba.druid.util.JdbcConstants;
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
 import com.aliyun.ha3engine.jdbc.common.config.Ha3KvPairBuilder;
-import com.aliyun.ha3engine.jdbc.common.exception.Ha3DriverException;
 import com.aliyun.ha3engine.jdbc.common.utils.Ha3ToolUtils;
 import com.aliyun.ha3engine.jdbc.sdk.client.CloudClient;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3DecodeOptions;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3OffHeapAllocator;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3QueryResult;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ResultArena;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +42,30 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
     protected Ha3ResultSet ha3ResultSet;
     protected final Ha3Connection ha3Connection;
     protected CloudClient cloudClient;
+    /**
+     * 流式结果每次读取的行数，0表示使用连接的streamingWindowRows
+     */
+    protected int fetchSize = 0;
+    /**
+     * 结果集是否保存在堆外，为null时使用连接的offHeap配置
+     */
+    private Boolean offHeap;
+    /**
+     * 结果集类型，TYPE_SCROLL_INSENSITIVE时streaming解码模式退化为eager解码，保证结果集可以回退
+     */
+    private int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+    /**
+     * resultArena=statement时本Statement的列存储复用池
+     */
+    private Ha3ResultArena resultArena;
+    /**
+     * 缓存的解码选项，offHeap或结果集类型变化时重新生成
+     */
+    private Ha3DecodeOptions decodeOptions;
+    /**
+     * 异步查询发起请求的线程池，为null时使用连接的配置
+     */
+    private Executor asyncExecutor;
 
     public Ha3Statement(Ha3Connection ha3Connection) {
         this.ha3Connection = ha3Connection;
@@ -46,6 +76,112 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
         this.cloudClient = cloudClient;
     }
 
+    /**
+     * 覆盖连接的offHeap配置，对之后执行的查询生效
+     *
+     * @param offHeap
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.decodeOptions = null;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap != null ? offHeap : ha3Connection.getHa3Config().isOffHeap();
+    }
+
+    /**
+     * @return 结果集使用的off-heap分配器，未开启offHeap时为null
+     */
+    protected Ha3OffHeapAllocator getOffHeapAllocator() {
+        return isOffHeap() ? ha3Connection.getOffHeapAllocator() : null;
+    }
+
+    /**
+     * @return 本次查询的解码选项
+     */
+    protected Ha3DecodeOptions getDecodeOptions() {
+        Ha3Config config = ha3Connection.getHa3Config();
+        Ha3ResultArena arena = null;
+        if (Ha3Config.RESULT_ARENA_THREAD.equals(config.getResultArena())) {
+            arena = Ha3ResultArena.forCurrentThread();
+        } else if (Ha3Config.RESULT_ARENA_STATEMENT.equals(config.getResultArena())) {
+            if (resultArena == null) {
+                resultArena = new Ha3ResultArena();
+            }
+            arena = resultArena;
+        }
+        // 线程级的复用池随调用线程变化，换线程执行时重新生成
+        if (decodeOptions == null || decodeOptions.getArena() != arena) {
+            decodeOptions = buildDecodeOptions(config, arena);
+        }
+        return decodeOptions;
+    }
+
+    private Ha3DecodeOptions buildDecodeOptions(Ha3Config config, Ha3ResultArena arena) {
+        return Ha3DecodeOptions.builder()
+            .setAllocator(getOffHeapAllocator())
+            .setSpillThresholdBytes(config.getSpillThresholdBytes())
+            .setSpillDirectory(config.getSpillDirectory())
+            .setScrollable(resultSetType == ResultSet.TYPE_SCROLL_INSENSITIVE)
+            .setUtf8Strings(Ha3Config.STRING_STORAGE_UTF8.equals(config.getStringStorage()))
+            .setCacheStrings(config.isCacheStrings())
+            .setArena(arena)
+            .build();
+    }
+
+    /**
+     * 动态参数化改写后实际执行的语句，不加入连接的statements，沿用当前语句的offHeap、结果集类型和复用池，
+     * 其结果集由当前语句关闭
+     *
+     * @param sql 改写后的sql
+     * @return
+     * @throws SQLException
+     */
+    protected Ha3PreparedStatement createRewrittenStatement(String sql) throws SQLException {
+        Ha3PreparedStatement statement = new Ha3PreparedStatement(ha3Connection, cloudClient, sql);
+        Ha3Statement target = statement;
+        target.offHeap = offHeap;
+        target.resultSetType = resultSetType;
+        if (Ha3Config.RESULT_ARENA_STATEMENT.equals(ha3Connection.getHa3Config().getResultArena())) {
+            if (resultArena == null) {
+                resultArena = new Ha3ResultArena();
+            }
+            target.resultArena = resultArena;
+        }
+        return statement;
+    }
+
+    /**
+     * 设置结果集类型和并发模式，只支持只读的TYPE_FORWARD_ONLY和TYPE_SCROLL_INSENSITIVE
+     *
+     * @param resultSetType
+     * @param resultSetConcurrency
+     * @throws SQLException
+     */
+    void setResultSetType(int resultSetType, int resultSetConcurrency) throws SQLException {
+        if (resultSetType != ResultSet.TYPE_FORWARD_ONLY && resultSetType != ResultSet.TYPE_SCROLL_INSENSITIVE) {
+            throw new SQLFeatureNotSupportedException("Unsupported result set type: " + resultSetType);
+        }
+        if (resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+            throw new SQLFeatureNotSupportedException("Unsupported result set concurrency: " + resultSetConcurrency);
+        }
+        this.resultSetType = resultSetType;
+        this.decodeOptions = null;
+    }
+
+    /**
+     * 重新执行前关闭上一次的结果集，释放其占用的流和堆外内存
+     *
+     * @throws SQLException
+     */
+    protected void closeResultSet() throws SQLException {
+        if (this.ha3ResultSet != null) {
+            this.ha3ResultSet.close();
+            this.ha3ResultSet = null;
+        }
+    }
+
     /**
      * 执行 sql,此方法仅支持select语句
      *
@@ -55,6 +191,75 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
      */
     @Override
     public ResultSet executeQuery(String sql) throws SQLException {
+        this.execute(checkQuery(sql));
+        return ha3ResultSet;
+    }
+
+    /**
+     * 异步执行 sql,此方法仅支持select语句。请求在连接的异步线程池中发起，响应在解码线程池中解码，调用线程不等待响应。
+     * 返回的结果集独立于Statement的当前结果集，由调用方关闭；开启动态参数化且需要改写sql时在调用线程中改写sql
+     *
+     * @param sql
+     * @return 校验失败时以SQLException结束
+     */
+    public CompletableFuture<Ha3ResultSet> executeQueryAsync(String sql) {
+        String query;
+        try {
+            query = checkQuery(sql);
+        } catch (SQLException e) {
+            return failedFuture(e);
+        }
+        if (this.ha3Connection.getHa3Config().isEnableDetailLog()) {
+            logger.info("Ha3Statement async sql:" + query);
+        }
+        if (this.ha3Connection.getHa3Config().isEnableDynamicParams() && !query.contains("kvpair")) {
+            try {
+                return executeDynamicParamsAsync(query);
+            } catch (SQLException e) {
+                return failedFuture(e);
+            }
+        }
+        return queryAsync(query.contains("kvpair") ? query : appendKvPair(query));
+    }
+
+    /**
+     * 设置本Statement异步查询发起请求的线程池，覆盖连接的配置
+     *
+     * @param asyncExecutor 为null时使用连接的线程池
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor != null ? asyncExecutor : ha3Connection.getAsyncExecutor();
+    }
+
+    /**
+     * 发起异步请求，解码选项在调用线程中确定
+     *
+     * @param query 已拼接kvpair的sql
+     * @return
+     */
+    protected CompletableFuture<Ha3ResultSet> queryAsync(String query) {
+        return cloudClient.queryAsync(query, getDecodeOptions(), getAsyncExecutor(), cloudClient.getDecodeExecutor())
+            .thenApply(result -> new Ha3ResultSet(result, this));
+    }
+
+    protected static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * 校验sql是select语句，并按from后的表名设置连接的schema
+     *
+     * @param sql
+     * @return 去掉换行后的sql
+     * @throws SQLException 不是select语句
+     */
+    private String checkQuery(String sql) throws SQLException {
         sql = sql.trim();
 
         sql = sql.replaceAll("\r", " ").replaceAll("\n", " ");
@@ -74,8 +279,7 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
                 }
             }
             ha3Connection.setSchema(fromIndex);
-            this.execute(sql);
-            return ha3ResultSet;
+            return sql;
         } else {
             throw new SQLException(
                 "Provided query type '" + firstStmtChar + "' is not supported!");
@@ -126,10 +330,14 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
     }
 
     @Override
-    public void close() {
+    public void close() throws SQLException {
         synchronized (this) {
             this.ha3Connection.statements.remove(this);
         }
+        closeResultSet();
+        if (resultArena != null) {
+            resultArena.release();
+        }
     }
 
     @Override
@@ -206,190 +414,252 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
      * @param sql
      * @throws SQLException
      */
-    protected void initResultSet(String sql) throws Ha3DriverException {
+    protected void initResultSet(String sql) throws SQLException {
+        closeResultSet();
         if (this.ha3Connection.getHa3Config().isEnableDetailLog()) {
             logger.info("Ha3Statement sql:" + sql);
         }
-        String result = null;
+        Ha3QueryResult result = null;
         StringBuilder res = new StringBuilder();
         if (this.ha3Connection.getHa3Config().isEnableDynamicParams()) {
             //开启sql动态参数化
             if (sql.contains("kvpair")) {
                 //sql带了kvpair，默认用户自己拼了动态参数等
                 res.append(sql);
-                result = cloudClient.query(res.toString());
+                result = cloudClient.query(res.toString(), getDecodeOptions());
                 this.ha3ResultSet = new Ha3ResultSet(result, this);
             } else {
-                boolean canConvert = true;
-                String originalSql = sql;
+                try {
+                    this.ha3ResultSet = executeDynamicParams(sql);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        } else {
+            //非动态参数的情况下，默认添加kvpairs
+            res.append(sql.contains("kvpair") ? sql : appendKvPair(sql));
+            result = cloudClient.query(res.toString(), getDecodeOptions());
+            this.ha3ResultSet = new Ha3ResultSet(result, this);
+        }
 
-                // 正则表达式匹配 SELECT 关键字，忽略大小写
-                Pattern selectPattern = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
+    }
 
-                Matcher selectMatcher = selectPattern.matcher(sql);
+    /**
+     * 动态参数化改写后同步执行，结果集交给当前语句后关闭改写语句
+     *
+     * @param sql 不带kvpair的sql
+     * @return
+     * @throws SQLException
+     */
+    protected Ha3ResultSet executeDynamicParams(String sql) throws SQLException {
+        Ha3PreparedStatement statement = prepareDynamicParams(sql);
+        Ha3ResultSet resultSet = (Ha3ResultSet)statement.executeQuery();
+        statement.closeRewritten();
+        return resultSet;
+    }
 
-                // 计算匹配到的 SELECT 关键字数量
-                int selectCount = 0;
-                while (selectMatcher.find()) {
-                    selectCount++;
-                }
+    /**
+     * 动态参数化改写后异步执行，请求发起时已确定解码选项和线程池，改写语句随即关闭
+     *
+     * @param sql 不带kvpair的sql
+     * @return
+     * @throws SQLException
+     */
+    protected CompletableFuture<Ha3ResultSet> executeDynamicParamsAsync(String sql) throws SQLException {
+        Ha3PreparedStatement statement = prepareDynamicParams(sql);
+        CompletableFuture<Ha3ResultSet> future = statement.executeQueryAsync();
+        statement.closeRewritten();
+        return future;
+    }
 
-                String beginSql = "";
-                String endSql = "";
-                int firstIndex = -1;
-                int lastIndex = -1;
-                if (selectCount > 1) {
-                    firstIndex = sql.indexOf("(");
-                    lastIndex = sql.lastIndexOf(")");
-                    if (-1 != firstIndex && -1 != lastIndex) {
-                        beginSql = sql.substring(0, firstIndex + 1);
-                        endSql = sql.substring(lastIndex, sql.length());
-                        sql = sql.substring(firstIndex + 1, lastIndex);
-                    }
-                }
+    /**
+     * 关闭createRewrittenStatement创建的语句。结果集已交给发起语句，复用池也属于发起语句，都不在这里释放
+     *
+     * @throws SQLException
+     */
+    void closeRewritten() throws SQLException {
+        this.ha3ResultSet = null;
+        this.resultArena = null;
+        close();
+    }
 
-                // 提取LIMIT子句中的常量值
-                Pattern limitPattern = Pattern.compile("(?i)limit\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
-                Matcher limitMatcher = limitPattern.matcher(sql);
-                int limitValue = -1;
-                if (limitMatcher.find()) {
-                    limitValue = Integer.parseInt(limitMatcher.group(1));
-                    sql = sql.replaceFirst("(?i)limit\\s+\\d+", "");
-                }
+    /**
+     * 动态参数化改写时kvpair中的formatType
+     *
+     * @return 为null时不设置
+     */
+    protected String getDynamicParamsFormatType() {
+        return null;
+    }
 
-                // 提取OFFSET子句中的常量值
-                Pattern offsetPattern = Pattern.compile("(?i)offset\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
-                Matcher offsetMatcher = offsetPattern.matcher(sql);
-                int offsetValue = -1;
-                if (offsetMatcher.find()) {
-                    offsetValue = Integer.parseInt(offsetMatcher.group(1));
-                    sql = sql.replaceFirst("(?i)offset\\s+\\d+", "");
-                }
+    /**
+     * 按动态参数化改写sql，返回绑定好参数和kvpair的PreparedStatement。只处理sql，不发起请求
+     *
+     * @param sql 不带kvpair的sql
+     * @return
+     * @throws SQLException
+     */
+    private Ha3PreparedStatement prepareDynamicParams(String sql) throws SQLException {
+        boolean canConvert = true;
+        String originalSql = sql;
 
-                // 创建不区分大小写的识别where的Pattern对象
-                Pattern pattern = Pattern.compile(Pattern.quote("where"), Pattern.CASE_INSENSITIVE);
-                Matcher matcher = pattern.matcher(sql);
-                String firstPart = "";
-                String secondPart = "";
-                String thirdPart = "";
-                if (matcher.find()) {
-                    // 查询的第一部分
-                    firstPart = sql.substring(0, matcher.start());
-                    // 查询的第二部分
-                    secondPart = sql.substring(matcher.start(), sql.length());
-                    Pattern groupByPattern = Pattern.compile(Pattern.quote("group by"), Pattern.CASE_INSENSITIVE);
-                    Matcher groupByMatcher = groupByPattern.matcher(secondPart);
-                    if (groupByMatcher.find()) {
-                        // 查询的第三部分
-                        thirdPart = secondPart.substring(groupByMatcher.start(), secondPart.length());
-                        // 查询的第二部分
-                        secondPart = secondPart.substring(0, groupByMatcher.start());
-                    }
-                } else {
-                    firstPart = sql;
-                }
+        // 正则表达式匹配 SELECT 关键字，忽略大小写
+        Pattern selectPattern = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
 
-                // 创建不区分大小写的识别case when的Pattern对象
-                Pattern caseWhenPattern = Pattern.compile(Pattern.quote("case when"), Pattern.CASE_INSENSITIVE);
-                Matcher caseWhenMatcher = caseWhenPattern.matcher(secondPart);
-                if (caseWhenMatcher.find()) {
-                    canConvert = false;
-                }
+        Matcher selectMatcher = selectPattern.matcher(sql);
+
+        // 计算匹配到的 SELECT 关键字数量
+        int selectCount = 0;
+        while (selectMatcher.find()) {
+            selectCount++;
+        }
+
+        String beginSql = "";
+        String endSql = "";
+        int firstIndex = -1;
+        int lastIndex = -1;
+        if (selectCount > 1) {
+            firstIndex = sql.indexOf("(");
+            lastIndex = sql.lastIndexOf(")");
+            if (-1 != firstIndex && -1 != lastIndex) {
+                beginSql = sql.substring(0, firstIndex + 1);
+                endSql = sql.substring(lastIndex, sql.length());
+                sql = sql.substring(firstIndex + 1, lastIndex);
+            }
+        }
+
+        // 提取LIMIT子句中的常量值
+        Pattern limitPattern = Pattern.compile("(?i)limit\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
+        Matcher limitMatcher = limitPattern.matcher(sql);
+        int limitValue = -1;
+        if (limitMatcher.find()) {
+            limitValue = Integer.parseInt(limitMatcher.group(1));
+            sql = sql.replaceFirst("(?i)limit\\s+\\d+", "");
+        }
+
+        // 提取OFFSET子句中的常量值
+        Pattern offsetPattern = Pattern.compile("(?i)offset\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
+        Matcher offsetMatcher = offsetPattern.matcher(sql);
+        int offsetValue = -1;
+        if (offsetMatcher.find()) {
+            offsetValue = Integer.parseInt(offsetMatcher.group(1));
+            sql = sql.replaceFirst("(?i)offset\\s+\\d+", "");
+        }
 
-                // 创建不区分大小写的识别in的Pattern对象
-                Pattern inPattern = Pattern.compile(Pattern.quote(" in"), Pattern.CASE_INSENSITIVE);
-                Matcher inMatcher = inPattern.matcher(secondPart);
-                if (inMatcher.find()) {
+        // 创建不区分大小写的识别where的Pattern对象
+        Pattern pattern = Pattern.compile(Pattern.quote("where"), Pattern.CASE_INSENSITIVE);
+        Matcher matcher = pattern.matcher(sql);
+        String firstPart = "";
+        String secondPart = "";
+        String thirdPart = "";
+        if (matcher.find()) {
+            // 查询的第一部分
+            firstPart = sql.substring(0, matcher.start());
+            // 查询的第二部分
+            secondPart = sql.substring(matcher.start(), sql.length());
+            Pattern groupByPattern = Pattern.compile(Pattern.quote("group by"), Pattern.CASE_INSENSITIVE);
+            Matcher groupByMatcher = groupByPattern.matcher(secondPart);
+            if (groupByMatcher.find()) {
+                // 查询的第三部分
+                thirdPart = secondPart.substring(groupByMatcher.start(), secondPart.length());
+                // 查询的第二部分
+                secondPart = secondPart.substring(0, groupByMatcher.start());
+            }
+        } else {
+            firstPart = sql;
+        }
+
+        // 创建不区分大小写的识别case when的Pattern对象
+        Pattern caseWhenPattern = Pattern.compile(Pattern.quote("case when"), Pattern.CASE_INSENSITIVE);
+        Matcher caseWhenMatcher = caseWhenPattern.matcher(secondPart);
+        if (caseWhenMatcher.find()) {
+            canConvert = false;
+        }
+
+        // 创建不区分大小写的识别in的Pattern对象
+        Pattern inPattern = Pattern.compile(Pattern.quote(" in"), Pattern.CASE_INSENSITIVE);
+        Matcher inMatcher = inPattern.matcher(secondPart);
+        if (inMatcher.find()) {
+            canConvert = false;
+        }
+
+        final DbType dbType = JdbcConstants.MYSQL;
+        // 参数化SQL是输出的参数保存在这个List中
+        List<Object> outParameters = new ArrayList<Object>();
+        String psql = "";
+        if (secondPart != null && StringUtils.isNotEmpty(secondPart)) {
+            secondPart = "select * from mock " + secondPart;
+            if (canConvert) {
+                try {
+                    psql = ParameterizedOutputVisitorUtils.parameterize(secondPart, dbType, outParameters);
+                } catch (Exception e) {
+                    logger.info("sql can not convert to dynamic params!");
                     canConvert = false;
                 }
+            } else {
+                logger.info("sql can not convert to dynamic params!");
+            }
 
-                final DbType dbType = JdbcConstants.MYSQL;
-                // 参数化SQL是输出的参数保存在这个List中
-                List<Object> outParameters = new ArrayList<Object>();
-                String psql = "";
-                if (secondPart != null && StringUtils.isNotEmpty(secondPart)) {
-                    secondPart = "select * from mock " + secondPart;
-                    if (canConvert) {
-                        try {
-                            psql = ParameterizedOutputVisitorUtils.parameterize(secondPart, dbType, outParameters);
-                        } catch (Exception e) {
-                            logger.info("sql can not convert to dynamic params!");
-                            canConvert = false;
-                        }
-                    } else {
-                        logger.info("sql can not convert to dynamic params!");
-                    }
-
-                    psql = psql.replace("SELECT *\n"
-                        + "FROM mock\n", "");
-                }
+            psql = psql.replace("SELECT *\n"
+                + "FROM mock\n", "");
+        }
 
-                psql = firstPart + psql + " " + thirdPart;
+        psql = firstPart + psql + " " + thirdPart;
 
-                // 恢复LIMIT子句
-                if (limitValue > 0) {
-                    int limitIndex = psql.length();
-                    psql = psql.substring(0, limitIndex) + " LIMIT " + limitValue;
-                }
+        // 恢复LIMIT子句
+        if (limitValue > 0) {
+            int limitIndex = psql.length();
+            psql = psql.substring(0, limitIndex) + " LIMIT " + limitValue;
+        }
 
-                // 恢复OFFSET子句
-                if (offsetValue >= 0) {
-                    int offsetIndex = psql.length();
-                    psql = psql.substring(0, offsetIndex) + " OFFSET " + offsetValue;
-                }
+        // 恢复OFFSET子句
+        if (offsetValue >= 0) {
+            int offsetIndex = psql.length();
+            psql = psql.substring(0, offsetIndex) + " OFFSET " + offsetValue;
+        }
 
-                if ((selectCount > 1) && (-1 != firstIndex && -1 != lastIndex)) {
-                    psql = beginSql + psql + endSql;
-                }
+        if ((selectCount > 1) && (-1 != firstIndex && -1 != lastIndex)) {
+            psql = beginSql + psql + endSql;
+        }
 
-                if (canConvert) {
-                    try {
-                        PreparedStatement preparedStatement = this.ha3Connection.prepareStatement(psql);
-                        for (int i = 0; i < outParameters.size(); i++) {
-                            preparedStatement.setObject(i + 1, outParameters.get(i));
-                        }
-                        Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
-                        kvPairBuilder.enableCache();
-                        kvPairBuilder.setPrepareLevel("jni.post.optimize");
-                        kvPairBuilder.setDatabaseName("general");
-                        kvPairBuilder.enableUrlEncodeData();
-                        if (outParameters.size() > 0) {
-                            kvPairBuilder.setDynamicParams();
-                        }
-                        preparedStatement.setString(0, kvPairBuilder.getKvPairString());
-                        this.ha3ResultSet = (Ha3ResultSet)preparedStatement.executeQuery();
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                    }
-                } else {
-                    try {
-                        PreparedStatement preparedStatement = this.ha3Connection.prepareStatement(originalSql);
-                        Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
-                        kvPairBuilder.enableCache();
-                        kvPairBuilder.setPrepareLevel("jni.post.optimize");
-                        kvPairBuilder.setDatabaseName("general");
-                        kvPairBuilder.enableUrlEncodeData();
-                        preparedStatement.setString(0, kvPairBuilder.getKvPairString());
-                        this.ha3ResultSet = (Ha3ResultSet)preparedStatement.executeQuery();
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                    }
-                }
+        if (canConvert) {
+            PreparedStatement preparedStatement = createRewrittenStatement(psql);
+            for (int i = 0; i < outParameters.size(); i++) {
+                preparedStatement.setObject(i + 1, outParameters.get(i));
+            }
+            Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
+            kvPairBuilder.enableCache();
+            kvPairBuilder.setPrepareLevel("jni.post.optimize");
+            if (getDynamicParamsFormatType() != null) {
+                kvPairBuilder.setFormatType(getDynamicParamsFormatType());
+            }
+            kvPairBuilder.setDatabaseName("general");
+            kvPairBuilder.enableUrlEncodeData();
+            if (outParameters.size() > 0) {
+                kvPairBuilder.setDynamicParams();
             }
+            preparedStatement.setString(0, kvPairBuilder.getKvPairString());
+            return (Ha3PreparedStatement)preparedStatement;
         } else {
-            //非动态参数的情况下，默认添加kvpairs
-            if (sql.contains("kvpair")) {
-                res.append(sql);
-            } else {
-                Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
-                kvPairBuilder.enableCache();
-                kvPairBuilder.setPrepareLevel("jni.post.optimize");
-                res.append(sql).append("&&kvpair=").append(kvPairBuilder.getKvPairString());
+            PreparedStatement preparedStatement = createRewrittenStatement(originalSql);
+            Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
+            kvPairBuilder.enableCache();
+            kvPairBuilder.setPrepareLevel("jni.post.optimize");
+            if (getDynamicParamsFormatType() != null) {
+                kvPairBuilder.setFormatType(getDynamicParamsFormatType());
             }
-            result = cloudClient.query(res.toString());
-            this.ha3ResultSet = new Ha3ResultSet(result, this);
+            kvPairBuilder.setDatabaseName("general");
+            kvPairBuilder.enableUrlEncodeData();
+            preparedStatement.setString(0, kvPairBuilder.getKvPairString());
+            return (Ha3PreparedStatement)preparedStatement;
         }
+    }
 
+    private static String appendKvPair(String sql) {
+        Ha3KvPairBuilder kvPairBuilder = new Ha3KvPairBuilder();
+        kvPairBuilder.enableCache();
+        kvPairBuilder.setPrepareLevel("jni.post.optimize");
+        return sql + "&&kvpair=" + kvPairBuilder.getKvPairString();
     }
 
     /**
@@ -424,22 +694,25 @@ public class Ha3Statement implements Statement, Ha3Wrapper {
 
     @Override
     public void setFetchSize(int rows) throws SQLException {
-        throw new SQLFeatureNotSupportedException("Method not supported");
+        if (rows < 0) {
+            throw new SQLException("Fetch size must be >= 0");
+        }
+        this.fetchSize = rows;
     }
 
     @Override
     public int getFetchSize() {
-        return 10000;
+        return fetchSize > 0 ? fetchSize : 10000;
     }
 
     @Override
-    public int getResultSetConcurrency() throws SQLException {
-        throw new SQLFeatureNotSupportedException("Method not supported");
+    public int getResultSetConcurrency() {
+        return ResultSet.CONCUR_READ_ONLY;
     }
 
     @Override
-    public int getResultSetType() throws SQLException {
-        throw new SQLFeatureNotSupportedException("Method not supported");
+    public int getResultSetType() {
+        return resultSetType;
     }
 
     @Override
@@ -1,9 +1,12 @@
 package com.aliyun.ha3engine.jdbc.common.config;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Function;
 
 import com.aliyun.ha3engine.jdbc.common.utils.Ha3ToolUtils;
 
@@ -19,6 +22,22 @@ import lombok.Data;
  */
 @Data
 public class Ha3Config {
+    public static final String RESULT_FORMAT_FULL_JSON = "full_json";
+    public static final String RESULT_FORMAT_FLATBUFFERS = "flatbuffers";
+    public static final String DECODE_MODE_EAGER = "eager";
+    public static final String DECODE_MODE_LAZY = "lazy";
+    public static final String DECODE_MODE_STREAMING = "streaming";
+    public static final String STRING_STORAGE_DICTIONARY = "dictionary";
+    public static final String STRING_STORAGE_UTF8 = "utf8";
+    public static final String RESULT_ARENA_NONE = "none";
+    public static final String RESULT_ARENA_STATEMENT = "statement";
+    public static final String RESULT_ARENA_THREAD = "thread";
+    public static final String TRANSPORT_SDK = "sdk";
+    public static final String TRANSPORT_HTTP = "http";
+    public static final String COMPRESSION_NONE = "none";
+    public static final String COMPRESSION_GZIP = "gzip";
+    public static final String COMPRESSION_DEFLATE = "deflate";
+
     /**
      * jdbc用于校验的url，需要以jdbc:ha3:// 为前缀
      */
@@ -32,7 +51,7 @@ public class Ha3Config {
      */
     private String password;
     /**
-     * endpoint的域名
+     * endpoint的域名，多个endpoint以逗号分隔时按延迟和未完成的请求数在其间负载均衡
      */
     private String serviceName;
     /**
@@ -50,6 +69,128 @@ public class Ha3Config {
      */
     private boolean enableDynamicParams = false;
 
+    /**
+     * 查询结果格式，full_json或flatbuffers
+     */
+    private String resultFormat = RESULT_FORMAT_FULL_JSON;
+
+    /**
+     * full_json结果的解码方式，eager为解码时全部物化，lazy为只建立单元格索引，访问时再解码
+     */
+    private String decodeMode = DECODE_MODE_EAGER;
+
+    /**
+     * decodeMode=streaming时结果集在内存中保留的最大行数，Statement.setFetchSize可以单独覆盖
+     */
+    private int streamingWindowRows = 1024;
+
+    /**
+     * 结果集的int/long/double/string列是否保存在堆外，Ha3Statement.setOffHeap可以单独覆盖
+     */
+    private boolean offHeap = false;
+
+    /**
+     * eager解码的结果估算超过该字节数时写入临时文件并以mmap方式读取，0表示不落盘
+     */
+    private long spillThresholdBytes = 0;
+
+    /**
+     * 落盘临时文件所在目录，为空时使用java.io.tmpdir
+     */
+    private String spillDirectory;
+
+    /**
+     * 堆内string列的存储方式，dictionary为字典编码，utf8为保存UTF-8字节、getString时才创建String
+     */
+    private String stringStorage = STRING_STORAGE_DICTIONARY;
+
+    /**
+     * stringStorage=utf8时是否缓存getString创建的String
+     */
+    private boolean cacheStrings = false;
+
+    /**
+     * 结果列存储的复用方式，none为每次查询新建，statement为同一Statement的多次执行复用，thread为同一线程内复用。
+     * 复用时结果集关闭后从中取得的Ha3Array、字典等视图不再有效
+     */
+    private String resultArena = RESULT_ARENA_NONE;
+
+    /**
+     * eager解码的并行度，大于1时full_json响应的data按行分段在ForkJoinPool中并行解码
+     */
+    private int decodeParallelism = 1;
+
+    /**
+     * executeQueryAsync默认线程池的线程数，即同时等待响应的请求数上限，超出的请求在队列中排队
+     */
+    private int asyncThreads = 16;
+
+    /**
+     * 请求Ha3的方式，sdk为通过aliyun-sdk-ha3engine，http为直接请求SQL接口并复用长连接，
+     * 也可以是实现了Ha3Transport、带有Ha3Config参数的public构造函数的类名
+     */
+    private String transport = TRANSPORT_SDK;
+
+    /**
+     * transport=http时SQL接口的路径
+     */
+    private String httpPath = "/sql";
+
+    /**
+     * transport=http时建立连接的超时时间，毫秒
+     */
+    private int httpConnectTimeout = 5000;
+
+    /**
+     * transport=http时读取响应的超时时间，毫秒
+     */
+    private int httpReadTimeout = 60000;
+
+    /**
+     * transport=http时同一endpoint的最大连接数，超出时等待空闲连接，最长等待httpConnectTimeout
+     */
+    private int httpMaxConnections = 32;
+
+    /**
+     * transport=http时空闲连接保留的时间，毫秒，超时的连接不再复用
+     */
+    private int httpKeepAliveTimeout = 60000;
+
+    /**
+     * transport=http时请求的响应压缩方式，none、gzip或deflate，压缩的响应边读边解压
+     */
+    private String responseCompression = COMPRESSION_NONE;
+
+    /**
+     * 多个endpoint时，连续失败达到该次数的endpoint被摘除
+     */
+    private int endpointFailureThreshold = 5;
+
+    /**
+     * 多个endpoint时，endpoint被摘除的时间，毫秒，到期后以一个请求探测，再次被摘除时按摘除次数成倍延长
+     */
+    private int endpointEjectionTime = 30000;
+
+    /**
+     * 多个endpoint时，平均延迟超过其他endpoint中位数的该倍数的endpoint被摘除，0表示不按延迟摘除
+     */
+    private double endpointOutlierRatio = 3.0;
+
+    /**
+     * @return serviceName中以逗号分隔的各个endpoint，未设置时为空
+     */
+    public List<String> getServiceNames() {
+        List<String> serviceNames = new ArrayList<>();
+        if (serviceName != null) {
+            for (String name : serviceName.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    serviceNames.add(name.trim());
+                }
+            }
+        }
+        return serviceNames;
+    }
+
     public boolean isLocalMode() {
         return localMode;
     }
@@ -88,6 +229,8 @@ public class Ha3Config {
                 if ("local".equals(mode)) {
                     localMode = true;
                 }
+
+                initResultOptions(props::getProperty);
             } else {
                 String[] urlParams = jdbcParts[1].split("&");
                 Map<String, String> paramMap = new HashMap();
@@ -108,10 +251,193 @@ public class Ha3Config {
                 this.serviceName = paramMap.get("serviceName");
                 this.username = paramMap.get("username");
                 this.password = paramMap.get("password");
+
+                initResultOptions(paramMap::get);
             }
         }
     }
 
+    /**
+     * 结果解码相关的参数，Properties和url参数共用
+     *
+     * @param options
+     * @throws SQLException
+     */
+    private void initResultOptions(Function<String, String> options) throws SQLException {
+        String resultFormat = options.apply("resultFormat");
+        if (StringUtils.isNotEmpty(resultFormat)) {
+            if (!RESULT_FORMAT_FULL_JSON.equals(resultFormat) && !RESULT_FORMAT_FLATBUFFERS.equals(resultFormat)) {
+                throw new SQLException("Unsupported resultFormat: " + resultFormat);
+            }
+            this.resultFormat = resultFormat;
+        }
+
+        String decodeMode = options.apply("decodeMode");
+        if (StringUtils.isNotEmpty(decodeMode)) {
+            if (!DECODE_MODE_EAGER.equals(decodeMode) && !DECODE_MODE_LAZY.equals(decodeMode)
+                && !DECODE_MODE_STREAMING.equals(decodeMode)) {
+                throw new SQLException("Unsupported decodeMode: " + decodeMode);
+            }
+            this.decodeMode = decodeMode;
+        }
+
+        String streamingWindowRows = options.apply("streamingWindowRows");
+        if (StringUtils.isNotEmpty(streamingWindowRows)) {
+            int rows;
+            try {
+                rows = Integer.parseInt(streamingWindowRows);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid streamingWindowRows: " + streamingWindowRows);
+            }
+            if (rows <= 0) {
+                throw new SQLException("Invalid streamingWindowRows: " + streamingWindowRows);
+            }
+            this.streamingWindowRows = rows;
+        }
+
+        if ("true".equals(options.apply("offHeap"))) {
+            this.offHeap = true;
+        }
+
+        String spillThresholdBytes = options.apply("spillThresholdBytes");
+        if (StringUtils.isNotEmpty(spillThresholdBytes)) {
+            long bytes;
+            try {
+                bytes = Long.parseLong(spillThresholdBytes);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid spillThresholdBytes: " + spillThresholdBytes);
+            }
+            if (bytes < 0) {
+                throw new SQLException("Invalid spillThresholdBytes: " + spillThresholdBytes);
+            }
+            this.spillThresholdBytes = bytes;
+        }
+
+        String spillDirectory = options.apply("spillDirectory");
+        if (StringUtils.isNotEmpty(spillDirectory)) {
+            this.spillDirectory = spillDirectory;
+        }
+
+        String stringStorage = options.apply("stringStorage");
+        if (StringUtils.isNotEmpty(stringStorage)) {
+            if (!STRING_STORAGE_DICTIONARY.equals(stringStorage) && !STRING_STORAGE_UTF8.equals(stringStorage)) {
+                throw new SQLException("Unsupported stringStorage: " + stringStorage);
+            }
+            this.stringStorage = stringStorage;
+        }
+
+        if ("true".equals(options.apply("cacheStrings"))) {
+            this.cacheStrings = true;
+        }
+
+        String decodeParallelism = options.apply("decodeParallelism");
+        if (StringUtils.isNotEmpty(decodeParallelism)) {
+            int parallelism;
+            try {
+                parallelism = Integer.parseInt(decodeParallelism);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid decodeParallelism: " + decodeParallelism);
+            }
+            if (parallelism <= 0) {
+                throw new SQLException("Invalid decodeParallelism: " + decodeParallelism);
+            }
+            this.decodeParallelism = parallelism;
+        }
+
+        String asyncThreads = options.apply("asyncThreads");
+        if (StringUtils.isNotEmpty(asyncThreads)) {
+            int threads;
+            try {
+                threads = Integer.parseInt(asyncThreads);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid asyncThreads: " + asyncThreads);
+            }
+            if (threads <= 0) {
+                throw new SQLException("Invalid asyncThreads: " + asyncThreads);
+            }
+            this.asyncThreads = threads;
+        }
+
+        String resultArena = options.apply("resultArena");
+        if (StringUtils.isNotEmpty(resultArena)) {
+            if (!RESULT_ARENA_NONE.equals(resultArena) && !RESULT_ARENA_STATEMENT.equals(resultArena)
+                && !RESULT_ARENA_THREAD.equals(resultArena)) {
+                throw new SQLException("Unsupported resultArena: " + resultArena);
+            }
+            this.resultArena = resultArena;
+        }
+
+        String transport = options.apply("transport");
+        if (StringUtils.isNotEmpty(transport)) {
+            this.transport = transport;
+        }
+
+        String httpPath = options.apply("httpPath");
+        if (StringUtils.isNotEmpty(httpPath)) {
+            if (!httpPath.startsWith("/")) {
+                throw new SQLException("Invalid httpPath: " + httpPath);
+            }
+            this.httpPath = httpPath;
+        }
+
+        this.httpConnectTimeout = parseInt(options, "httpConnectTimeout", httpConnectTimeout, 1);
+        this.httpReadTimeout = parseInt(options, "httpReadTimeout", httpReadTimeout, 0);
+        this.httpMaxConnections = parseInt(options, "httpMaxConnections", httpMaxConnections, 1);
+        this.httpKeepAliveTimeout = parseInt(options, "httpKeepAliveTimeout", httpKeepAliveTimeout, 0);
+
+        this.endpointFailureThreshold = parseInt(options, "endpointFailureThreshold", endpointFailureThreshold, 1);
+        this.endpointEjectionTime = parseInt(options, "endpointEjectionTime", endpointEjectionTime, 1);
+
+        String endpointOutlierRatio = options.apply("endpointOutlierRatio");
+        if (StringUtils.isNotEmpty(endpointOutlierRatio)) {
+            double ratio;
+            try {
+                ratio = Double.parseDouble(endpointOutlierRatio);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid endpointOutlierRatio: " + endpointOutlierRatio);
+            }
+            if (!(ratio == 0 || ratio > 1)) {
+                throw new SQLException("Invalid endpointOutlierRatio: " + endpointOutlierRatio);
+            }
+            this.endpointOutlierRatio = ratio;
+        }
+
+        String responseCompression = options.apply("responseCompression");
+        if (StringUtils.isNotEmpty(responseCompression)) {
+            if (!COMPRESSION_NONE.equals(responseCompression) && !COMPRESSION_GZIP.equals(responseCompression)
+                && !COMPRESSION_DEFLATE.equals(responseCompression)) {
+                throw new SQLException("Unsupported responseCompression: " + responseCompression);
+            }
+            this.responseCompression = responseCompression;
+        }
+    }
+
+    /**
+     * @param options
+     * @param name
+     * @param defaultValue 未设置时的值
+     * @param min          允许的最小值
+     * @return
+     * @throws SQLException 不是整数或小于min
+     */
+    private static int parseInt(Function<String, String> options, String name, int defaultValue, int min)
+        throws SQLException {
+        String value = options.apply(name);
+        if (StringUtils.isEmpty(value)) {
+            return defaultValue;
+        }
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid " + name + ": " + value);
+        }
+        if (result < min) {
+            throw new SQLException("Invalid " + name + ": " + value);
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         return "Ha3Config{" +
@@ -119,6 +445,27 @@ public class Ha3Config {
             ", username='" + username + '\'' +
             ", password='" + password + '\'' +
             ", serviceName='" + serviceName + '\'' +
+            ", resultFormat='" + resultFormat + '\'' +
+            ", decodeMode='" + decodeMode + '\'' +
+            ", streamingWindowRows=" + streamingWindowRows +
+            ", offHeap=" + offHeap +
+            ", spillThresholdBytes=" + spillThresholdBytes +
+            ", spillDirectory='" + spillDirectory + '\'' +
+            ", stringStorage='" + stringStorage + '\'' +
+            ", cacheStrings=" + cacheStrings +
+            ", resultArena='" + resultArena + '\'' +
+            ", decodeParallelism=" + decodeParallelism +
+            ", asyncThreads=" + asyncThreads +
+            ", transport='" + transport + '\'' +
+            ", httpPath='" + httpPath + '\'' +
+            ", httpConnectTimeout=" + httpConnectTimeout +
+            ", httpReadTimeout=" + httpReadTimeout +
+            ", httpMaxConnections=" + httpMaxConnections +
+            ", httpKeepAliveTimeout=" + httpKeepAliveTimeout +
+            ", responseCompression='" + responseCompression + '\'' +
+            ", endpointFailureThreshold=" + endpointFailureThreshold +
+            ", endpointEjectionTime=" + endpointEjectionTime +
+            ", endpointOutlierRatio=" + endpointOutlierRatio +
             '}';
     }
 }
@@ -1,6 +1,7 @@
 package com.aliyun.ha3engine.jdbc.common.utils;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -53,4 +54,25 @@ public class FileTools {
 
     }
 
+    /**
+     * 通过指定的文件路径读取二进制数据
+     *
+     * @param resourcePath
+     * @return
+     */
+    public static byte[] loadResourceBytes(String resourcePath) {
+        try (InputStream is = FileTools.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (Exception e) {
+            logger.error("Failed to load resource path:" + resourcePath, e);
+            return null;
+        }
+    }
+
 }
@@ -107,7 +107,7 @@ public class Ha3ToolUtils {
     }
 
     /**
-     * 将sql的formatType调整为full_json
+     * 将sql的formatType调整为full_json，结果按full_json解码，因此用户指定的其他formatType也会被改写
      *
      * @param sql
      * @return
@@ -1,6 +1,15 @@
 package com.aliyun.ha3engine.jdbc.common.utils;
 
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -12,6 +21,8 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -22,19 +33,73 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class JsonUtils {
 
+    /**
+     * 结果集getObject(Class)常用的目标类型，注册表创建时预先解析好对应的TypeAdapter
+     */
+    private static final Class<?>[] PRE_RESOLVED_TYPES = {
+        Object.class, String.class, Boolean.class, boolean.class, Byte.class, byte.class, Short.class, short.class,
+        Integer.class, int.class, Long.class, long.class, Float.class, float.class, Double.class, double.class,
+        BigDecimal.class, BigInteger.class, byte[].class, Date.class, Time.class, Timestamp.class, int[].class,
+        long[].class, float[].class, double[].class, String[].class, List.class
+    };
+
+    /**
+     * 调用方额外注册的adapter，按注册顺序生效
+     */
+    private static final Map<Type, Object> EXTRA_ADAPTERS = new LinkedHashMap<>();
+
+    private static volatile Codecs codecs = new Codecs(EXTRA_ADAPTERS);
+
+    /**
+     * 注册额外的TypeAdapter、JsonSerializer或JsonDeserializer，对之后的所有序列化和反序列化生效
+     *
+     * @param type        目标类型
+     * @param typeAdapter 同GsonBuilder.registerTypeAdapter的参数
+     */
+    public static synchronized void registerTypeAdapter(Type type, Object typeAdapter) {
+        EXTRA_ADAPTERS.put(type, typeAdapter);
+        codecs = new Codecs(EXTRA_ADAPTERS);
+    }
+
+    /**
+     * 返回反序列化用的TypeAdapter，""和null转换为数值0
+     *
+     * @param type
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypeAdapter<T> getAdapter(Class<T> type) {
+        Codecs current = codecs;
+        TypeAdapter<?> adapter = current.adapters.get(type);
+        if (adapter == null) {
+            adapter = current.adapters.computeIfAbsent(type, current.decodeGson::getAdapter);
+        }
+        return (TypeAdapter<T>)adapter;
+    }
+
+    /**
+     * 支持泛型类型，如List&lt;Long&gt;，Class类型与{@link #getAdapter(Class)}相同
+     *
+     * @param type
+     * @return
+     */
+    public static TypeAdapter<?> getAdapter(Type type) {
+        if (type instanceof Class) {
+            return getAdapter((Class<?>)type);
+        }
+        return codecs.decodeGson.getAdapter(TypeToken.get(type));
+    }
+
     public static <T> T fromJson(String jsonString, Class<T> type) {
-        Gson gson = new Gson();
-        return gson.fromJson(jsonString, type);
+        return codecs.gson.fromJson(jsonString, type);
     }
 
     public static <T> T fromJson(JsonElement jsonElement, Class<T> type) {
-        Gson gson = new GsonBuilder()
-            .registerTypeAdapter(Long.class, new LongDefault0Adapter())
-            .registerTypeAdapter(long.class, new LongDefault0Adapter())
-            .registerTypeAdapter(Integer.class, new InterDefault0Adapter())
-            .registerTypeAdapter(int.class, new InterDefault0Adapter())
-            .create();
-        return gson.fromJson(jsonElement, type);
+        if (jsonElement == null) {
+            return null;
+        }
+        return getAdapter(type).fromJsonTree(jsonElement);
     }
 
     public static <T> String toJson(T object) {
@@ -42,14 +107,41 @@ public class JsonUtils {
     }
 
     public static <T> String toJson(T object, boolean serializeNulls) {
-        Gson gson;
-        if (serializeNulls) {
-            gson = (new GsonBuilder()).serializeNulls().create();
-        } else {
-            gson = new Gson();
+        Codecs current = codecs;
+        return serializeNulls ? current.serializeNullsGson.toJson(object) : current.gson.toJson(object);
+    }
+
+    /**
+     * 一组不可变的Gson实例及预解析的adapter，注册新的adapter时整体替换
+     */
+    private static class Codecs {
+
+        private final Gson gson;
+        private final Gson serializeNullsGson;
+        private final Gson decodeGson;
+        private final ConcurrentHashMap<Class<?>, TypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+
+        private Codecs(Map<Type, Object> extraAdapters) {
+            gson = builder(extraAdapters).create();
+            serializeNullsGson = builder(extraAdapters).serializeNulls().create();
+            decodeGson = builder(extraAdapters)
+                .registerTypeAdapter(Long.class, new LongDefault0Adapter())
+                .registerTypeAdapter(long.class, new LongDefault0Adapter())
+                .registerTypeAdapter(Integer.class, new InterDefault0Adapter())
+                .registerTypeAdapter(int.class, new InterDefault0Adapter())
+                .create();
+            for (Class<?> type : PRE_RESOLVED_TYPES) {
+                adapters.put(type, decodeGson.getAdapter(type));
+            }
         }
 
-        return gson.toJson(object);
+        private static GsonBuilder builder(Map<Type, Object> extraAdapters) {
+            GsonBuilder builder = new GsonBuilder();
+            for (Map.Entry<Type, Object> entry : extraAdapters.entrySet()) {
+                builder.registerTypeAdapter(entry.getKey(), entry.getValue());
+            }
+            return builder;
+        }
     }
 
     static class InterDefault0Adapter implements JsonSerializer<Integer>, JsonDeserializer<Integer> {
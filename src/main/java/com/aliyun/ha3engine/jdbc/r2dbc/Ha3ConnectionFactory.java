@@ -0,0 +1,46 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import com.aliyun.ha3engine.jdbc.Ha3Connection;
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.reactivestreams.Publisher;
+
+/**
+ * Ha3的R2DBC ConnectionFactory，与JDBC连接共用{@link Ha3Config}和相同配置下的CloudClient
+ */
+public class Ha3ConnectionFactory implements ConnectionFactory {
+
+    static final String DATABASE_NAME = "Ha3";
+
+    private static final ConnectionFactoryMetadata METADATA = () -> DATABASE_NAME;
+
+    private final Ha3Config ha3Config;
+
+    public Ha3ConnectionFactory(Ha3Config ha3Config) {
+        this.ha3Config = ha3Config;
+    }
+
+    public Ha3Config getHa3Config() {
+        return ha3Config;
+    }
+
+    /**
+     * 订阅时创建连接，相同配置的连接共享CloudClient，不会为每个连接建立新的客户端
+     */
+    @Override
+    public Publisher<Ha3R2dbcConnection> create() {
+        return Ha3Publishers.supply(() -> {
+            try {
+                return new Ha3R2dbcConnection(new Ha3Connection(ha3Config));
+            } catch (Exception e) {
+                throw Ha3R2dbcExceptions.toR2dbcException(e);
+            }
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return METADATA;
+    }
+}
@@ -0,0 +1,303 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * R2DBC实现内部使用的Publisher，不依赖Reactor等响应式库。
+ * 所有Publisher都是冷的，订阅时才开始执行，只在下游request之后发出数据
+ */
+final class Ha3Publishers {
+
+    private Ha3Publishers() {
+    }
+
+    /**
+     * 订阅时调用supplier，future完成后发出其结果，结果为null时直接完成。
+     * 在onSubscribe中取消时不调用supplier，之后取消时以cancel(false)取消future
+     *
+     * @param supplier
+     * @return
+     */
+    static <T> Publisher<T> fromFuture(Supplier<CompletableFuture<T>> supplier) {
+        return subscriber -> {
+            FutureSubscription<T> subscription = new FutureSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+            subscription.start(supplier);
+        };
+    }
+
+    /**
+     * 订阅时执行action后完成
+     *
+     * @param action
+     * @return
+     */
+    static Publisher<Void> run(Runnable action) {
+        return fromFuture(() -> {
+            action.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    static <T> Publisher<T> just(T value) {
+        return fromFuture(() -> CompletableFuture.completedFuture(value));
+    }
+
+    /**
+     * 订阅时调用supplier并发出其结果
+     */
+    static <T> Publisher<T> supply(Supplier<T> supplier) {
+        return fromFuture(() -> CompletableFuture.completedFuture(supplier.get()));
+    }
+
+    static <T> Publisher<T> error(Supplier<? extends Throwable> error) {
+        return fromFuture(() -> {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(error.get());
+            return future;
+        });
+    }
+
+    /**
+     * 订阅时调用supplier，按下游的请求依次发出列表中的元素
+     *
+     * @param supplier
+     * @return
+     */
+    static <T> Publisher<T> fromList(Supplier<List<T>> supplier) {
+        return subscriber -> {
+            ListSubscription<T> subscription = new ListSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+            subscription.start(supplier);
+        };
+    }
+
+    /**
+     * 串行化各个信号并维护下游请求数的Subscription。子类在drain中被依次询问是否有可以发出的元素，
+     * 数据源的状态变化（如异步结果到达）后调用{@link #drain()}，同一时刻只有一个线程在drain
+     */
+    abstract static class DrainSubscription<T> implements Subscription {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+
+        DrainSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (current != Long.MAX_VALUE && !requested.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        protected final boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return 下游是否还有未满足的请求，数据源据此决定是否读取下一个元素
+         */
+        protected final boolean hasDemand() {
+            return requested.get() > 0;
+        }
+
+        /**
+         * @return 现在是否有可以发出的元素，为false时由{@link #isFinished()}区分是还未就绪还是已经结束
+         * @throws Exception 数据源失败，以onError结束
+         */
+        protected abstract boolean hasNext() throws Exception;
+
+        protected abstract T next() throws Exception;
+
+        protected abstract boolean isFinished();
+
+        /**
+         * 结束或取消时释放数据源，只调用一次
+         */
+        protected void release() {
+        }
+
+        final void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    if (cancelled) {
+                        done = true;
+                        release();
+                    } else if (invalidRequest != null) {
+                        terminate(invalidRequest);
+                    } else {
+                        emit();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            try {
+                while (!cancelled) {
+                    if (!hasNext()) {
+                        if (isFinished()) {
+                            terminate(null);
+                        }
+                        break;
+                    }
+                    if (!hasDemand()) {
+                        break;
+                    }
+                    T value = next();
+                    if (value == null) {
+                        throw new NullPointerException("Publisher emitted a null value");
+                    }
+                    subscriber.onNext(value);
+                    // 每发出一个就扣减，hasNext中看到的请求数不包含已经发出的元素
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                }
+            } catch (Throwable e) {
+                terminate(e);
+            }
+        }
+
+        private void terminate(Throwable error) {
+            done = true;
+            release();
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(Ha3R2dbcExceptions.toR2dbcException(error));
+            }
+        }
+    }
+
+    private static final class FutureSubscription<T> extends DrainSubscription<T> {
+
+        private volatile CompletableFuture<T> future;
+        private boolean emitted;
+
+        FutureSubscription(Subscriber<? super T> subscriber) {
+            super(subscriber);
+        }
+
+        void start(Supplier<CompletableFuture<T>> supplier) {
+            if (isCancelled()) {
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = supplier.get();
+            } catch (Throwable e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            this.future = future;
+            // supplier执行期间取消时release看不到future，在这里补上
+            if (isCancelled()) {
+                future.cancel(false);
+                return;
+            }
+            future.whenComplete((value, e) -> drain());
+        }
+
+        @Override
+        protected void release() {
+            CompletableFuture<T> future = this.future;
+            if (future != null && isCancelled()) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        protected boolean hasNext() {
+            CompletableFuture<T> future = this.future;
+            // join在异常完成时抛出，由drain转为onError
+            return !emitted && future != null && future.isDone() && future.join() != null;
+        }
+
+        @Override
+        protected T next() {
+            emitted = true;
+            return future.join();
+        }
+
+        @Override
+        protected boolean isFinished() {
+            CompletableFuture<T> future = this.future;
+            return future != null && future.isDone();
+        }
+    }
+
+    private static final class ListSubscription<T> extends DrainSubscription<T> {
+
+        private volatile Iterator<T> iterator;
+        private volatile Throwable error;
+
+        ListSubscription(Subscriber<? super T> subscriber) {
+            super(subscriber);
+        }
+
+        void start(Supplier<List<T>> supplier) {
+            try {
+                iterator = supplier.get().iterator();
+            } catch (Throwable e) {
+                error = e;
+            }
+            drain();
+        }
+
+        @Override
+        protected boolean hasNext() throws Exception {
+            if (error != null) {
+                throw Ha3R2dbcExceptions.toR2dbcException(error);
+            }
+            return iterator != null && iterator.hasNext();
+        }
+
+        @Override
+        protected T next() {
+            return iterator.next();
+        }
+
+        @Override
+        protected boolean isFinished() {
+            return iterator != null;
+        }
+    }
+}
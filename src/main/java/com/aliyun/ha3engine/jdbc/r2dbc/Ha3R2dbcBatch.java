@@ -0,0 +1,51 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aliyun.ha3engine.jdbc.Ha3Connection;
+import com.aliyun.ha3engine.jdbc.Ha3Statement;
+import io.r2dbc.spi.Batch;
+import org.reactivestreams.Publisher;
+
+/**
+ * 一组不带参数的sql，订阅时全部异步发起，按添加顺序发出结果
+ */
+public class Ha3R2dbcBatch implements Batch {
+
+    private final Ha3Connection connection;
+    private final List<String> statements = new ArrayList<>();
+
+    Ha3R2dbcBatch(Ha3Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public Batch add(String sql) {
+        if (sql == null) {
+            throw new IllegalArgumentException("sql must not be null");
+        }
+        statements.add(sql);
+        return this;
+    }
+
+    @Override
+    public Publisher<Ha3R2dbcResult> execute() {
+        List<String> statements = new ArrayList<>(this.statements);
+        return Ha3Publishers.fromList(() -> {
+            List<Ha3R2dbcResult> results = new ArrayList<>(statements.size());
+            for (String sql : statements) {
+                Ha3Statement statement;
+                try {
+                    statement = (Ha3Statement)connection.createStatement();
+                } catch (SQLException e) {
+                    throw Ha3R2dbcExceptions.toR2dbcException(e);
+                }
+                results.add(new Ha3R2dbcResult(statement.executeQueryAsync(sql), statement.getAsyncExecutor(),
+                    () -> Ha3R2dbcStatement.closeQuietly(statement)));
+            }
+            return results;
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import com.aliyun.ha3engine.jdbc.Ha3Connection;
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import org.reactivestreams.Publisher;
+
+/**
+ * R2DBC connection，包装{@link Ha3Connection}，与JDBC连接一样只支持自动提交的只读查询
+ */
+public class Ha3R2dbcConnection implements Connection {
+
+    private static final ConnectionMetadata METADATA = new ConnectionMetadata() {
+        @Override
+        public String getDatabaseProductName() {
+            return Ha3ConnectionFactory.DATABASE_NAME;
+        }
+
+        @Override
+        public String getDatabaseVersion() {
+            return "unknown";
+        }
+    };
+
+    private final Ha3Connection connection;
+
+    Ha3R2dbcConnection(Ha3Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * @return 底层的JDBC连接，可以用来设置异步线程池等
+     */
+    public Ha3Connection getHa3Connection() {
+        return connection;
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Transaction"));
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return beginTransaction();
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return Ha3Publishers.run(() -> {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw Ha3R2dbcExceptions.toR2dbcException(e);
+            }
+        });
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Commit"));
+    }
+
+    @Override
+    public Batch createBatch() {
+        return new Ha3R2dbcBatch(connection);
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Savepoint"));
+    }
+
+    @Override
+    public Ha3R2dbcStatement createStatement(String sql) {
+        if (sql == null) {
+            throw new IllegalArgumentException("sql must not be null");
+        }
+        return new Ha3R2dbcStatement(connection, sql);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return true;
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return METADATA;
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return IsolationLevel.READ_COMMITTED;
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return createSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Rollback"));
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return createSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        if (autoCommit) {
+            return Ha3Publishers.just(null);
+        }
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Non auto-commit"));
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Lock wait timeout"));
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Statement timeout"));
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return Ha3Publishers.error(() -> Ha3R2dbcExceptions.notSupported("Transaction isolation"));
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return Ha3Publishers.supply(() -> !connection.isClosed());
+    }
+}
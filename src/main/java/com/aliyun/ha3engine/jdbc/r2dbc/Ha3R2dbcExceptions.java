@@ -0,0 +1,59 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import com.aliyun.ha3engine.jdbc.common.exception.ErrorInfo;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+
+/**
+ * JDBC层的异常和Ha3返回的错误信息到R2DBC异常的转换
+ */
+final class Ha3R2dbcExceptions {
+
+    private Ha3R2dbcExceptions() {
+    }
+
+    /**
+     * R2DBC异常和非SQLException的运行时异常原样返回，其余转为R2dbcNonTransientResourceException
+     *
+     * @param e
+     * @return
+     */
+    static RuntimeException toR2dbcException(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException)e;
+        }
+        if (e instanceof SQLFeatureNotSupportedException) {
+            return new UnsupportedOperationException(e.getMessage(), e);
+        }
+        if (e instanceof SQLException) {
+            SQLException sqlException = (SQLException)e;
+            return new R2dbcNonTransientResourceException(e.getMessage(), sqlException.getSQLState(),
+                sqlException.getErrorCode(), e);
+        }
+        return new R2dbcNonTransientResourceException(e.getMessage(), e);
+    }
+
+    /**
+     * @param errorInfo
+     * @return 查询成功时返回null
+     */
+    static R2dbcException fromErrorInfo(ErrorInfo errorInfo) {
+        if (errorInfo == null || errorInfo.getErrorCode() == 0) {
+            return null;
+        }
+        String reason = errorInfo.getError() != null ? errorInfo.getError() : errorInfo.getMessage();
+        return new R2dbcNonTransientResourceException(reason, null, (int)errorInfo.getErrorCode());
+    }
+
+    static R2dbcException notSupported(String operation) {
+        return new R2dbcNonTransientResourceException(operation + " is not supported");
+    }
+}
@@ -0,0 +1,418 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.sql.SQLException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * 一次查询的结果，按下游的请求逐行读取{@link Ha3ResultSet}并映射，请求暂停时不再读取后续的行。
+ * decodeMode=streaming时结果集按streamingWindowRows分批解码，慢速的订阅方不会使整个结果同时解码到内存中；
+ * 需要从响应流读取下一个窗口时在statement的异步线程池中移动，不阻塞调用request的线程。
+ * 结果只能消费一次，读完、出错或取消订阅后关闭结果集
+ */
+public class Ha3R2dbcResult implements Result {
+
+    private final CompletableFuture<Ha3ResultSet> future;
+    private final Executor executor;
+    private final Predicate<Segment> filter;
+    private final AtomicBoolean released;
+    private final Runnable onRelease;
+
+    /**
+     * @param future    异步查询的结果集
+     * @param executor  读取响应流的线程池
+     * @param onRelease 结果集关闭后调用
+     */
+    Ha3R2dbcResult(CompletableFuture<Ha3ResultSet> future, Executor executor, Runnable onRelease) {
+        this(future, executor, null, new AtomicBoolean(), onRelease);
+    }
+
+    private Ha3R2dbcResult(CompletableFuture<Ha3ResultSet> future, Executor executor, Predicate<Segment> filter,
+        AtomicBoolean released, Runnable onRelease) {
+        this.future = future;
+        this.executor = executor;
+        this.filter = filter;
+        this.released = released;
+        this.onRelease = onRelease;
+    }
+
+    /**
+     * Ha3只支持查询，不发出更新行数
+     */
+    @Override
+    public Publisher<Long> getRowsUpdated() {
+        return Ha3Publishers.fromFuture(() -> future.whenComplete((resultSet, e) -> release())
+            .thenApply(resultSet -> {
+                R2dbcException error = Ha3R2dbcExceptions.fromErrorInfo(resultSet.getErrorInfo());
+                if (error != null) {
+                    throw error;
+                }
+                return null;
+            }));
+    }
+
+    @Override
+    public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new IllegalArgumentException("mappingFunction must not be null");
+        }
+        return subscriber -> subscribe(subscriber, new MapSubscription<>(subscriber, mappingFunction));
+    }
+
+    @Override
+    public Result filter(Predicate<Segment> filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter must not be null");
+        }
+        return new Ha3R2dbcResult(future, executor, this.filter == null ? filter : this.filter.and(filter),
+            released, onRelease);
+    }
+
+    @Override
+    public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new IllegalArgumentException("mappingFunction must not be null");
+        }
+        return subscriber -> subscribe(subscriber, new FlatMapSubscription<>(subscriber, mappingFunction));
+    }
+
+    private <T> void subscribe(Subscriber<? super T> subscriber, RowSubscription<T> subscription) {
+        subscriber.onSubscribe(subscription);
+        future.whenComplete((resultSet, e) -> subscription.drain());
+    }
+
+    /**
+     * 关闭结果集，查询还未完成时在完成后关闭
+     */
+    private void release() {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        future.whenComplete((resultSet, e) -> {
+            try {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+            } catch (SQLException ignored) {
+                // 结果集关闭失败不影响已经发出的数据
+            } finally {
+                if (onRelease != null) {
+                    onRelease.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * 逐行遍历结果集，跳过filter不接受的行。只在下游有请求时移动到下一行，
+     * 已解码的行在drain线程中移动，需要读取响应流时交给executor，读取完成后重新drain
+     */
+    private abstract class RowSubscription<T> extends Ha3Publishers.DrainSubscription<T> {
+
+        /**
+         * 还未移动到下一行
+         */
+        private static final int ROW_NONE = 0;
+        /**
+         * executor正在读取下一行，此时drain线程不访问结果集
+         */
+        private static final int ROW_FETCHING = 1;
+        /**
+         * 已经移动到下一行，等待发出
+         */
+        private static final int ROW_READY = 2;
+        private static final int ROW_END = 3;
+
+        protected Ha3R2dbcRowMetadata metadata;
+        protected Ha3R2dbcRow row;
+        protected RowSegment segment;
+        private Ha3ResultSet resultSet;
+        private volatile int rowState;
+        private volatile Throwable fetchError;
+        /**
+         * 读取期间结束或取消时不能关闭结果集，由读取线程在完成后关闭
+         */
+        private boolean releasePending;
+
+        RowSubscription(Subscriber<? super T> subscriber) {
+            super(subscriber);
+        }
+
+        /**
+         * @return 查询是否已经完成
+         * @throws Exception 查询失败
+         */
+        protected boolean start() throws Exception {
+            if (resultSet != null) {
+                return true;
+            }
+            if (!future.isDone()) {
+                return false;
+            }
+            Ha3ResultSet resultSet = future.join();
+            R2dbcException error = Ha3R2dbcExceptions.fromErrorInfo(resultSet.getErrorInfo());
+            if (error != null) {
+                throw error;
+            }
+            metadata = new Ha3R2dbcRowMetadata(resultSet.getKeyList(), resultSet.getTypeList());
+            row = new Ha3R2dbcRow(resultSet, metadata);
+            segment = () -> row;
+            this.resultSet = resultSet;
+            return true;
+        }
+
+        /**
+         * @return 是否已经移动到filter接受的下一行，为false时由{@link #isRowsFinished()}区分是还未读取还是已经结束
+         * @throws Exception 读取失败
+         */
+        protected boolean pollRow() throws Exception {
+            Throwable error = fetchError;
+            if (error != null) {
+                throw Ha3R2dbcExceptions.toR2dbcException(error);
+            }
+            if (rowState == ROW_NONE && hasDemand()) {
+                int state = advance(true);
+                if (state == ROW_NONE) {
+                    rowState = ROW_FETCHING;
+                    try {
+                        executor.execute(this::fetch);
+                    } catch (RuntimeException e) {
+                        rowState = ROW_NONE;
+                        throw e;
+                    }
+                } else {
+                    rowState = state;
+                }
+            }
+            return rowState == ROW_READY;
+        }
+
+        /**
+         * 当前行已经发出，下次pollRow时移动到下一行
+         */
+        protected void consumeRow() {
+            rowState = ROW_NONE;
+        }
+
+        protected boolean isRowsFinished() {
+            return rowState == ROW_END;
+        }
+
+        /**
+         * @param buffered 只在已解码的行中移动
+         * @return ROW_READY、ROW_END，buffered为true且需要读取响应流时为ROW_NONE
+         */
+        private int advance(boolean buffered) throws SQLException {
+            while (!buffered || resultSet.isNextBuffered()) {
+                if (!resultSet.next()) {
+                    return ROW_END;
+                }
+                if (filter == null || filter.test(segment)) {
+                    return ROW_READY;
+                }
+            }
+            return ROW_NONE;
+        }
+
+        /**
+         * 在executor中移动到下一行
+         */
+        private void fetch() {
+            int state;
+            Throwable error = null;
+            try {
+                state = advance(false);
+            } catch (Throwable e) {
+                state = ROW_END;
+                error = e;
+            }
+            boolean release;
+            synchronized (this) {
+                fetchError = error;
+                rowState = state;
+                release = releasePending;
+            }
+            if (release) {
+                Ha3R2dbcResult.this.release();
+            } else {
+                drain();
+            }
+        }
+
+        @Override
+        protected void release() {
+            synchronized (this) {
+                if (rowState == ROW_FETCHING) {
+                    releasePending = true;
+                    return;
+                }
+            }
+            Ha3R2dbcResult.this.release();
+        }
+    }
+
+    private final class MapSubscription<T> extends RowSubscription<T> {
+
+        private final BiFunction<Row, RowMetadata, ? extends T> mappingFunction;
+        private boolean started;
+
+        MapSubscription(Subscriber<? super T> subscriber, BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            super(subscriber);
+            this.mappingFunction = mappingFunction;
+        }
+
+        @Override
+        protected boolean hasNext() throws Exception {
+            if (!started) {
+                if (!start()) {
+                    return false;
+                }
+                started = true;
+            }
+            return pollRow();
+        }
+
+        @Override
+        protected T next() throws Exception {
+            T value = mappingFunction.apply(row, metadata);
+            // 映射完成后行视图不再使用，有请求时再移动到下一行
+            consumeRow();
+            return value;
+        }
+
+        @Override
+        protected boolean isFinished() {
+            return started && isRowsFinished();
+        }
+    }
+
+    /**
+     * 每行交给映射函数得到一个Publisher，依次转发其中的元素，当前行的Publisher结束后才移动到下一行
+     */
+    private final class FlatMapSubscription<T> extends RowSubscription<T> {
+
+        private final Function<Segment, ? extends Publisher<? extends T>> mappingFunction;
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private InnerSubscriber inner;
+        private boolean started;
+        private boolean rowsFinished;
+
+        FlatMapSubscription(Subscriber<? super T> subscriber,
+            Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+            super(subscriber);
+            this.mappingFunction = mappingFunction;
+        }
+
+        @Override
+        protected boolean hasNext() throws Exception {
+            if (!started) {
+                if (!start()) {
+                    return false;
+                }
+                started = true;
+            }
+            while (queue.isEmpty()) {
+                if (inner != null) {
+                    if (inner.error != null) {
+                        throw Ha3R2dbcExceptions.toR2dbcException(inner.error);
+                    }
+                    if (!inner.done) {
+                        return false;
+                    }
+                    inner = null;
+                }
+                if (rowsFinished) {
+                    return false;
+                }
+                if (!pollRow()) {
+                    rowsFinished = isRowsFinished();
+                    return false;
+                }
+                consumeRow();
+                Publisher<? extends T> publisher = mappingFunction.apply(segment);
+                if (publisher == null) {
+                    throw new NullPointerException("mappingFunction returned a null Publisher");
+                }
+                inner = new InnerSubscriber();
+                publisher.subscribe(inner);
+            }
+            return true;
+        }
+
+        @Override
+        protected T next() {
+            return queue.poll();
+        }
+
+        @Override
+        protected boolean isFinished() {
+            return rowsFinished && inner == null && queue.isEmpty();
+        }
+
+        @Override
+        protected void release() {
+            InnerSubscriber inner = this.inner;
+            if (inner != null) {
+                inner.cancel();
+            }
+            super.release();
+        }
+
+        /**
+         * 每行的Publisher通常只发出很少的元素，一次请求全部并缓存在队列中，行之间的背压由外层控制
+         */
+        private final class InnerSubscriber implements Subscriber<T> {
+
+            private volatile Subscription subscription;
+            private volatile boolean done;
+            private volatile Throwable error;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T value) {
+                queue.offer(value);
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                error = e;
+                done = true;
+                drain();
+            }
+
+            @Override
+            public void onComplete() {
+                done = true;
+                drain();
+            }
+
+            void cancel() {
+                Subscription subscription = this.subscription;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        }
+    }
+}
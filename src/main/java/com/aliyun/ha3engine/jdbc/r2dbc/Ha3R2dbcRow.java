@@ -0,0 +1,53 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.sql.SQLException;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+
+/**
+ * 结果集当前行的视图，只在映射函数执行期间有效，结果集移动到下一行后读到的是新行的值
+ */
+public class Ha3R2dbcRow implements Row {
+
+    private final Ha3ResultSet resultSet;
+    private final Ha3R2dbcRowMetadata metadata;
+
+    Ha3R2dbcRow(Ha3ResultSet resultSet, Ha3R2dbcRowMetadata metadata) {
+        this.resultSet = resultSet;
+        this.metadata = metadata;
+    }
+
+    /**
+     * @param index 从0开始的列下标
+     * @param type  Object.class时按列类型返回，其余类型与{@link Ha3ResultSet#getObject(int, Class)}相同
+     * @return null单元格返回null
+     */
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null");
+        }
+        metadata.getColumnMetadata(index);
+        try {
+            if (type == Object.class) {
+                Object value = resultSet.getObject(index + 1);
+                return resultSet.wasNull() ? null : type.cast(value);
+            }
+            return resultSet.getObject(index + 1, type);
+        } catch (SQLException e) {
+            throw Ha3R2dbcExceptions.toR2dbcException(e);
+        }
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        return get(metadata.indexOf(name), type);
+    }
+
+    @Override
+    public RowMetadata getMetadata() {
+        return metadata;
+    }
+}
@@ -0,0 +1,127 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ColumnLabels;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ColumnType;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Nullability;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+
+/**
+ * 结果的列信息，列名查找与JDBC结果集相同，先按原样查找，找不到时忽略大小写
+ */
+public class Ha3R2dbcRowMetadata implements RowMetadata {
+
+    private final Ha3ColumnLabels labels;
+    private final List<Column> columns;
+
+    Ha3R2dbcRowMetadata(List<String> columnNames, List<String> columnTypes) {
+        this.labels = new Ha3ColumnLabels(columnNames, columnTypes);
+        List<Column> columns = new ArrayList<>(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            columns.add(new Column(columnNames.get(i), i < columnTypes.size() ? columnTypes.get(i) : null));
+        }
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * @param name
+     * @return 从0开始的列下标
+     * @throws NoSuchElementException 列不存在
+     */
+    int indexOf(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("name must not be null");
+        }
+        int index = labels.find(name);
+        if (index == 0) {
+            throw new NoSuchElementException("Column '" + name + "' not found");
+        }
+        return index - 1;
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(int index) {
+        if (index < 0 || index >= columns.size()) {
+            throw new IndexOutOfBoundsException("Column index out of range: " + index);
+        }
+        return columns.get(index);
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(String name) {
+        return columns.get(indexOf(name));
+    }
+
+    @Override
+    public List<? extends ColumnMetadata> getColumnMetadatas() {
+        return columns;
+    }
+
+    @Override
+    public boolean contains(String columnName) {
+        return columnName != null && labels.find(columnName) != 0;
+    }
+
+    private static class Column implements ColumnMetadata {
+
+        private final String name;
+        /**
+         * Ha3 column_type
+         */
+        private final String nativeType;
+        private final Type type;
+
+        Column(String name, String nativeType) {
+            this.name = name;
+            this.nativeType = nativeType;
+            this.type = toR2dbcType(Ha3ColumnType.of(nativeType));
+        }
+
+        private static Type toR2dbcType(Ha3ColumnType type) {
+            switch (type) {
+                case INT32:
+                    return R2dbcType.INTEGER;
+                case INT64:
+                    return R2dbcType.BIGINT;
+                case DOUBLE:
+                    return R2dbcType.DOUBLE;
+                case STRING:
+                    return R2dbcType.VARCHAR;
+                case MULTI_INT32:
+                case MULTI_INT64:
+                case MULTI_DOUBLE:
+                case MULTI_STRING:
+                    return R2dbcType.COLLECTION;
+                default:
+                    return R2dbcType.VARCHAR;
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public Object getNativeTypeMetadata() {
+            return nativeType;
+        }
+
+        @Override
+        public Nullability getNullability() {
+            return Nullability.NULLABLE;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.aliyun.ha3engine.jdbc.r2dbc;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aliyun.ha3engine.jdbc.Ha3Connection;
+import com.aliyun.ha3engine.jdbc.Ha3PreparedStatement;
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import com.aliyun.ha3engine.jdbc.Ha3Statement;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+
+/**
+ * R2DBC statement，sql中的参数用?占位，按从0开始的下标绑定，不支持按名称绑定。
+ * 没有绑定参数时按{@link Ha3Statement#executeQueryAsync(String)}执行，默认拼接kvpair；
+ * 有绑定参数时按{@link Ha3PreparedStatement#executeQueryAsync()}执行，每组参数一次查询
+ */
+public class Ha3R2dbcStatement implements Statement {
+
+    private final Ha3Connection connection;
+    private final String sql;
+    private final List<Map<Integer, Object>> bindings = new ArrayList<>();
+    private Map<Integer, Object> current = new TreeMap<>();
+    private int fetchSize;
+
+    Ha3R2dbcStatement(Ha3Connection connection, String sql) {
+        this.connection = connection;
+        this.sql = sql;
+    }
+
+    @Override
+    public Statement add() {
+        bindings.add(current);
+        current = new TreeMap<>();
+        return this;
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null, use bindNull instead");
+        }
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Parameter index out of range: " + index);
+        }
+        current.put(index, value);
+        return this;
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        throw new IllegalArgumentException("Named parameters are not supported: " + name);
+    }
+
+    /**
+     * 执行时按{@link Ha3PreparedStatement#setNull(int, int)}绑定，type不影响动态参数的取值
+     */
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Parameter index out of range: " + index);
+        }
+        current.put(index, null);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        throw new IllegalArgumentException("Named parameters are not supported: " + name);
+    }
+
+    /**
+     * @param rows decodeMode=streaming时每次解码的行数，0表示使用连接的streamingWindowRows
+     * @return
+     */
+    @Override
+    public Statement fetchSize(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Fetch size must be >= 0");
+        }
+        this.fetchSize = rows;
+        return this;
+    }
+
+    /**
+     * 订阅时发起全部查询，每组参数对应一个结果，所有结果关闭后关闭JDBC statement
+     */
+    @Override
+    public Publisher<Ha3R2dbcResult> execute() {
+        List<Map<Integer, Object>> bindings = new ArrayList<>(this.bindings);
+        if (!current.isEmpty()) {
+            bindings.add(current);
+        }
+        return Ha3Publishers.fromList(() -> {
+            try {
+                return bindings.isEmpty() ? Collections.singletonList(query()) : query(bindings);
+            } catch (SQLException e) {
+                throw Ha3R2dbcExceptions.toR2dbcException(e);
+            }
+        });
+    }
+
+    private Ha3R2dbcResult query() throws SQLException {
+        Ha3Statement statement = (Ha3Statement)connection.createStatement();
+        statement.setFetchSize(fetchSize);
+        return new Ha3R2dbcResult(statement.executeQueryAsync(sql), statement.getAsyncExecutor(),
+            () -> closeQuietly(statement));
+    }
+
+    private List<Ha3R2dbcResult> query(List<Map<Integer, Object>> bindings) throws SQLException {
+        Ha3PreparedStatement statement = (Ha3PreparedStatement)connection.prepareStatement(sql);
+        statement.setFetchSize(fetchSize);
+        AtomicInteger pending = new AtomicInteger(bindings.size());
+        Runnable onRelease = () -> {
+            if (pending.decrementAndGet() == 0) {
+                closeQuietly(statement);
+            }
+        };
+        List<Ha3R2dbcResult> results = new ArrayList<>(bindings.size());
+        for (Map<Integer, Object> binding : bindings) {
+            CompletableFuture<Ha3ResultSet> future;
+            try {
+                // 每组参数独立绑定，不沿用上一组设置过而本组没有绑定的参数
+                statement.clearParameters();
+                for (Map.Entry<Integer, Object> parameter : binding.entrySet()) {
+                    if (parameter.getValue() == null) {
+                        statement.setNull(parameter.getKey() + 1, Types.NULL);
+                    } else {
+                        statement.setObject(parameter.getKey() + 1, parameter.getValue());
+                    }
+                }
+                // 参数在调用时确定，之后可以继续设置下一组
+                future = statement.executeQueryAsync();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            results.add(new Ha3R2dbcResult(future, statement.getAsyncExecutor(), onRelease));
+        }
+        return results;
+    }
+
+    static void closeQuietly(Ha3Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // 只释放资源，结果已经发出
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package com.aliyun.ha3engine.jdbc.sdk.client;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.aliyun.ha3engine.Client;
 import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import com.aliyun.ha3engine.jdbc.common.exception.ErrorInfo;
 import com.aliyun.ha3engine.jdbc.common.utils.FileTools;
 import com.aliyun.ha3engine.jdbc.common.utils.Ha3ToolUtils;
-import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
-import com.aliyun.ha3engine.models.Config;
-import com.aliyun.ha3engine.models.SearchQuery;
-import com.aliyun.ha3engine.models.SearchRequestModel;
-import com.aliyun.ha3engine.models.SearchResponseModel;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3FlatBuffersDecoder;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3DecodeOptions;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ParallelDecoder;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3QueryResult;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ResultDecoder;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3RowStream;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3TapeDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,7 +38,15 @@ public class CloudClient {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final Ha3Config ha3Config;
-    private Client client;
+    private final Ha3Transport transport;
+    /**
+     * 是否以flatbuffers格式请求和解码结果
+     */
+    private final boolean flatBuffers;
+    /**
+     * executeQueryAsync默认使用的线程池，第一次异步查询时创建
+     */
+    private volatile ExecutorService asyncExecutor;
 
     /**
      * 构造通过endpoint访问的CloudClient
@@ -36,89 +55,292 @@ public class CloudClient {
      * @throws SQLException
      */
     public CloudClient(Ha3Config ha3Config) throws Exception {
+        this(ha3Config, createTransport(ha3Config));
+    }
+
+    /**
+     * 构造使用指定Ha3Transport的CloudClient
+     *
+     * @param ha3Config
+     * @param transport
+     */
+    public CloudClient(Ha3Config ha3Config, Ha3Transport transport) {
         this.ha3Config = ha3Config;
-        Config config = new Config();
-        config.setAccessPassWord(this.ha3Config.getPassword());
-        config.setEndpoint(this.ha3Config.getServiceName());
-        config.setAccessUserName(this.ha3Config.getUsername());
-        client = new Client(config);
+        this.transport = transport;
+
+        boolean flatBuffers = Ha3Config.RESULT_FORMAT_FLATBUFFERS.equals(ha3Config.getResultFormat());
+        if (flatBuffers && !ha3Config.isLocalMode() && !transport.supportsBinary()) {
+            // aliyun-sdk-ha3engine只能以字符串返回body，二进制的flatbuffers结果会被破坏，需要transport=http
+            logger.warn("resultFormat=flatbuffers is not supported by transport " + ha3Config.getTransport()
+                + ", fall back to full_json");
+            flatBuffers = false;
+        }
+        this.flatBuffers = flatBuffers;
+
+        if (!Ha3Config.COMPRESSION_NONE.equals(ha3Config.getResponseCompression())
+            && transport instanceof Ha3SdkTransport) {
+            logger.warn("responseCompression=" + ha3Config.getResponseCompression()
+                + " is ignored by transport " + ha3Config.getTransport() + ", use transport=http");
+        }
     }
 
     /**
-     * 通过aliyun-sdk-ha3engine发起请求，并拼装结果数据为JsonString
+     * 按transport参数创建：sdk、http或实现了Ha3Transport的类名，serviceName有多个endpoint时在其间负载均衡
      *
-     * @param sql
+     * @param ha3Config
      * @return
+     * @throws Exception
      */
-    public String query(String sql) {
-        JsonObject resultJsonObject = new JsonObject();
-        JsonObject errorJsonObject = new JsonObject();
-        resultJsonObject.add("error", errorJsonObject);
-
-        sql = Ha3ToolUtils.getFullJsonSql(sql);
+    private static Ha3Transport createTransport(Ha3Config ha3Config) throws Exception {
+        List<String> serviceNames = ha3Config.getServiceNames();
+        if (serviceNames.size() <= 1) {
+            return createTransport(ha3Config, serviceNames.isEmpty() ? ha3Config.getServiceName() : serviceNames.get(0),
+                true);
+        }
+        List<Ha3Transport> transports = new ArrayList<>(serviceNames.size());
+        try {
+            for (String serviceName : serviceNames) {
+                transports.add(createTransport(ha3Config, serviceName, false));
+            }
+        } catch (Exception e) {
+            for (Ha3Transport transport : transports) {
+                transport.close();
+            }
+            throw e;
+        }
+        return new Ha3LoadBalancedTransport(ha3Config, serviceNames, transports);
+    }
 
-        /** build query */
-        SearchRequestModel sqlQueryRequestModel = new SearchRequestModel();
-        SearchQuery sqlRawQuery = new SearchQuery();
-        if (ha3Config.isEnableDetailLog()) {
-            logger.info("sql:" + sql);
+    /**
+     * @param ha3Config
+     * @param serviceName 一个endpoint
+     * @param single      是否只有一个endpoint，只有一个时自定义的Ha3Transport可以只有(Ha3Config)的构造函数
+     * @return
+     * @throws Exception
+     */
+    private static Ha3Transport createTransport(Ha3Config ha3Config, String serviceName, boolean single)
+        throws Exception {
+        String transport = ha3Config.getTransport();
+        if (Ha3Config.TRANSPORT_SDK.equals(transport)) {
+            return new Ha3SdkTransport(ha3Config, serviceName);
+        }
+        if (Ha3Config.TRANSPORT_HTTP.equals(transport)) {
+            return new Ha3HttpTransport(ha3Config, serviceName);
         }
-        sqlRawQuery.setSql(sql);
-        sqlQueryRequestModel.setQuery(sqlRawQuery);
+        Class<?> transportClass = Class.forName(transport);
+        if (!Ha3Transport.class.isAssignableFrom(transportClass)) {
+            throw new IllegalArgumentException("Unsupported transport: " + transport);
+        }
+        try {
+            return (Ha3Transport)transportClass.getConstructor(Ha3Config.class, String.class)
+                .newInstance(ha3Config, serviceName);
+        } catch (NoSuchMethodException e) {
+            if (!single) {
+                throw new IllegalArgumentException("Transport " + transport
+                    + " needs a (Ha3Config, String) constructor to be used with multiple endpoints");
+            }
+            return (Ha3Transport)transportClass.getConstructor(Ha3Config.class).newInstance(ha3Config);
+        }
+    }
+
+    /**
+     * 通过Ha3Transport发起请求，并将响应解码为Ha3QueryResult
+     *
+     * @param sql
+     * @return
+     */
+    public Ha3QueryResult query(String sql) {
+        return query(sql, Ha3DecodeOptions.DEFAULT);
+    }
 
+    /**
+     * 通过Ha3Transport发起请求，并将响应解码为Ha3QueryResult
+     *
+     * @param sql
+     * @param options 堆外存储、落盘等解码选项，lazy解码模式下忽略
+     * @return
+     */
+    public Ha3QueryResult query(String sql, Ha3DecodeOptions options) {
+        Ha3QueryResult result;
         try {
-            SearchResponseModel sqlResponseModel = new SearchResponseModel();
-            if (ha3Config.isLocalMode()) {
-                sqlResponseModel.setBody(FileTools.loadResource("ha3_sql_result"));
-            } else {
-                sqlResponseModel = client.Search(sqlQueryRequestModel);
+            result = decodeBody(search(sql), options);
+        } catch (Exception e) {
+            return errorResult(e);
+        }
+        return checkResult(result);
+    }
+
+    /**
+     * 异步发起请求，请求在ioExecutor中执行，响应在decodeExecutor中解码，不占用等待响应的线程。
+     * Ha3Transport的请求是阻塞的，同时等待响应的请求数受ioExecutor的线程数限制；
+     * 压缩的响应在decodeExecutor中边读边解压，解码期间仍占用连接
+     *
+     * @param sql
+     * @param options        堆外存储、落盘等解码选项，lazy解码模式下忽略
+     * @param ioExecutor     发起请求的线程池
+     * @param decodeExecutor 解码响应的线程池
+     * @return 请求或解码失败时与query相同，结果中带有错误信息
+     */
+    public CompletableFuture<Ha3QueryResult> queryAsync(String sql, Ha3DecodeOptions options, Executor ioExecutor,
+        Executor decodeExecutor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return search(sql);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, ioExecutor).thenApplyAsync(body -> {
+            try {
+                return checkResult(decodeBody(body, options));
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-            JsonObject ha3SqlResult = JsonUtils.fromJson(sqlResponseModel.getBody(), JsonObject.class);
-            JsonObject error_info = ha3SqlResult.getAsJsonObject("error_info");
-            if (null != error_info) {
-                errorJsonObject.addProperty("errorCode", error_info.get("ErrorCode").getAsInt());
-                errorJsonObject.addProperty("message", error_info.get("Message").getAsString());
-                errorJsonObject.addProperty("error", error_info.get("Error").getAsString());
-                if (error_info.get("ErrorCode").getAsInt() != 0) {
-                    logger.error(
-                            "ERROR: query result has error：errorCode: " + error_info.get("ErrorCode").getAsInt() + " errorInfo: "
-                                    + error_info.get("Error").getAsString());
+        }, decodeExecutor).exceptionally(e -> errorResult(e instanceof CompletionException && e.getCause() != null
+            ? e.getCause() : e));
+    }
+
+    /**
+     * @return executeQueryAsync默认使用的线程池，按asyncThreads创建，线程为守护线程
+     */
+    public Executor getAsyncExecutor() {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(ha3Config.getAsyncThreads(), runnable -> {
+                        Thread thread = new Thread(runnable, "ha3-query-async-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    asyncExecutor = executor;
                 }
-            } else {
-                errorJsonObject.addProperty("errorCode", 404);
-                errorJsonObject.addProperty("message", "ERROR: query result is empty,ha3Result is null!");
-                errorJsonObject.addProperty("error", "ERROR: query result is empty,ha3Result is null!");
-                logger.error(
-                        "ERROR: query result is empty,ha3Result is null!");
             }
+        }
+        return executor;
+    }
+
+    /**
+     * @return 异步查询解码响应的线程池，decodeParallelism大于1时使用并行解码的线程池
+     */
+    public Executor getDecodeExecutor() {
+        int parallelism = ha3Config.getDecodeParallelism();
+        return parallelism > 1 ? Ha3ParallelDecoder.getPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * 关闭Ha3Transport和异步查询的线程池
+     */
+    public void close() throws IOException {
+        ExecutorService executor = asyncExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        transport.close();
+    }
+
+    /**
+     * 按resultFormat发起full_json或flatbuffers请求
+     *
+     * @param sql
+     * @return 响应的body
+     * @throws Exception
+     */
+    private Ha3ResponseBody search(String sql) throws Exception {
+        sql = flatBuffers ? Ha3ToolUtils.getFlatBuffersSql(sql) : Ha3ToolUtils.getFullJsonSql(sql);
+        logSql(sql);
+        if (ha3Config.isLocalMode()) {
+            return flatBuffers ? Ha3ResponseBody.of(ByteBuffer.wrap(FileTools.loadResourceBytes("ha3_sql_result.fb")))
+                : Ha3ResponseBody.of(FileTools.loadResource("ha3_sql_result"));
+        }
+        return transport.search(sql);
+    }
 
-            JsonArray fieldsNames = ha3SqlResult.getAsJsonObject("sql_result").getAsJsonArray("column_name");
-            JsonArray fieldsTypes = ha3SqlResult.getAsJsonObject("sql_result").getAsJsonArray("column_type");
-            JsonArray columnsJsonArray = new JsonArray();
-            for (int i = 0; i < fieldsNames.size(); i++) {
-                String fieldName = fieldsNames.get(i).getAsString();
-                String columnType = fieldsTypes.get(i).getAsString();
-                JsonObject columnJsonObject = new JsonObject();
-                columnJsonObject.addProperty("name", fieldName);
-                columnJsonObject.addProperty("type", columnType);
-                columnsJsonArray.add(columnJsonObject);
+    private void logSql(String sql) {
+        if (ha3Config.isEnableDetailLog()) {
+            logger.info("sql:" + sql);
+        }
+    }
+
+    private Ha3QueryResult checkResult(Ha3QueryResult result) {
+        ErrorInfo errorInfo = result.getErrorInfo();
+        if (null != errorInfo) {
+            if (errorInfo.getErrorCode() != 0) {
+                logger.error(
+                        "ERROR: query result has error：errorCode: " + errorInfo.getErrorCode() + " errorInfo: "
+                                + errorInfo.getError());
             }
-            resultJsonObject.add("columns", columnsJsonArray);
+        } else if (result.getRowStream() != null && !result.getRowStream().isExhausted()) {
+            // 流式结果的error_info在data之后，行读完后由结果集补充
+            return result;
+        } else {
+            result.setErrorInfo(new ErrorInfo(404, "ERROR: query result is empty,ha3Result is null!",
+                    "ERROR: query result is empty,ha3Result is null!"));
+            logger.error(
+                    "ERROR: query result is empty,ha3Result is null!");
+        }
+        return result;
+    }
 
-            JsonArray data = ha3SqlResult.getAsJsonObject("sql_result").getAsJsonArray("data");
+    private Ha3QueryResult errorResult(Throwable e) {
+        Ha3QueryResult result = new Ha3QueryResult();
+        result.setErrorInfo(new ErrorInfo(404, e.getMessage(), e.getMessage()));
+        logger.error("ERROR:" + e.getMessage());
+        return result;
+    }
 
-            JsonArray rowsArray = new JsonArray();
-            for (int i = 0; i < data.size(); i++) {
-                rowsArray.add(data.get(i));
+    /**
+     * 解码响应并关闭body，流式结果持有body，由结果集关闭时关闭；压缩的响应在详细日志中记录目前为止压缩前后的大小
+     *
+     * @param body
+     * @param options
+     * @return
+     * @throws IOException
+     */
+    private Ha3QueryResult decodeBody(Ha3ResponseBody body, Ha3DecodeOptions options) throws IOException {
+        Ha3QueryResult result;
+        boolean streaming = false;
+        try {
+            result = decode(body, options);
+            streaming = result.getRowStream() != null;
+        } finally {
+            if (!streaming) {
+                body.close();
             }
-            resultJsonObject.add("rows", rowsArray);
+        }
+        if (ha3Config.isEnableDetailLog() && body.getContentEncoding() != null) {
+            long encoded = body.getEncodedLength();
+            long decoded = body.getDecodedLength();
+            logger.info(String.format("response:%s, %d bytes -> %d bytes, compression ratio %.2f",
+                body.getContentEncoding(), encoded, decoded, encoded == 0 ? 0.0 : (double)decoded / encoded));
+        }
+        return result;
+    }
 
-        } catch (Exception e) {
-            errorJsonObject.addProperty("errorCode", 404);
-            errorJsonObject.addProperty("message", e.getMessage());
-            errorJsonObject.addProperty("error", e.getMessage());
-            logger.error("ERROR:" + e.getMessage());
+    /**
+     * 解码flatbuffers响应，或按decodeMode解码full_json响应，可滚动的结果集不使用streaming模式，
+     * eager模式下decodeParallelism大于1时并行解码，否则边读边解码，body为字节或流时不创建完整的字符串
+     *
+     * @param body
+     * @param options
+     * @return
+     * @throws IOException
+     */
+    private Ha3QueryResult decode(Ha3ResponseBody body, Ha3DecodeOptions options) throws IOException {
+        if (flatBuffers) {
+            return Ha3FlatBuffersDecoder.decode(body.asByteBuffer(), options);
+        }
+        if (Ha3Config.DECODE_MODE_LAZY.equals(ha3Config.getDecodeMode())) {
+            return Ha3TapeDecoder.decode(body.asString());
+        }
+        if (Ha3Config.DECODE_MODE_STREAMING.equals(ha3Config.getDecodeMode()) && !options.isScrollable()) {
+            return Ha3RowStream.open(body.asReader(), options);
+        }
+        int parallelism = ha3Config.getDecodeParallelism();
+        if (parallelism > 1) {
+            return Ha3ParallelDecoder.decode(body.asString(), options, Ha3ParallelDecoder.getPool(parallelism));
         }
-        return resultJsonObject.toString();
+        return Ha3ResultDecoder.decode(body.asReader(), options);
     }
 }
@@ -37,6 +37,7 @@ public class CloudClientHolder {
     public void close() throws IOException {
 
         if (client != null) {
+            client.close();
             client = null;
         }
     }
@@ -0,0 +1,847 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 直接请求Ha3 SQL接口的HTTP/1.1客户端，transport=http时使用。
+ * serviceName为endpoint，可以带http://或https://前缀和端口，用户名密码以Basic认证发送。
+ * 连接按CloudClient共用并保持长连接，一个连接同一时刻只承载一个请求，同时进行的请求数超过httpMaxConnections时等待空闲连接。
+ * 成功的响应以流返回，streaming模式下由解码器从连接上边读边解码，结果集关闭时放弃剩余的数据；需要完整body的解码方式
+ * 按Content-Length一次分配后读入，flatbuffers结果直接在其上解码。
+ * responseCompression不为none时请求gzip或deflate压缩的响应，读取时边读边解压
+ */
+public class Ha3HttpTransport implements Ha3Transport {
+
+    private static final String KVPAIR_SEPARATOR = "&&kvpair=";
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_ERROR_BODY_LENGTH = 512;
+    private static final int INFLATE_BUFFER_SIZE = 16 * 1024;
+
+    private final String host;
+    private final int port;
+    private final boolean https;
+    /**
+     * Host请求头，endpoint去掉协议前缀后的部分
+     */
+    private final String authority;
+    private final String path;
+    private final String authorization;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int maxConnections;
+    private final long keepAliveNanos;
+    /**
+     * Accept-Encoding请求头，不压缩时为null
+     */
+    private final String acceptEncoding;
+    /**
+     * 可以同时进行的请求数
+     */
+    private final Semaphore permits;
+    /**
+     * 空闲连接，最近使用的在队首，先复用最近使用的连接，队尾的连接空闲超时后关闭
+     */
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    public Ha3HttpTransport(Ha3Config ha3Config) {
+        this(ha3Config, ha3Config.getServiceName());
+    }
+
+    /**
+     * @param ha3Config
+     * @param serviceName serviceName中的一个endpoint
+     */
+    public Ha3HttpTransport(Ha3Config ha3Config, String serviceName) {
+        String endpoint = serviceName;
+        if (StringUtils.isEmpty(endpoint)) {
+            throw new IllegalArgumentException("serviceName is required for transport=http");
+        }
+        boolean https = false;
+        if (endpoint.startsWith("https://")) {
+            https = true;
+            endpoint = endpoint.substring("https://".length());
+        } else if (endpoint.startsWith("http://")) {
+            endpoint = endpoint.substring("http://".length());
+        }
+        int slash = endpoint.indexOf('/');
+        if (slash >= 0) {
+            endpoint = endpoint.substring(0, slash);
+        }
+        int colon = endpoint.lastIndexOf(':');
+        try {
+            this.port = colon >= 0 ? Integer.parseInt(endpoint.substring(colon + 1)) : https ? 443 : 80;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid serviceName: " + serviceName);
+        }
+        this.host = colon >= 0 ? endpoint.substring(0, colon) : endpoint;
+        this.https = https;
+        this.authority = endpoint;
+        this.path = ha3Config.getHttpPath();
+        if (StringUtils.isNotEmpty(ha3Config.getUsername())) {
+            String credentials = ha3Config.getUsername() + ":" + StringUtils.defaultString(ha3Config.getPassword());
+            this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        } else {
+            this.authorization = null;
+        }
+        this.connectTimeout = ha3Config.getHttpConnectTimeout();
+        this.readTimeout = ha3Config.getHttpReadTimeout();
+        this.maxConnections = ha3Config.getHttpMaxConnections();
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(ha3Config.getHttpKeepAliveTimeout());
+        this.permits = new Semaphore(maxConnections, true);
+        String compression = ha3Config.getResponseCompression();
+        this.acceptEncoding = Ha3Config.COMPRESSION_NONE.equals(compression) ? null : compression;
+    }
+
+    /**
+     * @return 以流返回的body，读完或close后才归还连接
+     */
+    @Override
+    public Ha3ResponseBody search(String sql) throws IOException {
+        return execute(buildRequest(sql));
+    }
+
+    @Override
+    public boolean supportsBinary() {
+        return true;
+    }
+
+    /**
+     * 关闭空闲连接，正在进行的请求完成后关闭其连接
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * @return 当前的空闲连接数
+     */
+    public synchronized int getIdleConnections() {
+        return idle.size();
+    }
+
+    private byte[] buildRequest(String sql) {
+        StringBuilder request = new StringBuilder(sql.length() + 256);
+        request.append("GET ").append(path).append(path.indexOf('?') >= 0 ? '&' : '?').append(encodeQuery(sql))
+            .append(" HTTP/1.1\r\n");
+        request.append("Host: ").append(authority).append("\r\n");
+        if (authorization != null) {
+            request.append("Authorization: ").append(authorization).append("\r\n");
+        }
+        request.append("Accept: */*\r\n");
+        if (acceptEncoding != null) {
+            request.append("Accept-Encoding: ").append(acceptEncoding).append("\r\n");
+        }
+        request.append("User-Agent: ha3-jdbc\r\n");
+        request.append("Connection: keep-alive\r\n");
+        request.append("\r\n");
+        // 查询已经过URL编码，只有ASCII字符
+        return request.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * sql和kvpair分别编码，保留Ha3用于分隔的&&kvpair=
+     *
+     * @param sql
+     * @return
+     */
+    static String encodeQuery(String sql) {
+        int kvpair = sql.indexOf(KVPAIR_SEPARATOR);
+        if (kvpair < 0) {
+            return "query=" + encode(sql);
+        }
+        return "query=" + encode(sql.substring(0, kvpair)) + KVPAIR_SEPARATOR
+            + encode(sql.substring(kvpair + KVPAIR_SEPARATOR.length()));
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Ha3ResponseBody execute(byte[] request) throws IOException {
+        acquire();
+        boolean leased = false;
+        try {
+            Connection connection;
+            Response response = null;
+            do {
+                connection = pollIdle();
+                boolean reused = connection != null;
+                if (!reused) {
+                    connection = connect();
+                }
+                try {
+                    response = connection.exchange(request);
+                } catch (IOException e) {
+                    connection.close();
+                    // 空闲期间被服务端关闭的连接在读到响应前就会失败，GET请求可以在其他连接上重发
+                    if (!reused || connection.responseStarted || e instanceof SocketTimeoutException) {
+                        throw e;
+                    }
+                }
+            } while (response == null);
+            leased = true;
+            return readBody(response, new Lease(connection, response.keepAlive));
+        } finally {
+            if (!leased) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 读取响应的body，负责在各种情况下归还lease
+     *
+     * @param response
+     * @param lease
+     * @return
+     * @throws IOException 读取失败，状态码不是200时为StatusException
+     */
+    private Ha3ResponseBody readBody(Response response, Lease lease) throws IOException {
+        boolean streaming = false;
+        try {
+            if (response.status == 200) {
+                if (response.contentEncoding == null) {
+                    ResponseInputStream body = new ResponseInputStream(response.body, response.body, lease);
+                    streaming = true;
+                    return Ha3ResponseBody.of(body, response.contentLength);
+                }
+                Ha3ResponseBody.CountingInputStream encoded = new Ha3ResponseBody.CountingInputStream(response.body);
+                ResponseInputStream body = new ResponseInputStream(encoded,
+                    inflate(response.contentEncoding, encoded), lease);
+                streaming = true;
+                return Ha3ResponseBody.of(body, response.contentEncoding, encoded::getCount);
+            }
+            ByteBuffer body;
+            if (response.contentEncoding == null) {
+                body = readFully(response.body, response.contentLength);
+            } else {
+                body = readFully(inflate(response.contentEncoding, response.body), -1);
+                drain(response.body);
+            }
+            lease.release(true);
+            if (response.status != 200) {
+                throw new StatusException(response.status, "HTTP " + response.status + " from " + authority + ": "
+                    + StringUtils.abbreviate(Ha3ResponseBody.of(body).asString(), MAX_ERROR_BODY_LENGTH));
+            }
+            return Ha3ResponseBody.of(body);
+        } finally {
+            if (!streaming) {
+                // 已经归还时不再处理，否则是读取失败，连接中可能残留数据，不能复用
+                lease.release(false);
+            }
+        }
+    }
+
+    /**
+     * @param encoding Content-Encoding
+     * @param in       压缩的body
+     * @return 解压后的body
+     * @throws IOException 不支持的压缩方式或压缩头不正确
+     */
+    private static InputStream inflate(String encoding, InputStream in) throws IOException {
+        if (Ha3Config.COMPRESSION_GZIP.equals(encoding) || "x-gzip".equals(encoding)) {
+            return new GZIPInputStream(in, INFLATE_BUFFER_SIZE);
+        }
+        if (Ha3Config.COMPRESSION_DEFLATE.equals(encoding)) {
+            // deflate应为带zlib头的格式，部分服务端发送的是不带头的原始deflate数据
+            PushbackInputStream pushback = new PushbackInputStream(in, 2);
+            int cmf = pushback.read();
+            int flg = cmf < 0 ? -1 : pushback.read();
+            if (flg >= 0) {
+                pushback.unread(flg);
+            }
+            if (cmf >= 0) {
+                pushback.unread(cmf);
+            }
+            boolean zlib = flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+            Inflater inflater = new Inflater(!zlib);
+            return new InflaterInputStream(pushback, inflater, INFLATE_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+        }
+        throw new IOException("Unsupported Content-Encoding: " + encoding);
+    }
+
+    /**
+     * 读完body中剩余的字节，如chunked的结束标记，之后连接可以复用
+     */
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[512];
+        while (in.read(buffer, 0, buffer.length) >= 0) {
+            // 丢弃
+        }
+    }
+
+    private void acquire() throws IOException {
+        if (closed) {
+            throw new IOException("Transport to " + authority + " is closed");
+        }
+        try {
+            if (!permits.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for a connection to " + authority
+                    + ", httpMaxConnections=" + maxConnections);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + authority);
+        }
+    }
+
+    private synchronized Connection pollIdle() {
+        long now = System.nanoTime();
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (now - connection.idleSince < keepAliveNanos) {
+                return connection;
+            }
+            connection.close();
+        }
+        return null;
+    }
+
+    private synchronized void offerIdle(Connection connection) {
+        connection.idleSince = System.nanoTime();
+        idle.offerFirst(connection);
+        Connection oldest;
+        while ((oldest = idle.peekLast()) != null && connection.idleSince - oldest.idleSince >= keepAliveNanos) {
+            idle.pollLast().close();
+        }
+    }
+
+    private Connection connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            socket.setSoTimeout(readTimeout);
+            if (https) {
+                SSLSocket sslSocket = (SSLSocket)((SSLSocketFactory)SSLSocketFactory.getDefault())
+                    .createSocket(socket, host, port, true);
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+            return new Connection(socket);
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 连接失败，关闭只是释放资源
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 服务端返回了200以外的状态码
+     */
+    public static class StatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        public StatusException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * 读完响应头的响应，body还未读取
+     */
+    private static final class Response {
+
+        private final int status;
+        /**
+         * 只包含本次响应的body，读到-1时body结束
+         */
+        private final InputStream body;
+        /**
+         * body的字节数，-1表示未知
+         */
+        private final long contentLength;
+        /**
+         * 小写的Content-Encoding，未压缩时为null
+         */
+        private final String contentEncoding;
+        private final boolean keepAlive;
+
+        Response(int status, InputStream body, long contentLength, String contentEncoding, boolean keepAlive) {
+            this.status = status;
+            this.body = body;
+            this.contentLength = contentLength;
+            this.contentEncoding = contentEncoding;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    /**
+     * 一次请求占用的连接和并发许可，body读完后归还连接，否则关闭连接
+     */
+    private final class Lease {
+
+        private final Connection connection;
+        private final boolean keepAlive;
+        private boolean released;
+
+        Lease(Connection connection, boolean keepAlive) {
+            this.connection = connection;
+            this.keepAlive = keepAlive;
+        }
+
+        /**
+         * @param reusable body是否已经完整读取，只调用一次生效
+         */
+        void release(boolean reusable) {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                if (reusable && keepAlive && keepAliveNanos > 0 && !closed) {
+                    offerIdle(connection);
+                } else {
+                    connection.close();
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 成功响应的body，压缩时边读边解压，读到结束时归还连接；没有读完就关闭时再读取少量数据，仍未结束则关闭连接
+     */
+    private static final class ResponseInputStream extends InputStream {
+
+        private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+        private final InputStream encoded;
+        private final InputStream inflated;
+        private final Lease lease;
+        private boolean finished;
+
+        ResponseInputStream(InputStream encoded, InputStream inflated, Lease lease) {
+            this.encoded = encoded;
+            this.inflated = inflated;
+            this.lease = lease;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            int read;
+            try {
+                read = inflated.read(buffer, offset, length);
+                if (read < 0) {
+                    finish();
+                }
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[4096];
+                int drained = 0;
+                int read;
+                while (drained < MAX_DRAIN_BYTES && (read = inflated.read(buffer, 0, buffer.length)) >= 0) {
+                    drained += read;
+                }
+                if (drained < MAX_DRAIN_BYTES) {
+                    finish();
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                // 剩余的数据无法读完，关闭连接
+            }
+            abort();
+        }
+
+        private void finish() throws IOException {
+            finished = true;
+            drain(encoded);
+            inflated.close();
+            lease.release(true);
+        }
+
+        private void abort() {
+            finished = true;
+            try {
+                inflated.close();
+            } catch (IOException ignored) {
+                // 连接随后关闭
+            }
+            lease.release(false);
+        }
+    }
+
+    private static final class Connection {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private long idleSince;
+        /**
+         * 本次请求是否已经读到响应
+         */
+        private boolean responseStarted;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            this.out = socket.getOutputStream();
+        }
+
+        Response exchange(byte[] request) throws IOException {
+            responseStarted = false;
+            out.write(request);
+            out.flush();
+
+            int status;
+            boolean http11;
+            long contentLength;
+            boolean chunked;
+            String connectionHeader;
+            String contentEncoding;
+            do {
+                String statusLine = readLine(in);
+                if (statusLine == null) {
+                    throw new EOFException("Connection closed before response");
+                }
+                responseStarted = true;
+                if (!statusLine.startsWith("HTTP/1.") || statusLine.length() < 12) {
+                    throw new IOException("Malformed HTTP status line: " + statusLine);
+                }
+                http11 = !statusLine.startsWith("HTTP/1.0");
+                status = parseStatus(statusLine);
+                contentLength = -1;
+                chunked = false;
+                connectionHeader = null;
+                contentEncoding = null;
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon <= 0) {
+                        continue;
+                    }
+                    String name = line.substring(0, colon).trim();
+                    String value = line.substring(colon + 1).trim();
+                    if ("Content-Length".equalsIgnoreCase(name)) {
+                        contentLength = parseContentLength(value);
+                    } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                        chunked = value.toLowerCase().contains("chunked");
+                    } else if ("Connection".equalsIgnoreCase(name)) {
+                        connectionHeader = value;
+                    } else if ("Content-Encoding".equalsIgnoreCase(name)) {
+                        String encoding = value.toLowerCase();
+                        contentEncoding = encoding.isEmpty() || "identity".equals(encoding) ? null : encoding;
+                    }
+                }
+                if (line == null) {
+                    throw new EOFException("Connection closed while reading response headers");
+                }
+                // 1xx为中间响应，继续读取最终响应
+            } while (status >= 100 && status < 200);
+
+            boolean keepAlive = http11 ? !"close".equalsIgnoreCase(connectionHeader)
+                : "keep-alive".equalsIgnoreCase(connectionHeader);
+            InputStream body;
+            if (status == 204 || status == 304) {
+                body = new FixedLengthInputStream(in, 0);
+                contentLength = 0;
+                contentEncoding = null;
+            } else if (chunked) {
+                body = new ChunkedInputStream(in);
+                contentLength = -1;
+            } else if (contentLength >= 0) {
+                body = new FixedLengthInputStream(in, contentLength);
+            } else {
+                // 没有长度的body以连接关闭结束，连接不能复用
+                body = in;
+                keepAlive = false;
+            }
+            return new Response(status, body, contentLength, contentEncoding, keepAlive);
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 连接不再使用，关闭只是释放资源
+            }
+        }
+
+        private static int parseStatus(String statusLine) throws IOException {
+            try {
+                return Integer.parseInt(statusLine.substring(9, 12));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed HTTP status line: " + statusLine);
+            }
+        }
+
+        private static long parseContentLength(String value) throws IOException {
+            try {
+                long length = Long.parseLong(value);
+                if (length < 0) {
+                    throw new IOException("Invalid Content-Length: " + value);
+                }
+                return length;
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + value);
+            }
+        }
+    }
+
+    /**
+     * @param in
+     * @param length body的字节数，-1表示读到流结束
+     * @return
+     * @throws IOException
+     */
+    static ByteBuffer readFully(InputStream in, long length) throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Response body is too large: " + length);
+        }
+        if (length >= 0) {
+            byte[] buffer = new byte[(int)length];
+            int count = 0;
+            while (count < buffer.length) {
+                int read = in.read(buffer, count, buffer.length - count);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of response body, expected " + length + " bytes");
+                }
+                count += read;
+            }
+            return ByteBuffer.wrap(buffer);
+        }
+        byte[] buffer = new byte[8192];
+        int count = 0;
+        int read;
+        while ((read = in.read(buffer, count, buffer.length - count)) >= 0) {
+            count += read;
+            if (count == buffer.length) {
+                if (buffer.length >= Integer.MAX_VALUE - 8) {
+                    throw new IOException("Response body is too large");
+                }
+                byte[] grown = new byte[(int)Math.min((long)buffer.length << 1, Integer.MAX_VALUE - 8)];
+                System.arraycopy(buffer, 0, grown, 0, count);
+                buffer = grown;
+            }
+        }
+        return ByteBuffer.wrap(buffer, 0, count);
+    }
+
+    /**
+     * 读取以\r\n或\n结尾的一行
+     *
+     * @param in
+     * @return 流已经结束时返回null
+     * @throws IOException
+     */
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("HTTP header line is too long");
+            }
+            line.append((char)b);
+        }
+        if (line.length() == 0) {
+            return null;
+        }
+        throw new EOFException("Connection closed in the middle of a line");
+    }
+
+    /**
+     * 按Content-Length读取的body，不关闭底层的连接
+     */
+    private static final class FixedLengthInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        FixedLengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            int read = in.read(buffer, offset, (int)Math.min(length, remaining));
+            if (read < 0) {
+                throw new EOFException("Unexpected end of response body, " + remaining + " bytes missing");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(in.available(), remaining);
+        }
+    }
+
+    /**
+     * Transfer-Encoding: chunked的body，读到最后一个chunk及其trailer后结束，不关闭底层的连接
+     */
+    private static final class ChunkedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+        private boolean finished;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining == 0 && !nextChunk()) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, (int)Math.min(length, remaining));
+            if (read < 0) {
+                throw new EOFException("Unexpected end of chunked response body");
+            }
+            remaining -= read;
+            if (remaining == 0 && !StringUtils.isEmpty(readLine(in))) {
+                throw new IOException("Malformed chunked response body");
+            }
+            return read;
+        }
+
+        /**
+         * @return 是否还有chunk，最后一个chunk时读完trailer
+         */
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            String line = readLine(in);
+            if (line == null) {
+                throw new EOFException("Unexpected end of chunked response body");
+            }
+            int extension = line.indexOf(';');
+            String size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+            try {
+                remaining = Long.parseLong(size, 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed chunk size: " + line);
+            }
+            if (remaining < 0) {
+                throw new IOException("Malformed chunk size: " + line);
+            }
+            if (remaining == 0) {
+                finished = true;
+                String trailer;
+                do {
+                    trailer = readLine(in);
+                } while (trailer != null && !trailer.isEmpty());
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import com.aliyun.tea.TeaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * serviceName有多个endpoint时，在各个endpoint的Ha3Transport之间负载均衡。
+ * 每个请求随机取两个可用的endpoint，选择平均延迟乘以(未完成请求数+1)较小的一个（power of two choices），
+ * 平均延迟为EWMA，并随闲置时间衰减，使变慢后被冷落的endpoint有机会重新取样。
+ * 连续失败达到endpointFailureThreshold次，或平均延迟超过其他endpoint中位数endpointOutlierRatio倍的endpoint被摘除，
+ * 最多摘除一半的endpoint；摘除期满后放行一个请求探测，成功则恢复，失败则按摘除次数延长摘除时间。
+ * endpoint的故障（连接失败、超时、5xx或429，transport=sdk时从TeaException中识别）导致请求失败时，在另一个endpoint上重试一次
+ */
+public class Ha3LoadBalancedTransport implements Ha3Transport {
+
+    /**
+     * EWMA中新样本的权重
+     */
+    private static final double EWMA_WEIGHT = 0.2;
+    /**
+     * 平均延迟的衰减时间常数，闲置这么久的endpoint的平均延迟衰减为约37%
+     */
+    private static final long EWMA_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    /**
+     * 按延迟摘除前至少需要的样本数
+     */
+    private static final int MIN_OUTLIER_SAMPLES = 10;
+    /**
+     * 按延迟摘除时平均延迟至少需要高出中位数的时间，避免毫秒级的差异被倍数放大
+     */
+    private static final long MIN_OUTLIER_EXCESS_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    /**
+     * 摘除时间最多延长到endpointEjectionTime的倍数
+     */
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+    /**
+     * 恢复后连续成功这么多次，摘除次数清零
+     */
+    private static final int EJECTION_RESET_SAMPLES = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Endpoint[] endpoints;
+    private final int failureThreshold;
+    private final long ejectionNanos;
+    private final double outlierRatio;
+    private final int maxEjected;
+
+    /**
+     * @param ha3Config
+     * @param serviceNames 各个endpoint
+     * @param transports   与serviceNames一一对应
+     */
+    public Ha3LoadBalancedTransport(Ha3Config ha3Config, List<String> serviceNames, List<Ha3Transport> transports) {
+        if (serviceNames.size() != transports.size() || serviceNames.isEmpty()) {
+            throw new IllegalArgumentException("Each endpoint needs exactly one transport");
+        }
+        this.endpoints = new Endpoint[serviceNames.size()];
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = new Endpoint(serviceNames.get(i), transports.get(i));
+        }
+        this.failureThreshold = ha3Config.getEndpointFailureThreshold();
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ha3Config.getEndpointEjectionTime());
+        this.outlierRatio = ha3Config.getEndpointOutlierRatio();
+        this.maxEjected = endpoints.length / 2;
+    }
+
+    @Override
+    public Ha3ResponseBody search(String sql) throws Exception {
+        Endpoint endpoint = choose(null);
+        try {
+            return search(endpoint, sql);
+        } catch (Exception e) {
+            if (endpoints.length < 2 || !isEndpointFailure(e)) {
+                throw e;
+            }
+            Endpoint retry = choose(endpoint);
+            logger.warn("query on endpoint " + endpoint.name + " failed, retry on " + retry.name + ": "
+                + e.getMessage());
+            return search(retry, sql);
+        }
+    }
+
+    @Override
+    public boolean supportsBinary() {
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.transport.supportsBinary()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (Endpoint endpoint : endpoints) {
+            try {
+                endpoint.transport.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * @return 各个endpoint当前的状态，用于日志和监控
+     */
+    public synchronized String getEndpointStates() {
+        long now = System.nanoTime();
+        StringBuilder states = new StringBuilder();
+        for (Endpoint endpoint : endpoints) {
+            if (states.length() > 0) {
+                states.append(", ");
+            }
+            states.append(endpoint.name).append("{latency=")
+                .append(String.format("%.1fms", endpoint.latency(now) / 1e6))
+                .append(", outstanding=").append(endpoint.outstanding.get())
+                .append(", ejected=").append(endpoint.ejected).append('}');
+        }
+        return states.toString();
+    }
+
+    private Ha3ResponseBody search(Endpoint endpoint, String sql) throws Exception {
+        endpoint.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Ha3ResponseBody body = endpoint.transport.search(sql);
+            onSuccess(endpoint, System.nanoTime() - start);
+            return body;
+        } catch (Exception e) {
+            onFailure(endpoint, e);
+            throw e;
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * 只有IO错误（连接失败、超时）和5xx、429是endpoint的故障。请求错误（4xx）由sql或认证引起，
+     * SDK的其他异常也与endpoint无关，不计入失败也不重试。
+     * SDK以TeaException报告HTTP状态码，IO错误被包装在TeaException或其他异常中，需要沿cause查找
+     *
+     * @param e 请求抛出的异常
+     * @return
+     */
+    static boolean isEndpointFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof Ha3HttpTransport.StatusException) {
+                return isEndpointStatus(((Ha3HttpTransport.StatusException)cause).getStatus());
+            }
+            if (cause instanceof TeaException) {
+                Integer status = getStatusCode((TeaException)cause);
+                if (status != null) {
+                    return isEndpointStatus(status);
+                }
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEndpointStatus(int status) {
+        return status >= 500 || status == 429;
+    }
+
+    /**
+     * @return TeaException中的HTTP状态码，不同版本的tea分别放在statusCode、data.statusCode或code中，没有时为null
+     */
+    private static Integer getStatusCode(TeaException e) {
+        if (e.getStatusCode() != null) {
+            return e.getStatusCode();
+        }
+        Object status = e.getData() == null ? null : e.getData().get("statusCode");
+        String value = status != null ? String.valueOf(status) : e.getCode();
+        if (value == null || value.isEmpty() || value.length() > 3) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ignored) {
+            // code是错误名称而不是状态码
+            return null;
+        }
+    }
+
+    /**
+     * @param excluded 重试时排除已经失败的endpoint
+     * @return 摘除期满、还未探测的endpoint优先，否则在可用的endpoint中按power of two choices选择
+     */
+    private synchronized Endpoint choose(Endpoint excluded) {
+        long now = System.nanoTime();
+        List<Endpoint> available = new ArrayList<>(endpoints.length);
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint == excluded) {
+                continue;
+            }
+            if (!endpoint.ejected) {
+                available.add(endpoint);
+            } else if (!endpoint.probing && now - endpoint.ejectedUntil >= 0) {
+                endpoint.probing = true;
+                return endpoint;
+            }
+        }
+        if (available.isEmpty()) {
+            // 其余的endpoint都已摘除，仍然需要选择一个发出请求
+            for (Endpoint endpoint : endpoints) {
+                if (endpoint != excluded) {
+                    available.add(endpoint);
+                }
+            }
+        }
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = available.get(first);
+        Endpoint b = available.get(second);
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+
+    private synchronized void onSuccess(Endpoint endpoint, long latency) {
+        long now = System.nanoTime();
+        endpoint.consecutiveFailures = 0;
+        if (endpoint.probing) {
+            endpoint.probing = false;
+            endpoint.ejected = false;
+            endpoint.ewma = latency;
+            endpoint.samples = 1;
+            endpoint.updatedAt = now;
+            logger.info("endpoint " + endpoint.name + " re-admitted after probe, latency "
+                + TimeUnit.NANOSECONDS.toMillis(latency) + "ms");
+            return;
+        }
+        endpoint.ewma = endpoint.samples == 0 ? latency
+            : endpoint.latency(now) + EWMA_WEIGHT * (latency - endpoint.latency(now));
+        endpoint.samples++;
+        endpoint.updatedAt = now;
+        if (endpoint.ejected) {
+            // 摘除前发出的请求
+            return;
+        }
+        if (outlierRatio > 0 && endpoint.samples >= MIN_OUTLIER_SAMPLES) {
+            double median = medianLatency(endpoint, now);
+            if (median > 0 && endpoint.ewma > median * outlierRatio
+                && endpoint.ewma - median > MIN_OUTLIER_EXCESS_NANOS) {
+                eject(endpoint, now, String.format("latency %.1fms is %.1fx the median %.1fms of other endpoints",
+                    endpoint.ewma / 1e6, endpoint.ewma / median, median / 1e6));
+                return;
+            }
+        }
+        endpoint.unhealthyLogged = false;
+        if (endpoint.samples >= EJECTION_RESET_SAMPLES) {
+            endpoint.ejections = 0;
+        }
+    }
+
+    private synchronized void onFailure(Endpoint endpoint, Exception e) {
+        if (!isEndpointFailure(e)) {
+            if (endpoint.probing) {
+                // 能正常返回状态码，视为探测成功
+                onSuccess(endpoint, endpoint.ewma > 0 ? (long)endpoint.ewma : 0);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        endpoint.consecutiveFailures++;
+        if (endpoint.probing) {
+            endpoint.probing = false;
+            eject(endpoint, now, "probe failed: " + e.getMessage());
+        } else if (!endpoint.ejected && endpoint.consecutiveFailures >= failureThreshold) {
+            eject(endpoint, now, endpoint.consecutiveFailures + " consecutive failures, last: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return 其他未摘除且有样本的endpoint平均延迟的中位数，没有时为0
+     */
+    private double medianLatency(Endpoint excluded, long now) {
+        double[] latencies = new double[endpoints.length];
+        int count = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint != excluded && !endpoint.ejected && endpoint.samples > 0) {
+                latencies[count++] = endpoint.latency(now);
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(latencies, 0, count);
+        return count % 2 == 1 ? latencies[count / 2] : (latencies[count / 2 - 1] + latencies[count / 2]) / 2;
+    }
+
+    /**
+     * 摘除endpoint，已经摘除一半时不再摘除新的endpoint
+     */
+    private void eject(Endpoint endpoint, long now, String reason) {
+        if (!endpoint.ejected) {
+            int ejected = 0;
+            for (Endpoint other : endpoints) {
+                if (other.ejected) {
+                    ejected++;
+                }
+            }
+            if (ejected >= maxEjected) {
+                if (!endpoint.unhealthyLogged) {
+                    endpoint.unhealthyLogged = true;
+                    logger.warn("endpoint " + endpoint.name
+                        + " is unhealthy but not ejected, too many endpoints ejected: " + reason);
+                }
+                return;
+            }
+        }
+        endpoint.ejected = true;
+        endpoint.unhealthyLogged = false;
+        endpoint.ejections = Math.min(endpoint.ejections + 1, MAX_EJECTION_MULTIPLIER);
+        endpoint.ejectedUntil = now + ejectionNanos * endpoint.ejections;
+        logger.warn("endpoint " + endpoint.name + " ejected for "
+            + TimeUnit.NANOSECONDS.toMillis(ejectionNanos * endpoint.ejections) + "ms: " + reason);
+    }
+
+    /**
+     * 除outstanding外的字段由Ha3LoadBalancedTransport的锁保护
+     */
+    private static final class Endpoint {
+
+        private final String name;
+        private final Ha3Transport transport;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        /**
+         * 平均延迟，纳秒
+         */
+        private double ewma;
+        private long updatedAt;
+        private long samples;
+        private int consecutiveFailures;
+        private boolean ejected;
+        private long ejectedUntil;
+        /**
+         * 摘除的次数，决定摘除时间
+         */
+        private int ejections;
+        /**
+         * 是否有探测请求正在进行
+         */
+        private boolean probing;
+        /**
+         * 因摘除数已达上限而未被摘除时只记录一次日志，恢复正常后重置
+         */
+        private boolean unhealthyLogged;
+
+        Endpoint(String name, Ha3Transport transport) {
+            this.name = name;
+            this.transport = transport;
+        }
+
+        /**
+         * @return 按闲置时间衰减后的平均延迟
+         */
+        double latency(long now) {
+            if (samples == 0) {
+                return 0;
+            }
+            return ewma * Math.exp(-(double)Math.max(0, now - updatedAt) / EWMA_DECAY_NANOS);
+        }
+
+        double cost(long now) {
+            return latency(now) * (outstanding.get() + 1);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+
+/**
+ * 响应的body，保存为字符串、字节或还未读取的流，按解码方式取用，不需要的形式不会被创建。
+ * 流形式的body只能读取一次，用完后需要close以释放其占用的连接
+ */
+public final class Ha3ResponseBody implements Closeable {
+
+    private final String text;
+    private ByteBuffer bytes;
+    private CountingInputStream stream;
+    /**
+     * 响应的Content-Encoding，未压缩时为null
+     */
+    private final String contentEncoding;
+    private final LongSupplier encodedLength;
+    /**
+     * 流形式的body的字节数，未知时为-1
+     */
+    private final long streamLength;
+
+    private Ha3ResponseBody(String text, ByteBuffer bytes, InputStream stream, long streamLength,
+        String contentEncoding, LongSupplier encodedLength) {
+        this.text = text;
+        this.bytes = bytes;
+        this.stream = stream == null ? null : new CountingInputStream(stream);
+        this.streamLength = streamLength;
+        this.contentEncoding = contentEncoding;
+        this.encodedLength = encodedLength;
+    }
+
+    public static Ha3ResponseBody of(String text) {
+        return new Ha3ResponseBody(text, null, null, -1, null, null);
+    }
+
+    /**
+     * @param bytes UTF-8编码的body，不复制，之后不能再修改
+     * @return
+     */
+    public static Ha3ResponseBody of(ByteBuffer bytes) {
+        return new Ha3ResponseBody(null, bytes, null, -1, null, null);
+    }
+
+    /**
+     * @param stream 未压缩的body，close时释放连接
+     * @param length body的字节数，未知时为-1，整体读取时按此一次分配
+     * @return
+     */
+    public static Ha3ResponseBody of(InputStream stream, long length) {
+        return new Ha3ResponseBody(null, null, stream, length, null, null);
+    }
+
+    /**
+     * @param stream          解压后的body，close时释放连接
+     * @param contentEncoding 响应的压缩方式
+     * @param encodedLength   目前为止读取的压缩前的字节数
+     * @return
+     */
+    public static Ha3ResponseBody of(InputStream stream, String contentEncoding, LongSupplier encodedLength) {
+        return new Ha3ResponseBody(null, null, stream, -1, contentEncoding, encodedLength);
+    }
+
+    /**
+     * @return body为字节时按UTF-8解码，每次调用都会新建字符串
+     */
+    public String asString() throws IOException {
+        if (text != null) {
+            return text;
+        }
+        ByteBuffer bytes = materialize();
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(),
+                StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+    }
+
+    /**
+     * @return 只读视图，body为字节时不复制
+     */
+    public ByteBuffer asByteBuffer() throws IOException {
+        if (text != null) {
+            return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        }
+        return materialize().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return 流形式的body直接返回该流，只能读取一次
+     */
+    public InputStream asInputStream() throws IOException {
+        if (stream != null) {
+            return stream;
+        }
+        ByteBuffer buffer = asByteBuffer();
+        if (buffer.hasArray()) {
+            return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                buffer.remaining());
+        }
+        byte[] array = new byte[buffer.remaining()];
+        buffer.get(array);
+        return new ByteArrayInputStream(array);
+    }
+
+    /**
+     * @return body为字节或流时边读边解码，不创建完整的字符串
+     */
+    public Reader asReader() throws IOException {
+        if (text != null) {
+            return new StringReader(text);
+        }
+        return new InputStreamReader(asInputStream(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 响应的Content-Encoding，未压缩时为null
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * @return 目前为止读取的压缩前的字节数，未压缩时与getDecodedLength相同
+     */
+    public long getEncodedLength() {
+        return encodedLength != null ? encodedLength.getAsLong() : getDecodedLength();
+    }
+
+    /**
+     * @return 字符串的长度，或目前为止读取的解压后的字节数
+     */
+    public long getDecodedLength() {
+        if (text != null) {
+            return text.length();
+        }
+        return stream != null ? stream.getCount() : bytes.remaining();
+    }
+
+    /**
+     * 流形式的body没有读完时关闭其连接
+     */
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * 将流形式的body读完并保存为字节，之后按字节形式使用
+     */
+    private ByteBuffer materialize() throws IOException {
+        if (bytes == null) {
+            try (InputStream in = stream) {
+                bytes = Ha3HttpTransport.readFully(in, streamLength);
+            }
+            stream = null;
+        }
+        return bytes;
+    }
+
+    /**
+     * 记录读取的字节数
+     */
+    static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import com.aliyun.ha3engine.Client;
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import com.aliyun.ha3engine.models.Config;
+import com.aliyun.ha3engine.models.SearchQuery;
+import com.aliyun.ha3engine.models.SearchRequestModel;
+import com.aliyun.ha3engine.models.SearchResponseModel;
+
+/**
+ * 通过aliyun-sdk-ha3engine发起请求，transport=sdk时使用，是默认的方式。
+ * SDK只能以字符串返回body，不支持flatbuffers格式的结果
+ */
+public class Ha3SdkTransport implements Ha3Transport {
+
+    private final Client client;
+
+    public Ha3SdkTransport(Ha3Config ha3Config) throws Exception {
+        this(ha3Config, ha3Config.getServiceName());
+    }
+
+    /**
+     * @param ha3Config
+     * @param endpoint  serviceName中的一个endpoint
+     * @throws Exception
+     */
+    public Ha3SdkTransport(Ha3Config ha3Config, String endpoint) throws Exception {
+        Config config = new Config();
+        config.setAccessPassWord(ha3Config.getPassword());
+        config.setEndpoint(endpoint);
+        config.setAccessUserName(ha3Config.getUsername());
+        client = new Client(config);
+    }
+
+    @Override
+    public Ha3ResponseBody search(String sql) throws Exception {
+        /** build query */
+        SearchRequestModel sqlQueryRequestModel = new SearchRequestModel();
+        SearchQuery sqlRawQuery = new SearchQuery();
+        sqlRawQuery.setSql(sql);
+        sqlQueryRequestModel.setQuery(sqlRawQuery);
+        SearchResponseModel sqlResponseModel = client.Search(sqlQueryRequestModel);
+        return Ha3ResponseBody.of(sqlResponseModel.getBody());
+    }
+
+    @Override
+    public boolean supportsBinary() {
+        return false;
+    }
+}
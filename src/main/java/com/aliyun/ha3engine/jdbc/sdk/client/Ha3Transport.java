@@ -0,0 +1,33 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 向Ha3发起SQL请求并取回响应body的方式，由Ha3Config的transport参数选择，
+ * 同一配置的连接共用一个CloudClient，也共用其中的Ha3Transport，实现需要是线程安全的。
+ * serviceName有多个endpoint时每个endpoint创建一个实例，自定义的实现需要有(Ha3Config, String endpoint)的构造函数
+ */
+public interface Ha3Transport extends Closeable {
+
+    /**
+     * 发起请求，阻塞到可以读取响应的body
+     *
+     * @param sql 已经带有kvpair的完整query，如select ...&&kvpair=formatType:full_json
+     * @return 响应的body
+     * @throws Exception 请求失败或服务端返回错误状态
+     */
+    Ha3ResponseBody search(String sql) throws Exception;
+
+    /**
+     * @return 是否能原样返回二进制的body，为false时不能请求flatbuffers格式的结果
+     */
+    boolean supportsBinary();
+
+    /**
+     * 释放连接等资源，之后不再发起请求
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,267 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.aliyun.ha3engine.jdbc.Ha3Array;
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.complex.impl.UnionListWriter;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * 把{@link Ha3ColumnStore}中的列直接写入Arrow向量，不经过ResultSet的逐单元格访问和装箱
+ *
+ * 类型映射：int32为Int(32)，int64为Int(64)，double为FloatingPoint(DOUBLE)，string为Utf8，
+ * multi_int32/multi_int64/multi_double为对应元素类型的List，multi_string和其他类型按json文本写为Utf8。
+ *
+ * Arrow是可选依赖，导出入口都在本类中，{@link Ha3ResultSet}不引用Arrow的类型，只有调用导出方法时才需要在classpath中
+ */
+public class Ha3ArrowExporter {
+
+    private static final String ITEM = "item";
+
+    private final Ha3ColumnType[] types;
+    private final Schema schema;
+
+    public Ha3ArrowExporter(List<String> columnNames, List<String> columnTypes) {
+        this.types = new Ha3ColumnType[columnNames.size()];
+        List<Field> fields = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            types[i] = Ha3ColumnType.of(i < columnTypes.size() ? columnTypes.get(i) : null);
+            fields.add(field(columnNames.get(i), types[i]));
+        }
+        this.schema = new Schema(fields);
+    }
+
+    /**
+     * 把结果集的全部结果导出为VectorSchemaRoot，不移动游标。返回的VectorSchemaRoot由调用方关闭
+     *
+     * @param resultSet
+     * @param allocator
+     * @return
+     * @throws SQLException 结果集已关闭；流式结果不能一次导出，需要使用{@link #writeArrow}
+     */
+    public static VectorSchemaRoot toArrow(Ha3ResultSet resultSet, BufferAllocator allocator) throws SQLException {
+        if (resultSet.isClosed()) {
+            throw new SQLException("ResultSet is closed");
+        }
+        if (resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY) {
+            throw new SQLException("Streaming ResultSet can only be exported with writeArrow");
+        }
+        Ha3ArrowExporter exporter = new Ha3ArrowExporter(resultSet.getKeyList(), resultSet.getTypeList());
+        Ha3ColumnStore store = resultSet.getColumnStore();
+        VectorSchemaRoot root = exporter.createRoot(allocator);
+        try {
+            if (store != null) {
+                exporter.fill(root, store, 0, store.getRowCount());
+            }
+        } catch (SQLException | RuntimeException e) {
+            root.close();
+            throw e;
+        }
+        return root;
+    }
+
+    /**
+     * 把结果集当前行之后的所有行按Arrow IPC stream格式写入out，每个record batch最多batchRows行，写完后游标停在最后一行之后。
+     * 流式结果按窗口读取并导出，内存中只保留一个窗口和一个batch
+     *
+     * @param resultSet
+     * @param allocator
+     * @param out
+     * @param batchRows
+     * @return 导出的行数
+     * @throws SQLException
+     */
+    public static long writeArrow(Ha3ResultSet resultSet, BufferAllocator allocator, OutputStream out, int batchRows)
+        throws SQLException {
+        if (batchRows <= 0) {
+            throw new SQLException("batchRows must be > 0");
+        }
+        RowSource source = resultSet.getRowSource();
+        return new Ha3ArrowExporter(resultSet.getKeyList(), resultSet.getTypeList())
+            .write(allocator, out, batchRows, source);
+    }
+
+    private static Field field(String name, Ha3ColumnType type) {
+        switch (type) {
+            case INT32:
+                return Field.nullable(name, new ArrowType.Int(32, true));
+            case INT64:
+                return Field.nullable(name, new ArrowType.Int(64, true));
+            case DOUBLE:
+                return Field.nullable(name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+            case MULTI_INT32:
+                return list(name, new ArrowType.Int(32, true));
+            case MULTI_INT64:
+                return list(name, new ArrowType.Int(64, true));
+            case MULTI_DOUBLE:
+                return list(name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+            default:
+                return Field.nullable(name, ArrowType.Utf8.INSTANCE);
+        }
+    }
+
+    private static Field list(String name, ArrowType elementType) {
+        return new Field(name, FieldType.nullable(ArrowType.List.INSTANCE),
+            Collections.singletonList(Field.notNullable(ITEM, elementType)));
+    }
+
+    /**
+     * 按窗口提供待导出的行，流式结果每个窗口导出完后再读取下一个窗口
+     */
+    public interface RowSource {
+
+        Ha3ColumnStore getColumnStore();
+
+        /**
+         * @return 当前窗口中第一个待导出的行
+         */
+        int getFrom();
+
+        /**
+         * 当前窗口导出完后移动到下一个窗口
+         *
+         * @return 没有更多的行时返回false
+         * @throws SQLException
+         */
+        boolean nextWindow() throws SQLException;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public VectorSchemaRoot createRoot(BufferAllocator allocator) {
+        return VectorSchemaRoot.create(schema, allocator);
+    }
+
+    /**
+     * 按Arrow IPC stream格式写出source中的所有行，每个record batch最多batchRows行
+     *
+     * @param allocator
+     * @param out
+     * @param batchRows
+     * @param source
+     * @return 写出的行数
+     * @throws SQLException
+     */
+    public long write(BufferAllocator allocator, OutputStream out, int batchRows, RowSource source)
+        throws SQLException {
+        long exported = 0;
+        try (VectorSchemaRoot root = createRoot(allocator);
+            ArrowStreamWriter writer = new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(),
+                out)) {
+            writer.start();
+            do {
+                Ha3ColumnStore store = source.getColumnStore();
+                int rowCount = store.getRowCount();
+                for (int from = source.getFrom(); from < rowCount; from += batchRows) {
+                    int count = Math.min(batchRows, rowCount - from);
+                    fill(root, store, from, count);
+                    writer.writeBatch();
+                    exported += count;
+                }
+            } while (source.nextWindow());
+            writer.end();
+        } catch (IOException e) {
+            throw new SQLException("Failed to write arrow stream", e);
+        }
+        return exported;
+    }
+
+    /**
+     * 把store中[from, from + count)行写入root，root中原有的数据被替换
+     *
+     * @param root
+     * @param store
+     * @param from
+     * @param count
+     * @throws SQLException
+     */
+    public void fill(VectorSchemaRoot root, Ha3ColumnStore store, int from, int count) throws SQLException {
+        root.allocateNew();
+        for (int i = 0; i < types.length; i++) {
+            FieldVector vector = root.getVector(i);
+            Ha3Column column = i < store.getColumnCount() ? store.getColumn(i) : null;
+            fill(vector, types[i], column, from, count);
+            vector.setValueCount(count);
+        }
+        root.setRowCount(count);
+    }
+
+    private static void fill(FieldVector vector, Ha3ColumnType type, Ha3Column column, int from, int count)
+        throws SQLException {
+        for (int i = 0; i < count; i++) {
+            int row = from + i;
+            if (column == null || column.isNull(row)) {
+                // allocateNew之后validity全为0，未写入的位置即为null
+                continue;
+            }
+            switch (type) {
+                case INT32:
+                    ((IntVector)vector).setSafe(i, column.getInt(row));
+                    break;
+                case INT64:
+                    ((BigIntVector)vector).setSafe(i, column.getLong(row));
+                    break;
+                case DOUBLE:
+                    ((Float8Vector)vector).setSafe(i, column.getDouble(row));
+                    break;
+                case MULTI_INT32:
+                case MULTI_INT64:
+                case MULTI_DOUBLE:
+                    writeList((ListVector)vector, type, (Ha3Array)column.getArray(row), i);
+                    break;
+                default:
+                    ((VarCharVector)vector).setSafe(i, column.getBytes(row));
+            }
+        }
+    }
+
+    private static void writeList(ListVector vector, Ha3ColumnType type, Ha3Array array, int index)
+        throws SQLException {
+        UnionListWriter writer = vector.getWriter();
+        writer.setPosition(index);
+        writer.startList();
+        if (type == Ha3ColumnType.MULTI_INT32) {
+            IntBuffer values = array.unwrap(IntBuffer.class);
+            while (values.hasRemaining()) {
+                writer.writeInt(values.get());
+            }
+        } else if (type == Ha3ColumnType.MULTI_INT64) {
+            LongBuffer values = array.unwrap(LongBuffer.class);
+            while (values.hasRemaining()) {
+                writer.writeBigInt(values.get());
+            }
+        } else {
+            DoubleBuffer values = array.unwrap(DoubleBuffer.class);
+            while (values.hasRemaining()) {
+                writer.writeFloat8(values.get());
+            }
+        }
+        writer.endList();
+    }
+}
@@ -0,0 +1,169 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量读取结果行的目标，由调用方提供并复用各列的数组。每次Ha3ResultSet.nextBatch把若干行的值从下标0开始写入已绑定的数组，
+ * 数值列与数组类型相同时直接整段拷贝，调用方可以在紧凑的原始类型数组上做打分或聚合循环。
+ *
+ * <pre>
+ * long[] ids = new long[1024];
+ * double[] scores = new double[1024];
+ * Ha3Batch batch = new Ha3Batch().bindLongs(1, ids).bindDoubles(2, scores, null);
+ * int rows;
+ * while ((rows = resultSet.nextBatch(1024, batch)) &gt; 0) {
+ *     for (int i = 0; i &lt; rows; i++) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public class Ha3Batch {
+
+    private final List<Binding> bindings = new ArrayList<>();
+    private int capacity = Integer.MAX_VALUE;
+    private int size;
+
+    /**
+     * 绑定一列到long[]，null单元格写入0
+     *
+     * @param columnIndex 从1开始的列下标
+     * @param values
+     * @return
+     */
+    public Ha3Batch bindLongs(int columnIndex, long[] values) {
+        return bindLongs(columnIndex, values, null);
+    }
+
+    /**
+     * @param columnIndex 从1开始的列下标
+     * @param values
+     * @param nulls       不为null时写入每行是否为null
+     * @return
+     */
+    public Ha3Batch bindLongs(int columnIndex, long[] values, boolean[] nulls) {
+        return bind(columnIndex, values, values.length, nulls);
+    }
+
+    public Ha3Batch bindInts(int columnIndex, int[] values) {
+        return bindInts(columnIndex, values, null);
+    }
+
+    public Ha3Batch bindInts(int columnIndex, int[] values, boolean[] nulls) {
+        return bind(columnIndex, values, values.length, nulls);
+    }
+
+    public Ha3Batch bindDoubles(int columnIndex, double[] values) {
+        return bindDoubles(columnIndex, values, null);
+    }
+
+    public Ha3Batch bindDoubles(int columnIndex, double[] values, boolean[] nulls) {
+        return bind(columnIndex, values, values.length, nulls);
+    }
+
+    /**
+     * 绑定一列到String[]，null单元格写入null。字典编码的列写入的是字典中共享的实例，不复制字符；
+     * 其余列每个单元格都会创建String，不需要String时用{@link #bindUtf8(int, Ha3Utf8Slices)}
+     *
+     * @param columnIndex 从1开始的列下标
+     * @param values
+     * @return
+     */
+    public Ha3Batch bindStrings(int columnIndex, String[] values) {
+        return bind(columnIndex, values, values.length, null);
+    }
+
+    /**
+     * 绑定一列到UTF-8切片，不为单元格创建String。以UTF-8保存的列直接引用列的数据，
+     * 切片只在下一次nextBatch之前有效
+     *
+     * @param columnIndex 从1开始的列下标
+     * @param slices
+     * @return
+     */
+    public Ha3Batch bindUtf8(int columnIndex, Ha3Utf8Slices slices) {
+        return bind(columnIndex, slices, slices.capacity(), null);
+    }
+
+    private Ha3Batch bind(int columnIndex, Object values, int length, boolean[] nulls) {
+        if (columnIndex < 1) {
+            throw new IllegalArgumentException("Column index out of range: " + columnIndex);
+        }
+        bindings.add(new Binding(columnIndex - 1, values, nulls));
+        capacity = Math.min(capacity, nulls == null ? length : Math.min(length, nulls.length));
+        return this;
+    }
+
+    /**
+     * @return 已绑定数组的最小长度，即一批最多可以写入的行数
+     */
+    public int getCapacity() {
+        return bindings.isEmpty() ? 0 : capacity;
+    }
+
+    /**
+     * @return 最近一次写入的行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 把store中[from, from + count)行写入各绑定数组的[0, count)
+     *
+     * @param store
+     * @param from
+     * @param count 不超过getCapacity()
+     * @throws SQLException 绑定的列下标超出结果的列数
+     */
+    public void fill(Ha3ColumnStore store, int from, int count) throws SQLException {
+        for (Binding binding : bindings) {
+            if (binding.column >= store.getColumnCount()) {
+                throw new SQLException("Column index out of range: " + (binding.column + 1));
+            }
+        }
+        for (Binding binding : bindings) {
+            Ha3Column column = store.getColumn(binding.column);
+            if (binding.values instanceof long[]) {
+                column.copyLongs(from, (long[])binding.values, 0, count);
+            } else if (binding.values instanceof int[]) {
+                column.copyInts(from, (int[])binding.values, 0, count);
+            } else if (binding.values instanceof double[]) {
+                column.copyDoubles(from, (double[])binding.values, 0, count);
+            } else if (binding.values instanceof Ha3Utf8Slices) {
+                column.copyUtf8(from, (Ha3Utf8Slices)binding.values, count);
+            } else {
+                column.copyStrings(from, (String[])binding.values, 0, count);
+            }
+            if (binding.nulls != null) {
+                column.copyNulls(from, binding.nulls, 0, count);
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * 结果已经读完时由nextBatch调用
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private static class Binding {
+
+        private final int column;
+        /**
+         * long[]、int[]、double[]、String[]或Ha3Utf8Slices
+         */
+        private final Object values;
+        private final boolean[] nulls;
+
+        Binding(int column, Object values, boolean[] nulls) {
+            this.column = column;
+            this.values = values;
+            this.nulls = nulls;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按2的幂分级的direct ByteBuffer池，供off-heap结果列使用
+ *
+ * 最小4KB，最大64MB，超过最大级别的申请直接分配且不回收到池中；池中缓存的总字节数超过上限时，
+ * 归还的buffer直接丢弃，由GC回收对应的堆外内存
+ */
+public class Ha3BufferPool {
+
+    private static final int MIN_CLASS_SHIFT = 12;
+    private static final int MAX_CLASS_SHIFT = 26;
+    private static final long DEFAULT_MAX_POOLED_BYTES = 256L << 20;
+
+    private static final Ha3BufferPool DEFAULT = new Ha3BufferPool(DEFAULT_MAX_POOLED_BYTES);
+
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> classes;
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    public Ha3BufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.classes = new ArrayList<>(MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1);
+        for (int shift = MIN_CLASS_SHIFT; shift <= MAX_CLASS_SHIFT; shift++) {
+            classes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public static Ha3BufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 申请容量不小于capacity的buffer，capacity为所在级别的大小，字节序为本机字节序
+     *
+     * @param capacity
+     * @return
+     */
+    public ByteBuffer acquire(int capacity) {
+        int index = classIndex(capacity);
+        if (index < 0) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+        ByteBuffer buffer = classes.get(index).poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(1 << (index + MIN_CLASS_SHIFT)).order(ByteOrder.nativeOrder());
+        }
+        pooledBytes.addAndGet(-buffer.capacity());
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还buffer，调用之后不能再使用该buffer
+     *
+     * @param buffer
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int index = classIndex(capacity);
+        if (index < 0 || capacity != 1 << (index + MIN_CLASS_SHIFT)) {
+            return;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        classes.get(index).offer(buffer);
+    }
+
+    /**
+     * 池中缓存、尚未被使用的字节数
+     *
+     * @return
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    private static int classIndex(int capacity) {
+        int shift = capacity <= 1 << MIN_CLASS_SHIFT ? MIN_CLASS_SHIFT : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return shift > MAX_CLASS_SHIFT ? -1 : shift - MIN_CLASS_SHIFT;
+    }
+}
@@ -0,0 +1,484 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Types;
+import java.util.Arrays;
+
+import com.aliyun.ha3engine.jdbc.Ha3Array;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * 列式存储中的一列，按Ha3 column_type选择具体实现，行号从0开始
+ *
+ * 子类用原始类型数组保存数据，null通过位图记录，typed getter不产生装箱对象
+ */
+public abstract class Ha3Column {
+
+    protected final Ha3ColumnType type;
+    protected int size;
+    /**
+     * uint64列，getString按无符号输出
+     */
+    protected boolean unsigned;
+    private long[] nullBits = new long[1];
+
+    protected Ha3Column(Ha3ColumnType type) {
+        this.type = type;
+    }
+
+    /**
+     * 根据列类型创建对应的列
+     *
+     * @param type Ha3 column_type
+     * @return
+     */
+    public static Ha3Column create(String type) {
+        return create(type, Ha3DecodeOptions.DEFAULT);
+    }
+
+    /**
+     * 根据列类型和解码选项创建对应的列：options中的allocator不为null时int32/int64/double/string列的数据保存在堆外，
+     * 否则string列按utf8Strings选择UTF-8字节存储或字典编码存储
+     *
+     * @param type    Ha3 column_type
+     * @param options
+     * @return
+     */
+    public static Ha3Column create(String type, Ha3DecodeOptions options) {
+        Ha3Column column = createColumn(Ha3ColumnType.of(type), options);
+        column.setUnsigned(Ha3ColumnType.isUnsigned(type));
+        return column;
+    }
+
+    private static Ha3Column createColumn(Ha3ColumnType columnType, Ha3DecodeOptions options) {
+        Ha3OffHeapAllocator allocator = options.getAllocator();
+        if (allocator != null) {
+            switch (columnType) {
+                case INT32:
+                case INT64:
+                case DOUBLE:
+                    return new Ha3OffHeapColumn(columnType, allocator);
+                case STRING:
+                    return new Ha3OffHeapStringColumn(allocator);
+                default:
+                    break;
+            }
+        }
+        switch (columnType) {
+            case INT32:
+                return new Ha3IntColumn();
+            case INT64:
+                return new Ha3LongColumn();
+            case DOUBLE:
+                return new Ha3DoubleColumn();
+            case STRING:
+                return options.isUtf8Strings() ? new Ha3Utf8StringColumn(options.isCacheStrings())
+                    : new Ha3StringColumn();
+            case MULTI_INT32:
+            case MULTI_INT64:
+            case MULTI_DOUBLE:
+                return new Ha3MultiValueColumn(columnType);
+            default:
+                return new Ha3JsonColumn(columnType);
+        }
+    }
+
+    public Ha3ColumnType getType() {
+        return type;
+    }
+
+    public void setUnsigned(boolean unsigned) {
+        this.unsigned = unsigned;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 从JsonReader读取一个单元格并追加到列尾
+     *
+     * @param in
+     * @throws IOException
+     */
+    public void read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            appendNull();
+        } else {
+            readValue(in);
+        }
+    }
+
+    /**
+     * 追加一个已经解析好的单元格，用于data先于column_type出现时的补录
+     *
+     * @param element
+     */
+    public void append(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            appendNull();
+        } else {
+            appendValue(element);
+        }
+    }
+
+    public void appendInt(int value) {
+        append(new JsonPrimitive(value));
+    }
+
+    public void appendLong(long value) {
+        append(new JsonPrimitive(value));
+    }
+
+    public void appendDouble(double value) {
+        append(new JsonPrimitive(value));
+    }
+
+    public void appendString(String value) {
+        append(value == null ? null : new JsonPrimitive(value));
+    }
+
+    /**
+     * 追加一个UTF-8编码的string单元格，以字节保存的列直接复制，不经过String
+     *
+     * @param buffer
+     * @param offset 单元格在buffer中的起始位置
+     * @param length 字节数
+     */
+    public void appendUtf8(ByteBuffer buffer, int offset, int length) {
+        byte[] value = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(value);
+        appendString(new String(value, StandardCharsets.UTF_8));
+    }
+
+    public void appendNull() {
+        int row = size;
+        ensureCapacity(row + 1);
+        appendDefault();
+        setNull(row);
+    }
+
+    private void setNull(int row) {
+        int word = row >>> 6;
+        if (word >= nullBits.length) {
+            nullBits = Arrays.copyOf(nullBits, Math.max(word + 1, nullBits.length << 1));
+        }
+        nullBits[word] |= 1L << row;
+    }
+
+    /**
+     * 把source的全部行追加到列尾，用于拼接并行解码得到的各段，source与本列的列类型相同
+     *
+     * @param source
+     */
+    public void appendAll(Ha3Column source) {
+        int count = source.size();
+        ensureCapacity(size + count);
+        for (int row = 0; row < count; row++) {
+            if (source.isNull(row)) {
+                appendNull();
+                continue;
+            }
+            switch (type) {
+                case INT32:
+                    appendInt(source.getInt(row));
+                    break;
+                case INT64:
+                    appendLong(source.getLong(row));
+                    break;
+                case DOUBLE:
+                    appendDouble(source.getDouble(row));
+                    break;
+                case STRING:
+                    appendString(source.getString(row));
+                    break;
+                default:
+                    append(source.getJson(row));
+            }
+        }
+    }
+
+    /**
+     * 子类整段复制source的数据后调用，按source标记[size, size + count)中的null行，之后由子类增加size
+     *
+     * @param source
+     * @param count
+     */
+    protected void appendNulls(Ha3Column source, int count) {
+        for (int row = 0; row < count; row++) {
+            if (source.isNull(row)) {
+                setNull(size + row);
+            }
+        }
+    }
+
+    /**
+     * 清空列中的数据，保留已分配的数组供下一批数据复用
+     */
+    public void clear() {
+        size = 0;
+        Arrays.fill(nullBits, 0L);
+        clearValues();
+    }
+
+    /**
+     * 由clear调用，子类在这里重置除size外的写入位置
+     */
+    protected void clearValues() {
+    }
+
+    /**
+     * 估算列数据占用的字节数，用于判断结果是否需要落盘
+     *
+     * @return
+     */
+    public long estimateBytes() {
+        return (long)size << 3;
+    }
+
+    /**
+     * 释放列占用的堆外内存，释放之后不能再读写该列
+     */
+    public void release() {
+    }
+
+    public boolean isNull(int row) {
+        int word = row >>> 6;
+        return word < nullBits.length && (nullBits[word] & (1L << row)) != 0;
+    }
+
+    protected abstract void readValue(JsonReader in) throws IOException;
+
+    protected abstract void appendValue(JsonElement element);
+
+    /**
+     * 追加一个占位值，由appendNull调用，需要把size加1
+     */
+    protected abstract void appendDefault();
+
+    protected abstract void ensureCapacity(int capacity);
+
+    /**
+     * 通用的json表示，用于走gson转换的getObject(Class)
+     *
+     * @param row
+     * @return
+     */
+    public abstract JsonElement getJson(int row);
+
+    public abstract Object getObject(int row);
+
+    public long getLong(int row) {
+        JsonElement element = getJson(row);
+        return isEmpty(element) ? 0L : element.getAsLong();
+    }
+
+    public int getInt(int row) {
+        JsonElement element = getJson(row);
+        return isEmpty(element) ? 0 : element.getAsInt();
+    }
+
+    public double getDouble(int row) {
+        JsonElement element = getJson(row);
+        return isEmpty(element) ? 0D : element.getAsDouble();
+    }
+
+    public String getString(int row) {
+        JsonElement element = getJson(row);
+        if (element.isJsonNull()) {
+            return null;
+        }
+        return element.isJsonPrimitive() ? element.getAsString() : element.toString();
+    }
+
+    /**
+     * @param row
+     * @return 单元格的UTF-8字节，null返回null
+     */
+    public byte[] getBytes(int row) {
+        String value = getString(row);
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 数值列按是否为0判断，其余列按字符串"true"/"1"判断，null为false
+     *
+     * @param row
+     * @return
+     */
+    public boolean getBoolean(int row) {
+        if (isNull(row)) {
+            return false;
+        }
+        switch (type) {
+            case INT32:
+            case INT64:
+                return getLong(row) != 0;
+            case DOUBLE:
+                return getDouble(row) != 0;
+            default:
+                String value = getString(row);
+                return "1".equals(value) || "true".equalsIgnoreCase(value);
+        }
+    }
+
+    /**
+     * 把[from, from + count)行按getLong转换后写入target[offset, offset + count)，null单元格写入0。
+     * 子类对与列类型相同的数组直接批量拷贝
+     *
+     * @param from
+     * @param target
+     * @param offset
+     * @param count
+     */
+    public void copyLongs(int from, long[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = isNull(from + i) ? 0L : getLong(from + i);
+        }
+    }
+
+    public void copyInts(int from, int[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = isNull(from + i) ? 0 : getInt(from + i);
+        }
+    }
+
+    public void copyDoubles(int from, double[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = isNull(from + i) ? 0D : getDouble(from + i);
+        }
+    }
+
+    public void copyStrings(int from, String[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = getString(from + i);
+        }
+    }
+
+    /**
+     * 把[from, from + count)行的UTF-8偏移和长度写入target[0, count)，不以UTF-8保存的列逐个编码到target的数组中
+     */
+    public void copyUtf8(int from, Ha3Utf8Slices target, int count) {
+        target.resetScratch();
+        for (int i = 0; i < count; i++) {
+            target.appendScratch(i, getString(from + i));
+        }
+        target.finishScratch();
+    }
+
+    /**
+     * 把[from, from + count)行是否为null写入target[offset, offset + count)
+     */
+    public void copyNulls(int from, boolean[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = isNull(from + i);
+        }
+    }
+
+    /**
+     * 多值字段转换为java.sql.Array，元素类型按列类型确定，非多值列返回单元素数组
+     *
+     * @param row
+     * @return
+     */
+    public Array getArray(int row) {
+        JsonElement element = getJson(row);
+        if (element.isJsonNull()) {
+            return null;
+        }
+        JsonArray values;
+        if (element.isJsonArray()) {
+            values = element.getAsJsonArray();
+        } else {
+            values = new JsonArray(1);
+            if (!isEmpty(element)) {
+                values.add(element);
+            }
+        }
+        int length = values.size();
+        switch (type) {
+            case MULTI_INT32:
+            case INT32:
+                int[] ints = new int[length];
+                for (int i = 0; i < length; i++) {
+                    ints[i] = values.get(i).getAsInt();
+                }
+                return new Ha3Array(Types.INTEGER, ints, 0, length);
+            case MULTI_INT64:
+            case INT64:
+                long[] longs = new long[length];
+                for (int i = 0; i < length; i++) {
+                    longs[i] = values.get(i).getAsLong();
+                }
+                return new Ha3Array(Types.BIGINT, longs, 0, length);
+            case MULTI_DOUBLE:
+            case DOUBLE:
+                double[] doubles = new double[length];
+                for (int i = 0; i < length; i++) {
+                    doubles[i] = values.get(i).getAsDouble();
+                }
+                return new Ha3Array(Types.DOUBLE, doubles, 0, length);
+            default:
+                String[] strings = new String[length];
+                for (int i = 0; i < length; i++) {
+                    JsonElement value = values.get(i);
+                    strings[i] = value.isJsonNull() ? null : value.isJsonPrimitive() ? value.getAsString() : value.toString();
+                }
+                return new Ha3Array(Types.VARCHAR, strings, 0, length);
+        }
+    }
+
+    /**
+     * @param value
+     * @return uint64列按无符号输出
+     */
+    protected String formatLong(long value) {
+        return unsigned ? Long.toUnsignedString(value) : Long.toString(value);
+    }
+
+    /**
+     * 按响应中数值的常见写法输出，与之前直接返回json字面量的结果一致：整数值不带小数部分，
+     * 1e-7到1e21之间不使用科学计数法，其余以e表示指数
+     *
+     * @param value
+     * @return
+     */
+    protected static String formatDouble(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long)value);
+        }
+        String text = Double.toString(value);
+        int exponentIndex = text.indexOf('E');
+        if (exponentIndex < 0) {
+            return text;
+        }
+        int exponent = Integer.parseInt(text.substring(exponentIndex + 1));
+        if (exponent >= -7 && exponent < 21) {
+            return new BigDecimal(text).stripTrailingZeros().toPlainString();
+        }
+        String mantissa = text.substring(0, exponentIndex);
+        if (mantissa.endsWith(".0")) {
+            mantissa = mantissa.substring(0, mantissa.length() - 2);
+        }
+        return mantissa + (exponent > 0 ? "e+" : "e") + exponent;
+    }
+
+    protected static int grow(int length, int capacity) {
+        return Math.max(capacity, length + (length >> 1) + 16);
+    }
+
+    private static boolean isEmpty(JsonElement element) {
+        return element.isJsonNull() || (element.isJsonPrimitive() && element.getAsString().isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 结果的列名、列类型和按列名查找列下标的索引，不可修改，可以在相同布局的结果集之间共享
+ */
+public class Ha3ColumnLabels {
+
+    public static final Ha3ColumnLabels EMPTY = new Ha3ColumnLabels(Collections.emptyList(),
+        Collections.emptyList());
+
+    private final List<String> columnNames;
+    private final List<String> columnTypes;
+    private final Map<String, Integer> labelIndex;
+    private final Map<String, Integer> lowerCaseLabelIndex;
+
+    public Ha3ColumnLabels(List<String> columnNames, List<String> columnTypes) {
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.columnTypes = Collections.unmodifiableList(new ArrayList<>(columnTypes));
+        this.labelIndex = new HashMap<>(columnNames.size() * 2);
+        this.lowerCaseLabelIndex = new HashMap<>(columnNames.size() * 2);
+        for (int i = 0; i < columnNames.size(); i++) {
+            String name = columnNames.get(i);
+            if (name != null) {
+                labelIndex.putIfAbsent(name, i + 1);
+                lowerCaseLabelIndex.putIfAbsent(name.toLowerCase(Locale.ROOT), i + 1);
+            }
+        }
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<String> getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * 先按原样查找，找不到时忽略大小写，重名的列取第一个
+     *
+     * @param label
+     * @return 从1开始的列下标，不存在时返回0
+     */
+    public int find(String label) {
+        Integer index = labelIndex.get(label);
+        if (index == null && label != null) {
+            index = lowerCaseLabelIndex.get(label.toLowerCase(Locale.ROOT));
+        }
+        return index == null ? 0 : index;
+    }
+
+    boolean matches(List<String> columnNames, List<String> columnTypes) {
+        return this.columnNames.equals(columnNames) && this.columnTypes.equals(columnTypes);
+    }
+}
@@ -0,0 +1,168 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 结果数据的列式存储，每列的实现由column_type决定
+ */
+public class Ha3ColumnStore {
+
+    private final Ha3Column[] columns;
+    private int rowCount;
+
+    /**
+     * 从复用池取得时不为null，recycle时归还
+     */
+    private Ha3ResultArena arena;
+    private List<String> columnTypes;
+    private Ha3DecodeOptions options;
+
+    public Ha3ColumnStore(List<String> columnTypes) {
+        this(columnTypes, Ha3DecodeOptions.DEFAULT);
+    }
+
+    /**
+     * @param columnTypes
+     * @param options     列存储选项，其中allocator不为null时列数据尽量保存在堆外，使用完后需要调用{@link #release()}
+     */
+    public Ha3ColumnStore(List<String> columnTypes, Ha3DecodeOptions options) {
+        this.columns = new Ha3Column[columnTypes.size()];
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Ha3Column.create(columnTypes.get(i), options);
+            }
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    Ha3ColumnStore(Ha3Column[] columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * 从JsonReader读取一行，行中多出的单元格忽略，缺少的单元格按null处理
+     *
+     * @param in
+     * @throws IOException
+     */
+    public void readRow(JsonReader in) throws IOException {
+        in.beginArray();
+        int i = 0;
+        while (in.hasNext()) {
+            if (i < columns.length) {
+                columns[i].read(in);
+            } else {
+                in.skipValue();
+            }
+            i++;
+        }
+        in.endArray();
+        for (; i < columns.length; i++) {
+            columns[i].appendNull();
+        }
+        rowCount++;
+    }
+
+    /**
+     * 追加一行已经解析好的数据
+     *
+     * @param row
+     */
+    public void appendRow(JsonArray row) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].append(i < row.size() ? row.get(i) : null);
+        }
+        rowCount++;
+    }
+
+    /**
+     * 把other的全部行追加到末尾，other与本列存储的列类型相同
+     *
+     * @param other
+     */
+    public void appendAll(Ha3ColumnStore other) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].appendAll(other.columns[i]);
+        }
+        rowCount += other.rowCount;
+    }
+
+    /**
+     * 清空所有行，列的存储空间保留复用
+     */
+    public void clear() {
+        for (Ha3Column column : columns) {
+            column.clear();
+        }
+        rowCount = 0;
+    }
+
+    public long estimateBytes() {
+        long bytes = 0;
+        for (Ha3Column column : columns) {
+            bytes += column.estimateBytes();
+        }
+        return bytes;
+    }
+
+    void setArena(Ha3ResultArena arena, List<String> columnTypes, Ha3DecodeOptions options) {
+        this.arena = arena;
+        this.columnTypes = columnTypes;
+        this.options = options;
+    }
+
+    /**
+     * 结果集关闭时调用，从复用池取得的列存储清空后归还，否则释放
+     */
+    public void recycle() {
+        if (arena != null) {
+            arena.recycle(this, columnTypes, options);
+        } else {
+            release();
+        }
+    }
+
+    /**
+     * 释放所有列占用的堆外内存
+     */
+    public void release() {
+        for (Ha3Column column : columns) {
+            if (column != null) {
+                column.release();
+            }
+        }
+    }
+
+    public Ha3Column getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 按行还原为JsonArray，仅用于兼容旧的按行访问接口
+     *
+     * @param row
+     * @return
+     */
+    public JsonArray getRow(int row) {
+        JsonArray array = new JsonArray(columns.length);
+        for (Ha3Column column : columns) {
+            array.add(column.getJson(row));
+        }
+        return array;
+    }
+}
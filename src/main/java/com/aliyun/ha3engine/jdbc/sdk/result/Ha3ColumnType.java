@@ -0,0 +1,81 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import com.aliyun.ha3engine.jdbc.common.utils.TypeUtils;
+
+/**
+ * Ha3 column_type到列存储类型的映射，同时兼容{@link TypeUtils}中的java类型名
+ */
+public enum Ha3ColumnType {
+    INT32,
+    INT64,
+    DOUBLE,
+    STRING,
+    MULTI_INT32,
+    MULTI_INT64,
+    MULTI_DOUBLE,
+    MULTI_STRING,
+    OTHER;
+
+    /**
+     * @param type Ha3 column_type
+     * @return uint64超出long范围的值按无符号方式保存在long中
+     */
+    public static boolean isUnsigned(String type) {
+        return "uint64".equals(type);
+    }
+
+    public boolean isMultiValue() {
+        return this == MULTI_INT32 || this == MULTI_INT64 || this == MULTI_DOUBLE || this == MULTI_STRING;
+    }
+
+    public static Ha3ColumnType of(String type) {
+        if (type == null) {
+            return OTHER;
+        }
+        switch (type) {
+            case "int8":
+            case "int16":
+            case "int32":
+            case "uint8":
+            case "uint16":
+            case TypeUtils.TINYINT:
+            case TypeUtils.SMALLINT:
+            case TypeUtils.INTEGER:
+                return INT32;
+            case "uint32":
+            case "int64":
+            case "uint64":
+            case TypeUtils.LONG:
+                return INT64;
+            case "float":
+            case "double":
+                return DOUBLE;
+            case "string":
+            case "text":
+            case TypeUtils.STRING:
+                return STRING;
+            case "multi_int8":
+            case "multi_int16":
+            case "multi_int32":
+            case "multi_uint8":
+            case "multi_uint16":
+            case TypeUtils.INTEGERS:
+                return MULTI_INT32;
+            case "multi_uint32":
+            case "multi_int64":
+            case "multi_uint64":
+            case TypeUtils.LONGS:
+                return MULTI_INT64;
+            case "multi_float":
+            case "multi_double":
+            case TypeUtils.FLOATS:
+            case TypeUtils.DOUBLES:
+                return MULTI_DOUBLE;
+            case "multi_string":
+            case TypeUtils.STRINGS:
+                return MULTI_STRING;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+/**
+ * 单次查询的结果解码选项，由Statement按连接配置和自身设置生成
+ */
+public class Ha3DecodeOptions {
+
+    public static final Ha3DecodeOptions DEFAULT = builder().build();
+
+    /**
+     * 不为null时列数据保存在堆外
+     */
+    private final Ha3OffHeapAllocator allocator;
+
+    /**
+     * 解码后的结果估算超过该字节数时写入临时文件，0表示不落盘
+     */
+    private final long spillThresholdBytes;
+
+    /**
+     * 落盘临时文件所在目录，为null时使用java.io.tmpdir
+     */
+    private final String spillDirectory;
+
+    /**
+     * 结果集需要支持回退时为true，此时streaming解码模式退化为eager解码
+     */
+    private final boolean scrollable;
+
+    /**
+     * 为true时堆内string列以UTF-8字节保存，getString时才创建String
+     */
+    private final boolean utf8Strings;
+
+    /**
+     * utf8Strings为true时是否缓存getString创建的String
+     */
+    private final boolean cacheStrings;
+
+    /**
+     * 不为null时列存储从该池中取得并在结果集关闭后归还
+     */
+    private final Ha3ResultArena arena;
+
+    private Ha3DecodeOptions(Builder builder) {
+        this.allocator = builder.allocator;
+        this.spillThresholdBytes = builder.spillThresholdBytes;
+        this.spillDirectory = builder.spillDirectory;
+        this.scrollable = builder.scrollable;
+        this.utf8Strings = builder.utf8Strings;
+        this.cacheStrings = builder.cacheStrings;
+        this.arena = builder.arena;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Ha3OffHeapAllocator getAllocator() {
+        return allocator;
+    }
+
+    public long getSpillThresholdBytes() {
+        return spillThresholdBytes;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public boolean isScrollable() {
+        return scrollable;
+    }
+
+    public boolean isUtf8Strings() {
+        return utf8Strings;
+    }
+
+    public boolean isCacheStrings() {
+        return cacheStrings;
+    }
+
+    public Ha3ResultArena getArena() {
+        return arena;
+    }
+
+    public static class Builder {
+
+        private Ha3OffHeapAllocator allocator;
+        private long spillThresholdBytes;
+        private String spillDirectory;
+        private boolean scrollable;
+        private boolean utf8Strings;
+        private boolean cacheStrings;
+        private Ha3ResultArena arena;
+
+        private Builder() {
+        }
+
+        public Builder setAllocator(Ha3OffHeapAllocator allocator) {
+            this.allocator = allocator;
+            return this;
+        }
+
+        public Builder setSpillThresholdBytes(long spillThresholdBytes) {
+            this.spillThresholdBytes = spillThresholdBytes;
+            return this;
+        }
+
+        public Builder setSpillDirectory(String spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        public Builder setScrollable(boolean scrollable) {
+            this.scrollable = scrollable;
+            return this;
+        }
+
+        public Builder setUtf8Strings(boolean utf8Strings) {
+            this.utf8Strings = utf8Strings;
+            return this;
+        }
+
+        public Builder setCacheStrings(boolean cacheStrings) {
+            this.cacheStrings = cacheStrings;
+            return this;
+        }
+
+        public Builder setArena(Ha3ResultArena arena) {
+            this.arena = arena;
+            return this;
+        }
+
+        public Ha3DecodeOptions build() {
+            return new Ha3DecodeOptions(this);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * float/double列，数据保存在double[]中
+ */
+public class Ha3DoubleColumn extends Ha3Column {
+
+    private double[] values = new double[16];
+
+    public Ha3DoubleColumn() {
+        super(Ha3ColumnType.DOUBLE);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            appendDouble(Ha3NumberParser.parseDouble(in.nextString()));
+        } else {
+            appendText(in.nextString());
+        }
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendText(element.getAsString());
+    }
+
+    private void appendText(String text) {
+        if (text.isEmpty()) {
+            appendNull();
+        } else {
+            appendDouble(Ha3NumberParser.parseDouble(text));
+        }
+    }
+
+    @Override
+    public void appendDouble(double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    protected void appendDefault() {
+        values[size++] = 0D;
+    }
+
+    @Override
+    public void appendAll(Ha3Column source) {
+        if (!(source instanceof Ha3DoubleColumn)) {
+            super.appendAll(source);
+            return;
+        }
+        int count = source.size();
+        ensureCapacity(size + count);
+        System.arraycopy(((Ha3DoubleColumn)source).values, 0, values, size, count);
+        appendNulls(source, count);
+        size += count;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    @Override
+    public long getLong(int row) {
+        return (long)values[row];
+    }
+
+    @Override
+    public int getInt(int row) {
+        return (int)values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void copyDoubles(int from, double[] target, int offset, int count) {
+        System.arraycopy(values, from, target, offset, count);
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : formatDouble(values[row]);
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return isNull(row) ? JsonNull.INSTANCE : new JsonPrimitive(values[row]);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+}
@@ -0,0 +1,267 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.aliyun.ha3engine.jdbc.common.exception.ErrorInfo;
+import com.google.gson.JsonArray;
+
+/**
+ * Ha3 formatType:flatbuffers响应的解码器，直接按FlatBuffers二进制布局读取，不依赖生成代码
+ *
+ * 对应的schema（SqlResult.fbs / TwoDimTable）：
+ * <pre>
+ * table SqlResult { processTime:double; rowCount:uint; errorResult:SqlErrorResult; sqlTable:TwoDimTable; ... }
+ * table SqlErrorResult { partitionId:string; hostName:string; errorCode:uint; errorDescription:string; }
+ * table TwoDimTable { rowCount:uint; columns:[Column]; }
+ * table Column { name:string; value:ColumnType; }
+ * union ColumnType { Int8Column, Int16Column, Int32Column, Int64Column, UInt8Column, UInt16Column, UInt32Column,
+ *     UInt64Column, FloatColumn, DoubleColumn, StringColumn, MultiInt8Column, MultiInt16Column, MultiInt32Column,
+ *     MultiInt64Column, MultiUInt8Column, MultiUInt16Column, MultiUInt32Column, MultiUInt64Column, MultiFloatColumn,
+ *     MultiDoubleColumn, MultiStringColumn }
+ * table XxxColumn { value:[xxx]; }  table MultiXxxColumn { value:[MultiXxx]; }  table MultiXxx { value:[xxx]; }
+ * </pre>
+ */
+public class Ha3FlatBuffersDecoder {
+
+    private static final int SQL_RESULT_ERROR_RESULT = 2;
+    private static final int SQL_RESULT_SQL_TABLE = 3;
+    private static final int ERROR_RESULT_ERROR_CODE = 2;
+    private static final int ERROR_RESULT_ERROR_DESCRIPTION = 3;
+    private static final int TABLE_ROW_COUNT = 0;
+    private static final int TABLE_COLUMNS = 1;
+    private static final int COLUMN_NAME = 0;
+    private static final int COLUMN_VALUE_TYPE = 1;
+    private static final int COLUMN_VALUE = 2;
+    private static final int VALUE = 0;
+
+    /**
+     * union ColumnType中各成员对应的Ha3 column_type，下标即union的type值
+     */
+    private static final String[] COLUMN_TYPES = {
+        null,
+        "int8", "int16", "int32", "int64", "uint8", "uint16", "uint32", "uint64", "float", "double", "string",
+        "multi_int8", "multi_int16", "multi_int32", "multi_int64", "multi_uint8", "multi_uint16", "multi_uint32",
+        "multi_uint64", "multi_float", "multi_double", "multi_string"
+    };
+
+    private final ByteBuffer bb;
+    private final Ha3DecodeOptions options;
+
+    private Ha3FlatBuffersDecoder(ByteBuffer body, Ha3DecodeOptions options) {
+        this.bb = body.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.options = options;
+    }
+
+    /**
+     * 解码flatbuffers格式的Ha3响应
+     *
+     * @param body 响应内容，从position开始为SqlResult的root
+     * @return
+     */
+    public static Ha3QueryResult decode(ByteBuffer body) {
+        return decode(body, Ha3DecodeOptions.DEFAULT);
+    }
+
+    /**
+     * @param body
+     * @param options 只使用其中的列存储选项，响应本身已在内存中，不做落盘
+     * @return
+     */
+    public static Ha3QueryResult decode(ByteBuffer body, Ha3DecodeOptions options) {
+        return new Ha3FlatBuffersDecoder(body, options).decode();
+    }
+
+    private Ha3QueryResult decode() {
+        Ha3QueryResult result = new Ha3QueryResult();
+        int root = indirect(bb.position());
+
+        int errorResult = table(root, SQL_RESULT_ERROR_RESULT);
+        if (errorResult != 0) {
+            long errorCode = uint32(errorResult, ERROR_RESULT_ERROR_CODE);
+            String description = string(errorResult, ERROR_RESULT_ERROR_DESCRIPTION);
+            description = description == null ? "" : description;
+            result.setErrorInfo(new ErrorInfo(errorCode, description, errorCode == 0 ? "ERROR_NONE" : description));
+        } else {
+            result.setErrorInfo(new ErrorInfo(0, "", "ERROR_NONE"));
+        }
+
+        int sqlTable = table(root, SQL_RESULT_SQL_TABLE);
+        if (sqlTable == 0) {
+            return result;
+        }
+        int rowCount = (int)uint32(sqlTable, TABLE_ROW_COUNT);
+        int columns = table(sqlTable, TABLE_COLUMNS);
+        int columnCount = columns == 0 ? 0 : bb.getInt(columns);
+        Ha3Column[] store = new Ha3Column[columnCount];
+        result.setColumnStore(new Ha3ColumnStore(store, rowCount));
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                int column = indirect(columns + 4 + 4 * i);
+                int valueType = ubyte(column, COLUMN_VALUE_TYPE);
+                String type = valueType < COLUMN_TYPES.length ? COLUMN_TYPES[valueType] : null;
+                result.getColumnNames().add(string(column, COLUMN_NAME));
+                result.getColumnTypes().add(type == null ? "" : type);
+                store[i] = Ha3Column.create(type, options);
+                readColumn(store[i], valueType, table(column, COLUMN_VALUE), rowCount);
+            }
+        } catch (RuntimeException e) {
+            result.release();
+            throw e;
+        }
+        return result;
+    }
+
+    private void readColumn(Ha3Column column, int valueType, int valueTable, int rowCount) {
+        int values = valueTable == 0 ? 0 : table(valueTable, VALUE);
+        int length = values == 0 ? 0 : bb.getInt(values);
+        int start = values + 4;
+        // case值为union ColumnType的type值，见COLUMN_TYPES
+        for (int row = 0; row < rowCount; row++) {
+            if (row >= length) {
+                column.appendNull();
+                continue;
+            }
+            switch (valueType) {
+                case 1:
+                    column.appendInt(bb.get(start + row));
+                    break;
+                case 2:
+                    column.appendInt(bb.getShort(start + 2 * row));
+                    break;
+                case 3:
+                    column.appendInt(bb.getInt(start + 4 * row));
+                    break;
+                case 4:
+                case 8:
+                    column.appendLong(bb.getLong(start + 8 * row));
+                    break;
+                case 5:
+                    column.appendInt(bb.get(start + row) & 0xFF);
+                    break;
+                case 6:
+                    column.appendInt(bb.getShort(start + 2 * row) & 0xFFFF);
+                    break;
+                case 7:
+                    column.appendLong(bb.getInt(start + 4 * row) & 0xFFFFFFFFL);
+                    break;
+                case 9:
+                    column.appendDouble(bb.getFloat(start + 4 * row));
+                    break;
+                case 10:
+                    column.appendDouble(bb.getDouble(start + 8 * row));
+                    break;
+                case 11:
+                    int position = indirect(start + 4 * row);
+                    column.appendUtf8(bb, position + 4, bb.getInt(position));
+                    break;
+                case 22:
+                    column.append(readMultiString(indirect(start + 4 * row)));
+                    break;
+                default:
+                    if (valueType >= 12 && valueType < 22) {
+                        readMultiValue((Ha3MultiValueColumn)column, valueType, indirect(start + 4 * row));
+                    } else {
+                        column.appendNull();
+                    }
+            }
+        }
+    }
+
+    private void readMultiValue(Ha3MultiValueColumn column, int valueType, int multiTable) {
+        int values = table(multiTable, VALUE);
+        int length = values == 0 ? 0 : bb.getInt(values);
+        int start = values + 4;
+        for (int i = 0; i < length; i++) {
+            switch (valueType) {
+                case 12:
+                    column.addInt(bb.get(start + i));
+                    break;
+                case 13:
+                    column.addInt(bb.getShort(start + 2 * i));
+                    break;
+                case 14:
+                    column.addInt(bb.getInt(start + 4 * i));
+                    break;
+                case 15:
+                case 19:
+                    column.addLong(bb.getLong(start + 8 * i));
+                    break;
+                case 16:
+                    column.addInt(bb.get(start + i) & 0xFF);
+                    break;
+                case 17:
+                    column.addInt(bb.getShort(start + 2 * i) & 0xFFFF);
+                    break;
+                case 18:
+                    column.addLong(bb.getInt(start + 4 * i) & 0xFFFFFFFFL);
+                    break;
+                case 20:
+                    column.addDouble(bb.getFloat(start + 4 * i));
+                    break;
+                default:
+                    column.addDouble(bb.getDouble(start + 8 * i));
+            }
+        }
+        column.endRow();
+    }
+
+    private JsonArray readMultiString(int multiTable) {
+        int values = table(multiTable, VALUE);
+        int length = values == 0 ? 0 : bb.getInt(values);
+        int start = values + 4;
+        JsonArray array = new JsonArray(length);
+        for (int i = 0; i < length; i++) {
+            array.add(stringAt(indirect(start + 4 * i)));
+        }
+        return array;
+    }
+
+    /**
+     * 返回table中第field个字段在buffer中的绝对位置，字段不存在时返回0
+     */
+    private int field(int table, int field) {
+        int vtable = table - bb.getInt(table);
+        int vtableSize = bb.getShort(vtable) & 0xFFFF;
+        int slot = 4 + 2 * field;
+        if (slot >= vtableSize) {
+            return 0;
+        }
+        int offset = bb.getShort(vtable + slot) & 0xFFFF;
+        return offset == 0 ? 0 : table + offset;
+    }
+
+    private int indirect(int position) {
+        return position + bb.getInt(position);
+    }
+
+    private int table(int table, int field) {
+        int position = field(table, field);
+        return position == 0 ? 0 : indirect(position);
+    }
+
+    private long uint32(int table, int field) {
+        int position = field(table, field);
+        return position == 0 ? 0 : bb.getInt(position) & 0xFFFFFFFFL;
+    }
+
+    private int ubyte(int table, int field) {
+        int position = field(table, field);
+        return position == 0 ? 0 : bb.get(position) & 0xFF;
+    }
+
+    private String string(int table, int field) {
+        int position = field(table, field);
+        return position == 0 ? null : stringAt(indirect(position));
+    }
+
+    private String stringAt(int position) {
+        int length = bb.getInt(position);
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = bb.duplicate();
+        slice.position(position + 4);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
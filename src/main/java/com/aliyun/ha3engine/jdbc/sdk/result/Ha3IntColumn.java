@@ -0,0 +1,130 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * int8/int16/int32/uint8/uint16列，数据保存在int[]中
+ */
+public class Ha3IntColumn extends Ha3Column {
+
+    private int[] values = new int[16];
+
+    public Ha3IntColumn() {
+        super(Ha3ColumnType.INT32);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            int value;
+            try {
+                value = in.nextInt();
+            } catch (NumberFormatException e) {
+                value = Ha3NumberParser.parseInt(in.nextString());
+            }
+            appendInt(value);
+        } else {
+            appendText(in.nextString());
+        }
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendText(element.getAsString());
+    }
+
+    private void appendText(String text) {
+        if (text.isEmpty()) {
+            appendNull();
+        } else {
+            appendInt(Ha3NumberParser.parseInt(text));
+        }
+    }
+
+    @Override
+    public void appendInt(int value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    protected void appendDefault() {
+        values[size++] = 0;
+    }
+
+    @Override
+    public void appendAll(Ha3Column source) {
+        if (!(source instanceof Ha3IntColumn)) {
+            super.appendAll(source);
+            return;
+        }
+        int count = source.size();
+        ensureCapacity(size + count);
+        System.arraycopy(((Ha3IntColumn)source).values, 0, values, size, count);
+        appendNulls(source, count);
+        size += count;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    @Override
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public int getInt(int row) {
+        return values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void copyInts(int from, int[] target, int offset, int count) {
+        System.arraycopy(values, from, target, offset, count);
+    }
+
+    @Override
+    public void copyLongs(int from, long[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = values[from + i];
+        }
+    }
+
+    @Override
+    public void copyDoubles(int from, double[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = values[from + i];
+        }
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : Integer.toString(values[row]);
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return isNull(row) ? JsonNull.INSTANCE : new JsonPrimitive(values[row]);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+}
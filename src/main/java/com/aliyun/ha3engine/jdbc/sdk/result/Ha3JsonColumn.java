@@ -0,0 +1,78 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 没有专门存储的列（多值、bool等）直接保存解析后的JsonElement
+ */
+public class Ha3JsonColumn extends Ha3Column {
+
+    private final List<JsonElement> values = new ArrayList<>();
+
+    public Ha3JsonColumn(Ha3ColumnType type) {
+        super(type);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        appendValue(JsonParser.parseReader(in));
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        values.add(element);
+        size++;
+    }
+
+    @Override
+    protected void appendDefault() {
+        values.add(JsonNull.INSTANCE);
+        size++;
+    }
+
+    @Override
+    public void appendAll(Ha3Column source) {
+        if (!(source instanceof Ha3JsonColumn)) {
+            super.appendAll(source);
+            return;
+        }
+        values.addAll(((Ha3JsonColumn)source).values);
+        appendNulls(source, source.size());
+        size += source.size();
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+    }
+
+    /**
+     * JsonElement的实际占用无法直接得到，按每个单元格64字节估算
+     */
+    @Override
+    public long estimateBytes() {
+        return (long)size << 6;
+    }
+
+    @Override
+    protected void clearValues() {
+        values.clear();
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return JsonUtils.fromJson(values.get(row), Object.class);
+    }
+}
@@ -0,0 +1,211 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+
+import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 基于{@link Ha3Tape}的只读列，单元格在第一次访问时才从原始响应中解码，解码结果按行缓存
+ *
+ * 缓存数组在该列第一次被访问时才分配，未访问的列只占用tape中的索引
+ */
+public class Ha3LazyColumn extends Ha3Column {
+
+    private final Ha3Tape tape;
+    private final int column;
+
+    private long[] decodedBits;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+
+    public Ha3LazyColumn(Ha3Tape tape, int column, Ha3ColumnType type) {
+        super(type);
+        this.tape = tape;
+        this.column = column;
+        this.size = tape.getRowCount();
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        int cell = tape.cell(row, column);
+        if (cell < 0) {
+            return true;
+        }
+        String body = tape.getBody();
+        int start = tape.start(cell);
+        if (body.charAt(start) == 'n') {
+            return true;
+        }
+        // 数值列中的空字符串按null处理，与Ha3LongColumn等保持一致
+        return isNumeric() && tape.end(cell) - start == 2 && body.charAt(start) == '"';
+    }
+
+    private boolean isNumeric() {
+        return type == Ha3ColumnType.INT32 || type == Ha3ColumnType.INT64 || type == Ha3ColumnType.DOUBLE;
+    }
+
+    private void decode(int row) {
+        if (decodedBits == null) {
+            decodedBits = new long[(size >>> 6) + 1];
+            switch (type) {
+                case INT32:
+                case INT64:
+                    longs = new long[size];
+                    break;
+                case DOUBLE:
+                    doubles = new double[size];
+                    break;
+                default:
+                    objects = new Object[size];
+            }
+        }
+        int word = row >>> 6;
+        long bit = 1L << row;
+        if ((decodedBits[word] & bit) != 0) {
+            return;
+        }
+        if (!isNull(row)) {
+            int cell = tape.cell(row, column);
+            String body = tape.getBody();
+            int start = tape.start(cell);
+            int end = tape.end(cell);
+            boolean quoted = body.charAt(start) == '"';
+            switch (type) {
+                case INT32:
+                case INT64:
+                    longs[row] = quoted ? Ha3NumberParser.parseLong(Ha3TapeDecoder.unescape(body, start, end))
+                        : Ha3NumberParser.parseLong(body, start, end);
+                    break;
+                case DOUBLE:
+                    doubles[row] = quoted ? Ha3NumberParser.parseDouble(Ha3TapeDecoder.unescape(body, start, end))
+                        : Ha3NumberParser.parseDouble(body, start, end);
+                    break;
+                case STRING:
+                    objects[row] = quoted ? Ha3TapeDecoder.unescape(body, start, end) : body.substring(start, end);
+                    break;
+                default:
+                    objects[row] = JsonParser.parseString(body.substring(start, end));
+            }
+        }
+        decodedBits[word] |= bit;
+    }
+
+    @Override
+    public long getLong(int row) {
+        if (type == Ha3ColumnType.INT32 || type == Ha3ColumnType.INT64) {
+            decode(row);
+            return longs[row];
+        }
+        if (type == Ha3ColumnType.DOUBLE) {
+            return (long)getDouble(row);
+        }
+        return super.getLong(row);
+    }
+
+    @Override
+    public int getInt(int row) {
+        return type == Ha3ColumnType.DOUBLE ? (int)getDouble(row) : (int)getLong(row);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        if (type == Ha3ColumnType.DOUBLE) {
+            decode(row);
+            return doubles[row];
+        }
+        if (type == Ha3ColumnType.INT32 || type == Ha3ColumnType.INT64) {
+            return getLong(row);
+        }
+        return super.getDouble(row);
+    }
+
+    @Override
+    public String getString(int row) {
+        switch (type) {
+            case INT32:
+            case INT64:
+            case DOUBLE:
+                return isNull(row) ? null : getText(row);
+            case STRING:
+                decode(row);
+                return (String)objects[row];
+            default:
+                return super.getString(row);
+        }
+    }
+
+    /**
+     * @return 数值单元格在响应中的原始写法
+     */
+    private String getText(int row) {
+        int cell = tape.cell(row, column);
+        String body = tape.getBody();
+        int start = tape.start(cell);
+        int end = tape.end(cell);
+        return body.charAt(start) == '"' ? Ha3TapeDecoder.unescape(body, start, end) : body.substring(start, end);
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        if (isNull(row)) {
+            return JsonNull.INSTANCE;
+        }
+        switch (type) {
+            case INT32:
+            case INT64:
+                return new JsonPrimitive(getLong(row));
+            case DOUBLE:
+                return new JsonPrimitive(getDouble(row));
+            case STRING:
+                return new JsonPrimitive(getString(row));
+            default:
+                decode(row);
+                return (JsonElement)objects[row];
+        }
+    }
+
+    @Override
+    public Object getObject(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (type) {
+            case INT32:
+                return getInt(row);
+            case INT64:
+                return getLong(row);
+            case DOUBLE:
+                return getDouble(row);
+            case STRING:
+                return getString(row);
+            default:
+                return JsonUtils.fromJson(getJson(row), Object.class);
+        }
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        throw new UnsupportedOperationException("Ha3LazyColumn is read-only");
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        throw new UnsupportedOperationException("Ha3LazyColumn is read-only");
+    }
+
+    @Override
+    protected void appendDefault() {
+        throw new UnsupportedOperationException("Ha3LazyColumn is read-only");
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        throw new UnsupportedOperationException("Ha3LazyColumn is read-only");
+    }
+}
@@ -0,0 +1,123 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * int64/uint32/uint64列，数据保存在long[]中
+ */
+public class Ha3LongColumn extends Ha3Column {
+
+    private long[] values = new long[16];
+
+    public Ha3LongColumn() {
+        super(Ha3ColumnType.INT64);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            long value;
+            try {
+                value = in.nextLong();
+            } catch (NumberFormatException e) {
+                value = Ha3NumberParser.parseLong(in.nextString());
+            }
+            appendLong(value);
+        } else {
+            appendText(in.nextString());
+        }
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendText(element.getAsString());
+    }
+
+    private void appendText(String text) {
+        if (text.isEmpty()) {
+            appendNull();
+        } else {
+            appendLong(Ha3NumberParser.parseLong(text));
+        }
+    }
+
+    @Override
+    public void appendLong(long value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    protected void appendDefault() {
+        values[size++] = 0L;
+    }
+
+    @Override
+    public void appendAll(Ha3Column source) {
+        if (!(source instanceof Ha3LongColumn)) {
+            super.appendAll(source);
+            return;
+        }
+        int count = source.size();
+        ensureCapacity(size + count);
+        System.arraycopy(((Ha3LongColumn)source).values, 0, values, size, count);
+        appendNulls(source, count);
+        size += count;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    @Override
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void copyLongs(int from, long[] target, int offset, int count) {
+        System.arraycopy(values, from, target, offset, count);
+    }
+
+    @Override
+    public void copyDoubles(int from, double[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = values[from + i];
+        }
+    }
+
+    @Override
+    public int getInt(int row) {
+        return (int)values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : formatLong(values[row]);
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return isNull(row) ? JsonNull.INSTANCE : new JsonPrimitive(values[row]);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+}
@@ -0,0 +1,239 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Types;
+import java.util.Arrays;
+
+import com.aliyun.ha3engine.jdbc.Ha3Array;
+import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * multi_int/multi_uint/multi_float/multi_double列，所有行的元素连续保存在同一个原始类型数组中，
+ * offsets[row]到offsets[row + 1]为该行的元素范围，getArray返回的{@link Ha3Array}直接引用该数组
+ */
+public class Ha3MultiValueColumn extends Ha3Column {
+
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int valueSize;
+    private int[] offsets = new int[17];
+
+    public Ha3MultiValueColumn(Ha3ColumnType type) {
+        super(type);
+        switch (type) {
+            case MULTI_INT32:
+                ints = new int[64];
+                break;
+            case MULTI_INT64:
+                longs = new long[64];
+                break;
+            case MULTI_DOUBLE:
+                doubles = new double[64];
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported multi value type: " + type);
+        }
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            // 个别情况下多值字段只返回单个值
+            addText(in.nextString());
+            endRow();
+            return;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NUMBER && type != Ha3ColumnType.MULTI_INT64) {
+                if (type == Ha3ColumnType.MULTI_INT32) {
+                    addInt(in.nextInt());
+                } else {
+                    addDouble(Ha3NumberParser.parseDouble(in.nextString()));
+                }
+            } else {
+                addText(in.nextString());
+            }
+        }
+        in.endArray();
+        endRow();
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        if (element.isJsonArray()) {
+            for (JsonElement value : element.getAsJsonArray()) {
+                addText(value.getAsString());
+            }
+        } else {
+            addText(element.getAsString());
+        }
+        endRow();
+    }
+
+    private void addText(String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        switch (type) {
+            case MULTI_INT32:
+                addInt(Ha3NumberParser.parseInt(text));
+                break;
+            case MULTI_INT64:
+                addLong(Ha3NumberParser.parseLong(text));
+                break;
+            default:
+                addDouble(Ha3NumberParser.parseDouble(text));
+        }
+    }
+
+    /**
+     * 向当前行追加一个元素，当前行的元素追加完成后需要调用{@link #endRow()}
+     *
+     * @param value
+     */
+    public void addInt(int value) {
+        if (valueSize == ints.length) {
+            ints = Arrays.copyOf(ints, grow(ints.length, valueSize + 1));
+        }
+        ints[valueSize++] = value;
+    }
+
+    public void addLong(long value) {
+        if (valueSize == longs.length) {
+            longs = Arrays.copyOf(longs, grow(longs.length, valueSize + 1));
+        }
+        longs[valueSize++] = value;
+    }
+
+    public void addDouble(double value) {
+        if (valueSize == doubles.length) {
+            doubles = Arrays.copyOf(doubles, grow(doubles.length, valueSize + 1));
+        }
+        doubles[valueSize++] = value;
+    }
+
+    public void endRow() {
+        ensureCapacity(size + 1);
+        offsets[++size] = valueSize;
+    }
+
+    @Override
+    protected void appendDefault() {
+        offsets[++size] = valueSize;
+    }
+
+    @Override
+    public void appendAll(Ha3Column source) {
+        if (!(source instanceof Ha3MultiValueColumn) || source.getType() != type) {
+            super.appendAll(source);
+            return;
+        }
+        Ha3MultiValueColumn other = (Ha3MultiValueColumn)source;
+        int count = other.size;
+        int values = other.valueSize;
+        switch (type) {
+            case MULTI_INT32:
+                if (valueSize + values > ints.length) {
+                    ints = Arrays.copyOf(ints, grow(ints.length, valueSize + values));
+                }
+                System.arraycopy(other.ints, 0, ints, valueSize, values);
+                break;
+            case MULTI_INT64:
+                if (valueSize + values > longs.length) {
+                    longs = Arrays.copyOf(longs, grow(longs.length, valueSize + values));
+                }
+                System.arraycopy(other.longs, 0, longs, valueSize, values);
+                break;
+            default:
+                if (valueSize + values > doubles.length) {
+                    doubles = Arrays.copyOf(doubles, grow(doubles.length, valueSize + values));
+                }
+                System.arraycopy(other.doubles, 0, doubles, valueSize, values);
+        }
+        ensureCapacity(size + count);
+        for (int row = 1; row <= count; row++) {
+            offsets[size + row] = valueSize + other.offsets[row];
+        }
+        appendNulls(source, count);
+        size += count;
+        valueSize += values;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity + 1 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, grow(offsets.length, capacity + 1));
+        }
+    }
+
+    @Override
+    public long estimateBytes() {
+        return ((long)valueSize << 3) + ((long)size << 2);
+    }
+
+    @Override
+    protected void clearValues() {
+        valueSize = 0;
+    }
+
+    public int getLength(int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    @Override
+    public Array getArray(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        int offset = offsets[row];
+        int length = offsets[row + 1] - offset;
+        switch (type) {
+            case MULTI_INT32:
+                return new Ha3Array(Types.INTEGER, ints, offset, length);
+            case MULTI_INT64:
+                return new Ha3Array(Types.BIGINT, longs, offset, length);
+            default:
+                return new Ha3Array(Types.DOUBLE, doubles, offset, length);
+        }
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : getJson(row).toString();
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        if (isNull(row)) {
+            return JsonNull.INSTANCE;
+        }
+        int end = offsets[row + 1];
+        JsonArray array = new JsonArray(end - offsets[row]);
+        for (int i = offsets[row]; i < end; i++) {
+            switch (type) {
+                case MULTI_INT32:
+                    array.add(ints[i]);
+                    break;
+                case MULTI_INT64:
+                    array.add(longs[i]);
+                    break;
+                default:
+                    array.add(doubles[i]);
+            }
+        }
+        return array;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return JsonUtils.fromJson(getJson(row), Object.class);
+    }
+}
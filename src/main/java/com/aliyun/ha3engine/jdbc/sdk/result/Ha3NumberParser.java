@@ -0,0 +1,289 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.math.BigInteger;
+
+/**
+ * 结果解码用的数值解析，直接读取字符不创建中间对象
+ *
+ * 整数不超过18位时逐位累加；浮点数先读出最多19位有效数字和十进制指数，能精确表示时按Clinger快速路径计算，
+ * 否则按Eisel-Lemire算法用128位的5的幂近似值计算并检查是否可能舍入错误。超过19位有效数字、Infinity/NaN、
+ * 十六进制、前导+号或算法无法确定舍入的少数情况交给JDK解析，结果与Long.parseLong/Double.parseDouble一致
+ */
+public class Ha3NumberParser {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MIN_EXP10 = -342;
+    private static final int MAX_EXP10 = 308;
+    private static final long MASK_32 = 0xFFFFFFFFL;
+
+    private Ha3NumberParser() {
+    }
+
+    public static long parseLong(String text) {
+        return parseLong(text, 0, text.length());
+    }
+
+    /**
+     * 解析text[start, end)中的整数，uint64超出long范围时按无符号解析，小数按截断处理
+     *
+     * @param text
+     * @param start
+     * @param end
+     * @return
+     * @throws NumberFormatException 不是数值
+     */
+    public static long parseLong(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int length = end - i;
+        if (length > 0 && length <= 18) {
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = text.charAt(i) - '0';
+                if ((digit | (9 - digit)) < 0) {
+                    return parseLongSlow(text.subSequence(start, end).toString());
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+        return parseLongSlow(text.subSequence(start, end).toString());
+    }
+
+    private static long parseLongSlow(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return (long)parseDouble(text);
+            }
+            return Long.parseUnsignedLong(text);
+        }
+    }
+
+    /**
+     * @param text
+     * @return
+     * @throws NumberFormatException 不是数值或超出int范围
+     */
+    public static int parseInt(String text) {
+        long value = parseLong(text);
+        if ((int)value != value) {
+            throw new NumberFormatException("Value out of int range: " + text);
+        }
+        return (int)value;
+    }
+
+    public static double parseDouble(String text) {
+        return parseDouble(text, 0, text.length());
+    }
+
+    /**
+     * 解析text[start, end)中的浮点数
+     *
+     * @param text
+     * @param start
+     * @param end
+     * @return
+     * @throws NumberFormatException 不是数值
+     */
+    public static double parseDouble(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        // 19位有效数字可能超出long的范围，按无符号数处理
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        for (; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if ((digit | (9 - digit)) < 0) {
+                break;
+            }
+            hasDigits = true;
+            if (significand != 0 || digit != 0) {
+                if (++significantDigits > 19) {
+                    return parseDoubleSlow(text, start, end);
+                }
+                significand = significand * 10 + digit;
+            }
+        }
+        if (i < end && text.charAt(i) == '.') {
+            for (i++; i < end; i++) {
+                int digit = text.charAt(i) - '0';
+                if ((digit | (9 - digit)) < 0) {
+                    break;
+                }
+                hasDigits = true;
+                if (significand != 0 || digit != 0) {
+                    if (++significantDigits > 19) {
+                        return parseDoubleSlow(text, start, end);
+                    }
+                    significand = significand * 10 + digit;
+                }
+                exponent--;
+            }
+        }
+        if (!hasDigits) {
+            return parseDoubleSlow(text, start, end);
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = i < end && text.charAt(i) == '-';
+            if (i < end && (negativeExponent || text.charAt(i) == '+')) {
+                i++;
+            }
+            if (i == end) {
+                return parseDoubleSlow(text, start, end);
+            }
+            int value = 0;
+            for (; i < end; i++) {
+                int digit = text.charAt(i) - '0';
+                if ((digit | (9 - digit)) < 0) {
+                    break;
+                }
+                // 超出double范围的指数只需要保留足够大的值
+                if (value < 100000) {
+                    value = value * 10 + digit;
+                }
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            return parseDoubleSlow(text, start, end);
+        }
+        if (significand == 0) {
+            return negative ? -0D : 0D;
+        }
+        // Clinger快速路径：有效数字和10的幂都能被double精确表示时，一次乘除的结果就是正确舍入的
+        if (Long.compareUnsigned(significand, 1L << 53) <= 0 && exponent >= -22 && exponent <= 22) {
+            double value = significand;
+            value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        if (exponent < MIN_EXP10) {
+            return negative ? -0D : 0D;
+        }
+        if (exponent > MAX_EXP10) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        double value = eiselLemire(significand, exponent, negative);
+        return Double.isNaN(value) ? parseDoubleSlow(text, start, end) : value;
+    }
+
+    private static double parseDoubleSlow(CharSequence text, int start, int end) {
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * significand * 10^exponent的正确舍入结果
+     *
+     * @param significand 非0，按无符号数处理
+     * @param exponent    在[MIN_EXP10, MAX_EXP10]中
+     * @param negative
+     * @return 无法确定舍入或结果为次正规数、无穷大时返回NaN
+     */
+    private static double eiselLemire(long significand, int exponent, boolean negative) {
+        int leadingZeros = Long.numberOfLeadingZeros(significand);
+        long mantissa = significand << leadingZeros;
+        // 217706 / 2^16近似log2(10)
+        long exponent2 = ((217706L * exponent) >> 16) + 64 + 1023 - leadingZeros;
+
+        int index = exponent - MIN_EXP10;
+        long powerHigh = PowersOfFive.HIGH[index];
+        long powerLow = PowersOfFive.LOW[index];
+        long high = multiplyHigh(mantissa, powerHigh);
+        long low = mantissa * powerHigh;
+        // 截断误差可能影响舍入时，加上5的幂低64位的乘积
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0) {
+            long lowHigh = multiplyHigh(mantissa, powerLow);
+            long lowLow = mantissa * powerLow;
+            long mergedHigh = high;
+            long mergedLow = low + lowHigh;
+            if (Long.compareUnsigned(mergedLow, low) < 0) {
+                mergedHigh++;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+                && Long.compareUnsigned(lowLow + mantissa, mantissa) < 0) {
+                return Double.NaN;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        long upperBit = high >>> 63;
+        long result = high >>> (upperBit + 9);
+        exponent2 -= 1 ^ upperBit;
+        // 恰好位于两个double中间时需要按偶数舍入，交给JDK
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            return Double.NaN;
+        }
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            exponent2++;
+        }
+        if (Long.compareUnsigned(exponent2 - 1, 0x7FF - 1) >= 0) {
+            return Double.NaN;
+        }
+        long bits = exponent2 << 52 | result & 0x000FFFFFFFFFFFFFL;
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * 无符号64位乘法结果的高64位
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & MASK_32;
+        long x1 = x >>> 32;
+        long y0 = y & MASK_32;
+        long y1 = y >>> 32;
+        long t = x1 * y0 + ((x0 * y0) >>> 32);
+        long w1 = (t & MASK_32) + x0 * y1;
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
+    /**
+     * 10^q的128位尾数（向下取整，最高位为1），q在[MIN_EXP10, MAX_EXP10]中，首次用到Eisel-Lemire时计算
+     */
+    private static final class PowersOfFive {
+
+        private static final long[] HIGH = new long[MAX_EXP10 - MIN_EXP10 + 1];
+        private static final long[] LOW = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+        static {
+            BigInteger five = BigInteger.valueOf(5);
+            BigInteger power = BigInteger.ONE;
+            for (int q = 0; q <= -MIN_EXP10; q++) {
+                int bits = power.bitLength();
+                if (q <= MAX_EXP10) {
+                    // 10^q与5^q的尾数相同
+                    set(q, bits > 128 ? power.shiftRight(bits - 128) : power.shiftLeft(128 - bits));
+                }
+                if (q > 0) {
+                    set(-q, BigInteger.ONE.shiftLeft(bits + 127).divide(power));
+                }
+                power = power.multiply(five);
+            }
+        }
+
+        private static void set(int q, BigInteger mantissa) {
+            HIGH[q - MIN_EXP10] = mantissa.shiftRight(64).longValue();
+            LOW[q - MIN_EXP10] = mantissa.longValue();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * off-heap结果列的内存分配器，每个连接持有一个，从共享的{@link Ha3BufferPool}申请buffer并统计该连接占用的堆外字节数
+ */
+public class Ha3OffHeapAllocator {
+
+    private final Ha3BufferPool pool;
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private volatile boolean closed;
+
+    public Ha3OffHeapAllocator() {
+        this(Ha3BufferPool.getDefault());
+    }
+
+    public Ha3OffHeapAllocator(Ha3BufferPool pool) {
+        this.pool = pool;
+    }
+
+    public ByteBuffer allocate(int capacity) {
+        if (closed) {
+            throw new IllegalStateException("off-heap allocator is closed");
+        }
+        ByteBuffer buffer = pool.acquire(capacity);
+        allocatedBytes.addAndGet(buffer.capacity());
+        return buffer;
+    }
+
+    /**
+     * 扩容，把原buffer中前usedBytes个字节复制到新buffer后归还原buffer
+     *
+     * @param buffer
+     * @param capacity  新的最小容量
+     * @param usedBytes 需要保留的字节数
+     * @return
+     */
+    public ByteBuffer reallocate(ByteBuffer buffer, int capacity, int usedBytes) {
+        ByteBuffer target = allocate(capacity);
+        ByteBuffer source = buffer.duplicate();
+        source.position(0).limit(usedBytes);
+        target.put(source);
+        target.clear();
+        release(buffer);
+        return target;
+    }
+
+    public void release(ByteBuffer buffer) {
+        allocatedBytes.addAndGet(-buffer.capacity());
+        pool.release(buffer);
+    }
+
+    /**
+     * 连接关闭时调用，之后不再分配新的buffer，复用池不再保留该分配器的列存储；
+     * 仍未关闭的结果集关闭时照常归还buffer
+     */
+    public void close() {
+        closed = true;
+        Ha3ResultArena.forCurrentThread().releaseIdle(this);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 当前仍被结果集占用的堆外字节数
+     *
+     * @return
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+}
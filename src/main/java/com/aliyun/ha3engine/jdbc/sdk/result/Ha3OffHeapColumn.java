@@ -0,0 +1,243 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * 数据保存在堆外的int32/int64/double列，每个单元格按4或8字节定长写入{@link Ha3OffHeapAllocator}分配的direct buffer，
+ * 只有null位图保留在堆上
+ */
+public class Ha3OffHeapColumn extends Ha3Column {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final Ha3OffHeapAllocator allocator;
+    private final int width;
+    private ByteBuffer values;
+
+    public Ha3OffHeapColumn(Ha3ColumnType type, Ha3OffHeapAllocator allocator) {
+        super(type);
+        if (type != Ha3ColumnType.INT32 && type != Ha3ColumnType.INT64 && type != Ha3ColumnType.DOUBLE) {
+            throw new IllegalArgumentException("Unsupported off-heap column type: " + type);
+        }
+        this.allocator = allocator;
+        this.width = type == Ha3ColumnType.INT32 ? 4 : 8;
+        this.values = allocator.allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NUMBER) {
+            appendText(in.nextString());
+            return;
+        }
+        switch (type) {
+            case INT32:
+                int intValue;
+                try {
+                    intValue = in.nextInt();
+                } catch (NumberFormatException e) {
+                    intValue = Ha3NumberParser.parseInt(in.nextString());
+                }
+                appendInt(intValue);
+                break;
+            case INT64:
+                long longValue;
+                try {
+                    longValue = in.nextLong();
+                } catch (NumberFormatException e) {
+                    longValue = Ha3NumberParser.parseLong(in.nextString());
+                }
+                appendLong(longValue);
+                break;
+            default:
+                appendDouble(Ha3NumberParser.parseDouble(in.nextString()));
+        }
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendText(element.getAsString());
+    }
+
+    private void appendText(String text) {
+        if (text.isEmpty()) {
+            appendNull();
+        } else if (type == Ha3ColumnType.DOUBLE) {
+            appendDouble(Ha3NumberParser.parseDouble(text));
+        } else if (type == Ha3ColumnType.INT32) {
+            appendInt(Ha3NumberParser.parseInt(text));
+        } else {
+            appendLong(Ha3NumberParser.parseLong(text));
+        }
+    }
+
+    @Override
+    public void appendInt(int value) {
+        if (type != Ha3ColumnType.INT32) {
+            appendLong(value);
+            return;
+        }
+        ensureCapacity(size + 1);
+        values.putInt(size++ << 2, value);
+    }
+
+    @Override
+    public void appendLong(long value) {
+        switch (type) {
+            case INT32:
+                appendInt((int)value);
+                break;
+            case INT64:
+                ensureCapacity(size + 1);
+                values.putLong(size++ << 3, value);
+                break;
+            default:
+                appendDouble(value);
+        }
+    }
+
+    @Override
+    public void appendDouble(double value) {
+        if (type != Ha3ColumnType.DOUBLE) {
+            appendLong((long)value);
+            return;
+        }
+        ensureCapacity(size + 1);
+        values.putDouble(size++ << 3, value);
+    }
+
+    @Override
+    protected void appendDefault() {
+        if (width == 4) {
+            values.putInt(size++ << 2, 0);
+        } else {
+            values.putLong(size++ << 3, 0L);
+        }
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if ((long)capacity * width > values.capacity()) {
+            int bytes = grow(values.capacity() / width, capacity) * width;
+            values = allocator.reallocate(values, bytes, size * width);
+        }
+    }
+
+    @Override
+    public void release() {
+        if (values != null) {
+            allocator.release(values);
+            values = null;
+        }
+    }
+
+    @Override
+    public long getLong(int row) {
+        switch (type) {
+            case INT32:
+                return values.getInt(row << 2);
+            case INT64:
+                return values.getLong(row << 3);
+            default:
+                return (long)values.getDouble(row << 3);
+        }
+    }
+
+    @Override
+    public int getInt(int row) {
+        switch (type) {
+            case INT32:
+                return values.getInt(row << 2);
+            case INT64:
+                return (int)values.getLong(row << 3);
+            default:
+                return (int)values.getDouble(row << 3);
+        }
+    }
+
+    @Override
+    public double getDouble(int row) {
+        switch (type) {
+            case INT32:
+                return values.getInt(row << 2);
+            case INT64:
+                return values.getLong(row << 3);
+            default:
+                return values.getDouble(row << 3);
+        }
+    }
+
+    @Override
+    public void copyLongs(int from, long[] target, int offset, int count) {
+        if (type == Ha3ColumnType.INT64) {
+            view(from).asLongBuffer().get(target, offset, count);
+        } else {
+            super.copyLongs(from, target, offset, count);
+        }
+    }
+
+    @Override
+    public void copyInts(int from, int[] target, int offset, int count) {
+        if (type == Ha3ColumnType.INT32) {
+            view(from).asIntBuffer().get(target, offset, count);
+        } else {
+            super.copyInts(from, target, offset, count);
+        }
+    }
+
+    @Override
+    public void copyDoubles(int from, double[] target, int offset, int count) {
+        if (type == Ha3ColumnType.DOUBLE) {
+            view(from).asDoubleBuffer().get(target, offset, count);
+        } else {
+            super.copyDoubles(from, target, offset, count);
+        }
+    }
+
+    /**
+     * duplicate不保留字节序，需要重新设置
+     */
+    private ByteBuffer view(int row) {
+        ByteBuffer view = values.duplicate().order(values.order());
+        view.position(row * width);
+        return view;
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return type == Ha3ColumnType.DOUBLE ? formatDouble(getDouble(row)) : formatLong(getLong(row));
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        if (isNull(row)) {
+            return JsonNull.INSTANCE;
+        }
+        return type == Ha3ColumnType.DOUBLE ? new JsonPrimitive(getDouble(row)) : new JsonPrimitive(getLong(row));
+    }
+
+    @Override
+    public Object getObject(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (type) {
+            case INT32:
+                return getInt(row);
+            case INT64:
+                return getLong(row);
+            default:
+                return getDouble(row);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 数据保存在堆外的string列，所有单元格按UTF-8连续写入bytes，offsets中第row个int为该单元格的起始位置
+ */
+public class Ha3OffHeapStringColumn extends Ha3Column {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final Ha3OffHeapAllocator allocator;
+    private ByteBuffer bytes;
+    private int byteSize;
+    /**
+     * 第row个单元格为bytes[offsets[row], offsets[row + 1])
+     */
+    private ByteBuffer offsets;
+
+    public Ha3OffHeapStringColumn(Ha3OffHeapAllocator allocator) {
+        super(Ha3ColumnType.STRING);
+        this.allocator = allocator;
+        this.bytes = allocator.allocate(INITIAL_CAPACITY);
+        this.offsets = allocator.allocate(INITIAL_CAPACITY);
+        this.offsets.putInt(0, 0);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        appendString(in.nextString());
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendString(element.isJsonPrimitive() ? element.getAsString() : element.toString());
+    }
+
+    @Override
+    public void appendString(String value) {
+        ensureCapacity(size + 1);
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (byteSize + encoded.length > bytes.capacity()) {
+            bytes = allocator.reallocate(bytes, grow(bytes.capacity(), byteSize + encoded.length), byteSize);
+        }
+        ByteBuffer target = bytes.duplicate();
+        target.position(byteSize);
+        target.put(encoded);
+        byteSize += encoded.length;
+        offsets.putInt(++size << 2, byteSize);
+    }
+
+    @Override
+    public void appendUtf8(ByteBuffer buffer, int offset, int length) {
+        ensureCapacity(size + 1);
+        if (byteSize + length > bytes.capacity()) {
+            bytes = allocator.reallocate(bytes, grow(bytes.capacity(), byteSize + length), byteSize);
+        }
+        ByteBuffer source = buffer.duplicate();
+        source.limit(offset + length).position(offset);
+        ByteBuffer target = bytes.duplicate();
+        target.position(byteSize);
+        target.put(source);
+        byteSize += length;
+        offsets.putInt(++size << 2, byteSize);
+    }
+
+    @Override
+    protected void appendDefault() {
+        offsets.putInt(++size << 2, byteSize);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if ((long)(capacity + 1) << 2 > offsets.capacity()) {
+            int entries = grow(offsets.capacity() >> 2, capacity + 1);
+            offsets = allocator.reallocate(offsets, entries << 2, (size + 1) << 2);
+        }
+    }
+
+    @Override
+    public long estimateBytes() {
+        return byteSize + ((long)size << 2);
+    }
+
+    @Override
+    protected void clearValues() {
+        byteSize = 0;
+    }
+
+    @Override
+    public void release() {
+        if (bytes != null) {
+            allocator.release(bytes);
+            allocator.release(offsets);
+            bytes = null;
+            offsets = null;
+        }
+    }
+
+    @Override
+    public long getLong(int row) {
+        return isEmptyCell(row) ? 0L : Ha3NumberParser.parseLong(getString(row));
+    }
+
+    @Override
+    public int getInt(int row) {
+        return isEmptyCell(row) ? 0 : (int)Ha3NumberParser.parseLong(getString(row));
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isEmptyCell(row) ? 0D : Ha3NumberParser.parseDouble(getString(row));
+    }
+
+    @Override
+    public String getString(int row) {
+        byte[] value = getBytes(row);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] getBytes(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        int start = offsets.getInt(row << 2);
+        byte[] value = new byte[offsets.getInt((row + 1) << 2) - start];
+        ByteBuffer source = bytes.duplicate();
+        source.position(start);
+        source.get(value);
+        return value;
+    }
+
+    /**
+     * 直接引用堆外的bytes，不复制
+     */
+    @Override
+    public void copyUtf8(int from, Ha3Utf8Slices target, int count) {
+        ByteBuffer data = bytes.duplicate();
+        data.limit(byteSize).position(0);
+        target.setData(data);
+        for (int i = 0; i < count; i++) {
+            int row = from + i;
+            int start = offsets.getInt(row << 2);
+            target.setSlice(i, start, isNull(row) ? -1 : offsets.getInt((row + 1) << 2) - start);
+        }
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return isNull(row) ? JsonNull.INSTANCE : new JsonPrimitive(getString(row));
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return getString(row);
+    }
+
+    private boolean isEmptyCell(int row) {
+        return offsets.getInt(row << 2) == offsets.getInt((row + 1) << 2);
+    }
+}
@@ -0,0 +1,264 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * full_json响应的并行解码器
+ *
+ * 先用{@link Ha3TapeDecoder}读出列信息和error_info，再对data做一遍只识别括号和字符串的结构扫描找出每行的起止位置，
+ * 之后把行按段分给ForkJoinPool，各段分别解码为独立的列存储，最后按顺序拼接到结果的列存储中。
+ * 行数不足以分段、没有column_type或需要落盘时按{@link Ha3ResultDecoder}顺序解码。
+ * 拼接完成前各段与结果同时存在，列数据的峰值内存约为顺序解码的两倍
+ */
+public class Ha3ParallelDecoder {
+
+    /**
+     * 每段最少的行数，行数较少时分段和拼接的开销超过并行的收益
+     */
+    static final int MIN_CHUNK_ROWS = 4096;
+
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private Ha3ParallelDecoder() {
+    }
+
+    /**
+     * 按并行度共享的ForkJoinPool，工作线程为守护线程
+     *
+     * @param parallelism
+     * @return
+     */
+    public static ForkJoinPool getPool(int parallelism) {
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    /**
+     * 解码Ha3响应
+     *
+     * @param body
+     * @param options
+     * @param pool    解码各段使用的线程池
+     * @return
+     * @throws IOException 响应不是合法的json
+     */
+    public static Ha3QueryResult decode(String body, Ha3DecodeOptions options, ForkJoinPool pool)
+        throws IOException {
+        Ha3TapeDecoder header = new Ha3TapeDecoder(body, false);
+        Ha3QueryResult result = header.decode();
+        int dataStart = header.getDataStart();
+        if (dataStart < 0 || result.getColumnTypes().isEmpty() || options.getSpillThresholdBytes() > 0) {
+            return Ha3ResultDecoder.decode(new StringReader(body), options);
+        }
+        result.setDecodeOptions(options);
+        RowIndex rows = scanRows(body, dataStart);
+        Ha3ColumnStore store = result.getColumnStore();
+        try {
+            int chunkCount = Math.min(rows.count / MIN_CHUNK_ROWS, pool.getParallelism() * 4);
+            if (chunkCount <= 1) {
+                readRows(body, rows, 0, rows.count, store);
+                return result;
+            }
+            Ha3ColumnStore[] chunks = new Ha3ColumnStore[chunkCount];
+            try {
+                pool.invoke(new ChunkTask(body, rows, result, chunks, 0, chunkCount));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (Ha3ColumnStore chunk : chunks) {
+                store.appendAll(chunk);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            result.release();
+            throw e;
+        }
+    }
+
+    private static void readRows(String body, RowIndex rows, int from, int to, Ha3ColumnStore store)
+        throws IOException {
+        if (from == to) {
+            return;
+        }
+        JsonReader in = new JsonReader(new RegionReader(body, rows.starts[from], rows.ends[to - 1]));
+        in.beginArray();
+        while (in.hasNext()) {
+            store.readRow(in);
+        }
+        in.endArray();
+    }
+
+    /**
+     * 从data的'['开始找出每行的起止位置，只跟踪括号层级和字符串，不解析单元格
+     */
+    static RowIndex scanRows(String body, int dataStart) throws IOException {
+        RowIndex rows = new RowIndex();
+        int length = body.length();
+        int pos = dataStart + 1;
+        while (true) {
+            while (pos < length && isSeparator(body.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= length) {
+                throw new MalformedJsonException("Unterminated data array");
+            }
+            char c = body.charAt(pos);
+            if (c == ']') {
+                return rows;
+            }
+            if (c != '[') {
+                throw new MalformedJsonException("Expected a row array at position " + pos);
+            }
+            int end = skipRow(body, pos);
+            rows.add(pos, end);
+            pos = end;
+        }
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * @return 与start处的'['匹配的']'之后的位置
+     */
+    private static int skipRow(String body, int start) throws IOException {
+        int length = body.length();
+        int depth = 0;
+        for (int i = start; i < length; i++) {
+            char c = body.charAt(i);
+            if (c == '"') {
+                for (i++; i < length && body.charAt(i) != '"'; i++) {
+                    if (body.charAt(i) == '\\') {
+                        i++;
+                    }
+                }
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        throw new MalformedJsonException("Unterminated row at position " + start);
+    }
+
+    static final class RowIndex {
+
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private int count;
+
+        private void add(int start, int end) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count << 1);
+                ends = Arrays.copyOf(ends, count << 1);
+            }
+            starts[count] = start;
+            ends[count++] = end;
+        }
+    }
+
+    /**
+     * 按二分拆分到单个段后解码，第i段为[count * i / chunkCount, count * (i + 1) / chunkCount)行
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String body;
+        private final RowIndex rows;
+        private final Ha3QueryResult result;
+        private final Ha3ColumnStore[] chunks;
+        private final int from;
+        private final int to;
+
+        ChunkTask(String body, RowIndex rows, Ha3QueryResult result, Ha3ColumnStore[] chunks, int from, int to) {
+            this.body = body;
+            this.rows = rows;
+            this.result = result;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(body, rows, result, chunks, from, middle),
+                    new ChunkTask(body, rows, result, chunks, middle, to));
+                return;
+            }
+            // 各段只是中间结果，始终保存在堆内，拼接时再按结果的解码选项写入
+            Ha3ColumnStore chunk = new Ha3ColumnStore(result.getColumnTypes());
+            long count = rows.count;
+            int first = (int)(count * from / chunks.length);
+            int last = (int)(count * to / chunks.length);
+            try {
+                readRows(body, rows, first, last, chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            chunks[from] = chunk;
+        }
+    }
+
+    /**
+     * 把text[start, end)包在一对方括号中读出，各段不需要复制子串
+     */
+    private static final class RegionReader extends Reader {
+
+        private final String text;
+        private final int end;
+        private int pos;
+        private boolean opened;
+        private boolean closed;
+
+        RegionReader(String text, int start, int end) {
+            this.text = text;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int read = 0;
+            if (!opened) {
+                buffer[offset] = '[';
+                opened = true;
+                read = 1;
+            }
+            int copy = Math.min(length - read, end - pos);
+            if (copy > 0) {
+                text.getChars(pos, pos + copy, buffer, offset + read);
+                pos += copy;
+                read += copy;
+            }
+            if (pos == end && read < length && !closed) {
+                buffer[offset + read] = ']';
+                closed = true;
+                read++;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aliyun.ha3engine.jdbc.common.exception.ErrorInfo;
+
+/**
+ * 解码后的Ha3查询结果，由{@link Ha3ResultDecoder}一次性从响应中读出
+ */
+public class Ha3QueryResult {
+
+    /**
+     * 错误信息，对应响应中的error_info
+     */
+    private ErrorInfo errorInfo;
+
+    /**
+     * 列名，对应sql_result.column_name
+     */
+    private final List<String> columnNames = new ArrayList<>();
+
+    /**
+     * 列类型，对应sql_result.column_type
+     */
+    private final List<String> columnTypes = new ArrayList<>();
+
+    /**
+     * 行数据，对应sql_result.data，按列保存
+     */
+    private Ha3ColumnStore columnStore;
+
+    /**
+     * 流式解码时尚未读取的行，为null表示所有行已在columnStore中
+     */
+    private Ha3RowStream rowStream;
+
+    /**
+     * 创建columnStore时使用的解码选项
+     */
+    private Ha3DecodeOptions decodeOptions = Ha3DecodeOptions.DEFAULT;
+
+    public ErrorInfo getErrorInfo() {
+        return errorInfo;
+    }
+
+    public void setErrorInfo(ErrorInfo errorInfo) {
+        this.errorInfo = errorInfo;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<String> getColumnTypes() {
+        return columnTypes;
+    }
+
+    public Ha3ColumnStore getColumnStore() {
+        if (columnStore == null) {
+            Ha3ResultArena arena = decodeOptions.getArena();
+            columnStore = arena == null ? new Ha3ColumnStore(columnTypes, decodeOptions)
+                : arena.acquire(columnTypes, decodeOptions);
+        }
+        return columnStore;
+    }
+
+    public void setColumnStore(Ha3ColumnStore columnStore) {
+        this.columnStore = columnStore;
+    }
+
+    public Ha3DecodeOptions getDecodeOptions() {
+        return decodeOptions;
+    }
+
+    public void setDecodeOptions(Ha3DecodeOptions decodeOptions) {
+        this.decodeOptions = decodeOptions;
+    }
+
+    /**
+     * 释放columnStore占用的堆外内存，从复用池取得的列存储归还到池中
+     */
+    public void release() {
+        if (columnStore != null) {
+            columnStore.recycle();
+        }
+    }
+
+    public Ha3RowStream getRowStream() {
+        return rowStream;
+    }
+
+    public void setRowStream(Ha3RowStream rowStream) {
+        this.rowStream = rowStream;
+    }
+}
@@ -0,0 +1,122 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.util.List;
+
+/**
+ * 结果列存储的复用池。同一条sql多次执行时列布局相同，结果集关闭后列存储清空并留在池中，下一次相同布局的查询直接复用
+ * 已经分配好的数组和堆外buffer，列名索引也按布局复用，稳定状态下每次查询几乎不再分配列数据。
+ *
+ * 池中最多保留一个空闲的列存储；估算超过{@link #MAX_RETAINED_BYTES}的列存储不保留，避免偶发的大结果长期占用内存
+ */
+public class Ha3ResultArena {
+
+    static final long MAX_RETAINED_BYTES = 16L << 20;
+
+    private static final ThreadLocal<Ha3ResultArena> THREAD_ARENAS = ThreadLocal.withInitial(Ha3ResultArena::new);
+
+    private Ha3ColumnStore idle;
+    private List<String> idleTypes;
+    private Ha3DecodeOptions idleOptions;
+
+    private Ha3ColumnLabels labels;
+
+    /**
+     * @return 当前线程的复用池
+     */
+    public static Ha3ResultArena forCurrentThread() {
+        return THREAD_ARENAS.get();
+    }
+
+    /**
+     * 取出与columnTypes和存储选项相同的空闲列存储，没有时新建
+     *
+     * @param columnTypes
+     * @param options
+     * @return 关闭时需要调用{@link Ha3ColumnStore#recycle()}归还
+     */
+    public synchronized Ha3ColumnStore acquire(List<String> columnTypes, Ha3DecodeOptions options) {
+        Ha3ColumnStore store = idle;
+        if (store != null && columnTypes.equals(idleTypes) && sameStorage(options, idleOptions)) {
+            idle = null;
+            return store;
+        }
+        store = new Ha3ColumnStore(columnTypes, options);
+        store.setArena(this, columnTypes, options);
+        return store;
+    }
+
+    /**
+     * 由{@link Ha3ColumnStore#recycle()}调用，清空后留作下一次使用，已有空闲列存储时释放较早的一个
+     */
+    synchronized void recycle(Ha3ColumnStore store, List<String> columnTypes, Ha3DecodeOptions options) {
+        if (store == idle) {
+            return;
+        }
+        if (store.estimateBytes() > MAX_RETAINED_BYTES || isClosed(options.getAllocator())) {
+            store.release();
+            return;
+        }
+        store.clear();
+        if (idle != null) {
+            idle.release();
+        }
+        idle = store;
+        idleTypes = columnTypes;
+        idleOptions = options;
+    }
+
+    /**
+     * 返回与上一次相同布局的列名索引，布局变化时新建
+     *
+     * @param columnNames
+     * @param columnTypes
+     * @return
+     */
+    public synchronized Ha3ColumnLabels getLabels(List<String> columnNames, List<String> columnTypes) {
+        Ha3ColumnLabels current = labels;
+        if (current == null || !current.matches(columnNames, columnTypes)) {
+            current = new Ha3ColumnLabels(columnNames, columnTypes);
+            labels = current;
+        }
+        return current;
+    }
+
+    /**
+     * 释放空闲的列存储，Statement关闭时调用
+     */
+    public synchronized void release() {
+        if (idle != null) {
+            idle.release();
+            idle = null;
+            idleTypes = null;
+            idleOptions = null;
+        }
+        labels = null;
+    }
+
+    /**
+     * 释放使用allocator的空闲列存储，连接关闭时调用
+     *
+     * @param allocator
+     */
+    synchronized void releaseIdle(Ha3OffHeapAllocator allocator) {
+        if (idle != null && idleOptions.getAllocator() == allocator) {
+            idle.release();
+            idle = null;
+            idleTypes = null;
+            idleOptions = null;
+        }
+    }
+
+    private static boolean isClosed(Ha3OffHeapAllocator allocator) {
+        return allocator != null && allocator.isClosed();
+    }
+
+    /**
+     * 列的实现由堆外分配器和string存储方式决定，其余选项不影响列存储
+     */
+    private static boolean sameStorage(Ha3DecodeOptions a, Ha3DecodeOptions b) {
+        return a.getAllocator() == b.getAllocator() && a.isUtf8Strings() == b.isUtf8Strings()
+            && a.isCacheStrings() == b.isCacheStrings();
+    }
+}
@@ -0,0 +1,360 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aliyun.ha3engine.jdbc.common.exception.ErrorInfo;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Ha3 full_json响应的流式解码器
+ *
+ * 基于JsonReader顺序读取一遍响应，只关心error_info和sql_result中的column_name、column_type、data，
+ * 其余字段直接跳过，不再构造中间JsonObject和字符串
+ */
+public class Ha3ResultDecoder {
+
+    private Ha3ResultDecoder() {
+    }
+
+    /**
+     * 解码Ha3响应
+     *
+     * @param body 响应内容
+     * @return 解码后的结果，响应中没有error_info时errorInfo为null
+     * @throws IOException 响应不是合法的json
+     */
+    public static Ha3QueryResult decode(Reader body) throws IOException {
+        return decode(body, Ha3DecodeOptions.DEFAULT, false);
+    }
+
+    /**
+     * @param body
+     * @param options 堆外存储、落盘等解码选项
+     * @return
+     * @throws IOException
+     */
+    public static Ha3QueryResult decode(Reader body, Ha3DecodeOptions options) throws IOException {
+        return decode(body, options, false);
+    }
+
+    /**
+     * @param body
+     * @param options
+     * @param streaming 为true时读到data即返回，剩余的行由{@link Ha3RowStream}按需读取
+     * @return
+     * @throws IOException
+     */
+    static Ha3QueryResult decode(Reader body, Ha3DecodeOptions options, boolean streaming) throws IOException {
+        Ha3QueryResult result = new Ha3QueryResult();
+        result.setDecodeOptions(options);
+        try {
+            return decode(new JsonReader(body), body, result, options, streaming);
+        } catch (IOException | RuntimeException e) {
+            result.release();
+            throw e;
+        }
+    }
+
+    private static Ha3QueryResult decode(JsonReader in, Reader body, Ha3QueryResult result,
+        Ha3DecodeOptions options, boolean streaming) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("error_info".equals(name) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                result.setErrorInfo(readErrorInfo(in));
+            } else if ("sql_result".equals(name) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                if (readSqlResult(in, result, options, streaming)) {
+                    result.setRowStream(new Ha3RowStream(in, body, result, true));
+                    return result;
+                }
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return result;
+    }
+
+    static ErrorInfo readErrorInfo(JsonReader in) throws IOException {
+        long errorCode = 0;
+        String message = "";
+        String error = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "ErrorCode":
+                    errorCode = in.nextLong();
+                    break;
+                case "Message":
+                    message = in.nextString();
+                    break;
+                case "Error":
+                    error = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new ErrorInfo(errorCode, message, error);
+    }
+
+    /**
+     * @return 流式解码时停在data的第一行之前返回true
+     */
+    private static boolean readSqlResult(JsonReader in, Ha3QueryResult result, Ha3DecodeOptions options,
+        boolean streaming) throws IOException {
+        // data先于column_type出现时无法确定列类型，先按行暂存，读完sql_result后再转成列
+        PendingRows pendingRows = null;
+        RowSink sink = null;
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                    in.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "column_name":
+                        readStrings(in, result.getColumnNames());
+                        break;
+                    case "column_type":
+                        readStrings(in, result.getColumnTypes());
+                        break;
+                    case "data":
+                        if (streaming && !result.getColumnNames().isEmpty() && !result.getColumnTypes().isEmpty()) {
+                            padColumnTypes(result);
+                            in.beginArray();
+                            return true;
+                        }
+                        if (result.getColumnTypes().isEmpty()) {
+                            pendingRows = new PendingRows(options);
+                            pendingRows.read(in);
+                        } else {
+                            sink = new RowSink(result, options);
+                            readRows(in, sink);
+                            sink.finish();
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            padColumnTypes(result);
+            if (pendingRows != null) {
+                sink = new RowSink(result, options);
+                pendingRows.replay(sink);
+                sink.finish();
+            }
+            return false;
+        } catch (IOException | RuntimeException e) {
+            if (pendingRows != null) {
+                pendingRows.discard();
+            }
+            if (sink != null) {
+                sink.abort();
+            }
+            throw e;
+        }
+    }
+
+    private static void padColumnTypes(Ha3QueryResult result) {
+        List<String> columnTypes = result.getColumnTypes();
+        while (columnTypes.size() < result.getColumnNames().size()) {
+            columnTypes.add("");
+        }
+    }
+
+    static void readStrings(JsonReader in, List<String> target) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            target.add(in.nextString());
+        }
+        in.endArray();
+    }
+
+    private static void readRows(JsonReader in, RowSink sink) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            sink.read(in);
+        }
+        in.endArray();
+    }
+
+    /**
+     * 行的写入目标，结果的估算大小超过spillThresholdBytes后，把已有的行和之后的行都写入{@link Ha3SpillWriter}，
+     * 内存中只保留一行的窗口
+     */
+    private static final class RowSink {
+
+        private static final int CHECK_INTERVAL = 1024;
+
+        private final Ha3QueryResult result;
+        private final Ha3DecodeOptions options;
+        private Ha3ColumnStore store;
+        private Ha3SpillWriter spill;
+
+        private RowSink(Ha3QueryResult result, Ha3DecodeOptions options) {
+            this.result = result;
+            this.options = options;
+            this.store = result.getColumnStore();
+        }
+
+        private void read(JsonReader in) throws IOException {
+            store.readRow(in);
+            afterRow();
+        }
+
+        private void append(JsonArray row) throws IOException {
+            store.appendRow(row);
+            afterRow();
+        }
+
+        private void afterRow() throws IOException {
+            if (spill != null) {
+                spill.writeRow(store, 0);
+                store.clear();
+                return;
+            }
+            long threshold = options.getSpillThresholdBytes();
+            if (threshold <= 0 || store.getRowCount() % CHECK_INTERVAL != 0 || store.estimateBytes() <= threshold) {
+                return;
+            }
+            spill = new Ha3SpillWriter(result.getColumnTypes(), options.getSpillDirectory());
+            for (int i = 0; i < store.getRowCount(); i++) {
+                spill.writeRow(store, i);
+            }
+            // 已经写入文件的行不再保留，换成只容纳一行的新窗口，让原来的大数组可以被回收
+            store.release();
+            store = new Ha3ColumnStore(result.getColumnTypes(), options);
+            result.setColumnStore(store);
+        }
+
+        private void finish() throws IOException {
+            if (spill != null) {
+                Ha3ColumnStore spilled = spill.finish();
+                spill = null;
+                store.release();
+                result.setColumnStore(spilled);
+            }
+        }
+
+        private void abort() {
+            if (spill != null) {
+                spill.abort();
+                spill = null;
+            }
+        }
+    }
+
+    /**
+     * 列类型未知时暂存的行，估算大小超过spillThresholdBytes后改为以json写入临时文件，列类型确定后再重放
+     */
+    private static final class PendingRows {
+
+        /**
+         * JsonArray的实际占用无法直接得到，按每个单元格64字节估算
+         */
+        private static final int CELL_BYTES = 64;
+
+        private final Ha3DecodeOptions options;
+        private List<JsonArray> rows = new ArrayList<>();
+        private long estimatedBytes;
+        private Path file;
+        private Writer writer;
+        private boolean empty = true;
+
+        private PendingRows(Ha3DecodeOptions options) {
+            this.options = options;
+        }
+
+        private void read(JsonReader in) throws IOException {
+            in.beginArray();
+            while (in.hasNext()) {
+                add(JsonParser.parseReader(in).getAsJsonArray());
+            }
+            in.endArray();
+        }
+
+        private void add(JsonArray row) throws IOException {
+            if (writer != null) {
+                write(row);
+                return;
+            }
+            rows.add(row);
+            estimatedBytes += (long)CELL_BYTES * (row.size() + 1);
+            long threshold = options.getSpillThresholdBytes();
+            if (threshold > 0 && estimatedBytes > threshold) {
+                String directory = options.getSpillDirectory();
+                file = Files.createTempFile(Paths.get(directory == null ? System.getProperty("java.io.tmpdir") : directory),
+                    "ha3-spill-", ".json");
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                writer.write('[');
+                for (JsonArray pending : rows) {
+                    write(pending);
+                }
+                rows = null;
+            }
+        }
+
+        private void write(JsonArray row) throws IOException {
+            if (!empty) {
+                writer.write(',');
+            }
+            empty = false;
+            writer.write(row.toString());
+        }
+
+        private void replay(RowSink sink) throws IOException {
+            if (writer == null) {
+                for (JsonArray row : rows) {
+                    sink.append(row);
+                }
+                rows = null;
+                return;
+            }
+            writer.write(']');
+            writer.close();
+            writer = null;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                readRows(new JsonReader(reader), sink);
+            } finally {
+                Ha3SpillFile.delete(file);
+                file = null;
+            }
+        }
+
+        private void discard() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignore) {
+                }
+                writer = null;
+            }
+            if (file != null) {
+                Ha3SpillFile.delete(file);
+                file = null;
+            }
+        }
+    }
+}
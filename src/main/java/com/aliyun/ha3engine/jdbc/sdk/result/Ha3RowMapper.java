@@ -0,0 +1,429 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
+
+/**
+ * 把结果行映射为DTO或record。首次使用时按名称把字段（record为组件）绑定到列下标，并通过MethodHandle生成setter或构造器，
+ * 之后每行只按下标从列中取值；基本类型字段直接用getInt/getLong等写入，不经过装箱和gson。
+ *
+ * 字段名按完全相同、忽略大小写、去掉下划线后忽略大小写的顺序匹配列名，没有匹配列的字段保持默认值，null单元格不写入字段。
+ * 映射器按(类, 列名和列类型)缓存，同一布局的结果集共享
+ */
+public class Ha3RowMapper<T> {
+
+    private static final ClassValue<Map<String, Ha3RowMapper<?>>> CACHE = new ClassValue<Map<String, Ha3RowMapper<?>>>() {
+        @Override
+        protected Map<String, Ha3RowMapper<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private enum Kind {
+        INT,
+        LONG,
+        DOUBLE,
+        FLOAT,
+        SHORT,
+        BYTE,
+        BOOLEAN,
+        STRING,
+        BYTES,
+        TEMPORAL,
+        ARRAY,
+        JSON
+    }
+
+    private final Class<T> type;
+    private final Binding[] bindings;
+    /**
+     * 普通类为()Object的无参构造器，record为(Object[])Object的规范构造器
+     */
+    private final MethodHandle constructor;
+    /**
+     * record各组件未绑定或为null时使用的值，普通类为null
+     */
+    private final Object[] defaults;
+
+    private Ha3RowMapper(Class<T> type, Binding[] bindings, MethodHandle constructor, Object[] defaults) {
+        this.type = type;
+        this.bindings = bindings;
+        this.constructor = constructor;
+        this.defaults = defaults;
+    }
+
+    /**
+     * 获取type在该列布局下的映射器，不存在时创建并缓存
+     *
+     * @param type        有无参构造器的类或record
+     * @param columnNames
+     * @param columnTypes
+     * @return
+     * @throws SQLException 类无法实例化或字段无法访问
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Ha3RowMapper<T> of(Class<T> type, List<String> columnNames, List<String> columnTypes)
+        throws SQLException {
+        String fingerprint = String.join("\u0001", columnNames) + '\u0002' + String.join("\u0001", columnTypes);
+        Map<String, Ha3RowMapper<?>> mappers = CACHE.get(type);
+        Ha3RowMapper<?> mapper = mappers.get(fingerprint);
+        if (mapper == null) {
+            mapper = create(type, columnNames);
+            Ha3RowMapper<?> previous = mappers.putIfAbsent(fingerprint, mapper);
+            if (previous != null) {
+                mapper = previous;
+            }
+        }
+        return (Ha3RowMapper<T>)mapper;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 把store的第row行映射为一个新对象
+     *
+     * @param store
+     * @param row
+     * @return
+     * @throws SQLException 单元格无法转换为字段的类型
+     */
+    public T map(Ha3ColumnStore store, int row) throws SQLException {
+        Binding current = null;
+        try {
+            if (defaults == null) {
+                Object target = (Object)constructor.invokeExact();
+                for (Binding binding : bindings) {
+                    current = binding;
+                    binding.set(target, store.getColumn(binding.column), row);
+                }
+                return type.cast(target);
+            }
+            Object[] args = defaults.clone();
+            for (Binding binding : bindings) {
+                current = binding;
+                Ha3Column column = store.getColumn(binding.column);
+                if (!column.isNull(row)) {
+                    args[binding.index] = binding.get(column, row);
+                }
+            }
+            current = null;
+            return type.cast((Object)constructor.invokeExact(args));
+        } catch (SQLException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            if (current == null) {
+                throw new SQLException("Failed to create " + type.getName(), e);
+            }
+            Ha3Column column = store.getColumn(current.column);
+            throw new SQLException(String.format(Locale.ROOT, "Unable to convert value [%.128s] of type [%s] to %s",
+                column.getString(row), column.getType(), current.name), e);
+        }
+    }
+
+    private static <T> Ha3RowMapper<T> create(Class<T> type, List<String> columnNames) throws SQLException {
+        ColumnMatcher matcher = new ColumnMatcher(columnNames);
+        List<Binding> bindings = new ArrayList<>();
+        try {
+            Object[] components = recordComponents(type);
+            if (components != null) {
+                Class<?>[] parameterTypes = new Class<?>[components.length];
+                Object[] defaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    Class<?> componentClass = components[i].getClass();
+                    String name = (String)componentClass.getMethod("getName").invoke(components[i]);
+                    parameterTypes[i] = (Class<?>)componentClass.getMethod("getType").invoke(components[i]);
+                    Type genericType = (Type)componentClass.getMethod("getGenericType").invoke(components[i]);
+                    defaults[i] = defaultValue(parameterTypes[i]);
+                    int column = matcher.find(name);
+                    if (column >= 0) {
+                        bindings.add(new Binding(type.getName() + '.' + name, column, i, parameterTypes[i],
+                            genericType, null));
+                    }
+                }
+                Constructor<T> canonical = type.getDeclaredConstructor(parameterTypes);
+                canonical.setAccessible(true);
+                MethodHandle constructor = LOOKUP.unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+                return new Ha3RowMapper<>(type, bindings.toArray(new Binding[0]), constructor, defaults);
+            }
+            for (Class<?> current = type; current != null && current != Object.class;
+                current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers)
+                        || field.isSynthetic()) {
+                        continue;
+                    }
+                    int column = matcher.find(field.getName());
+                    if (column < 0) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    bindings.add(new Binding(type.getName() + '.' + field.getName(), column, -1, field.getType(),
+                        field.getGenericType(), LOOKUP.unreflectSetter(field)));
+                }
+            }
+            Constructor<T> noArgs = type.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+            MethodHandle constructor = LOOKUP.unreflectConstructor(noArgs)
+                .asType(MethodType.methodType(Object.class));
+            return new Ha3RowMapper<>(type, bindings.toArray(new Binding[0]), constructor, null);
+        } catch (NoSuchMethodException e) {
+            throw new SQLException(type.getName() + " has no no-arg or canonical record constructor", e);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new SQLException("Unable to map rows to " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 通过反射调用Class.getRecordComponents，以便在Java 8上编译和运行
+     *
+     * @return 不是record或运行时不支持record时返回null
+     */
+    private static Object[] recordComponents(Class<?> type) throws ReflectiveOperationException {
+        Method isRecord;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (!(Boolean)isRecord.invoke(type)) {
+            return null;
+        }
+        return (Object[])Class.class.getMethod("getRecordComponents").invoke(type);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == short.class) {
+            return (short)0;
+        }
+        return (byte)0;
+    }
+
+    /**
+     * 按完全相同、忽略大小写、去掉下划线后忽略大小写的顺序查找列，重名列取第一个
+     */
+    private static class ColumnMatcher {
+
+        private final Map<String, Integer> exact = new HashMap<>();
+        private final Map<String, Integer> lowerCase = new HashMap<>();
+        private final Map<String, Integer> normalized = new HashMap<>();
+
+        ColumnMatcher(List<String> columnNames) {
+            for (int i = 0; i < columnNames.size(); i++) {
+                String name = columnNames.get(i);
+                if (name != null) {
+                    exact.putIfAbsent(name, i);
+                    lowerCase.putIfAbsent(name.toLowerCase(Locale.ROOT), i);
+                    normalized.putIfAbsent(normalize(name), i);
+                }
+            }
+        }
+
+        int find(String name) {
+            Integer column = exact.get(name);
+            if (column == null) {
+                column = lowerCase.get(name.toLowerCase(Locale.ROOT));
+            }
+            if (column == null) {
+                column = normalized.get(normalize(name));
+            }
+            return column == null ? -1 : column;
+        }
+
+        private static String normalize(String name) {
+            return name.replace("_", "").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 一个字段或record组件与列的绑定
+     */
+    private static class Binding {
+
+        private final String name;
+        private final int column;
+        /**
+         * record组件的下标，普通字段为-1
+         */
+        private final int index;
+        private final Class<?> type;
+        private final Type genericType;
+        private final Kind kind;
+        /**
+         * 普通字段的setter，基本类型为(Object, 基本类型)void，其余为(Object, Object)void
+         */
+        private final MethodHandle setter;
+        /**
+         * 映射器在结果集之间共享，解码器只缓存识别出的格式，并发时最多重复识别
+         */
+        private final Ha3TemporalDecoder temporalDecoder;
+
+        Binding(String name, int column, int index, Class<?> type, Type genericType, MethodHandle setter) {
+            this.name = name;
+            this.column = column;
+            this.index = index;
+            this.type = type;
+            this.genericType = genericType;
+            this.kind = kindOf(type);
+            this.temporalDecoder = kind == Kind.TEMPORAL ? new Ha3TemporalDecoder() : null;
+            if (setter == null) {
+                this.setter = null;
+            } else if (type.isPrimitive()) {
+                this.setter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+            } else {
+                this.setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            }
+        }
+
+        private static Kind kindOf(Class<?> type) {
+            if (type == int.class || type == Integer.class) {
+                return Kind.INT;
+            } else if (type == long.class || type == Long.class) {
+                return Kind.LONG;
+            } else if (type == double.class || type == Double.class) {
+                return Kind.DOUBLE;
+            } else if (type == float.class || type == Float.class) {
+                return Kind.FLOAT;
+            } else if (type == short.class || type == Short.class) {
+                return Kind.SHORT;
+            } else if (type == byte.class || type == Byte.class) {
+                return Kind.BYTE;
+            } else if (type == boolean.class || type == Boolean.class) {
+                return Kind.BOOLEAN;
+            } else if (type == String.class) {
+                return Kind.STRING;
+            } else if (type == byte[].class) {
+                return Kind.BYTES;
+            } else if (Ha3TemporalDecoder.isTemporalType(type)) {
+                return Kind.TEMPORAL;
+            } else if (type == int[].class || type == long[].class || type == double[].class
+                || type == String[].class) {
+                return Kind.ARRAY;
+            }
+            return Kind.JSON;
+        }
+
+        /**
+         * 写入普通类的字段，基本类型不装箱，null单元格保持字段默认值
+         */
+        void set(Object target, Ha3Column column, int row) throws Throwable {
+            if (column.isNull(row)) {
+                return;
+            }
+            if (!type.isPrimitive()) {
+                setter.invokeExact(target, get(column, row));
+                return;
+            }
+            switch (kind) {
+                case INT:
+                    setter.invokeExact(target, column.getInt(row));
+                    break;
+                case LONG:
+                    setter.invokeExact(target, column.getLong(row));
+                    break;
+                case DOUBLE:
+                    setter.invokeExact(target, column.getDouble(row));
+                    break;
+                case FLOAT:
+                    setter.invokeExact(target, (float)column.getDouble(row));
+                    break;
+                case SHORT:
+                    setter.invokeExact(target, (short)column.getInt(row));
+                    break;
+                case BYTE:
+                    setter.invokeExact(target, (byte)column.getInt(row));
+                    break;
+                case BOOLEAN:
+                    setter.invokeExact(target, column.getBoolean(row));
+                    break;
+                default:
+                    // char
+                    String value = column.getString(row);
+                    setter.invokeExact(target, value.isEmpty() ? '\0' : value.charAt(0));
+                    break;
+            }
+        }
+
+        /**
+         * @return 非null单元格转换后的值，基本类型返回包装类型
+         */
+        Object get(Ha3Column column, int row) throws SQLException {
+            switch (kind) {
+                case INT:
+                    return column.getInt(row);
+                case LONG:
+                    return column.getLong(row);
+                case DOUBLE:
+                    return column.getDouble(row);
+                case FLOAT:
+                    return (float)column.getDouble(row);
+                case SHORT:
+                    return (short)column.getInt(row);
+                case BYTE:
+                    return (byte)column.getInt(row);
+                case BOOLEAN:
+                    return column.getBoolean(row);
+                case STRING:
+                    return column.getString(row);
+                case BYTES:
+                    return column.getBytes(row);
+                case TEMPORAL:
+                    return temporalDecoder.decode(column, row, type, ZoneId.systemDefault());
+                case ARRAY:
+                    // 多值列的元素类型与字段一致时直接拷贝原始类型数组，否则走gson
+                    Array array = column.getArray(row);
+                    Object value = array == null ? null : array.getArray();
+                    if (type.isInstance(value)) {
+                        return value;
+                    }
+                    return JsonUtils.getAdapter(genericType).fromJsonTree(column.getJson(row));
+                default:
+                    if (type == char.class || type == Character.class) {
+                        String text = column.getString(row);
+                        return text.isEmpty() ? '\0' : text.charAt(0);
+                    }
+                    return JsonUtils.getAdapter(genericType).fromJsonTree(column.getJson(row));
+            }
+        }
+    }
+}
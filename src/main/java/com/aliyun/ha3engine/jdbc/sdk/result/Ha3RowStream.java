@@ -0,0 +1,154 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * decodeMode=streaming时sql_result.data中尚未读取的行
+ *
+ * 每次{@link #fill(Ha3ColumnStore, int)}最多读取指定行数到结果集的窗口中，窗口中的数组会被下一批数据复用，
+ * 因此内存只与窗口大小有关；{@link #close()}会关闭底层的响应流，放弃剩余的数据
+ */
+public class Ha3RowStream implements Closeable {
+
+    private final JsonReader in;
+    private final Closeable source;
+    private final Ha3QueryResult result;
+    /**
+     * data之后还有未读取的sql_result成员和顶层成员（如error_info）
+     */
+    private final boolean readTrailer;
+    private boolean exhausted;
+    private boolean closed;
+
+    Ha3RowStream(JsonReader in, Closeable source, Ha3QueryResult result, boolean readTrailer) {
+        this.in = in;
+        this.source = source;
+        this.result = result;
+        this.readTrailer = readTrailer;
+    }
+
+    /**
+     * 以流式方式解码已经完整读入内存的响应，列信息和error_info先通过结构扫描得到，行数据按窗口解码
+     *
+     * @param body
+     * @return 列信息已就绪的结果，行数据通过{@link Ha3QueryResult#getRowStream()}读取
+     * @throws IOException 响应不是合法的json
+     */
+    public static Ha3QueryResult open(String body) throws IOException {
+        return open(body, Ha3DecodeOptions.DEFAULT);
+    }
+
+    /**
+     * @param body
+     * @param options 流式结果的窗口已经有界，只使用其中的堆外存储选项
+     * @return
+     * @throws IOException
+     */
+    public static Ha3QueryResult open(String body, Ha3DecodeOptions options) throws IOException {
+        Ha3TapeDecoder decoder = new Ha3TapeDecoder(body, false);
+        Ha3QueryResult result = decoder.decode();
+        result.setDecodeOptions(options);
+        int dataStart = decoder.getDataStart();
+        if (dataStart < 0) {
+            return result;
+        }
+        StringReader reader = new StringReader(body);
+        reader.skip(dataStart);
+        JsonReader in = new JsonReader(reader);
+        in.beginArray();
+        result.setRowStream(new Ha3RowStream(in, reader, result, false));
+        return result;
+    }
+
+    /**
+     * 以流式方式解码响应流，读到sql_result.data时返回，error_info在data之后时会在行读完后补充到结果中
+     *
+     * data先于column_name/column_type出现时无法按列类型解码，此时退化为一次性解码
+     *
+     * @param body
+     * @return
+     * @throws IOException 响应不是合法的json或读取失败
+     */
+    public static Ha3QueryResult open(Reader body) throws IOException {
+        return open(body, Ha3DecodeOptions.DEFAULT);
+    }
+
+    public static Ha3QueryResult open(Reader body, Ha3DecodeOptions options) throws IOException {
+        return Ha3ResultDecoder.decode(body, options, true);
+    }
+
+    /**
+     * 清空窗口并读取下一批行
+     *
+     * @param window  结果集的窗口，列类型与结果一致
+     * @param maxRows 最多读取的行数
+     * @return 读取到的行数，为0表示没有更多数据
+     * @throws IOException
+     */
+    public int fill(Ha3ColumnStore window, int maxRows) throws IOException {
+        window.clear();
+        if (exhausted || closed) {
+            return 0;
+        }
+        int rows = 0;
+        while (rows < maxRows && in.hasNext()) {
+            window.readRow(in);
+            rows++;
+        }
+        if (!in.hasNext()) {
+            finish();
+        }
+        return rows;
+    }
+
+    /**
+     * 所有行已读取完成
+     *
+     * @return
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * 读完剩余的内容后关闭响应流，使连接尽早归还
+     */
+    private void finish() throws IOException {
+        in.endArray();
+        exhausted = true;
+        if (!readTrailer) {
+            close();
+            return;
+        }
+        // 跳过sql_result中data之后的成员，再读取顶层剩余的error_info
+        while (in.hasNext()) {
+            in.nextName();
+            in.skipValue();
+        }
+        in.endObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("error_info".equals(name) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                result.setErrorInfo(Ha3ResultDecoder.readErrorInfo(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            source.close();
+        }
+    }
+}
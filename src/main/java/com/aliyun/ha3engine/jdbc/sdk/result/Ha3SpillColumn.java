@@ -0,0 +1,215 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Array;
+import java.sql.Types;
+
+import com.aliyun.ha3engine.jdbc.Ha3Array;
+import com.aliyun.ha3engine.jdbc.common.utils.JsonUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 基于{@link Ha3SpillFile}的只读列，数据从mmap的临时文件中按需读取
+ */
+public class Ha3SpillColumn extends Ha3Column {
+
+    private final Ha3SpillFile file;
+    private final int column;
+
+    public Ha3SpillColumn(Ha3SpillFile file, int column, Ha3ColumnType type) {
+        super(type);
+        this.file = file;
+        this.column = column;
+        this.size = file.getRowCount();
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return file.cell(row, column) < 0;
+    }
+
+    @Override
+    public long getLong(int row) {
+        int offset = file.cell(row, column);
+        if (offset < 0) {
+            return 0L;
+        }
+        switch (type) {
+            case INT32:
+                return file.segment().getInt(offset);
+            case INT64:
+                return file.segment().getLong(offset);
+            case DOUBLE:
+                return (long)file.segment().getDouble(offset);
+            default:
+                return super.getLong(row);
+        }
+    }
+
+    @Override
+    public int getInt(int row) {
+        return type == Ha3ColumnType.INT32 || type == Ha3ColumnType.INT64 || type == Ha3ColumnType.DOUBLE
+            ? (int)getLong(row) : super.getInt(row);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        int offset = file.cell(row, column);
+        if (offset < 0) {
+            return 0D;
+        }
+        if (type == Ha3ColumnType.DOUBLE) {
+            return file.segment().getDouble(offset);
+        }
+        if (type == Ha3ColumnType.INT32 || type == Ha3ColumnType.INT64) {
+            return getLong(row);
+        }
+        return super.getDouble(row);
+    }
+
+    @Override
+    public String getString(int row) {
+        int offset = file.cell(row, column);
+        if (offset < 0) {
+            return null;
+        }
+        switch (type) {
+            case INT32:
+            case INT64:
+                return formatLong(getLong(row));
+            case DOUBLE:
+                return formatDouble(getDouble(row));
+            case STRING:
+                return file.readString(offset);
+            default:
+                return super.getString(row);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(int row) {
+        int offset = file.cell(row, column);
+        if (offset < 0) {
+            return null;
+        }
+        return type == Ha3ColumnType.STRING ? file.readBytes(offset) : super.getBytes(row);
+    }
+
+    @Override
+    public Array getArray(int row) {
+        int offset = file.cell(row, column);
+        if (offset < 0) {
+            return null;
+        }
+        ByteBuffer segment = file.segment();
+        int length = segment.getInt(offset);
+        int start = offset + 4;
+        switch (type) {
+            case MULTI_INT32:
+                int[] ints = new int[length];
+                for (int i = 0; i < length; i++) {
+                    ints[i] = segment.getInt(start + 4 * i);
+                }
+                return new Ha3Array(Types.INTEGER, ints, 0, length);
+            case MULTI_INT64:
+                long[] longs = new long[length];
+                for (int i = 0; i < length; i++) {
+                    longs[i] = segment.getLong(start + 8 * i);
+                }
+                return new Ha3Array(Types.BIGINT, longs, 0, length);
+            case MULTI_DOUBLE:
+                double[] doubles = new double[length];
+                for (int i = 0; i < length; i++) {
+                    doubles[i] = segment.getDouble(start + 8 * i);
+                }
+                return new Ha3Array(Types.DOUBLE, doubles, 0, length);
+            default:
+                return super.getArray(row);
+        }
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        int offset = file.cell(row, column);
+        if (offset < 0) {
+            return JsonNull.INSTANCE;
+        }
+        switch (type) {
+            case INT32:
+            case INT64:
+                return new JsonPrimitive(getLong(row));
+            case DOUBLE:
+                return new JsonPrimitive(getDouble(row));
+            case STRING:
+                return new JsonPrimitive(file.readString(offset));
+            case MULTI_INT32:
+            case MULTI_INT64:
+            case MULTI_DOUBLE:
+                JsonArray array = new JsonArray();
+                ByteBuffer segment = file.segment();
+                int length = segment.getInt(offset);
+                for (int i = 0; i < length; i++) {
+                    if (type == Ha3ColumnType.MULTI_INT32) {
+                        array.add(segment.getInt(offset + 4 + 4 * i));
+                    } else if (type == Ha3ColumnType.MULTI_INT64) {
+                        array.add(segment.getLong(offset + 4 + 8 * i));
+                    } else {
+                        array.add(segment.getDouble(offset + 4 + 8 * i));
+                    }
+                }
+                return array;
+            default:
+                return JsonParser.parseString(file.readString(offset));
+        }
+    }
+
+    @Override
+    public Object getObject(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (type) {
+            case INT32:
+                return getInt(row);
+            case INT64:
+                return getLong(row);
+            case DOUBLE:
+                return getDouble(row);
+            case STRING:
+                return getString(row);
+            default:
+                return JsonUtils.fromJson(getJson(row), Object.class);
+        }
+    }
+
+    @Override
+    public void release() {
+        file.release();
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        throw new UnsupportedOperationException("Ha3SpillColumn is read-only");
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        throw new UnsupportedOperationException("Ha3SpillColumn is read-only");
+    }
+
+    @Override
+    protected void appendDefault() {
+        throw new UnsupportedOperationException("Ha3SpillColumn is read-only");
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        throw new UnsupportedOperationException("Ha3SpillColumn is read-only");
+    }
+}
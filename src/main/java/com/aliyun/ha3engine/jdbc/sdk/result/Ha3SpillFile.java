@@ -0,0 +1,170 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Ha3SpillWriter}写出的落盘结果，数据文件和索引文件按{@link #SEGMENT_SIZE}分段mmap只读访问
+ *
+ * 读取单元格时先解析该行的null位图和各列的起始位置并缓存，同一行的其他列直接定位，
+ * 结果集按行访问时每行只解析一次
+ */
+public class Ha3SpillFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(Ha3SpillFile.class);
+
+    static final int SEGMENT_SIZE = 1 << 30;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final Ha3ColumnType[] types;
+    private final int rowCount;
+    private MappedByteBuffer[] dataSegments;
+    private MappedByteBuffer[] indexSegments;
+
+    /**
+     * 当前解析的行，cellOffsets[i]为第i列在所在段中的位置，null单元格为-1
+     */
+    private int currentRow = -1;
+    private ByteBuffer currentSegment;
+    private final int[] cellOffsets;
+
+    Ha3SpillFile(Path dataPath, Path indexPath, Ha3ColumnType[] types, int rowCount) throws IOException {
+        this.dataPath = dataPath;
+        this.indexPath = indexPath;
+        this.types = types;
+        this.rowCount = rowCount;
+        this.cellOffsets = new int[types.length];
+        this.dataSegments = map(dataPath);
+        this.indexSegments = map(indexPath);
+    }
+
+    private static MappedByteBuffer[] map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int)((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long)i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return segments;
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 定位到row行的第column列
+     *
+     * @return 单元格在{@link #segment()}中的位置，null单元格返回-1
+     */
+    int cell(int row, int column) {
+        if (row != currentRow) {
+            parseRow(row);
+        }
+        return cellOffsets[column];
+    }
+
+    ByteBuffer segment() {
+        return currentSegment;
+    }
+
+    private void parseRow(int row) {
+        if (dataSegments == null) {
+            throw new IllegalStateException("Spill file has been released");
+        }
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row: " + row);
+        }
+        long indexPosition = (long)row << 3;
+        long position = indexSegments[(int)(indexPosition / SEGMENT_SIZE)].getLong(
+            (int)(indexPosition % SEGMENT_SIZE));
+        ByteBuffer segment = dataSegments[(int)(position / SEGMENT_SIZE)];
+        int offset = (int)(position % SEGMENT_SIZE);
+        int nullStart = offset;
+        offset += (types.length + 7) >>> 3;
+        for (int i = 0; i < types.length; i++) {
+            if ((segment.get(nullStart + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                cellOffsets[i] = -1;
+                continue;
+            }
+            cellOffsets[i] = offset;
+            switch (types[i]) {
+                case INT32:
+                    offset += 4;
+                    break;
+                case INT64:
+                case DOUBLE:
+                    offset += 8;
+                    break;
+                case MULTI_INT32:
+                    offset += 4 + 4 * segment.getInt(offset);
+                    break;
+                case MULTI_INT64:
+                case MULTI_DOUBLE:
+                    offset += 4 + 8 * segment.getInt(offset);
+                    break;
+                default:
+                    offset += 4 + segment.getInt(offset);
+            }
+        }
+        currentSegment = segment;
+        currentRow = row;
+    }
+
+    /**
+     * 读取offset处以4字节长度开头的UTF-8字符串
+     */
+    String readString(int offset) {
+        return new String(readBytes(offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取offset处以4字节长度开头的字节
+     */
+    byte[] readBytes(int offset) {
+        ByteBuffer segment = currentSegment;
+        byte[] bytes = new byte[segment.getInt(offset)];
+        ByteBuffer source = segment.duplicate();
+        source.position(offset + 4);
+        source.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 释放映射并删除临时文件，重复调用无副作用
+     */
+    public void release() {
+        if (dataSegments == null) {
+            return;
+        }
+        dataSegments = null;
+        indexSegments = null;
+        currentSegment = null;
+        currentRow = -1;
+        delete(dataPath);
+        delete(indexPath);
+    }
+
+    static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 部分平台上仍被映射的文件无法立即删除，退出时再删除
+            logger.warn("failed to delete spill file {}, will retry on exit", path, e);
+            path.toFile().deleteOnExit();
+        }
+    }
+}
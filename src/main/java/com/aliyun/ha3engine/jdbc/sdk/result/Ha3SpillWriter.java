@@ -0,0 +1,222 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把解码后的行按紧凑的二进制行格式写入临时文件，写完后通过{@link #finish()}得到以mmap方式读取的{@link Ha3SpillFile}
+ *
+ * 行格式：null位图（每列1bit，按字节对齐），之后按列顺序写非null单元格：
+ * int32为4字节，int64/double为8字节，string和其他类型为4字节长度加UTF-8内容，多值为4字节个数加定长元素。
+ * 行不会跨越{@link Ha3SpillFile#SEGMENT_SIZE}边界，不足时用0填充到下一段；每行的起始位置写入单独的索引文件
+ */
+public class Ha3SpillWriter {
+
+    private final List<String> columnTypes;
+    private final Ha3ColumnType[] types;
+    private final Path dataPath;
+    private final Path indexPath;
+    private final DataOutputStream data;
+    private final DataOutputStream index;
+    private long position;
+    private int rowCount;
+
+    private byte[] row = new byte[256];
+    private int rowSize;
+
+    public Ha3SpillWriter(List<String> columnTypes, String directory) throws IOException {
+        this.columnTypes = columnTypes;
+        this.types = new Ha3ColumnType[columnTypes.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = Ha3ColumnType.of(columnTypes.get(i));
+        }
+        Path dir = Paths.get(directory == null ? System.getProperty("java.io.tmpdir") : directory);
+        this.dataPath = Files.createTempFile(dir, "ha3-spill-", ".data");
+        this.indexPath = Files.createTempFile(dir, "ha3-spill-", ".index");
+        DataOutputStream data = null;
+        try {
+            data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataPath), 1 << 16));
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath), 1 << 16));
+        } catch (IOException | RuntimeException e) {
+            if (data != null) {
+                data.close();
+            }
+            Ha3SpillFile.delete(dataPath);
+            Ha3SpillFile.delete(indexPath);
+            throw e;
+        }
+        this.data = data;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 追加store中的第row行
+     *
+     * @param store
+     * @param row
+     * @throws IOException
+     */
+    public void writeRow(Ha3ColumnStore store, int row) throws IOException {
+        rowSize = 0;
+        int nullBytes = (types.length + 7) >>> 3;
+        ensure(nullBytes);
+        Arrays.fill(this.row, 0, nullBytes, (byte)0);
+        rowSize = nullBytes;
+        for (int i = 0; i < types.length; i++) {
+            Ha3Column column = i < store.getColumnCount() ? store.getColumn(i) : null;
+            if (column == null || column.isNull(row)) {
+                this.row[i >>> 3] |= (byte)(1 << (i & 7));
+                continue;
+            }
+            writeCell(types[i], column, row);
+        }
+        if (rowSize > Ha3SpillFile.SEGMENT_SIZE) {
+            throw new IOException("Row is too large to spill: " + rowSize + " bytes");
+        }
+        long segmentOffset = position & (Ha3SpillFile.SEGMENT_SIZE - 1);
+        if (segmentOffset + rowSize > Ha3SpillFile.SEGMENT_SIZE) {
+            long padding = Ha3SpillFile.SEGMENT_SIZE - segmentOffset;
+            for (long i = 0; i < padding; i++) {
+                data.write(0);
+            }
+            position += padding;
+        }
+        index.writeLong(position);
+        data.write(this.row, 0, rowSize);
+        position += rowSize;
+        rowCount++;
+    }
+
+    private void writeCell(Ha3ColumnType type, Ha3Column column, int row) throws IOException {
+        switch (type) {
+            case INT32:
+                writeInt(column.getInt(row));
+                break;
+            case INT64:
+                writeLong(column.getLong(row));
+                break;
+            case DOUBLE:
+                writeLong(Double.doubleToRawLongBits(column.getDouble(row)));
+                break;
+            case MULTI_INT32:
+            case MULTI_INT64:
+            case MULTI_DOUBLE:
+                writeMultiValue(type, column.getArray(row));
+                break;
+            case STRING:
+                writeBytes(column.getBytes(row));
+                break;
+            default:
+                writeString(column.getJson(row).toString());
+        }
+    }
+
+    private void writeMultiValue(Ha3ColumnType type, Array array) throws IOException {
+        Object values;
+        try {
+            values = array.getArray();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        if (type == Ha3ColumnType.MULTI_INT32) {
+            int[] ints = (int[])values;
+            writeInt(ints.length);
+            for (int value : ints) {
+                writeInt(value);
+            }
+        } else if (type == Ha3ColumnType.MULTI_INT64) {
+            long[] longs = (long[])values;
+            writeInt(longs.length);
+            for (long value : longs) {
+                writeLong(value);
+            }
+        } else {
+            double[] doubles = (double[])values;
+            writeInt(doubles.length);
+            for (double value : doubles) {
+                writeLong(Double.doubleToRawLongBits(value));
+            }
+        }
+    }
+
+    private void writeString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) {
+        writeInt(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, row, rowSize, bytes.length);
+        rowSize += bytes.length;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        row[rowSize++] = (byte)(value >>> 24);
+        row[rowSize++] = (byte)(value >>> 16);
+        row[rowSize++] = (byte)(value >>> 8);
+        row[rowSize++] = (byte)value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int)(value >>> 32));
+        writeInt((int)value);
+    }
+
+    private void ensure(int bytes) {
+        if (rowSize + bytes > row.length) {
+            row = Arrays.copyOf(row, Math.max(row.length << 1, rowSize + bytes));
+        }
+    }
+
+    /**
+     * 完成写入并以mmap方式打开
+     *
+     * @return 按列读取落盘数据的列存储，release时删除临时文件
+     * @throws IOException
+     */
+    public Ha3ColumnStore finish() throws IOException {
+        try {
+            data.close();
+            index.close();
+            Ha3SpillFile file = new Ha3SpillFile(dataPath, indexPath, types, rowCount);
+            Ha3Column[] columns = new Ha3Column[types.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new Ha3SpillColumn(file, i, types[i]);
+                columns[i].setUnsigned(Ha3ColumnType.isUnsigned(columnTypes.get(i)));
+            }
+            return new Ha3ColumnStore(columns, rowCount);
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃写入并删除临时文件
+     */
+    public void abort() {
+        try {
+            data.close();
+        } catch (IOException ignore) {
+        }
+        try {
+            index.close();
+        } catch (IOException ignore) {
+        }
+        Ha3SpillFile.delete(dataPath);
+        Ha3SpillFile.delete(indexPath);
+    }
+}
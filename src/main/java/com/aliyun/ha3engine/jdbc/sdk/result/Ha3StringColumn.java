@@ -0,0 +1,252 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * string列，默认按字典编码保存：每个不同的值只保存一个String实例，单元格只记录int编码，getString返回共享的实例。
+ *
+ * 不同值过多时字典编码不再节省内存，此时转为把所有单元格的字符连续保存在一块char[]中，offsets记录每个单元格的起止位置
+ */
+public class Ha3StringColumn extends Ha3Column {
+
+    /**
+     * 行数每达到该值的整数倍时检查一次字典的基数
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * 字典最多保存的不同值个数
+     */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    /**
+     * 字典编码时codes[row]为单元格在dictionary中的下标，null单元格为-1；转为char[]存储后为null
+     */
+    private int[] codes = new int[16];
+    private String[] dictionary = new String[16];
+    private int dictionarySize;
+    private long dictionaryChars;
+    private Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+    private char[] chars;
+    private int charSize;
+    /**
+     * 第row个单元格为chars[offsets[row], offsets[row + 1])
+     */
+    private int[] offsets;
+
+    public Ha3StringColumn() {
+        super(Ha3ColumnType.STRING);
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        appendString(in.nextString());
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendString(element.isJsonPrimitive() ? element.getAsString() : element.toString());
+    }
+
+    @Override
+    public void appendString(String value) {
+        ensureCapacity(size + 1);
+        if (codes != null) {
+            codes[size++] = encode(value);
+            if (dictionarySize > MAX_DICTIONARY_SIZE
+                || size % CHECK_INTERVAL == 0 && dictionarySize > size >>> 1) {
+                toChars();
+            }
+            return;
+        }
+        int length = value.length();
+        if (charSize + length > chars.length) {
+            chars = Arrays.copyOf(chars, grow(chars.length, charSize + length));
+        }
+        value.getChars(0, length, chars, charSize);
+        charSize += length;
+        offsets[++size] = charSize;
+    }
+
+    private int encode(String value) {
+        Integer code = dictionaryIndex.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (dictionarySize == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionarySize << 1);
+        }
+        dictionary[dictionarySize] = value;
+        dictionaryIndex.put(value, dictionarySize);
+        dictionaryChars += value.length();
+        return dictionarySize++;
+    }
+
+    /**
+     * 放弃字典编码，把已有的单元格写入char[]
+     */
+    private void toChars() {
+        int length = 0;
+        for (int row = 0; row < size; row++) {
+            if (codes[row] >= 0) {
+                length += dictionary[codes[row]].length();
+            }
+        }
+        chars = new char[Math.max(256, length)];
+        offsets = new int[Math.max(17, codes.length + 1)];
+        charSize = 0;
+        for (int row = 0; row < size; row++) {
+            if (codes[row] >= 0) {
+                String value = dictionary[codes[row]];
+                value.getChars(0, value.length(), chars, charSize);
+                charSize += value.length();
+            }
+            offsets[row + 1] = charSize;
+        }
+        codes = null;
+        dictionary = null;
+        dictionaryIndex = null;
+        dictionarySize = 0;
+        dictionaryChars = 0;
+    }
+
+    /**
+     * 两列都是字典编码时按字典做一次编码映射，之后每行只转换编码，不再逐行查HashMap
+     */
+    @Override
+    public void appendAll(Ha3Column source) {
+        if (codes == null || !(source instanceof Ha3StringColumn) || ((Ha3StringColumn)source).codes == null) {
+            super.appendAll(source);
+            return;
+        }
+        Ha3StringColumn other = (Ha3StringColumn)source;
+        int[] remap = new int[other.dictionarySize];
+        for (int i = 0; i < remap.length; i++) {
+            remap[i] = encode(other.dictionary[i]);
+        }
+        int count = other.size;
+        ensureCapacity(size + count);
+        for (int row = 0; row < count; row++) {
+            int code = other.codes[row];
+            codes[size + row] = code < 0 ? -1 : remap[code];
+        }
+        appendNulls(source, count);
+        size += count;
+        if (dictionarySize > MAX_DICTIONARY_SIZE || dictionarySize > size >>> 1 && size >= CHECK_INTERVAL) {
+            toChars();
+        }
+    }
+
+    @Override
+    protected void appendDefault() {
+        if (codes != null) {
+            codes[size++] = -1;
+        } else {
+            offsets[++size] = charSize;
+        }
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (codes != null) {
+            if (capacity > codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+            }
+        } else if (capacity + 1 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, grow(offsets.length, capacity + 1));
+        }
+    }
+
+    /**
+     * 字典中每个不同值除字符外还有String和HashMap entry的开销，按64字节估算
+     */
+    @Override
+    public long estimateBytes() {
+        if (codes != null) {
+            return ((long)size << 2) + (dictionaryChars << 1) + ((long)dictionarySize << 6);
+        }
+        return ((long)charSize << 1) + ((long)size << 2);
+    }
+
+    /**
+     * 清空后重新开始建立字典，已经转为char[]存储的列保持不变
+     */
+    @Override
+    protected void clearValues() {
+        if (codes != null) {
+            Arrays.fill(dictionary, 0, dictionarySize, null);
+            dictionaryIndex.clear();
+            dictionarySize = 0;
+            dictionaryChars = 0;
+        } else {
+            charSize = 0;
+        }
+    }
+
+    /**
+     * 当前的字典编码视图，codes和字典在列被清空（流式结果读取下一个窗口）之前有效
+     *
+     * @return 列已经转为char[]存储时返回null
+     */
+    public Ha3StringDictionary getDictionary() {
+        if (codes == null) {
+            return null;
+        }
+        return new Ha3StringDictionary(IntBuffer.wrap(codes, 0, size).slice().asReadOnlyBuffer(),
+            Collections.unmodifiableList(Arrays.asList(dictionary).subList(0, dictionarySize)));
+    }
+
+    @Override
+    public long getLong(int row) {
+        return isEmptyCell(row) ? 0L : Ha3NumberParser.parseLong(getString(row));
+    }
+
+    @Override
+    public int getInt(int row) {
+        return isEmptyCell(row) ? 0 : (int)Ha3NumberParser.parseLong(getString(row));
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isEmptyCell(row) ? 0D : Ha3NumberParser.parseDouble(getString(row));
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        if (codes != null) {
+            return dictionary[codes[row]];
+        }
+        return new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return isNull(row) ? JsonNull.INSTANCE : new JsonPrimitive(getString(row));
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return getString(row);
+    }
+
+    private boolean isEmptyCell(int row) {
+        if (codes != null) {
+            return codes[row] < 0 || dictionary[codes[row]].isEmpty();
+        }
+        return offsets[row] == offsets[row + 1];
+    }
+}
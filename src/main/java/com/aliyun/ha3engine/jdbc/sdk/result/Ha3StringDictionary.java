@@ -0,0 +1,46 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * 字典编码string列的只读视图，第row行的值为getValues().get(getCode(row))，null单元格的编码为-1
+ *
+ * 同一列中相同的值编码相同，调用方可以直接按编码分组或过滤，不需要比较和哈希字符串
+ */
+public class Ha3StringDictionary {
+
+    private final IntBuffer codes;
+    private final List<String> values;
+
+    Ha3StringDictionary(IntBuffer codes, List<String> values) {
+        this.codes = codes;
+        this.values = values;
+    }
+
+    public int getRowCount() {
+        return codes.limit();
+    }
+
+    public int getCode(int row) {
+        return codes.get(row);
+    }
+
+    /**
+     * @return 每行的编码，只读
+     */
+    public IntBuffer getCodes() {
+        return codes.duplicate();
+    }
+
+    /**
+     * @return 按编码排列的不同值，不可修改
+     */
+    public List<String> getValues() {
+        return values;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
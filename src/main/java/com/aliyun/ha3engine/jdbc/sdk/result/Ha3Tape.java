@@ -0,0 +1,49 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+/**
+ * sql_result.data的结构索引，记录每个单元格在原始响应中的起止位置
+ */
+public class Ha3Tape {
+
+    private final String body;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] rowOffsets;
+    private final int rowCount;
+
+    Ha3Tape(String body, int[] starts, int[] ends, int[] rowOffsets, int rowCount) {
+        this.body = body;
+        this.starts = starts;
+        this.ends = ends;
+        this.rowOffsets = rowOffsets;
+        this.rowCount = rowCount;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 单元格在索引中的下标，该行缺少这一列时返回-1
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    public int cell(int row, int column) {
+        int cell = rowOffsets[row] + column;
+        return cell < rowOffsets[row + 1] ? cell : -1;
+    }
+
+    public int start(int cell) {
+        return starts[cell];
+    }
+
+    public int end(int cell) {
+        return ends[cell];
+    }
+}
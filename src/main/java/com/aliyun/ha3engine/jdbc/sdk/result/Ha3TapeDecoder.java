@@ -0,0 +1,311 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Ha3 full_json响应的结构索引（tape）解码器
+ *
+ * 第一遍只扫描json结构，对sql_result.data只记录每个单元格在响应中的起止位置，
+ * 单元格在第一次被getXxx访问时才由{@link Ha3LazyColumn}解码并缓存，未读取的列几乎没有开销
+ */
+public class Ha3TapeDecoder {
+
+    private final String body;
+    /**
+     * 为false时只读取列信息和error_info，记录data的起始位置而不建立单元格索引
+     */
+    private final boolean indexRows;
+    private int pos;
+    private int dataStart = -1;
+
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int cellCount;
+    private int[] rowOffsets = new int[17];
+    private int rowCount;
+
+    Ha3TapeDecoder(String body, boolean indexRows) {
+        this.body = body;
+        this.indexRows = indexRows;
+    }
+
+    /**
+     * 解码Ha3响应，data部分只建立索引
+     *
+     * @param body 响应内容，解码结果会持有该字符串直到结果集释放
+     * @return
+     * @throws IOException 响应不是合法的json
+     */
+    public static Ha3QueryResult decode(String body) throws IOException {
+        return new Ha3TapeDecoder(body, true).decode();
+    }
+
+    /**
+     * data数组在响应中的起始位置，没有data时为-1
+     *
+     * @return
+     */
+    int getDataStart() {
+        return dataStart;
+    }
+
+    Ha3QueryResult decode() throws IOException {
+        Ha3QueryResult result = new Ha3QueryResult();
+        boolean hasData = false;
+        expect('{');
+        while (nextMember('}')) {
+            String name = readKey();
+            int start = pos;
+            char c = body.charAt(start);
+            if ("error_info".equals(name) && c == '{') {
+                skipValue();
+                JsonReader in = reader(start, pos);
+                result.setErrorInfo(Ha3ResultDecoder.readErrorInfo(in));
+            } else if ("sql_result".equals(name) && c == '{') {
+                hasData = readSqlResult(result);
+            } else {
+                skipValue();
+            }
+        }
+
+        int columnCount = Math.max(result.getColumnNames().size(), result.getColumnTypes().size());
+        while (result.getColumnTypes().size() < columnCount) {
+            result.getColumnTypes().add("");
+        }
+        if (hasData && indexRows) {
+            Ha3Tape tape = new Ha3Tape(body, starts, ends, rowOffsets, rowCount);
+            Ha3Column[] columns = new Ha3Column[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                String type = result.getColumnTypes().get(i);
+                columns[i] = new Ha3LazyColumn(tape, i, Ha3ColumnType.of(type));
+                columns[i].setUnsigned(Ha3ColumnType.isUnsigned(type));
+            }
+            result.setColumnStore(new Ha3ColumnStore(columns, rowCount));
+        }
+        return result;
+    }
+
+    private boolean readSqlResult(Ha3QueryResult result) throws IOException {
+        boolean hasData = false;
+        expect('{');
+        while (nextMember('}')) {
+            String name = readKey();
+            int start = pos;
+            if (body.charAt(start) != '[') {
+                skipValue();
+                continue;
+            }
+            switch (name) {
+                case "column_name":
+                    skipValue();
+                    Ha3ResultDecoder.readStrings(reader(start, pos), result.getColumnNames());
+                    break;
+                case "column_type":
+                    skipValue();
+                    Ha3ResultDecoder.readStrings(reader(start, pos), result.getColumnTypes());
+                    break;
+                case "data":
+                    if (indexRows) {
+                        indexData();
+                    } else {
+                        dataStart = start;
+                        skipValue();
+                    }
+                    hasData = true;
+                    break;
+                default:
+                    skipValue();
+            }
+        }
+        return hasData;
+    }
+
+    /**
+     * 记录data中每个单元格的起止位置，rowOffsets[row]为该行第一个单元格在starts/ends中的下标
+     */
+    private void indexData() throws IOException {
+        expect('[');
+        while (nextMember(']')) {
+            if (rowCount + 2 > rowOffsets.length) {
+                rowOffsets = Arrays.copyOf(rowOffsets, rowOffsets.length << 1);
+            }
+            rowOffsets[rowCount] = cellCount;
+            expect('[');
+            while (nextMember(']')) {
+                if (cellCount == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length << 1);
+                    ends = Arrays.copyOf(ends, ends.length << 1);
+                }
+                starts[cellCount] = pos;
+                skipValue();
+                ends[cellCount] = pos;
+                cellCount++;
+            }
+            rowCount++;
+        }
+        rowOffsets[rowCount] = cellCount;
+    }
+
+    /**
+     * 定位到下一个成员，遇到结束符时消费结束符并返回false
+     */
+    private boolean nextMember(char close) throws IOException {
+        skipWhitespace();
+        char c = body.charAt(pos);
+        if (c == ',') {
+            pos++;
+            skipWhitespace();
+            c = body.charAt(pos);
+        }
+        if (c == close) {
+            pos++;
+            return false;
+        }
+        return true;
+    }
+
+    private String readKey() throws IOException {
+        int start = pos;
+        skipString();
+        String key = unescape(body, start, pos);
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        return key;
+    }
+
+    private void expect(char c) throws IOException {
+        skipWhitespace();
+        if (pos >= body.length() || body.charAt(pos) != c) {
+            throw new MalformedJsonException("Expected '" + c + "' at " + pos);
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() throws IOException {
+        int length = body.length();
+        while (pos < length) {
+            char c = body.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+        throw new MalformedJsonException("Unexpected end of input");
+    }
+
+    private void skipString() throws IOException {
+        if (body.charAt(pos) != '"') {
+            throw new MalformedJsonException("Expected string at " + pos);
+        }
+        int length = body.length();
+        for (int i = pos + 1; i < length; i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                pos = i + 1;
+                return;
+            }
+        }
+        throw new MalformedJsonException("Unterminated string at " + pos);
+    }
+
+    private void skipValue() throws IOException {
+        char c = body.charAt(pos);
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            int length = body.length();
+            while (pos < length) {
+                c = body.charAt(pos);
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        pos++;
+                        return;
+                    }
+                }
+                pos++;
+            }
+            throw new MalformedJsonException("Unterminated value");
+        } else {
+            int length = body.length();
+            while (pos < length) {
+                c = body.charAt(pos);
+                if (c == ',' || c == ']' || c == '}' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    return;
+                }
+                pos++;
+            }
+        }
+    }
+
+    private JsonReader reader(int start, int end) {
+        return new JsonReader(new StringReader(body.substring(start, end)));
+    }
+
+    /**
+     * 解码json字符串，start指向起始引号，end为结束引号之后的位置
+     *
+     * @param text
+     * @param start
+     * @param end
+     * @return
+     */
+    static String unescape(String text, int start, int end) {
+        // 只在引号之间查找转义，不能用indexOf，没有转义时它会一直扫描到body结尾
+        int first = start + 1;
+        while (first < end - 1 && text.charAt(first) != '\\') {
+            first++;
+        }
+        if (first >= end - 1) {
+            return text.substring(start + 1, end - 1);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        builder.append(text, start + 1, first);
+        for (int i = first; i < end - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            c = text.charAt(++i);
+            switch (c) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    builder.append((char)Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,327 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 单列的时间解码器，把单元格转为java.time和java.sql的时间类型，不使用SimpleDateFormat和gson反射
+ *
+ * 数值列和全数字的文本按epoch毫秒处理；文本按ISO格式解析，支持yyyy-MM-dd、yyyy-MM-dd HH:mm:ss[.fffffffff]（日期和时间之间也可以是T）
+ * 及其后的Z或±HH:mm时区、HH:mm:ss[.fffffffff]。第一个非null单元格识别出的格式会缓存下来，之后的单元格直接按该格式解析，
+ * 不匹配时再重新识别
+ */
+public class Ha3TemporalDecoder {
+
+    private enum Format {
+        EPOCH_MILLIS,
+        DATE,
+        DATE_TIME,
+        TIME
+    }
+
+    private static final LocalDate EPOCH_DATE = LocalDate.of(1970, 1, 1);
+
+    private Format format;
+
+    /**
+     * 解码row行的单元格
+     *
+     * @param column
+     * @param row
+     * @return Instant（epoch毫秒或带时区的文本）、LocalDateTime、LocalDate或LocalTime，null单元格返回null
+     * @throws DateTimeException 无法识别的格式
+     */
+    public Object decode(Ha3Column column, int row) {
+        if (column.isNull(row)) {
+            return null;
+        }
+        switch (column.getType()) {
+            case INT32:
+            case INT64:
+                return Instant.ofEpochMilli(column.getLong(row));
+            case DOUBLE:
+                return Instant.ofEpochMilli((long)column.getDouble(row));
+            default:
+                String text = column.getString(row);
+                if (text.isEmpty()) {
+                    return null;
+                }
+                Object value = format == null ? null : parse(text, format);
+                if (value == null) {
+                    format = detect(text);
+                    value = format == null ? null : parse(text, format);
+                    if (value == null) {
+                        return parseIso(text);
+                    }
+                }
+                return value;
+        }
+    }
+
+    /**
+     * 解码row行的单元格并转为type
+     *
+     * @param column
+     * @param row
+     * @param type   Instant、LocalDateTime、LocalDate、LocalTime、OffsetDateTime、java.sql.Date/Time/Timestamp或java.util.Date
+     * @param zone   不带时区的文本所在的时区，也用于把Instant转为本地时间
+     * @return null单元格返回null
+     */
+    public <T> T decode(Ha3Column column, int row, Class<T> type, ZoneId zone) {
+        Object value = decode(column, row);
+        return value == null ? null : type.cast(convert(value, type, zone));
+    }
+
+    public static boolean isTemporalType(Class<?> type) {
+        return type == Timestamp.class || type == Date.class || type == Time.class || type == java.util.Date.class
+            || type == Instant.class || type == LocalDateTime.class || type == LocalDate.class
+            || type == LocalTime.class || type == OffsetDateTime.class;
+    }
+
+    private static Object convert(Object value, Class<?> type, ZoneId zone) {
+        if (type == Instant.class) {
+            return toInstant(value, zone);
+        }
+        if (type == Timestamp.class || type == java.util.Date.class) {
+            return Timestamp.from(toInstant(value, zone));
+        }
+        if (type == OffsetDateTime.class) {
+            Instant instant = toInstant(value, zone);
+            return OffsetDateTime.ofInstant(instant, zone);
+        }
+        LocalDateTime dateTime = toLocalDateTime(value, zone);
+        if (type == LocalDateTime.class) {
+            return dateTime;
+        }
+        if (type == LocalDate.class) {
+            return dateTime.toLocalDate();
+        }
+        if (type == LocalTime.class) {
+            return dateTime.toLocalTime();
+        }
+        // 与Date.valueOf、Time.valueOf一致，Date为当天零点，Time不保留秒以下的部分，只是按zone而不是默认时区计算
+        if (type == Date.class) {
+            return new Date(dateTime.toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+        if (type == Time.class) {
+            return new Time(EPOCH_DATE.atTime(dateTime.toLocalTime().withNano(0)).atZone(zone).toInstant()
+                .toEpochMilli());
+        }
+        throw new DateTimeException("Unsupported temporal type: " + type.getName());
+    }
+
+    private static Instant toInstant(Object value, ZoneId zone) {
+        return value instanceof Instant ? (Instant)value : toLocalDateTime(value, zone).atZone(zone).toInstant();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value, ZoneId zone) {
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime)value;
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate)value).atStartOfDay();
+        }
+        if (value instanceof LocalTime) {
+            return EPOCH_DATE.atTime((LocalTime)value);
+        }
+        Instant instant = (Instant)value;
+        ZoneOffset offset = zone.getRules().getOffset(instant);
+        return LocalDateTime.ofEpochSecond(instant.getEpochSecond(), instant.getNano(), offset);
+    }
+
+    private static Format detect(String text) {
+        int length = text.length();
+        if (isEpochMillis(text)) {
+            return Format.EPOCH_MILLIS;
+        }
+        if (length >= 8 && text.charAt(2) == ':' && text.charAt(5) == ':') {
+            return Format.TIME;
+        }
+        if (length >= 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            if (length == 10) {
+                return Format.DATE;
+            }
+            char separator = text.charAt(10);
+            if ((separator == ' ' || separator == 'T') && length >= 19 && text.charAt(13) == ':'
+                && text.charAt(16) == ':') {
+                return Format.DATE_TIME;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isEpochMillis(String text) {
+        int start = text.charAt(0) == '-' ? 1 : 0;
+        if (start == text.length() || text.length() - start > 18) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按format解析，格式不匹配时返回null
+     */
+    private static Object parse(String text, Format format) {
+        int length = text.length();
+        switch (format) {
+            case EPOCH_MILLIS:
+                return isEpochMillis(text) ? Instant.ofEpochMilli(Long.parseLong(text)) : null;
+            case DATE:
+                return length == 10 ? parseDate(text) : null;
+            case TIME:
+                if (length < 8 || text.charAt(2) != ':' || text.charAt(5) != ':') {
+                    return null;
+                }
+                return parseTime(text, 0, length);
+            default:
+                if (length < 19 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                    || text.charAt(10) != ' ' && text.charAt(10) != 'T') {
+                    return null;
+                }
+                LocalDate date = parseDate(text);
+                if (date == null) {
+                    return null;
+                }
+                // 时间之后可能带有Z或±HH:mm时区
+                int end = length;
+                ZoneOffset offset = null;
+                char last = text.charAt(length - 1);
+                if (last == 'Z' || last == 'z') {
+                    offset = ZoneOffset.UTC;
+                    end = length - 1;
+                } else {
+                    int sign = Math.max(text.lastIndexOf('+'), text.lastIndexOf('-'));
+                    if (sign > 18) {
+                        offset = parseOffset(text, sign);
+                        if (offset == null) {
+                            return null;
+                        }
+                        end = sign;
+                    }
+                }
+                LocalTime time = parseTime(text, 11, end);
+                if (time == null) {
+                    return null;
+                }
+                LocalDateTime dateTime = LocalDateTime.of(date, time);
+                return offset == null ? dateTime : dateTime.toInstant(offset);
+        }
+    }
+
+    private static LocalDate parseDate(String text) {
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 0 || day < 0 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * 解析text[start, end)中的HH:mm:ss[.fffffffff]
+     */
+    private static LocalTime parseTime(String text, int start, int end) {
+        if (end - start < 8) {
+            return null;
+        }
+        int hour = digits(text, start, 2);
+        int minute = digits(text, start + 3, 2);
+        int second = digits(text, start + 6, 2);
+        if (hour < 0 || minute < 0 || second < 0 || text.charAt(start + 2) != ':' || text.charAt(start + 5) != ':') {
+            return null;
+        }
+        int nano = 0;
+        int position = start + 8;
+        if (position < end) {
+            if (text.charAt(position) != '.' || end - position - 1 > 9 || end - position == 1) {
+                return null;
+            }
+            int fraction = digits(text, position + 1, end - position - 1);
+            if (fraction < 0) {
+                return null;
+            }
+            nano = fraction;
+            for (int i = end - position - 1; i < 9; i++) {
+                nano *= 10;
+            }
+        }
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    /**
+     * 解析text从sign开始的±HH:mm、±HHmm或±HH
+     */
+    private static ZoneOffset parseOffset(String text, int sign) {
+        int length = text.length() - sign - 1;
+        int hours = length >= 2 ? digits(text, sign + 1, 2) : -1;
+        int minutes;
+        if (length == 2) {
+            minutes = 0;
+        } else if (length == 4) {
+            minutes = digits(text, sign + 3, 2);
+        } else if (length == 5 && text.charAt(sign + 3) == ':') {
+            minutes = digits(text, sign + 4, 2);
+        } else {
+            return null;
+        }
+        if (hours < 0 || minutes < 0) {
+            return null;
+        }
+        return text.charAt(sign) == '-' ? ZoneOffset.ofHoursMinutes(-hours, -minutes)
+            : ZoneOffset.ofHoursMinutes(hours, minutes);
+    }
+
+    /**
+     * @return text[start, start + count)表示的非负整数，包含非数字字符或越界时返回-1
+     */
+    private static int digits(String text, int start, int count) {
+        if (start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 快速路径无法识别时按java.time的ISO格式依次尝试
+     */
+    private static Object parseIso(String text) {
+        try {
+            return OffsetDateTime.parse(text).toInstant();
+        } catch (DateTimeParseException ignore) {
+        }
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException ignore) {
+        }
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException ignore) {
+        }
+        return LocalTime.parse(text);
+    }
+}
@@ -0,0 +1,137 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 批量读取string列的目标，不为每个单元格创建String，而是记录单元格在列的UTF-8数据中的偏移和长度。
+ * 以UTF-8保存的列（stringStorage=utf8或offHeap）直接引用列本身的数据，不复制字节；
+ * 其余列把单元格编码到本对象持有的数组中。
+ *
+ * 数据只在下一次nextBatch之前有效，结果集关闭、读取下一个流式窗口或列存储被复用后不能再访问
+ */
+public class Ha3Utf8Slices {
+
+    private final int[] offsets;
+    /**
+     * null单元格为-1
+     */
+    private final int[] lengths;
+    private ByteBuffer data;
+    private ByteBuffer readOnlyData;
+    /**
+     * 不以UTF-8保存的列编码后的数据，跨批复用
+     */
+    private byte[] scratch;
+    private int scratchSize;
+
+    /**
+     * @param capacity 一批最多写入的行数
+     */
+    public Ha3Utf8Slices(int capacity) {
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    public int capacity() {
+        return offsets.length;
+    }
+
+    /**
+     * @return 只读视图，单元格按getOffset给出的绝对位置访问，不受position影响
+     */
+    public ByteBuffer getData() {
+        return readOnlyData;
+    }
+
+    /**
+     * @param index 批内下标，从0开始
+     * @return 单元格在getData()中的起始位置
+     */
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @param index 批内下标，从0开始
+     * @return 单元格的UTF-8字节数，null单元格为-1
+     */
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    public boolean isNull(int index) {
+        return lengths[index] < 0;
+    }
+
+    /**
+     * 解码一个单元格，每次调用都会新建字符串
+     *
+     * @param index 批内下标，从0开始
+     * @return
+     */
+    public String getString(int index) {
+        int length = lengths[index];
+        if (length < 0) {
+            return null;
+        }
+        if (data.hasArray()) {
+            return new String(data.array(), data.arrayOffset() + offsets[index], length, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[length];
+        ByteBuffer source = data.duplicate();
+        source.position(offsets[index]);
+        source.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以UTF-8保存的列调用，引用列的数据
+     *
+     * @param data 列的全部UTF-8数据
+     */
+    void setData(ByteBuffer data) {
+        this.data = data;
+        this.readOnlyData = data.asReadOnlyBuffer();
+    }
+
+    void setSlice(int index, int offset, int length) {
+        offsets[index] = offset;
+        lengths[index] = length;
+    }
+
+    /**
+     * 其余列调用，开始写入新的一批
+     */
+    void resetScratch() {
+        scratchSize = 0;
+        if (scratch == null) {
+            scratch = new byte[256];
+        }
+    }
+
+    /**
+     * 把value编码到本对象的数组中，value为null时记为null单元格
+     */
+    void appendScratch(int index, String value) {
+        if (value == null) {
+            setSlice(index, scratchSize, -1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (scratchSize + encoded.length > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length << 1, scratchSize + encoded.length));
+        }
+        System.arraycopy(encoded, 0, scratch, scratchSize, encoded.length);
+        setSlice(index, scratchSize, encoded.length);
+        scratchSize += encoded.length;
+    }
+
+    /**
+     * 写完一批后调用，数组扩容后需要重新生成视图
+     */
+    void finishScratch() {
+        setData(ByteBuffer.wrap(scratch, 0, scratchSize));
+    }
+}
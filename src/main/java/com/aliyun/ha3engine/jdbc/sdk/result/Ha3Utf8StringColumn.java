@@ -0,0 +1,195 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * 以UTF-8字节保存的string列，所有单元格连续写入一块byte[]，offsets记录每个单元格的起止位置。
+ *
+ * getBytes直接返回单元格的UTF-8字节，getString在第一次访问时才解码，cacheStrings为true时缓存解码出的String
+ */
+public class Ha3Utf8StringColumn extends Ha3Column {
+
+    private byte[] bytes = new byte[256];
+    private int byteSize;
+    /**
+     * 第row个单元格为bytes[offsets[row], offsets[row + 1])
+     */
+    private int[] offsets = new int[17];
+
+    private final boolean cacheStrings;
+    private String[] strings;
+
+    public Ha3Utf8StringColumn(boolean cacheStrings) {
+        super(Ha3ColumnType.STRING);
+        this.cacheStrings = cacheStrings;
+    }
+
+    @Override
+    protected void readValue(JsonReader in) throws IOException {
+        appendString(in.nextString());
+    }
+
+    @Override
+    protected void appendValue(JsonElement element) {
+        appendString(element.isJsonPrimitive() ? element.getAsString() : element.toString());
+    }
+
+    /**
+     * 直接编码到bytes中，不经过String.getBytes产生的临时数组
+     */
+    @Override
+    public void appendString(String value) {
+        ensureCapacity(size + 1);
+        int length = value.length();
+        // 一个char最多编码为3个字节，代理对的两个char共4个字节
+        ensureBytes(byteSize + 3 * length);
+        int position = byteSize;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte)c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte)(0xC0 | c >> 6);
+                bytes[position++] = (byte)(0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte)(0xF0 | codePoint >> 18);
+                bytes[position++] = (byte)(0x80 | codePoint >> 12 & 0x3F);
+                bytes[position++] = (byte)(0x80 | codePoint >> 6 & 0x3F);
+                bytes[position++] = (byte)(0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // 与String.getBytes一致，不成对的代理字符替换为'?'
+                bytes[position++] = '?';
+            } else {
+                bytes[position++] = (byte)(0xE0 | c >> 12);
+                bytes[position++] = (byte)(0x80 | c >> 6 & 0x3F);
+                bytes[position++] = (byte)(0x80 | c & 0x3F);
+            }
+        }
+        byteSize = position;
+        offsets[++size] = byteSize;
+    }
+
+    @Override
+    public void appendUtf8(ByteBuffer buffer, int offset, int length) {
+        ensureCapacity(size + 1);
+        ensureBytes(byteSize + length);
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes, byteSize, length);
+        byteSize += length;
+        offsets[++size] = byteSize;
+    }
+
+    private void ensureBytes(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, grow(bytes.length, capacity));
+        }
+    }
+
+    @Override
+    protected void appendDefault() {
+        offsets[++size] = byteSize;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity + 1 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, grow(offsets.length, capacity + 1));
+        }
+    }
+
+    @Override
+    public long estimateBytes() {
+        return byteSize + ((long)size << 2);
+    }
+
+    @Override
+    protected void clearValues() {
+        byteSize = 0;
+        if (strings != null) {
+            Arrays.fill(strings, null);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return Arrays.copyOfRange(bytes, offsets[row], offsets[row + 1]);
+    }
+
+    @Override
+    public long getLong(int row) {
+        return isEmptyCell(row) ? 0L : Ha3NumberParser.parseLong(getString(row));
+    }
+
+    @Override
+    public int getInt(int row) {
+        return isEmptyCell(row) ? 0 : (int)Ha3NumberParser.parseLong(getString(row));
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isEmptyCell(row) ? 0D : Ha3NumberParser.parseDouble(getString(row));
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        if (!cacheStrings) {
+            return decode(row);
+        }
+        if (strings == null || strings.length < size) {
+            strings = strings == null ? new String[size] : Arrays.copyOf(strings, size);
+        }
+        String value = strings[row];
+        if (value == null) {
+            value = decode(row);
+            strings[row] = value;
+        }
+        return value;
+    }
+
+    /**
+     * 直接引用bytes，不复制
+     */
+    @Override
+    public void copyUtf8(int from, Ha3Utf8Slices target, int count) {
+        target.setData(ByteBuffer.wrap(bytes, 0, byteSize));
+        for (int i = 0; i < count; i++) {
+            int row = from + i;
+            target.setSlice(i, offsets[row], isNull(row) ? -1 : offsets[row + 1] - offsets[row]);
+        }
+    }
+
+    private String decode(int row) {
+        return new String(bytes, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public JsonElement getJson(int row) {
+        return isNull(row) ? JsonNull.INSTANCE : new JsonPrimitive(getString(row));
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return getString(row);
+    }
+
+    private boolean isEmptyCell(int row) {
+        return offsets[row] == offsets[row + 1];
+    }
+}
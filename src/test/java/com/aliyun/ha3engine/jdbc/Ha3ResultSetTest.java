@@ -0,0 +1,104 @@
+package com.aliyun.ha3engine.jdbc;
+
+import java.io.StringReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3DecodeOptions;
+import com.aliyun.ha3engine.jdbc.sdk.result.Ha3ResultDecoder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Ha3ResultSet的结果集类型和游标位置
+ */
+public class Ha3ResultSetTest {
+
+    private static final String BODY = "{\"sql_result\":{\"column_name\":[\"id\"],\"column_type\":[\"int64\"],"
+        + "\"data\":[[1],[2],[3]]},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}";
+
+    @Test
+    public void testForwardOnly() throws Exception {
+        Ha3ResultSet resultSet = newResultSet(false);
+        assertEquals(ResultSet.TYPE_FORWARD_ONLY, resultSet.getType());
+        assertTrue(resultSet.next());
+        try {
+            resultSet.absolute(3);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertEquals("ResultSet is forward-only", e.getMessage());
+        }
+        try {
+            resultSet.previous();
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertEquals("ResultSet is forward-only", e.getMessage());
+        }
+        try {
+            resultSet.setFetchDirection(ResultSet.FETCH_REVERSE);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("Unsupported fetch direction"));
+        }
+        // 失败的移动不改变位置
+        assertEquals(1, resultSet.getRow());
+        assertEquals(1L, resultSet.getLong(1));
+        resultSet.close();
+    }
+
+    @Test
+    public void testScrollInsensitive() throws Exception {
+        Ha3ResultSet resultSet = newResultSet(true);
+        assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, resultSet.getType());
+        assertTrue(resultSet.last());
+        assertEquals(3L, resultSet.getLong(1));
+        assertTrue(resultSet.previous());
+        assertEquals(2, resultSet.getRow());
+        assertTrue(resultSet.absolute(-3));
+        assertEquals(1L, resultSet.getLong(1));
+        assertFalse(resultSet.relative(-1));
+        assertTrue(resultSet.isBeforeFirst());
+        assertEquals(0, resultSet.getRow());
+        resultSet.close();
+    }
+
+    @Test
+    public void testAfterLastHasNoCurrentRow() throws Exception {
+        Ha3ResultSet resultSet = newResultSet(true);
+        resultSet.afterLast();
+        checkAfterLast(resultSet);
+
+        assertFalse(resultSet.absolute(4));
+        checkAfterLast(resultSet);
+        assertTrue(resultSet.previous());
+        assertEquals(3, resultSet.getRow());
+        assertEquals(3L, resultSet.getLong(1));
+
+        // next()越过最后一行后同样没有当前行
+        resultSet = newResultSet(false);
+        while (resultSet.next()) {
+            assertTrue(resultSet.getRow() > 0);
+        }
+        checkAfterLast(resultSet);
+    }
+
+    private static void checkAfterLast(Ha3ResultSet resultSet) {
+        assertTrue(resultSet.isAfterLast());
+        assertEquals(0, resultSet.getRow());
+        try {
+            resultSet.getLong(1);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("No current row"));
+        }
+    }
+
+    private static Ha3ResultSet newResultSet(boolean scrollable) throws Exception {
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setScrollable(scrollable).build();
+        return new Ha3ResultSet(Ha3ResultDecoder.decode(new StringReader(BODY), options), null);
+    }
+}
@@ -0,0 +1,203 @@
+package com.aliyun.ha3engine.jdbc;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import com.aliyun.ha3engine.jdbc.sdk.client.Ha3ResponseBody;
+import com.aliyun.ha3engine.jdbc.sdk.client.Ha3Transport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * executeQueryAsync发起请求的线程、参数的捕获和错误的返回方式
+ */
+public class Ha3StatementAsyncTest {
+
+    private static final String BODY = "{\"sql_result\":{\"column_name\":[\"id\"],\"column_type\":[\"int64\"],"
+        + "\"data\":[[1],[2]]},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}";
+
+    private Ha3Connection connection;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        StubTransport.requests.clear();
+        StubTransport.threads.clear();
+        StubTransport.gate = new CountDownLatch(0);
+        executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "test-async"));
+        connection = newConnection(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        StubTransport.gate.countDown();
+        connection.close();
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void testDoesNotBlockCaller() throws Exception {
+        StubTransport.gate = new CountDownLatch(1);
+        Ha3Statement statement = (Ha3Statement)connection.createStatement();
+        statement.setAsyncExecutor(executor);
+        CompletableFuture<Ha3ResultSet> future = statement.executeQueryAsync("select id from t");
+        // 请求在线程池中等待响应，调用线程已经返回
+        assertTrue(StubTransport.requests.poll(5, TimeUnit.SECONDS).startsWith("select id from t"));
+        assertFalse(future.isDone());
+        StubTransport.gate.countDown();
+
+        Ha3ResultSet resultSet = future.get();
+        assertEquals("test-async", StubTransport.threads.poll());
+        assertTrue(resultSet.next());
+        assertEquals(1L, resultSet.getLong(1));
+        assertTrue(resultSet.next());
+        assertFalse(resultSet.next());
+        // 异步的结果集不作为Statement的当前结果集
+        assertNull(statement.getResultSet());
+        resultSet.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testExecutorOverride() throws Exception {
+        ExecutorService connectionExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "connection-async"));
+        try {
+            connection.setAsyncExecutor(connectionExecutor);
+            Ha3Statement statement = (Ha3Statement)connection.createStatement();
+            statement.executeQueryAsync("select id from t").get().close();
+            assertEquals("connection-async", StubTransport.threads.poll());
+
+            // Statement的线程池优先
+            statement.setAsyncExecutor(executor);
+            statement.executeQueryAsync("select id from t").get().close();
+            assertEquals("test-async", StubTransport.threads.poll());
+
+            // 都未设置时使用asyncThreads创建的守护线程
+            connection.setAsyncExecutor(null);
+            statement.setAsyncExecutor(null);
+            statement.executeQueryAsync("select id from t").get().close();
+            assertTrue(StubTransport.threads.poll().startsWith("ha3-query-async-"));
+        } finally {
+            connectionExecutor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testErrors() throws Exception {
+        Ha3Statement statement = (Ha3Statement)connection.createStatement();
+        // 请求失败与同步查询一样放在结果集的错误信息中
+        Ha3ResultSet resultSet = statement.executeQueryAsync("select id from fail").get();
+        assertEquals("stub failure", resultSet.getErrorInfo().getMessage());
+        assertFalse(resultSet.next());
+        resultSet.close();
+
+        // 校验失败时future以SQLException结束，不发起请求
+        CompletableFuture<Ha3ResultSet> future = statement.executeQueryAsync("delete from t");
+        try {
+            future.get();
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        assertTrue(StubTransport.requests.size() == 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testPreparedParametersCaptured() throws Exception {
+        StubTransport.gate = new CountDownLatch(1);
+        Ha3PreparedStatement statement = (Ha3PreparedStatement)connection.prepareStatement(
+            "select id from t where id = ?");
+        statement.setAsyncExecutor(executor);
+        statement.setLong(1, 41L);
+        CompletableFuture<Ha3ResultSet> future = statement.executeQueryAsync();
+        // 发起后修改参数不影响已经发起的请求
+        statement.setLong(1, 42L);
+        StubTransport.gate.countDown();
+        future.get().close();
+        String sql = StubTransport.requests.poll();
+        assertTrue(sql, sql.contains("41"));
+        assertTrue(sql, !sql.contains("42"));
+
+        try {
+            statement.executeQueryAsync("select 1").get();
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals("Forbidden method on PreparedStatement", e.getCause().getMessage());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testDynamicParams() throws Exception {
+        Ha3Connection dynamic = newConnection(true);
+        try {
+            StubTransport.gate = new CountDownLatch(1);
+            Ha3Statement statement = (Ha3Statement)dynamic.createStatement();
+            statement.setAsyncExecutor(executor);
+            CompletableFuture<Ha3ResultSet> future = statement.executeQueryAsync("select id from t where id = 7");
+            // 改写在调用线程中完成，请求发出前sql已经确定
+            String sql = StubTransport.requests.poll(5, TimeUnit.SECONDS);
+            assertTrue(sql, sql.contains("dynamic_params:"));
+            StubTransport.gate.countDown();
+            Ha3ResultSet resultSet = future.get();
+            assertTrue(resultSet.next());
+            resultSet.close();
+        } finally {
+            dynamic.close();
+        }
+    }
+
+    private static Ha3Connection newConnection(boolean dynamicParams) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("serviceName", "stub");
+        properties.setProperty("transport", StubTransport.class.getName());
+        properties.setProperty("asyncThreads", "2");
+        properties.setProperty("enableDynamicParams", Boolean.toString(dynamicParams));
+        return new Ha3Connection(new Ha3Config("jdbc:ha3://", properties));
+    }
+
+    /**
+     * 记录每个请求的sql和发起请求的线程，gate打开前阻塞，sql中带有fail时请求失败
+     */
+    public static class StubTransport implements Ha3Transport {
+
+        static final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+        static final BlockingQueue<String> threads = new LinkedBlockingQueue<>();
+        static volatile CountDownLatch gate = new CountDownLatch(0);
+
+        public StubTransport(Ha3Config ha3Config) {
+        }
+
+        @Override
+        public Ha3ResponseBody search(String sql) throws Exception {
+            threads.add(Thread.currentThread().getName());
+            requests.add(sql);
+            gate.await();
+            if (sql.contains("fail")) {
+                throw new IOException("stub failure");
+            }
+            return Ha3ResponseBody.of(BODY);
+        }
+
+        @Override
+        public boolean supportsBinary() {
+            return false;
+        }
+    }
+}
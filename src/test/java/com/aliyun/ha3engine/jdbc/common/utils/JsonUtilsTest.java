@@ -0,0 +1,154 @@
+package com.aliyun.ha3engine.jdbc.common.utils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JsonUtils共享的Gson实例和adapter注册表
+ */
+public class JsonUtilsTest {
+
+    @Test
+    public void testAdaptersAreShared() {
+        assertSame(JsonUtils.getAdapter(Long.class), JsonUtils.getAdapter(Long.class));
+        assertSame(JsonUtils.getAdapter(double[].class), JsonUtils.getAdapter((Type)double[].class));
+        // 未预解析的类型第一次使用时解析，之后复用
+        assertSame(JsonUtils.getAdapter(Point.class), JsonUtils.getAdapter(Point.class));
+    }
+
+    @Test
+    public void testDecodeDefaults() {
+        assertEquals(Long.valueOf(0), JsonUtils.fromJson(new JsonPrimitive(""), Long.class));
+        assertEquals(Integer.valueOf(0), JsonUtils.fromJson(new JsonPrimitive(""), int.class));
+        assertEquals(Long.valueOf(42), JsonUtils.fromJson(new JsonPrimitive("42"), long.class));
+        assertEquals(Double.valueOf(1.5D), JsonUtils.fromJson(new JsonPrimitive(1.5D), Double.class));
+        assertNull(JsonUtils.fromJson(JsonNull.INSTANCE, String.class));
+        assertNull(JsonUtils.fromJson((com.google.gson.JsonElement)null, String.class));
+
+        @SuppressWarnings("unchecked")
+        TypeAdapter<List<Long>> adapter = (TypeAdapter<List<Long>>)JsonUtils.getAdapter(
+            new TypeToken<List<Long>>() {}.getType());
+        assertEquals(Arrays.asList(1L, 2L), adapter.fromJsonTree(JsonParser.parseString("[1,2]")));
+    }
+
+    @Test
+    public void testToJson() {
+        Point point = new Point();
+        point.x = 1;
+        assertEquals("{\"x\":1}", JsonUtils.toJson(point));
+        assertEquals("{\"x\":1,\"label\":null}", JsonUtils.toJson(point, true));
+        assertEquals("[1,\"a\"]", JsonUtils.toJson(Arrays.asList(1, "a")));
+    }
+
+    @Test
+    public void testRegisterTypeAdapter() {
+        assertEquals("{\"value\":\"a\"}", JsonUtils.toJson(new Tag("a")));
+        JsonUtils.registerTypeAdapter(Tag.class, new TagAdapter());
+
+        assertEquals("\"#a\"", JsonUtils.toJson(new Tag("a")));
+        assertEquals("b", JsonUtils.fromJson("\"#b\"", Tag.class).value);
+        assertEquals("c", JsonUtils.fromJson(new JsonPrimitive("#c"), Tag.class).value);
+        // 已注册的adapter在重建注册表后仍然有效，其他类型不受影响
+        assertEquals(Long.valueOf(0), JsonUtils.fromJson(new JsonPrimitive(""), Long.class));
+    }
+
+    /**
+     * 注册adapter时整体替换注册表，并发的读取者只会看到替换前或替换后的完整注册表
+     */
+    @Test
+    public void testConcurrentRegistration() throws Exception {
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < 20000; n++) {
+                        List<?> values = JsonUtils.fromJson("[" + n + "]", List.class);
+                        assertEquals(Collections.singletonList((double)n), values);
+                        assertEquals(Long.valueOf(n), JsonUtils.fromJson(new JsonPrimitive(n), Long.class));
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        start.countDown();
+        for (int i = 0; i < 50; i++) {
+            JsonUtils.registerTypeAdapter(Marker.class, new TypeAdapter<Marker>() {
+                @Override
+                public void write(JsonWriter out, Marker value) throws IOException {
+                    out.value("marker");
+                }
+
+                @Override
+                public Marker read(JsonReader in) throws IOException {
+                    in.skipValue();
+                    return new Marker();
+                }
+            });
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+        assertTrue(JsonUtils.fromJson("1", Marker.class) != null);
+    }
+
+    private static final class Point {
+
+        private int x;
+        private String label;
+    }
+
+    private static final class Tag {
+
+        private final String value;
+
+        Tag(String value) {
+            this.value = value;
+        }
+    }
+
+    private static final class Marker {
+    }
+
+    private static final class TagAdapter extends TypeAdapter<Tag> {
+
+        @Override
+        public void write(JsonWriter out, Tag value) throws IOException {
+            out.value("#" + value.value);
+        }
+
+        @Override
+        public Tag read(JsonReader in) throws IOException {
+            return new Tag(in.nextString().substring(1));
+        }
+    }
+}
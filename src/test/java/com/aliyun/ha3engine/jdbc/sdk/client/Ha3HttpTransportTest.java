@@ -0,0 +1,377 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 用ServerSocket模拟Ha3的HTTP接口，验证Ha3HttpTransport对响应格式和连接复用的处理
+ */
+public class Ha3HttpTransportTest {
+
+    private static final String BODY = buildBody();
+
+    private StubServer server;
+    private Ha3HttpTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.close();
+        }
+        server.close();
+    }
+
+    @Test
+    public void testContentLengthBody() throws Exception {
+        server.respond(exchange -> exchange.send(200, "", BODY.getBytes(StandardCharsets.UTF_8)));
+        transport = newTransport(new Properties());
+
+        assertEquals(BODY, transport.search("select 1").asString());
+        assertEquals(1, transport.getIdleConnections());
+        assertTrue(server.getTargets().get(0).contains("query=select"));
+    }
+
+    @Test
+    public void testChunkedBody() throws Exception {
+        server.respond(exchange -> exchange.sendChunked(BODY.getBytes(StandardCharsets.UTF_8), 777));
+        transport = newTransport(new Properties());
+
+        assertEquals(BODY, transport.search("select 1").asString());
+        assertEquals(BODY, transport.search("select 2").asString());
+        // chunked的结束标记和trailer读完后连接可以复用
+        assertEquals(1, server.getAccepted());
+        assertEquals(1, transport.getIdleConnections());
+    }
+
+    @Test
+    public void testConnectionClose() throws Exception {
+        server.respond(exchange -> {
+            exchange.send(200, "Connection: close\r\n", BODY.getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        transport = newTransport(new Properties());
+
+        assertEquals(BODY, transport.search("select 1").asString());
+        assertEquals(0, transport.getIdleConnections());
+        assertEquals(BODY, transport.search("select 2").asString());
+        assertEquals(2, server.getAccepted());
+    }
+
+    @Test
+    public void testBodyEndsWithConnectionClose() throws Exception {
+        server.respond(exchange -> {
+            exchange.send(200, null, BODY.getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        transport = newTransport(new Properties());
+
+        assertEquals(BODY, transport.search("select 1").asString());
+        assertEquals(0, transport.getIdleConnections());
+    }
+
+    @Test
+    public void testReuseAfterIdle() throws Exception {
+        server.respond(exchange -> exchange.send(200, "", BODY.getBytes(StandardCharsets.UTF_8)));
+        Properties properties = new Properties();
+        properties.setProperty("httpKeepAliveTimeout", "500");
+        transport = newTransport(properties);
+
+        transport.search("select 1").asString();
+        Thread.sleep(50);
+        transport.search("select 2").asString();
+        assertEquals(1, server.getAccepted());
+
+        // 超过httpKeepAliveTimeout的空闲连接不再复用
+        Thread.sleep(800);
+        transport.search("select 3").asString();
+        assertEquals(2, server.getAccepted());
+    }
+
+    @Test
+    public void testRetryOnStaleConnection() throws Exception {
+        // 响应后服务端直接关闭连接，不发送Connection: close
+        server.respond(exchange -> {
+            exchange.send(200, "", BODY.getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        transport = newTransport(new Properties());
+
+        assertEquals(BODY, transport.search("select 1").asString());
+        assertEquals(1, transport.getIdleConnections());
+        server.awaitClosed(1);
+
+        assertEquals(BODY, transport.search("select 2").asString());
+        assertEquals(2, server.getAccepted());
+    }
+
+    @Test
+    public void testStatusException() throws Exception {
+        server.respond(exchange -> exchange.send(503, "", "{\"error\":\"busy\"}".getBytes(StandardCharsets.UTF_8)));
+        transport = newTransport(new Properties());
+
+        try {
+            transport.search("select 1");
+            fail("expected StatusException");
+        } catch (Ha3HttpTransport.StatusException e) {
+            assertEquals(503, e.getStatus());
+            assertTrue(e.getMessage().contains("busy"));
+        }
+        // 错误响应的body已经读完，连接可以复用
+        assertEquals(1, transport.getIdleConnections());
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        checkCompression(Ha3Config.COMPRESSION_GZIP, gzip(BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        checkCompression(Ha3Config.COMPRESSION_DEFLATE, deflate(BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void checkCompression(String encoding, byte[] compressed) throws Exception {
+        server.respond(exchange -> {
+            if (!encoding.equals(exchange.getHeader("Accept-Encoding"))) {
+                exchange.send(400, "", "missing Accept-Encoding".getBytes(StandardCharsets.UTF_8));
+            } else {
+                exchange.sendChunked(compressed, 1000, "Content-Encoding: " + encoding + "\r\n");
+            }
+        });
+        Properties properties = new Properties();
+        properties.setProperty("responseCompression", encoding);
+        transport = newTransport(properties);
+
+        Ha3ResponseBody body = transport.search("select 1");
+        assertEquals(encoding, body.getContentEncoding());
+        assertEquals(BODY, body.asString());
+        assertEquals(compressed.length, body.getEncodedLength());
+        assertEquals(1, transport.getIdleConnections());
+    }
+
+    private Ha3HttpTransport newTransport(Properties properties) throws Exception {
+        properties.setProperty("serviceName", "127.0.0.1:" + server.getPort());
+        properties.setProperty("transport", "http");
+        return new Ha3HttpTransport(new Ha3Config("jdbc:ha3://", properties));
+    }
+
+    private static String buildBody() {
+        StringBuilder body = new StringBuilder("{\"sql_result\":{\"column_name\":[\"id\",\"name\"],"
+            + "\"column_type\":[\"int64\",\"string\"],\"data\":[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append('[').append(i).append(",\"名字").append(i).append("\"]");
+        }
+        return body.append("]},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}").toString();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private interface Handler {
+
+        void handle(Exchange exchange) throws IOException;
+    }
+
+    /**
+     * 一次请求，handler通过它读取请求头并写出响应
+     */
+    private static final class Exchange {
+
+        private final Socket socket;
+        private final OutputStream out;
+        private final List<String> headers;
+        private boolean closed;
+
+        Exchange(Socket socket, List<String> headers) throws IOException {
+            this.socket = socket;
+            this.out = socket.getOutputStream();
+            this.headers = headers;
+        }
+
+        String getHeader(String name) {
+            for (String header : headers) {
+                int colon = header.indexOf(':');
+                if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                    return header.substring(colon + 1).trim();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param headers 额外的响应头，为null时不写Content-Length，以关闭连接结束body
+         */
+        void send(int status, String headers, byte[] body) throws IOException {
+            StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(" Stub\r\n");
+            if (headers != null) {
+                head.append(headers).append("Content-Length: ").append(body.length).append("\r\n");
+            }
+            out.write(head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+            out.write(body);
+            out.flush();
+        }
+
+        void sendChunked(byte[] body, int chunkSize) throws IOException {
+            sendChunked(body, chunkSize, "");
+        }
+
+        void sendChunked(byte[] body, int chunkSize, String headers) throws IOException {
+            out.write(("HTTP/1.1 200 Stub\r\n" + headers + "Transfer-Encoding: chunked\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+            for (int offset = 0; offset < body.length; offset += chunkSize) {
+                int length = Math.min(chunkSize, body.length - offset);
+                out.write((Integer.toHexString(length) + ";ext=1\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                out.write(body, offset, length);
+                out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            }
+            out.write("0\r\nX-Trailer: 1\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        }
+
+        void close() throws IOException {
+            closed = true;
+            socket.close();
+        }
+    }
+
+    /**
+     * 每个连接一个线程，按handler依次处理连接上的请求
+     */
+    private static final class StubServer implements Closeable {
+
+        private final ServerSocket serverSocket;
+        private final AtomicInteger accepted = new AtomicInteger();
+        private final AtomicInteger closedConnections = new AtomicInteger();
+        private final List<String> targets = new ArrayList<>();
+        private volatile Handler handler;
+
+        StubServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(this::accept, "stub-http-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        void respond(Handler handler) {
+            this.handler = handler;
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getAccepted() {
+            return accepted.get();
+        }
+
+        synchronized List<String> getTargets() {
+            return new ArrayList<>(targets);
+        }
+
+        /**
+         * 等待服务端关闭count个连接
+         */
+        void awaitClosed(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (closedConnections.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            // 留出时间让FIN到达客户端
+            Thread.sleep(50);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    return;
+                }
+                accepted.incrementAndGet();
+                Thread worker = new Thread(() -> serve(socket), "stub-http-worker");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                String requestLine;
+                while ((requestLine = Ha3HttpTransport.readLine(in)) != null) {
+                    List<String> headers = new ArrayList<>();
+                    String line;
+                    while ((line = Ha3HttpTransport.readLine(in)) != null && !line.isEmpty()) {
+                        headers.add(line);
+                    }
+                    synchronized (this) {
+                        targets.add(requestLine.split(" ")[1]);
+                    }
+                    Exchange exchange = new Exchange(socket, headers);
+                    handler.handle(exchange);
+                    if (exchange.closed) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                // 客户端关闭了连接
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // 只是释放资源
+                }
+                closedConnections.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.aliyun.ha3engine.jdbc.sdk.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aliyun.ha3engine.jdbc.common.config.Ha3Config;
+import com.aliyun.tea.TeaException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Ha3LoadBalancedTransport对endpoint故障的判断，以及由此决定的重试和摘除
+ */
+public class Ha3LoadBalancedTransportTest {
+
+    private static final String BODY = "{\"sql_result\":{}}";
+
+    @Test
+    public void testIsEndpointFailure() {
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(new ConnectException("refused")));
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(new SocketTimeoutException("read timed out")));
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(new Ha3HttpTransport.StatusException(503, "busy")));
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(new Ha3HttpTransport.StatusException(429, "limit")));
+        assertFalse(Ha3LoadBalancedTransport.isEndpointFailure(new Ha3HttpTransport.StatusException(400, "bad")));
+        assertFalse(Ha3LoadBalancedTransport.isEndpointFailure(new Ha3HttpTransport.StatusException(401, "auth")));
+
+        // transport=sdk时的异常
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(teaException(502, "BadGateway")));
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(teaException(429, "Throttling")));
+        assertFalse(Ha3LoadBalancedTransport.isEndpointFailure(teaException(400, "InvalidSql")));
+        assertFalse(Ha3LoadBalancedTransport.isEndpointFailure(teaException(403, "Forbidden")));
+        assertFalse(Ha3LoadBalancedTransport.isEndpointFailure(teaException(null, "InvalidParameter")));
+        TeaException wrapped = teaException(null, "SocketTimeout");
+        wrapped.initCause(new SocketTimeoutException("read timed out"));
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(wrapped));
+        assertTrue(Ha3LoadBalancedTransport.isEndpointFailure(new RuntimeException(new ConnectException("refused"))));
+
+        assertFalse(Ha3LoadBalancedTransport.isEndpointFailure(new IllegalArgumentException("sql is empty")));
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws Exception {
+        StubTransport a = new StubTransport(() -> teaException(400, "InvalidSql"));
+        StubTransport b = new StubTransport(() -> teaException(400, "InvalidSql"));
+        Ha3LoadBalancedTransport transport = newTransport(a, b);
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                transport.search("select 1");
+                fail("expected TeaException");
+            } catch (TeaException e) {
+                assertEquals("InvalidSql", e.getCode());
+            }
+        }
+        assertEquals(10, a.calls.get() + b.calls.get());
+        assertFalse(transport.getEndpointStates().contains("ejected=true"));
+    }
+
+    @Test
+    public void testServerErrorIsRetriedAndEjected() throws Exception {
+        StubTransport a = new StubTransport(() -> teaException(503, "ServiceUnavailable"));
+        StubTransport b = new StubTransport(null);
+        Ha3LoadBalancedTransport transport = newTransport(a, b);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(BODY, transport.search("select 1").asString());
+        }
+        // 连续失败2次后a被摘除，之后的请求都发往b
+        assertEquals(2, a.calls.get());
+        assertTrue(transport.getEndpointStates().startsWith("a{"));
+        assertTrue(transport.getEndpointStates().contains("ejected=true"));
+    }
+
+    @Test
+    public void testIoErrorIsRetried() throws Exception {
+        StubTransport a = new StubTransport(() -> new RuntimeException(new ConnectException("refused")));
+        StubTransport b = new StubTransport(null);
+        Ha3LoadBalancedTransport transport = newTransport(a, b);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BODY, transport.search("select 1").asString());
+        }
+        assertEquals(5, b.calls.get());
+    }
+
+    private static Ha3LoadBalancedTransport newTransport(Ha3Transport a, Ha3Transport b) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("serviceName", "a,b");
+        properties.setProperty("endpointFailureThreshold", "2");
+        properties.setProperty("endpointEjectionTime", "60000");
+        return new Ha3LoadBalancedTransport(new Ha3Config("jdbc:ha3://", properties), Arrays.asList("a", "b"),
+            Arrays.asList(a, b));
+    }
+
+    /**
+     * SDK对4xx、5xx响应抛出的异常，状态码在data.statusCode中
+     */
+    private static TeaException teaException(Integer status, String code) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("code", code);
+        map.put("message", "stub " + code);
+        if (status != null) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("statusCode", status);
+            map.put("data", data);
+        }
+        return new TeaException(map);
+    }
+
+    private interface ErrorSupplier {
+
+        Exception get() throws IOException;
+    }
+
+    /**
+     * error为null时返回固定的body，否则抛出error给出的异常
+     */
+    private static final class StubTransport implements Ha3Transport {
+
+        private final ErrorSupplier error;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubTransport(ErrorSupplier error) {
+            this.error = error;
+        }
+
+        @Override
+        public Ha3ResponseBody search(String sql) throws Exception {
+            calls.incrementAndGet();
+            if (error != null) {
+                throw error.get();
+            }
+            return Ha3ResponseBody.of(BODY);
+        }
+
+        @Override
+        public boolean supportsBinary() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按SqlResult.fbs的二进制布局生成flatbuffers响应，验证Ha3FlatBuffersDecoder在各种列存储选项下的解码结果
+ */
+public class Ha3FlatBuffersDecoderTest {
+
+    /**
+     * union ColumnType的type值，见Ha3FlatBuffersDecoder.COLUMN_TYPES
+     */
+    private static final int INT32_COLUMN = 3;
+    private static final int INT64_COLUMN = 4;
+    private static final int UINT64_COLUMN = 8;
+    private static final int DOUBLE_COLUMN = 10;
+    private static final int STRING_COLUMN = 11;
+    private static final int MULTI_INT32_COLUMN = 14;
+
+    @Test
+    public void testDecodeColumns() throws Exception {
+        ByteBuffer body = buildResult();
+        Ha3DecodeOptions[] options = {
+            Ha3DecodeOptions.DEFAULT,
+            Ha3DecodeOptions.builder().setUtf8Strings(true).setCacheStrings(true).build(),
+            Ha3DecodeOptions.builder().setAllocator(new Ha3OffHeapAllocator()).build()
+        };
+        for (Ha3DecodeOptions option : options) {
+            Ha3QueryResult result = Ha3FlatBuffersDecoder.decode(body, option);
+            assertEquals(0L, result.getErrorInfo().getErrorCode());
+            assertEquals("ERROR_NONE", result.getErrorInfo().getError());
+            assertEquals(Arrays.asList("id", "price", "title", "tags", "count", "hash"), result.getColumnNames());
+            assertEquals(Arrays.asList("int64", "double", "string", "multi_int32", "int32", "uint64"),
+                result.getColumnTypes());
+
+            Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+            assertTrue(resultSet.next());
+            assertEquals(7L, resultSet.getLong("id"));
+            assertEquals(1.5D, resultSet.getDouble("price"), 0D);
+            assertEquals("hello", resultSet.getString("title"));
+            assertArrayEquals(new long[] {1, 2, 3}, toLongs(resultSet.getArray("tags").getArray()));
+            assertEquals(-5, resultSet.getInt("count"));
+            assertEquals("18446744073709551615", resultSet.getString("hash"));
+
+            assertTrue(resultSet.next());
+            assertEquals(8L, resultSet.getLong("id"));
+            assertEquals("2", resultSet.getString("price"));
+            assertEquals("世界😀", resultSet.getString("title"));
+            assertArrayEquals("世界😀".getBytes(StandardCharsets.UTF_8), resultSet.getBytes("title"));
+            assertArrayEquals(new long[0], toLongs(resultSet.getArray("tags").getArray()));
+            assertEquals(Integer.MAX_VALUE, resultSet.getInt("count"));
+            assertEquals("42", resultSet.getString("hash"));
+
+            // 值的个数少于rowCount的列，缺少的行为null
+            assertTrue(resultSet.next());
+            assertEquals(9L, resultSet.getLong("id"));
+            assertNull(resultSet.getString("title"));
+            assertTrue(resultSet.wasNull());
+            assertFalse(resultSet.next());
+            resultSet.close();
+        }
+        assertEquals(0, body.position());
+    }
+
+    @Test
+    public void testDecodeError() {
+        FlatBuffersWriter writer = new FlatBuffersWriter();
+        Table error = new Table(null, null, uint32(4004), ref(new Str("table not found")));
+        ByteBuffer body = writer.finish(new Table(float64(0.5D), uint32(0), ref(error)));
+
+        Ha3QueryResult result = Ha3FlatBuffersDecoder.decode(body);
+        assertEquals(4004L, result.getErrorInfo().getErrorCode());
+        assertEquals("table not found", result.getErrorInfo().getError());
+        assertTrue(result.getColumnNames().isEmpty());
+        assertEquals(0, result.getColumnStore().getRowCount());
+    }
+
+    @Test
+    public void testDecodeFromPosition() throws Exception {
+        ByteBuffer result = buildResult();
+        ByteBuffer body = ByteBuffer.allocate(result.remaining() + 16);
+        body.position(16);
+        body.put(result).position(16);
+
+        Ha3ResultSet resultSet = new Ha3ResultSet(Ha3FlatBuffersDecoder.decode(body), null);
+        assertTrue(resultSet.next());
+        assertEquals("hello", resultSet.getString(3));
+        resultSet.close();
+    }
+
+    /**
+     * 3行的结果，title和tags只有前两行的值，count和hash包含int和uint64的边界值
+     */
+    private static ByteBuffer buildResult() {
+        Table[] columns = {
+            column("id", INT64_COLUMN, new Longs(7L, 8L, 9L)),
+            column("price", DOUBLE_COLUMN, new Doubles(1.5D, 2D, 0D)),
+            column("title", STRING_COLUMN, new Refs(new Str("hello"), new Str("世界😀"))),
+            column("tags", MULTI_INT32_COLUMN,
+                new Refs(new Table(ref(new Ints(1, 2, 3))), new Table(ref(new Ints())))),
+            column("count", INT32_COLUMN, new Ints(-5, Integer.MAX_VALUE, 0)),
+            column("hash", UINT64_COLUMN, new Longs(-1L, 42L, 0L))
+        };
+        Table table = new Table(uint32(3), ref(new Refs(columns)));
+        Table error = new Table(null, null, uint32(0), ref(new Str("")));
+        return new FlatBuffersWriter().finish(new Table(float64(1D), uint32(3), ref(error), ref(table)));
+    }
+
+    private static Table column(String name, int valueType, Node values) {
+        return new Table(ref(new Str(name)), ubyte(valueType), ref(new Table(ref(values))));
+    }
+
+    /**
+     * @param array java.sql.Array.getArray()返回的原始类型数组或包装类型数组
+     */
+    private static long[] toLongs(Object array) {
+        long[] longs = new long[java.lang.reflect.Array.getLength(array)];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = ((Number)java.lang.reflect.Array.get(array, i)).longValue();
+        }
+        return longs;
+    }
+
+    private static Field ubyte(int value) {
+        return new Field(1, writer -> writer.buffer.put((byte)value));
+    }
+
+    private static Field uint32(long value) {
+        return new Field(4, writer -> writer.buffer.putInt((int)value));
+    }
+
+    private static Field float64(double value) {
+        return new Field(8, writer -> writer.buffer.putDouble(value));
+    }
+
+    private static Field ref(Node node) {
+        return new Field(4, writer -> writer.reference(node));
+    }
+
+    /**
+     * 从前向后写出flatbuffers，被引用的对象按广度优先写在引用方之后，所有uoffset都为正，与flatc生成的布局一致
+     */
+    private static final class FlatBuffersWriter {
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final Deque<Object[]> pending = new ArrayDeque<>();
+
+        ByteBuffer finish(Table root) {
+            reference(root);
+            while (!pending.isEmpty()) {
+                Object[] next = pending.pollFirst();
+                int slot = (Integer)next[0];
+                int position = ((Node)next[1]).write(this);
+                buffer.putInt(slot, position - slot);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * 在当前位置写入uoffset的占位，对象写出后回填
+         */
+        void reference(Node node) {
+            pending.addLast(new Object[] {buffer.position(), node});
+            buffer.putInt(0);
+        }
+
+        void align(int size, int extra) {
+            while ((buffer.position() + extra) % size != 0) {
+                buffer.put((byte)0);
+            }
+        }
+    }
+
+    private interface Node {
+
+        /**
+         * @return 供uoffset引用的位置
+         */
+        int write(FlatBuffersWriter writer);
+    }
+
+    private interface FieldWriter {
+
+        void write(FlatBuffersWriter writer);
+    }
+
+    private static final class Field {
+
+        private final int size;
+        private final FieldWriter writer;
+
+        Field(int size, FieldWriter writer) {
+            this.size = size;
+            this.writer = writer;
+        }
+    }
+
+    /**
+     * vtable写在table之前，字段为null时不写入，对应vtable中的偏移为0
+     */
+    private static final class Table implements Node {
+
+        private final Field[] fields;
+
+        Table(Field... fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public int write(FlatBuffersWriter writer) {
+            ByteBuffer buffer = writer.buffer;
+            writer.align(2, 0);
+            int vtable = buffer.position();
+            buffer.putShort((short)(4 + 2 * fields.length));
+            buffer.putShort((short)0);
+            for (int i = 0; i < fields.length; i++) {
+                buffer.putShort((short)0);
+            }
+            writer.align(4, 0);
+            int table = buffer.position();
+            buffer.putInt(table - vtable);
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                if (field == null) {
+                    continue;
+                }
+                writer.align(field.size, 0);
+                buffer.putShort(vtable + 4 + 2 * i, (short)(buffer.position() - table));
+                field.writer.write(writer);
+            }
+            buffer.putShort(vtable + 2, (short)(buffer.position() - table));
+            return table;
+        }
+    }
+
+    private static final class Str implements Node {
+
+        private final byte[] bytes;
+
+        Str(String value) {
+            this.bytes = value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int write(FlatBuffersWriter writer) {
+            writer.align(4, 0);
+            int position = writer.buffer.position();
+            writer.buffer.putInt(bytes.length).put(bytes).put((byte)0);
+            return position;
+        }
+    }
+
+    private static final class Refs implements Node {
+
+        private final Node[] nodes;
+
+        Refs(Node... nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public int write(FlatBuffersWriter writer) {
+            writer.align(4, 0);
+            int position = writer.buffer.position();
+            writer.buffer.putInt(nodes.length);
+            for (Node node : nodes) {
+                writer.reference(node);
+            }
+            return position;
+        }
+    }
+
+    private static final class Ints implements Node {
+
+        private final int[] values;
+
+        Ints(int... values) {
+            this.values = values;
+        }
+
+        @Override
+        public int write(FlatBuffersWriter writer) {
+            writer.align(4, 0);
+            int position = writer.buffer.position();
+            writer.buffer.putInt(values.length);
+            for (int value : values) {
+                writer.buffer.putInt(value);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * 8字节的元素按8字节对齐，长度写在元素之前的4个字节
+     */
+    private static final class Longs implements Node {
+
+        private final long[] values;
+
+        Longs(long... values) {
+            this.values = values;
+        }
+
+        @Override
+        public int write(FlatBuffersWriter writer) {
+            writer.align(8, 4);
+            int position = writer.buffer.position();
+            writer.buffer.putInt(values.length);
+            for (long value : values) {
+                writer.buffer.putLong(value);
+            }
+            return position;
+        }
+    }
+
+    private static final class Doubles implements Node {
+
+        private final double[] values;
+
+        Doubles(double... values) {
+            this.values = values;
+        }
+
+        @Override
+        public int write(FlatBuffersWriter writer) {
+            writer.align(8, 4);
+            int position = writer.buffer.position();
+            writer.buffer.putInt(values.length);
+            for (double value : values) {
+                writer.buffer.putDouble(value);
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 与Double.parseDouble和Long.parseLong对比Ha3NumberParser的解析结果，浮点数要求二进制位完全相同
+ */
+public class Ha3NumberParserTest {
+
+    private static final String[] DOUBLE_EDGE_CASES = {
+        "0", "-0", "0.0", "-0.0", "0e10", "0.000", "1", "-1", "0.1", "0.2", "0.3", "1.5", "5.", "00001.25",
+        "1e0", "1E5", "1e+5", "1e-5", "123.456e-7", "9007199254740992", "9007199254740993", "9007199254740995",
+        "1e22", "1e23", "8.41e21", "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308",
+        "2.2250738585072011e-308", "2.2250738585072014e-308", "2.225073858507201e-308",
+        // 次正规数及其边界
+        "4.9e-324", "5e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "2.4703282292062329e-324",
+        "1e-323", "3e-324", "1.2e-320", "9.8813129168249309e-324", "4.9406564584124654e-324",
+        "1e-400", "-1e-400", "1e400", "-1e400", "1e-342", "1e-343", "9999999999999999999e-343",
+        // 超过19位有效数字
+        "1234567890123456789", "12345678901234567890", "123456789012345678901234567890", "0.1000000000000000055511151231257827",
+        "3.14159265358979323846264338327950288", "18446744073709551615", "18446744073709551616",
+        "9999999999999999999", "1.0000000000000002", "0.30000000000000004",
+        "Infinity", "-Infinity", "NaN", "+1.5", "1.5d", "1.5f", " 1.5", "0x1p3"
+    };
+
+    private static final String[] LONG_EDGE_CASES = {
+        "0", "-0", "1", "-1", "+5", "007", "999999999999999999", "-999999999999999999", "1000000000000000000",
+        "9223372036854775807", "-9223372036854775808", "2147483647", "-2147483648", "2147483648"
+    };
+
+    @Test
+    public void testDoubleEdgeCases() {
+        for (String text : DOUBLE_EDGE_CASES) {
+            checkDouble(text);
+        }
+    }
+
+    @Test
+    public void testRandomDoubleBits() {
+        Random random = new Random(20261017L);
+        for (int i = 0; i < 200000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            checkDouble(Double.toString(value));
+            // 17位有效数字的科学计数法，与Double.toString的最短表示不同
+            checkDouble(String.format("%.16e", value));
+        }
+    }
+
+    @Test
+    public void testRandomDecimalStrings() {
+        Random random = new Random(42L);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            text.setLength(0);
+            if (random.nextBoolean()) {
+                text.append('-');
+            }
+            int digits = 1 + random.nextInt(24);
+            int point = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == point) {
+                    text.append('.');
+                }
+                text.append((char)('0' + random.nextInt(10)));
+            }
+            if (random.nextInt(3) > 0) {
+                // 覆盖正规数、次正规数和溢出的指数
+                text.append('e').append(random.nextInt(700) - 350);
+            }
+            checkDouble(text.toString());
+        }
+    }
+
+    @Test
+    public void testSubnormals() {
+        Random random = new Random(7L);
+        for (int i = 0; i < 100000; i++) {
+            // 指数位为0的都是次正规数
+            double value = Double.longBitsToDouble(random.nextLong() & 0x000FFFFFFFFFFFFFL);
+            checkDouble(Double.toString(value));
+            checkDouble(String.format("%.20e", value));
+        }
+        checkDouble(Double.toString(Double.MIN_VALUE));
+        checkDouble(Double.toString(Double.MIN_NORMAL));
+        checkDouble(Double.toString(Math.nextDown(Double.MIN_NORMAL)));
+    }
+
+    @Test
+    public void testLongEdgeCases() {
+        for (String text : LONG_EDGE_CASES) {
+            assertEquals(text, Long.parseLong(text), Ha3NumberParser.parseLong(text));
+        }
+        // uint64超出long范围时按无符号解析
+        assertEquals(-1L, Ha3NumberParser.parseLong("18446744073709551615"));
+        assertEquals(Long.MIN_VALUE, Ha3NumberParser.parseLong("9223372036854775808"));
+        // 小数按截断处理
+        assertEquals(1L, Ha3NumberParser.parseLong("1.9"));
+        assertEquals(-1L, Ha3NumberParser.parseLong("-1.9"));
+        assertEquals(100000L, Ha3NumberParser.parseLong("1e5"));
+        for (String text : new String[] {"", "-", "12a", "1-2", "18446744073709551616", "--1"}) {
+            try {
+                Ha3NumberParser.parseLong(text);
+                fail("expected NumberFormatException: " + text);
+            } catch (NumberFormatException e) {
+                // 与Long.parseLong相同
+            }
+        }
+    }
+
+    @Test
+    public void testRandomLongs() {
+        Random random = new Random(1L);
+        for (int i = 0; i < 200000; i++) {
+            // 各种位数的值
+            long value = random.nextLong() >> random.nextInt(64);
+            String text = Long.toString(value);
+            assertEquals(text, value, Ha3NumberParser.parseLong(text));
+            String unsigned = Long.toUnsignedString(random.nextLong());
+            assertEquals(unsigned, Long.parseUnsignedLong(unsigned), Ha3NumberParser.parseLong(unsigned));
+        }
+    }
+
+    @Test
+    public void testParseInt() {
+        assertEquals(Integer.MAX_VALUE, Ha3NumberParser.parseInt("2147483647"));
+        assertEquals(Integer.MIN_VALUE, Ha3NumberParser.parseInt("-2147483648"));
+        try {
+            Ha3NumberParser.parseInt("2147483648");
+            fail("expected NumberFormatException");
+        } catch (NumberFormatException e) {
+            // 超出int范围
+        }
+    }
+
+    @Test
+    public void testParseRange() {
+        String text = "[1.5,-2,18446744073709551615,3e-324]";
+        assertEquals(1.5D, Ha3NumberParser.parseDouble(text, 1, 4), 0D);
+        assertEquals(-2L, Ha3NumberParser.parseLong(text, 5, 7));
+        assertEquals(-1L, Ha3NumberParser.parseLong(text, 8, 28));
+        assertEquals(Double.MIN_VALUE, Ha3NumberParser.parseDouble(text, 29, 35), 0D);
+    }
+
+    private static void checkDouble(String text) {
+        double expected;
+        try {
+            expected = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            try {
+                Ha3NumberParser.parseDouble(text);
+            } catch (NumberFormatException expectedError) {
+                return;
+            }
+            fail("expected NumberFormatException: " + text);
+            return;
+        }
+        double actual = Ha3NumberParser.parseDouble(text);
+        if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+            fail(text + ": expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 与Ha3ResultDecoder顺序解码对比Ha3ParallelDecoder的结果
+ */
+public class Ha3ParallelDecoderTest {
+
+    private static final String COLUMNS = "\"column_name\":[\"id\",\"score\",\"name\",\"tags\",\"extra\"],"
+        + "\"column_type\":[\"int64\",\"double\",\"string\",\"multi_int32\",\"multi_string\"]";
+
+    @Test
+    public void testMatchesSequential() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String body = body(50000, true);
+            Ha3QueryResult expected = Ha3ResultDecoder.decode(new StringReader(body), Ha3DecodeOptions.DEFAULT);
+            Ha3QueryResult actual = Ha3ParallelDecoder.decode(body, Ha3DecodeOptions.DEFAULT, pool);
+            checkSame(expected, actual);
+            assertEquals("done", actual.getErrorInfo().getMessage());
+
+            // 各段拼接到UTF-8存储的列中
+            Ha3DecodeOptions utf8 = Ha3DecodeOptions.builder().setUtf8Strings(true).build();
+            actual = Ha3ParallelDecoder.decode(body, utf8, pool);
+            assertTrue(actual.getColumnStore().getColumn(2) instanceof Ha3Utf8StringColumn);
+            checkSame(expected, actual);
+
+            // data在column_type之前时同样按整个响应读出列信息后分段
+            body = body(50000, false);
+            checkSame(Ha3ResultDecoder.decode(new StringReader(body), Ha3DecodeOptions.DEFAULT),
+                Ha3ParallelDecoder.decode(body, Ha3DecodeOptions.DEFAULT, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testChunkBoundaries() throws Exception {
+        // 行数不能被段数整除，以及刚好不足两段的情况
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int rows : new int[] {0, 1, Ha3ParallelDecoder.MIN_CHUNK_ROWS * 2 - 1,
+                Ha3ParallelDecoder.MIN_CHUNK_ROWS * 2, Ha3ParallelDecoder.MIN_CHUNK_ROWS * 7 + 13}) {
+                String body = body(rows, true);
+                checkSame(Ha3ResultDecoder.decode(new StringReader(body), Ha3DecodeOptions.DEFAULT),
+                    Ha3ParallelDecoder.decode(body, Ha3DecodeOptions.DEFAULT, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFallbackToSequential() throws Exception {
+        ForkJoinPool pool = Ha3ParallelDecoder.getPool(2);
+        assertSame(pool, Ha3ParallelDecoder.getPool(2));
+        // 需要落盘时按顺序解码
+        String body = body(10000, true);
+        Ha3DecodeOptions spill = Ha3DecodeOptions.builder().setSpillThresholdBytes(1).build();
+        Ha3QueryResult spilled = Ha3ParallelDecoder.decode(body, spill, pool);
+        assertTrue(spilled.getColumnStore().getColumn(0) instanceof Ha3SpillColumn);
+        checkSame(Ha3ResultDecoder.decode(new StringReader(body), Ha3DecodeOptions.DEFAULT), spilled);
+        spilled.release();
+
+        // 没有sql_result
+        Ha3QueryResult empty = Ha3ParallelDecoder.decode(
+            "{\"error_info\":{\"ErrorCode\":1,\"Error\":\"ERROR\",\"Message\":\"failed\"}}", Ha3DecodeOptions.DEFAULT,
+            pool);
+        assertEquals("failed", empty.getErrorInfo().getMessage());
+        assertEquals(0, empty.getColumnStore().getRowCount());
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        ForkJoinPool pool = Ha3ParallelDecoder.getPool(2);
+        String body = body(10000, true);
+        int row = body.indexOf("[5000,");
+        String[] malformed = {
+            // 行中的非法值在某一段的解码中出现
+            body.substring(0, row + 1) + "x" + body.substring(row + 5),
+            // 行没有闭合
+            body.substring(0, body.lastIndexOf("]]")),
+            "{\"sql_result\":{" + COLUMNS + ",\"data\":[1,2]}}"
+        };
+        for (String text : malformed) {
+            try {
+                Ha3ParallelDecoder.decode(text, Ha3DecodeOptions.DEFAULT, pool);
+                fail("expected IOException");
+            } catch (IOException e) {
+                // 与顺序解码一样抛出IOException
+            }
+        }
+    }
+
+    private static void checkSame(Ha3QueryResult expected, Ha3QueryResult actual) {
+        assertEquals(expected.getColumnNames(), actual.getColumnNames());
+        assertEquals(expected.getColumnTypes(), actual.getColumnTypes());
+        Ha3ColumnStore expectedStore = expected.getColumnStore();
+        Ha3ColumnStore actualStore = actual.getColumnStore();
+        assertEquals(expectedStore.getRowCount(), actualStore.getRowCount());
+        for (int row = 0; row < expectedStore.getRowCount(); row++) {
+            assertEquals(expectedStore.getRow(row), actualStore.getRow(row));
+        }
+    }
+
+    /**
+     * 字符串中包含转义的引号、反斜杠和括号，行之间有换行，覆盖结构扫描的各种情况
+     *
+     * @param columnsFirst column_name和column_type是否在data之前
+     */
+    private static String body(int rows, boolean columnsFirst) {
+        StringBuilder body = new StringBuilder("{\"sql_result\":{");
+        if (columnsFirst) {
+            body.append(COLUMNS).append(',');
+        }
+        body.append("\"data\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                body.append(i % 3 == 0 ? ",\n" : ",");
+            }
+            if (i % 11 == 0) {
+                body.append("[null,null,null,null,null]");
+                continue;
+            }
+            body.append('[').append(i)
+                .append(',').append(i * 0.25D)
+                .append(",\"").append(i % 5 == 0 ? "a\\\"]b[\\\\" : "名字").append(i).append('"')
+                .append(",[").append(i).append(',').append(i % 7).append(']')
+                .append(",[\"{").append(i).append("}\",\"]\"]")
+                .append(']');
+        }
+        body.append(']');
+        if (!columnsFirst) {
+            body.append(',').append(COLUMNS);
+        }
+        return body.append("},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"done\"}}")
+            .toString();
+    }
+}
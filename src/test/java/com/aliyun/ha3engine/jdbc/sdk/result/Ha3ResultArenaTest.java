@@ -0,0 +1,149 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * resultArena开启时列存储和列名索引的复用
+ */
+public class Ha3ResultArenaTest {
+
+    private static final List<String> TYPES = Arrays.asList("int64", "string");
+
+    @Test
+    public void testReuseAcrossResultSets() throws Exception {
+        Ha3ResultArena arena = new Ha3ResultArena();
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setArena(arena).build();
+
+        Ha3QueryResult first = decode(body(0, 100), options);
+        Ha3ColumnStore store = first.getColumnStore();
+        Ha3ResultSet resultSet = new Ha3ResultSet(first, null);
+        while (resultSet.next()) {
+            assertEquals("name-" + resultSet.getLong(1), resultSet.getString(2));
+        }
+        resultSet.close();
+
+        // 相同布局复用已经清空的列存储，新结果不会读到上一次的行
+        Ha3QueryResult second = decode(body(100, 3), options);
+        assertSame(store, second.getColumnStore());
+        resultSet = new Ha3ResultSet(second, null);
+        long sum = 0;
+        int rows = 0;
+        while (resultSet.next()) {
+            sum += resultSet.getLong("id");
+            assertEquals("name-" + resultSet.getLong(1), resultSet.getString(2));
+            rows++;
+        }
+        assertEquals(3, rows);
+        assertEquals(100 + 101 + 102, sum);
+        resultSet.close();
+    }
+
+    @Test
+    public void testLayoutChange() throws Exception {
+        Ha3ResultArena arena = new Ha3ResultArena();
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setArena(arena).build();
+        Ha3ColumnStore store = arena.acquire(TYPES, options);
+        // 未归还前不会被再次取出
+        assertNotSame(store, arena.acquire(TYPES, options));
+        store.recycle();
+
+        // 列类型或string存储方式不同时新建
+        assertNotSame(store, arena.acquire(Arrays.asList("int64", "int64"), options));
+        Ha3DecodeOptions utf8 = Ha3DecodeOptions.builder().setArena(arena).setUtf8Strings(true).build();
+        assertNotSame(store, arena.acquire(TYPES, utf8));
+        // 只影响解码过程的选项不影响复用
+        Ha3DecodeOptions scrollable = Ha3DecodeOptions.builder().setArena(arena).setScrollable(true).build();
+        assertSame(store, arena.acquire(TYPES, scrollable));
+    }
+
+    @Test
+    public void testLabels() {
+        Ha3ResultArena arena = new Ha3ResultArena();
+        List<String> names = Arrays.asList("id", "name");
+        Ha3ColumnLabels labels = arena.getLabels(names, TYPES);
+        assertSame(labels, arena.getLabels(Arrays.asList("id", "name"), Arrays.asList("int64", "string")));
+        assertEquals(2, labels.find("name"));
+        Ha3ColumnLabels renamed = arena.getLabels(Arrays.asList("id", "title"), TYPES);
+        assertNotSame(labels, renamed);
+        assertEquals(2, renamed.find("title"));
+    }
+
+    @Test
+    public void testLargeStoreNotRetained() {
+        Ha3ResultArena arena = new Ha3ResultArena();
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setArena(arena).build();
+        Ha3ColumnStore store = arena.acquire(Arrays.asList("int64"), options);
+        Ha3Column column = store.getColumn(0);
+        long rows = Ha3ResultArena.MAX_RETAINED_BYTES / 8 + 1;
+        for (long i = 0; i < rows; i++) {
+            column.appendLong(i);
+        }
+        assertTrue(store.estimateBytes() > Ha3ResultArena.MAX_RETAINED_BYTES);
+        store.recycle();
+        assertNotSame(store, arena.acquire(Arrays.asList("int64"), options));
+    }
+
+    @Test
+    public void testOffHeapRelease() {
+        Ha3OffHeapAllocator allocator = new Ha3OffHeapAllocator(new Ha3BufferPool(0));
+        Ha3ResultArena arena = Ha3ResultArena.forCurrentThread();
+        assertSame(arena, Ha3ResultArena.forCurrentThread());
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setArena(arena).setAllocator(allocator).build();
+
+        Ha3ColumnStore store = arena.acquire(TYPES, options);
+        store.getColumn(0).appendLong(1L);
+        store.getColumn(1).appendString("a");
+        assertTrue(allocator.getAllocatedBytes() > 0);
+        // 空闲的列存储保留堆外buffer
+        store.recycle();
+        assertTrue(allocator.getAllocatedBytes() > 0);
+        assertSame(store, arena.acquire(TYPES, options));
+        store.recycle();
+
+        // 连接关闭时释放当前线程中使用该分配器的空闲列存储
+        allocator.close();
+        assertEquals(0L, allocator.getAllocatedBytes());
+        assertNotSame(store, arena.acquire(TYPES, Ha3DecodeOptions.builder().setArena(arena).build()));
+    }
+
+    @Test
+    public void testRelease() {
+        Ha3OffHeapAllocator allocator = new Ha3OffHeapAllocator(new Ha3BufferPool(0));
+        Ha3ResultArena arena = new Ha3ResultArena();
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setArena(arena).setAllocator(allocator).build();
+        Ha3ColumnStore store = arena.acquire(TYPES, options);
+        store.getColumn(0).appendLong(1L);
+        store.recycle();
+        // 重复归还同一个列存储无副作用
+        store.recycle();
+        assertTrue(allocator.getAllocatedBytes() > 0);
+
+        // Statement关闭时释放
+        arena.release();
+        assertEquals(0L, allocator.getAllocatedBytes());
+        assertNotSame(store, arena.acquire(TYPES, options));
+    }
+
+    private static Ha3QueryResult decode(String body, Ha3DecodeOptions options) throws Exception {
+        return Ha3ResultDecoder.decode(new StringReader(body), options);
+    }
+
+    private static String body(int from, int rows) {
+        StringBuilder body = new StringBuilder("{\"sql_result\":{\"column_name\":[\"id\",\"name\"],"
+            + "\"column_type\":[\"int64\",\"string\"],\"data\":[");
+        for (int i = from; i < from + rows; i++) {
+            body.append(i > from ? "," : "").append('[').append(i).append(",\"name-").append(i).append("\"]");
+        }
+        return body.append("]},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}").toString();
+    }
+}
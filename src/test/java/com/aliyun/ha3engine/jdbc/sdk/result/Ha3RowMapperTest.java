@@ -0,0 +1,175 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 通过Ha3RowMapper把结果行映射为DTO
+ */
+public class Ha3RowMapperTest {
+
+    private static final String COLUMNS = "\"column_name\":[\"id\",\"user_name\",\"SCORE\",\"tags\",\"weights\",\"day\","
+        + "\"extra\",\"flag\",\"level\"],\"column_type\":[\"int64\",\"string\",\"double\",\"multi_int64\","
+        + "\"multi_double\",\"string\",\"multi_string\",\"int32\",\"int32\"]";
+
+    private static final String BODY = "{\"sql_result\":{" + COLUMNS + ",\"data\":["
+        + "[1,\"张三\",1.5,[1,2],[0.5],\"2024-01-02\",[\"x\",\"y\"],1,9],"
+        + "[2,null,null,null,null,null,null,0,9],"
+        + "[3,\"c\",3.5,[],[1.5,2.5],\"2024-01-04\",[],1,9]]},"
+        + "\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}";
+
+    @Test
+    public void testMapTo() throws Exception {
+        Ha3ResultSet resultSet = newResultSet(BODY);
+        assertTrue(resultSet.next());
+        Item item = resultSet.mapTo(Item.class);
+        assertEquals(1L, item.id);
+        // 忽略大小写和下划线匹配列名
+        assertEquals("张三", item.userName);
+        assertEquals(1.5D, item.score, 0D);
+        assertArrayEquals(new long[] {1L, 2L}, item.tags);
+        assertEquals(Arrays.asList(0.5D), item.weights);
+        assertEquals(LocalDate.of(2024, 1, 2), item.day);
+        assertEquals(Arrays.asList("x", "y"), item.extra);
+        assertTrue(item.flag);
+        // 没有对应列、static和final的字段保持原值
+        assertEquals("default", item.missing);
+        assertEquals(0, Item.skipped);
+        assertEquals(7, item.constant);
+        // 父类的字段也会绑定
+        assertEquals(9, item.level);
+
+        assertTrue(resultSet.next());
+        Item empty = resultSet.mapTo(Item.class);
+        assertEquals(2L, empty.id);
+        // null单元格不写入字段
+        assertEquals("unset", empty.userName);
+        assertEquals(-1D, empty.score, 0D);
+        assertNull(empty.tags);
+        assertNull(empty.day);
+        assertFalse(empty.flag);
+        resultSet.close();
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        Ha3ResultSet resultSet = newResultSet(BODY);
+        // 从当前行之后开始
+        assertTrue(resultSet.next());
+        List<Long> ids = resultSet.stream(Item.class).map(item -> item.id).collect(Collectors.toList());
+        assertEquals(Arrays.asList(2L, 3L), ids);
+        assertTrue(resultSet.isAfterLast());
+        resultSet.close();
+
+        // 流式结果按窗口读取
+        StringBuilder body = new StringBuilder("{\"sql_result\":{\"column_name\":[\"id\"],\"column_type\":[\"int64\"],"
+            + "\"data\":[");
+        for (int i = 0; i < 2500; i++) {
+            body.append(i > 0 ? "," : "").append('[').append(i).append(']');
+        }
+        body.append("]}}");
+        Ha3ResultSet streaming = new Ha3ResultSet(Ha3RowStream.open(new StringReader(body.toString())), null);
+        assertEquals(2500L * 2499 / 2, streaming.stream(Item.class).mapToLong(item -> item.id).sum());
+        streaming.close();
+    }
+
+    @Test
+    public void testMapperCache() throws Exception {
+        List<String> names = Arrays.asList("id", "user_name");
+        List<String> types = Arrays.asList("int64", "string");
+        Ha3RowMapper<Item> mapper = Ha3RowMapper.of(Item.class, names, types);
+        assertSame(mapper, Ha3RowMapper.of(Item.class, Arrays.asList("id", "user_name"), Arrays.asList("int64", "string")));
+        assertNotSame(mapper, Ha3RowMapper.of(Item.class, names, Arrays.asList("int64", "int64")));
+        assertEquals(Item.class, mapper.getType());
+
+        Ha3ColumnStore store = new Ha3ColumnStore(types);
+        store.appendRow(JsonParser.parseString("[5,\"e\"]").getAsJsonArray());
+        Item item = mapper.map(store, 0);
+        assertEquals(5L, item.id);
+        assertEquals("e", item.userName);
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        Ha3ResultSet resultSet = newResultSet(BODY);
+        assertTrue(resultSet.next());
+        try {
+            resultSet.mapTo(NoDefaultConstructor.class);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().endsWith("has no no-arg or canonical record constructor"));
+        }
+        try {
+            // 非数字的文本无法写入int字段
+            resultSet.mapTo(BadNumber.class);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("Unable to convert value [张三]"));
+            assertTrue(e.getMessage().endsWith(BadNumber.class.getName() + ".userName"));
+        }
+        resultSet.close();
+        try {
+            resultSet.mapTo(Item.class);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertEquals("ResultSet is closed", e.getMessage());
+        }
+    }
+
+    private static Ha3ResultSet newResultSet(String body) throws Exception {
+        return new Ha3ResultSet(Ha3ResultDecoder.decode(new StringReader(body), Ha3DecodeOptions.builder().build()),
+            null);
+    }
+
+    static class Base {
+
+        int level;
+    }
+
+    static class Item extends Base {
+
+        static int skipped;
+
+        long id;
+        String userName = "unset";
+        double score = -1D;
+        long[] tags;
+        List<Double> weights;
+        LocalDate day;
+        List<String> extra;
+        boolean flag;
+        String missing = "default";
+        final int constant = 7;
+    }
+
+    static class NoDefaultConstructor {
+
+        long id;
+
+        NoDefaultConstructor(long id) {
+            this.id = id;
+        }
+    }
+
+    static class BadNumber {
+
+        int userName;
+    }
+}
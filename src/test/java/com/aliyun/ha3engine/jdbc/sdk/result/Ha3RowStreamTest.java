@@ -0,0 +1,179 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.StringReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * decodeMode=streaming时按窗口读取行的结果集
+ */
+public class Ha3RowStreamTest {
+
+    @Test
+    public void testWindows() throws Exception {
+        CloseTrackingReader reader = new CloseTrackingReader(body(2500, true));
+        Ha3QueryResult result = Ha3RowStream.open(reader);
+        assertNotNull(result.getRowStream());
+        // error_info在data之后，行读完后才能得到
+        assertNull(result.getErrorInfo());
+
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        assertEquals(ResultSet.TYPE_FORWARD_ONLY, resultSet.getType());
+        assertEquals(1024, resultSet.getFetchSize());
+        int rows = 0;
+        int maxWindow = 0;
+        while (resultSet.next()) {
+            assertEquals(rows, resultSet.getLong(1));
+            assertEquals("name-" + rows, resultSet.getString(2));
+            assertEquals(rows + 1, resultSet.getRow());
+            maxWindow = Math.max(maxWindow, resultSet.getColumnStore().getRowCount());
+            rows++;
+            if (rows == 2500) {
+                assertTrue(resultSet.isLast());
+            }
+        }
+        assertEquals(2500, rows);
+        assertEquals(1024, maxWindow);
+        assertTrue(resultSet.isAfterLast());
+        assertEquals("done", resultSet.getErrorInfo().getMessage());
+        // 读完后立即关闭响应流
+        assertTrue(reader.closed);
+        resultSet.close();
+    }
+
+    @Test
+    public void testFetchSize() throws Exception {
+        Ha3ResultSet resultSet = new Ha3ResultSet(Ha3RowStream.open(new StringReader(body(350, true))), null);
+        resultSet.setFetchSize(100);
+        assertEquals(100, resultSet.getFetchSize());
+        int rows = 0;
+        while (resultSet.next()) {
+            assertTrue(resultSet.getColumnStore().getRowCount() <= 100);
+            // 行号跨窗口连续
+            assertEquals(rows + 1, resultSet.getRow());
+            rows++;
+        }
+        assertEquals(350, rows);
+        resultSet.close();
+    }
+
+    @Test
+    public void testForwardOnly() throws Exception {
+        Ha3ResultSet resultSet = new Ha3ResultSet(Ha3RowStream.open(new StringReader(body(10, true))), null);
+        assertTrue(resultSet.next());
+        try {
+            resultSet.absolute(1);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertEquals("ResultSet is forward-only", e.getMessage());
+        }
+        try {
+            resultSet.setFetchDirection(ResultSet.FETCH_REVERSE);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("Unsupported fetch direction"));
+        }
+        resultSet.close();
+    }
+
+    @Test
+    public void testCloseAbandonsRemainingRows() throws Exception {
+        CloseTrackingReader reader = new CloseTrackingReader(body(5000, true));
+        Ha3QueryResult result = Ha3RowStream.open(reader);
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        resultSet.setFetchSize(10);
+        for (int i = 0; i < 15; i++) {
+            assertTrue(resultSet.next());
+        }
+        assertFalse(reader.closed);
+        resultSet.close();
+        assertTrue(reader.closed);
+        assertEquals(0, result.getRowStream().fill(new Ha3ColumnStore(Arrays.asList("int64", "string")), 10));
+        try {
+            resultSet.next();
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertEquals("ResultSet is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStringBody() throws Exception {
+        // error_info在data之前，打开时就已经得到
+        Ha3QueryResult result = Ha3RowStream.open(body(1500, false));
+        assertEquals("done", result.getErrorInfo().getMessage());
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        int rows = 0;
+        while (resultSet.next()) {
+            assertEquals("name-" + rows, resultSet.getString("name"));
+            rows++;
+        }
+        assertEquals(1500, rows);
+        resultSet.close();
+    }
+
+    @Test
+    public void testDataBeforeColumns() throws Exception {
+        // 不知道列类型时无法按窗口解码，退化为一次性解码
+        String body = "{\"sql_result\":{\"data\":[[1,\"a\"],[2,\"b\"]],\"column_name\":[\"id\",\"name\"],"
+            + "\"column_type\":[\"int64\",\"string\"]},\"error_info\":{\"ErrorCode\":0,\"Message\":\"done\"}}";
+        Ha3QueryResult result = Ha3RowStream.open(new StringReader(body));
+        assertNull(result.getRowStream());
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        assertTrue(resultSet.next());
+        assertTrue(resultSet.next());
+        assertEquals("b", resultSet.getString(2));
+        assertFalse(resultSet.next());
+        resultSet.close();
+    }
+
+    /**
+     * @param errorAfterData error_info是否在sql_result之后
+     */
+    private static String body(int rows, boolean errorAfterData) {
+        String errorInfo = "\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"done\"}";
+        StringBuilder body = new StringBuilder("{");
+        if (!errorAfterData) {
+            body.append(errorInfo).append(',');
+        }
+        body.append("\"sql_result\":{\"column_name\":[\"id\",\"name\"],\"column_type\":[\"int64\",\"string\"],")
+            .append("\"data\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append('[').append(i).append(",\"name-").append(i).append("\"]");
+        }
+        body.append("],\"search_time\":1}");
+        if (errorAfterData) {
+            body.append(',').append(errorInfo);
+        }
+        return body.append('}').toString();
+    }
+
+    private static final class CloseTrackingReader extends StringReader {
+
+        private boolean closed;
+
+        CloseTrackingReader(String text) {
+            super(text);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.util.Arrays;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 估算大小超过spillThresholdBytes后写入mmap临时文件的结果
+ */
+public class Ha3SpillWriterTest {
+
+    private static final String COLUMNS = "\"column_name\":[\"id\",\"uid\",\"score\",\"name\",\"tags\",\"weights\",\"extra\"],"
+        + "\"column_type\":[\"int64\",\"uint64\",\"double\",\"string\",\"multi_int32\",\"multi_double\",\"multi_string\"]";
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("ha3-spill-test");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void testSpilledValuesMatchInMemory() throws Exception {
+        String body = body(3000, true);
+        Ha3QueryResult spilled = Ha3ResultDecoder.decode(new StringReader(body), spillOptions());
+        assertTrue(spilled.getColumnStore().getColumn(0) instanceof Ha3SpillColumn);
+        assertEquals(2, spillFiles());
+
+        Ha3ResultSet expected = new Ha3ResultSet(Ha3ResultDecoder.decode(new StringReader(body),
+            Ha3DecodeOptions.builder().build()), null);
+        Ha3ResultSet actual = new Ha3ResultSet(spilled, null);
+        checkSameRows(expected, actual, 3000);
+        expected.close();
+        actual.close();
+        // 关闭结果集时删除临时文件
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    public void testColumnsAfterData() throws Exception {
+        // 列类型在data之后时先以json暂存，确定列类型后再重放
+        String body = body(3000, false);
+        Ha3QueryResult spilled = Ha3ResultDecoder.decode(new StringReader(body), spillOptions());
+        assertTrue(spilled.getColumnStore().getColumn(0) instanceof Ha3SpillColumn);
+
+        Ha3ResultSet expected = new Ha3ResultSet(Ha3ResultDecoder.decode(new StringReader(body),
+            Ha3DecodeOptions.builder().build()), null);
+        Ha3ResultSet actual = new Ha3ResultSet(spilled, null);
+        checkSameRows(expected, actual, 3000);
+        expected.close();
+        actual.close();
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    public void testBelowThreshold() throws Exception {
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setSpillThresholdBytes(1L << 30)
+            .setSpillDirectory(directory.toString()).build();
+        Ha3QueryResult result = Ha3ResultDecoder.decode(new StringReader(body(3000, true)), options);
+        assertFalse(result.getColumnStore().getColumn(0) instanceof Ha3SpillColumn);
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    public void testWriterAndRelease() throws Exception {
+        Ha3ColumnStore source = new Ha3ColumnStore(Arrays.asList("int32", "string"));
+        source.appendRow(JsonParser.parseString("[7,\"中文\"]").getAsJsonArray());
+        source.appendRow(JsonParser.parseString("[null,null]").getAsJsonArray());
+
+        Ha3SpillWriter writer = new Ha3SpillWriter(Arrays.asList("int32", "string"), directory.toString());
+        writer.writeRow(source, 0);
+        writer.writeRow(source, 1);
+        assertEquals(2, writer.getRowCount());
+        Ha3ColumnStore store = writer.finish();
+        assertEquals(2, store.getRowCount());
+        assertEquals(7, store.getColumn(0).getInt(0));
+        assertEquals("中文", store.getColumn(1).getString(0));
+        assertTrue(store.getColumn(0).isNull(1));
+        assertNull(store.getColumn(1).getString(1));
+
+        store.release();
+        assertEquals(0, spillFiles());
+        // 重复释放无副作用，释放后不能再读取
+        store.release();
+        try {
+            store.getColumn(0).getInt(0);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Spill file has been released", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        Ha3SpillWriter writer = new Ha3SpillWriter(Arrays.asList("int64"), directory.toString());
+        assertEquals(2, spillFiles());
+        writer.abort();
+        assertEquals(0, spillFiles());
+    }
+
+    private Ha3DecodeOptions spillOptions() {
+        return Ha3DecodeOptions.builder().setSpillThresholdBytes(1).setSpillDirectory(directory.toString()).build();
+    }
+
+    private int spillFiles() {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.startsWith("ha3-spill-"));
+        return files == null ? 0 : files.length;
+    }
+
+    private static void checkSameRows(Ha3ResultSet expected, Ha3ResultSet actual, int rows) throws Exception {
+        int count = 0;
+        while (expected.next()) {
+            assertTrue(actual.next());
+            for (int column = 1; column <= 4; column++) {
+                assertEquals(expected.getString(column), actual.getString(column));
+            }
+            assertEquals(expected.getLong(2), actual.getLong(2));
+            assertEquals(expected.getDouble(3), actual.getDouble(3), 0D);
+            checkSameArray(expected.getArray(5), actual.getArray(5));
+            checkSameArray(expected.getArray(6), actual.getArray(6));
+            assertEquals(expected.getString(7), actual.getString(7));
+            count++;
+        }
+        assertFalse(actual.next());
+        assertEquals(rows, count);
+    }
+
+    private static void checkSameArray(Array expected, Array actual) throws Exception {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        Object expectedValues = expected.getArray();
+        Object actualValues = actual.getArray();
+        if (expectedValues instanceof int[]) {
+            assertTrue(Arrays.equals((int[])expectedValues, (int[])actualValues));
+        } else {
+            assertArrayEquals((double[])expectedValues, (double[])actualValues, 0D);
+        }
+    }
+
+    /**
+     * 每7行一个null行，覆盖null单元格、无符号值、多字节字符和多值列
+     *
+     * @param columnsFirst column_name和column_type是否在data之前
+     */
+    private static String body(int rows, boolean columnsFirst) {
+        StringBuilder body = new StringBuilder("{\"sql_result\":{");
+        if (columnsFirst) {
+            body.append(COLUMNS).append(',');
+        }
+        body.append("\"data\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            if (i % 7 == 0) {
+                body.append("[null,null,null,null,null,null,null]");
+                continue;
+            }
+            body.append('[').append(i)
+                .append(',').append(i % 3 == 0 ? "18446744073709551615" : Long.toString(i))
+                .append(',').append(i * 0.1D)
+                .append(",\"名字-").append(i).append('"')
+                .append(",[").append(i).append(',').append(-i).append(']')
+                .append(",[").append(i * 0.5D).append(']')
+                .append(",[\"a").append(i).append("\",\"b\"]")
+                .append(']');
+        }
+        body.append(']');
+        if (!columnsFirst) {
+            body.append(',').append(COLUMNS);
+        }
+        body.append("},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}");
+        return body.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.StringReader;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * string列的字典编码，以及不同值过多时转为char[]存储
+ */
+public class Ha3StringColumnTest {
+
+    private static final String[] CITIES = {"杭州", "北京", "", "上海"};
+
+    @Test
+    public void testDictionary() {
+        Ha3StringColumn column = new Ha3StringColumn();
+        for (int row = 0; row < 5000; row++) {
+            if (row % 5 == 4) {
+                column.appendNull();
+            } else {
+                // 每次都是新的String实例
+                column.appendString(new String(CITIES[row % 5 % 4]));
+            }
+        }
+        Ha3StringDictionary dictionary = column.getDictionary();
+        assertNotNull(dictionary);
+        assertEquals(5000, dictionary.getRowCount());
+        assertEquals(Arrays.asList(CITIES), dictionary.getValues());
+        for (int row = 0; row < 5000; row++) {
+            if (row % 5 == 4) {
+                assertEquals(-1, dictionary.getCode(row));
+                assertTrue(column.isNull(row));
+                assertNull(column.getString(row));
+                continue;
+            }
+            assertEquals(row % 5 % 4, dictionary.getCode(row));
+            assertEquals(CITIES[row % 5 % 4], column.getString(row));
+        }
+        // 相同的值共享同一个实例
+        assertSame(column.getString(0), column.getString(5));
+
+        IntBuffer codes = dictionary.getCodes();
+        assertTrue(codes.isReadOnly());
+        try {
+            dictionary.getValues().set(0, "x");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // 视图不可修改
+        }
+    }
+
+    @Test
+    public void testHighCardinalityFallsBackToChars() {
+        Ha3StringColumn column = new Ha3StringColumn();
+        for (int row = 0; row < 1023; row++) {
+            appendUnique(column, row);
+        }
+        // 检查在行数达到1024的整数倍时进行
+        assertNotNull(column.getDictionary());
+        for (int row = 1023; row < 3000; row++) {
+            appendUnique(column, row);
+        }
+        assertNull(column.getDictionary());
+        assertEquals(3000, column.size());
+        for (int row = 0; row < 3000; row++) {
+            if (row % 10 == 3) {
+                assertNull(column.getString(row));
+            } else if (row % 10 == 7) {
+                assertEquals("", column.getString(row));
+                assertEquals(0L, column.getLong(row));
+            } else {
+                assertEquals(Integer.toString(row), column.getString(row));
+                assertEquals(row, column.getLong(row));
+            }
+        }
+        // 转换后清空的列不再重新建立字典
+        column.clear();
+        column.appendString("a");
+        assertNull(column.getDictionary());
+        assertEquals("a", column.getString(0));
+    }
+
+    @Test
+    public void testClearRebuildsDictionary() {
+        Ha3StringColumn column = new Ha3StringColumn();
+        column.appendString("a");
+        column.appendString("b");
+        column.clear();
+        column.appendString("c");
+        column.appendString("c");
+        Ha3StringDictionary dictionary = column.getDictionary();
+        assertEquals(Arrays.asList("c"), dictionary.getValues());
+        assertEquals(2, dictionary.getRowCount());
+        assertEquals(0, dictionary.getCode(1));
+    }
+
+    @Test
+    public void testAppendAll() {
+        Ha3StringColumn first = new Ha3StringColumn();
+        first.appendString("a");
+        first.appendString("b");
+        Ha3StringColumn second = new Ha3StringColumn();
+        second.appendString("b");
+        second.appendNull();
+        second.appendString("c");
+
+        // 两列都是字典编码时按字典重新编码
+        first.appendAll(second);
+        Ha3StringDictionary dictionary = first.getDictionary();
+        assertEquals(Arrays.asList("a", "b", "c"), dictionary.getValues());
+        assertEquals(5, first.size());
+        assertEquals(1, dictionary.getCode(2));
+        assertEquals(-1, dictionary.getCode(3));
+        assertTrue(first.isNull(3));
+        assertEquals("c", first.getString(4));
+
+        // char[]存储的列按行追加
+        Ha3StringColumn chars = new Ha3StringColumn();
+        for (int row = 0; row < 1024; row++) {
+            chars.appendString(Integer.toString(row));
+        }
+        assertNull(chars.getDictionary());
+        chars.appendAll(second);
+        assertEquals(1027, chars.size());
+        assertEquals("b", chars.getString(1024));
+        assertNull(chars.getString(1025));
+        assertEquals("c", chars.getString(1026));
+    }
+
+    @Test
+    public void testResultSetDictionary() throws Exception {
+        StringBuilder body = new StringBuilder("{\"sql_result\":{\"column_name\":[\"id\",\"city\"],"
+            + "\"column_type\":[\"int64\",\"string\"],\"data\":[");
+        for (int row = 0; row < 100; row++) {
+            body.append(row > 0 ? "," : "").append('[').append(row).append(",\"").append(CITIES[row % 4]).append("\"]");
+        }
+        body.append("]},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}");
+        Ha3ResultSet resultSet = new Ha3ResultSet(Ha3ResultDecoder.decode(new StringReader(body.toString()),
+            Ha3DecodeOptions.builder().build()), null);
+
+        Ha3StringDictionary dictionary = resultSet.unwrap(Ha3ResultSet.class).getStringDictionary("city");
+        assertEquals(100, dictionary.getRowCount());
+        assertEquals(4, dictionary.size());
+        assertNull(resultSet.getStringDictionary(1));
+        while (resultSet.next()) {
+            assertEquals(resultSet.getString(2), dictionary.getValues().get(dictionary.getCode(resultSet.getRow() - 1)));
+        }
+        resultSet.close();
+    }
+
+    /**
+     * 每行一个不同的值，行号个位为3时为null、为7时为空串
+     */
+    private static void appendUnique(Ha3StringColumn column, int row) {
+        if (row % 10 == 3) {
+            column.appendNull();
+        } else if (row % 10 == 7) {
+            column.appendString("");
+        } else {
+            column.appendString(Integer.toString(row));
+        }
+    }
+}
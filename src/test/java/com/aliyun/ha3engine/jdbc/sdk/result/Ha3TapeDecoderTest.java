@@ -0,0 +1,84 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.util.Arrays;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ha3TapeDecoder和Ha3LazyColumn的解码结果
+ */
+public class Ha3TapeDecoderTest {
+
+    @Test
+    public void testDecodeCells() throws Exception {
+        String body = "{\"sql_result\":{\"column_name\":[\"id\",\"name\",\"score\",\"tags\"],"
+            + "\"column_type\":[\"int64\",\"string\",\"double\",\"multi_int32\"],"
+            + "\"data\":[[1,\"a\\\"b\\\\c\\n\\u4e16\",1.5,[1,2]],[\"2\",\"plain\",\"2.5\",[]],[3,null,null,null]]},"
+            + "\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}";
+        Ha3QueryResult result = Ha3TapeDecoder.decode(body);
+        assertEquals(Arrays.asList("id", "name", "score", "tags"), result.getColumnNames());
+        assertEquals(0L, result.getErrorInfo().getErrorCode());
+
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        assertTrue(resultSet.next());
+        assertEquals(1L, resultSet.getLong(1));
+        assertEquals("a\"b\\c\n世", resultSet.getString(2));
+        assertEquals(1.5D, resultSet.getDouble(3), 0D);
+        assertEquals("[1,2]", resultSet.getString(4));
+        assertTrue(resultSet.next());
+        assertEquals(2L, resultSet.getLong(1));
+        assertEquals("plain", resultSet.getString(2));
+        assertEquals(2.5D, resultSet.getDouble(3), 0D);
+        assertTrue(resultSet.next());
+        assertNull(resultSet.getString(2));
+        assertTrue(resultSet.wasNull());
+        assertFalse(resultSet.next());
+        resultSet.close();
+    }
+
+    /**
+     * 没有转义的字符串只在引号之间查找反斜杠，解码时间与body长度成正比
+     */
+    @Test(timeout = 20000)
+    public void testLargeBodyWithoutEscapes() throws Exception {
+        int rows = 160000;
+        StringBuilder body = new StringBuilder(rows * 64);
+        body.append("{\"sql_result\":{\"column_name\":[\"id\",\"name\",\"title\"],")
+            .append("\"column_type\":[\"int64\",\"string\",\"string\"],\"data\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append('[').append(i).append(",\"name-").append(i).append("\",\"title-").append(i)
+                .append("-abcdefghijklmnopqrstuvwxyz\"]");
+        }
+        // 唯一的反斜杠在body末尾，indexOf会从每个单元格一直扫描到这里
+        body.append("]},\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"a\\\\b\"}}");
+
+        Ha3QueryResult result = Ha3TapeDecoder.decode(body.toString());
+        assertEquals("a\\b", result.getErrorInfo().getMessage());
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        int count = 0;
+        while (resultSet.next()) {
+            assertEquals("name-" + count, resultSet.getString(2));
+            assertEquals("title-" + count + "-abcdefghijklmnopqrstuvwxyz", resultSet.getString(3));
+            count++;
+        }
+        assertEquals(rows, count);
+        resultSet.close();
+    }
+
+    @Test
+    public void testUnescapeStaysWithinCell() {
+        String text = "\"abc\",\"d\\te\"";
+        assertEquals("abc", Ha3TapeDecoder.unescape(text, 0, 5));
+        assertEquals("d\te", Ha3TapeDecoder.unescape(text, 6, text.length()));
+        assertEquals("", Ha3TapeDecoder.unescape("\"\"\\n", 0, 2));
+    }
+}
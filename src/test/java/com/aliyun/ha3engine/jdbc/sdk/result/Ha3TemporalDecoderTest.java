@@ -0,0 +1,169 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.StringReader;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 与java.time的ISO解析对比Ha3TemporalDecoder的结果
+ */
+public class Ha3TemporalDecoderTest {
+
+    private static final ZoneId SHANGHAI = ZoneId.of("Asia/Shanghai");
+
+    @Test
+    public void testFormats() {
+        assertEquals(LocalDate.of(2024, 2, 29), decode("2024-02-29"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), decode("2024-01-02 03:04:05"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), decode("2024-01-02T03:04:05"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 120000000), decode("2024-01-02 03:04:05.12"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456789), decode("2024-01-02 03:04:05.123456789"));
+        assertEquals(LocalTime.of(23, 59, 58, 1000000), decode("23:59:58.001"));
+        assertEquals(Instant.parse("2024-01-02T03:04:05Z"), decode("2024-01-02T03:04:05Z"));
+        assertEquals(Instant.parse("2024-01-01T19:04:05Z"), decode("2024-01-02 03:04:05+08:00"));
+        assertEquals(Instant.parse("2024-01-02T11:04:05.5Z"), decode("2024-01-02T03:04:05.5-0800"));
+        assertEquals(Instant.parse("2024-01-02T00:04:05Z"), decode("2024-01-02T03:04:05+03"));
+        assertEquals(Instant.ofEpochMilli(1700000000123L), decode("1700000000123"));
+        assertEquals(Instant.ofEpochMilli(-1L), decode("-1"));
+        assertNull(decode(""));
+    }
+
+    @Test
+    public void testIsoFallback() {
+        // 快速路径不识别的格式交给java.time
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4), decode("2024-01-02T03:04"));
+        assertEquals(LocalTime.of(3, 4), decode("03:04"));
+        assertEquals(OffsetDateTime.parse("2024-01-02T03:04+05:30").toInstant(), decode("2024-01-02T03:04+05:30"));
+        for (String text : new String[] {"2024/01/02", "yesterday", "2024-13-01", "25:00:00", "2024-01-02 03:04:05.1234567890"}) {
+            try {
+                decode(text);
+                fail("expected DateTimeException: " + text);
+            } catch (DateTimeException e) {
+                // 无法识别的格式
+            }
+        }
+    }
+
+    @Test
+    public void testRandomDateTimes() {
+        Random random = new Random(20261017L);
+        for (int i = 0; i < 20000; i++) {
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(random.nextInt(Integer.MAX_VALUE) * 2L - Integer.MAX_VALUE,
+                random.nextInt(1000000000), ZoneOffset.UTC);
+            String text = dateTime.toString();
+            Object expected = LocalDateTime.parse(text);
+            if (random.nextBoolean()) {
+                text = text.replace('T', ' ');
+            }
+            assertEquals(text, expected, decode(text));
+
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(36) - 18) * 1800);
+            String offsetText = OffsetDateTime.of(dateTime, offset).toString();
+            assertEquals(offsetText, OffsetDateTime.parse(offsetText).toInstant(), decode(offsetText));
+        }
+    }
+
+    @Test
+    public void testFormatSwitch() {
+        // 同一列中的格式变化后重新识别
+        Ha3StringColumn column = new Ha3StringColumn();
+        column.appendString("2024-01-02");
+        column.appendString("2024-01-02 03:04:05");
+        column.appendString("1700000000000");
+        column.appendNull();
+        column.appendString("2024-01-03");
+        Ha3TemporalDecoder decoder = new Ha3TemporalDecoder();
+        assertEquals(LocalDate.of(2024, 1, 2), decoder.decode(column, 0));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), decoder.decode(column, 1));
+        assertEquals(Instant.ofEpochMilli(1700000000000L), decoder.decode(column, 2));
+        assertNull(decoder.decode(column, 3));
+        assertEquals(LocalDate.of(2024, 1, 3), decoder.decode(column, 4));
+    }
+
+    @Test
+    public void testNumericColumns() {
+        Ha3LongColumn longs = new Ha3LongColumn();
+        longs.appendLong(86400000L);
+        Ha3DoubleColumn doubles = new Ha3DoubleColumn();
+        doubles.appendDouble(1500.9D);
+        Ha3TemporalDecoder decoder = new Ha3TemporalDecoder();
+        assertEquals(Instant.ofEpochMilli(86400000L), decoder.decode(longs, 0));
+        assertEquals(Instant.ofEpochMilli(1500L), decoder.decode(doubles, 0));
+        assertEquals(LocalDate.of(1970, 1, 2), decoder.decode(longs, 0, LocalDate.class, ZoneOffset.UTC));
+        assertEquals(LocalDateTime.of(1970, 1, 2, 8, 0), decoder.decode(longs, 0, LocalDateTime.class, SHANGHAI));
+    }
+
+    @Test
+    public void testConvert() {
+        Ha3StringColumn column = new Ha3StringColumn();
+        column.appendString("2024-01-02 03:04:05.678");
+        Ha3TemporalDecoder decoder = new Ha3TemporalDecoder();
+        Instant instant = Instant.parse("2024-01-01T19:04:05.678Z");
+        assertEquals(instant, decoder.decode(column, 0, Instant.class, SHANGHAI));
+        assertEquals(Timestamp.from(instant), decoder.decode(column, 0, Timestamp.class, SHANGHAI));
+        assertEquals(Timestamp.from(instant), decoder.decode(column, 0, java.util.Date.class, SHANGHAI));
+        assertEquals(OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 678000000, ZoneOffset.ofHours(8)),
+            decoder.decode(column, 0, OffsetDateTime.class, SHANGHAI));
+        assertEquals(LocalTime.of(3, 4, 5, 678000000), decoder.decode(column, 0, LocalTime.class, SHANGHAI));
+        // Date为当天零点，Time不保留毫秒
+        assertEquals(Instant.parse("2024-01-01T16:00:00Z").toEpochMilli(),
+            decoder.decode(column, 0, Date.class, SHANGHAI).getTime());
+        assertEquals(Instant.parse("1969-12-31T19:04:05Z").toEpochMilli(),
+            decoder.decode(column, 0, Time.class, SHANGHAI).getTime());
+        assertTrue(Ha3TemporalDecoder.isTemporalType(LocalDate.class));
+        assertFalse(Ha3TemporalDecoder.isTemporalType(String.class));
+    }
+
+    @Test
+    public void testResultSet() throws Exception {
+        String body = "{\"sql_result\":{\"column_name\":[\"ts\",\"day\"],\"column_type\":[\"int64\",\"string\"],"
+            + "\"data\":[[0,\"2024-01-02 03:04:05\"],[null,\"bad\"]]},"
+            + "\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}";
+        Ha3ResultSet resultSet = new Ha3ResultSet(Ha3ResultDecoder.decode(new StringReader(body),
+            Ha3DecodeOptions.builder().build()), null);
+        assertTrue(resultSet.next());
+        assertEquals(new Timestamp(0L), resultSet.getTimestamp(1));
+        assertEquals(LocalDate.of(2024, 1, 2), resultSet.getObject(2, LocalDate.class));
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        assertEquals(Timestamp.from(Instant.parse("2024-01-02T03:04:05Z")), resultSet.getTimestamp(2, utc));
+
+        assertTrue(resultSet.next());
+        assertNull(resultSet.getTimestamp(1));
+        assertTrue(resultSet.wasNull());
+        try {
+            resultSet.getTimestamp(2);
+            fail("expected SQLException");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("Unable to convert value [bad]"));
+        }
+        resultSet.close();
+    }
+
+    private static Object decode(String text) {
+        Ha3StringColumn column = new Ha3StringColumn();
+        column.appendString(text);
+        return new Ha3TemporalDecoder().decode(column, 0);
+    }
+}
@@ -0,0 +1,137 @@
+package com.aliyun.ha3engine.jdbc.sdk.result;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.aliyun.ha3engine.jdbc.Ha3ResultSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * stringStorage=utf8时以UTF-8字节保存的string列
+ */
+public class Ha3Utf8StringColumnTest {
+
+    /**
+     * 覆盖1到4字节的编码，以及不成对的代理字符
+     */
+    private static final String[] VALUES = {
+        "abc", "", "é", "中文", "😀", "a😀bÿࠀ", "\uD800", "x\uDC00y", "\uD83D"
+    };
+
+    @Test
+    public void testEncodingMatchesGetBytes() {
+        Ha3Utf8StringColumn column = new Ha3Utf8StringColumn(false);
+        for (String value : VALUES) {
+            column.appendString(value);
+        }
+        column.appendNull();
+        for (int row = 0; row < VALUES.length; row++) {
+            byte[] expected = VALUES[row].getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, column.getBytes(row));
+            assertEquals(new String(expected, StandardCharsets.UTF_8), column.getString(row));
+        }
+        assertTrue(column.isNull(VALUES.length));
+        assertNull(column.getBytes(VALUES.length));
+        assertNull(column.getString(VALUES.length));
+        // 每次返回新的数组，调用方修改不影响列
+        column.getBytes(0)[0] = 'z';
+        assertEquals("abc", column.getString(0));
+    }
+
+    @Test
+    public void testAppendUtf8() {
+        byte[] encoded = "--中文--".getBytes(StandardCharsets.UTF_8);
+        Ha3Utf8StringColumn column = new Ha3Utf8StringColumn(false);
+        column.appendUtf8(ByteBuffer.wrap(encoded), 2, 6);
+        // 堆外buffer同样直接复制字节
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.put(encoded).flip();
+        column.appendUtf8(direct, 0, 2);
+        assertEquals("中文", column.getString(0));
+        assertEquals("--", column.getString(1));
+        assertEquals(2, column.size());
+    }
+
+    @Test
+    public void testCacheStrings() {
+        Ha3Utf8StringColumn cached = new Ha3Utf8StringColumn(true);
+        Ha3Utf8StringColumn uncached = new Ha3Utf8StringColumn(false);
+        for (int row = 0; row < 100; row++) {
+            cached.appendString("v" + row);
+            uncached.appendString("v" + row);
+        }
+        assertSame(cached.getString(42), cached.getString(42));
+        assertNotSame(uncached.getString(42), uncached.getString(42));
+        assertEquals(uncached.getString(42), cached.getString(42));
+
+        // 缓存数组随行数增长，清空后不会返回上一批的值
+        cached.appendString("tail");
+        assertEquals("tail", cached.getString(100));
+        cached.clear();
+        cached.appendString("new");
+        assertEquals("new", cached.getString(0));
+    }
+
+    @Test
+    public void testNumbers() {
+        Ha3Utf8StringColumn column = new Ha3Utf8StringColumn(false);
+        column.appendString("42");
+        column.appendString("");
+        column.appendString("1.5");
+        assertEquals(42L, column.getLong(0));
+        assertEquals(42, column.getInt(0));
+        assertEquals(0L, column.getLong(1));
+        assertEquals(0D, column.getDouble(1), 0D);
+        assertEquals(1.5D, column.getDouble(2), 0D);
+    }
+
+    @Test
+    public void testCopyUtf8ReferencesColumnData() {
+        Ha3Utf8StringColumn column = new Ha3Utf8StringColumn(false);
+        column.appendString("a");
+        column.appendNull();
+        column.appendString("中文");
+        Ha3Utf8Slices slices = new Ha3Utf8Slices(3);
+        column.copyUtf8(0, slices, 3);
+        assertEquals("a", slices.getString(0));
+        assertTrue(slices.isNull(1));
+        assertEquals(-1, slices.getLength(1));
+        assertEquals(6, slices.getLength(2));
+        assertEquals("中文", slices.getString(2));
+        ByteBuffer data = slices.getData();
+        assertTrue(data.isReadOnly());
+        assertEquals((byte)'a', data.get(slices.getOffset(0)));
+    }
+
+    @Test
+    public void testResultSet() throws Exception {
+        String body = "{\"sql_result\":{\"column_name\":[\"id\",\"name\"],\"column_type\":[\"int64\",\"string\"],"
+            + "\"data\":[[1,\"中文\"],[2,null],[3,\"\\ud83d\\ude00\"]]},"
+            + "\"error_info\":{\"ErrorCode\":0,\"Error\":\"ERROR_NONE\",\"Message\":\"\"}}";
+        Ha3DecodeOptions options = Ha3DecodeOptions.builder().setUtf8Strings(true).build();
+        Ha3QueryResult result = Ha3ResultDecoder.decode(new StringReader(body), options);
+        assertTrue(result.getColumnStore().getColumn(1) instanceof Ha3Utf8StringColumn);
+
+        Ha3ResultSet resultSet = new Ha3ResultSet(result, null);
+        assertTrue(resultSet.next());
+        assertArrayEquals("中文".getBytes(StandardCharsets.UTF_8), resultSet.getBytes(2));
+        assertFalse(resultSet.wasNull());
+        assertEquals("中文", resultSet.getString("name"));
+        assertTrue(resultSet.next());
+        assertNull(resultSet.getBytes(2));
+        assertTrue(resultSet.wasNull());
+        assertTrue(resultSet.next());
+        assertEquals("😀", resultSet.getString(2));
+        assertEquals(4, resultSet.getBytes(2).length);
+        resultSet.close();
+    }
+}